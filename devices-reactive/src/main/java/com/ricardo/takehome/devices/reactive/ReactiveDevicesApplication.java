@@ -0,0 +1,13 @@
+package com.ricardo.takehome.devices.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class ReactiveDevicesApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(ReactiveDevicesApplication.class, args);
+	}
+
+}
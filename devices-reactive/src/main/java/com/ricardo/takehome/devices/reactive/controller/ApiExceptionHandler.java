@@ -0,0 +1,64 @@
+package com.ricardo.takehome.devices.reactive.controller;
+
+import com.ricardo.takehome.devices.reactive.dto.ErrorResponse;
+import com.ricardo.takehome.devices.reactive.service.DeviceNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.util.stream.Collectors;
+
+@Slf4j
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleNotFound(DeviceNotFoundException ex) {
+        log.warn("Not found: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse("NOT_FOUND", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleIllegalStateException(IllegalStateException ex) {
+        log.warn("Conflict: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse("CONFLICT", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        log.warn("Concurrent modification: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse("CONFLICT", "Device was modified concurrently, retry with its current version");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleIllegalArgumentException(IllegalArgumentException ex) {
+        log.warn("Bad request: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse("BAD_REQUEST", ex.getMessage());
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleValidation(WebExchangeBindException e) {
+        String message = e.getBindingResult().getFieldErrors().stream()
+                .map(err -> err.getField() + ": " + err.getDefaultMessage())
+                .collect(Collectors.joining(", "));
+        log.warn("Validation failed: {}", message);
+        ErrorResponse error = new ErrorResponse("BAD_REQUEST", message);
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleInput(ServerWebInputException e) {
+        log.warn("Bad request: {}", e.getReason());
+        ErrorResponse error = new ErrorResponse("BAD_REQUEST", e.getReason());
+        return ResponseEntity.badRequest().body(error);
+    }
+}
@@ -0,0 +1,108 @@
+package com.ricardo.takehome.devices.reactive.controller;
+
+import com.ricardo.takehome.devices.reactive.dto.CreateDeviceRequest;
+import com.ricardo.takehome.devices.reactive.dto.DeviceResponse;
+import com.ricardo.takehome.devices.reactive.dto.UpdateDeviceRequest;
+import com.ricardo.takehome.devices.reactive.model.DeviceState;
+import com.ricardo.takehome.devices.reactive.repository.DeviceQueries;
+import com.ricardo.takehome.devices.reactive.service.ReactiveDeviceService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/devices")
+@RequiredArgsConstructor
+@Tag(name = "Device API", description = "Device management operations")
+public class ReactiveDeviceController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReactiveDeviceService deviceService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "Create a new device")
+    public Mono<DeviceResponse> create(@Valid @RequestBody CreateDeviceRequest request) {
+        log.info("Creating device: name={}, brand={}", request.name(), request.brand());
+        return deviceService.create(request).map(DeviceResponse::from);
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get device by ID")
+    public Mono<DeviceResponse> getById(@PathVariable Long id) {
+        log.info("Fetching device id={}", id);
+        return deviceService.getById(id).map(DeviceResponse::from);
+    }
+
+    /**
+     * A page is bounded by {@code limit}, so it is collected to compute the cursor header; unbounded
+     * reads go through the NDJSON stream instead.
+     */
+    @GetMapping
+    @Operation(summary = "Get a page of devices with optional filters",
+            description = "Pages are ordered by 'sort' (id or creationTime) and 'direction' (asc or desc), ties broken by id. "
+                    + "Pass the X-Next-Cursor response header, an opaque token, as 'after' to fetch the next page.")
+    public Mono<ResponseEntity<List<DeviceResponse>>> getAll(
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) DeviceState state,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        log.info("Fetching devices with filters: brand={}, state={}, sort={} {}, after={}, limit={}",
+                brand, state, sort, direction, after, pageSize);
+        return deviceService.getPage(brand, state, sort, direction, after, pageSize + 1)
+                .map(DeviceResponse::from)
+                .collectList()
+                .map(devices -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if (devices.size() > pageSize) {
+                        devices = devices.subList(0, pageSize);
+                        DeviceResponse last = devices.getLast();
+                        response.header(NEXT_CURSOR_HEADER,
+                                DeviceQueries.cursorAfter(last.id(), last.creationTime(), sort));
+                    }
+                    return response.body(devices);
+                });
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all devices as newline-delimited JSON")
+    public Flux<DeviceResponse> streamAll(
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) DeviceState state) {
+        log.info("Streaming devices with filters: brand={}, state={}", brand, state);
+        return deviceService.streamAll(brand, state).map(DeviceResponse::from);
+    }
+
+    @PatchMapping("/{id}")
+    @Operation(summary = "Update a device")
+    public Mono<DeviceResponse> update(
+            @PathVariable Long id,
+            @RequestBody UpdateDeviceRequest request) {
+        log.info("Updating device id={}", id);
+        return deviceService.update(id, request).map(DeviceResponse::from);
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @Operation(summary = "Delete a device")
+    public Mono<Void> delete(@PathVariable Long id) {
+        log.info("Deleting device id={}", id);
+        return deviceService.delete(id);
+    }
+}
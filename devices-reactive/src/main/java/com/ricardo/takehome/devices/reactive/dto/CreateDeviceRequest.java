@@ -0,0 +1,11 @@
+package com.ricardo.takehome.devices.reactive.dto;
+
+import com.ricardo.takehome.devices.reactive.model.DeviceState;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+public record CreateDeviceRequest(
+    @NotBlank String name,
+    @NotBlank String brand,
+    @NotNull DeviceState state
+) {}
@@ -0,0 +1,21 @@
+package com.ricardo.takehome.devices.reactive.dto;
+
+import com.ricardo.takehome.devices.reactive.model.Device;
+import com.ricardo.takehome.devices.reactive.model.DeviceState;
+import java.time.Instant;
+
+public record DeviceResponse(
+    Long id, String name, String brand,
+    DeviceState state, Instant creationTime
+) {
+
+  public static DeviceResponse from(Device device) {
+    return new DeviceResponse(
+        device.getId(),
+        device.getName(),
+        device.getBrand(),
+        device.getState(),
+        device.getCreationTime()
+    );
+  }
+}
@@ -0,0 +1,6 @@
+package com.ricardo.takehome.devices.reactive.dto;
+
+public record ErrorResponse(
+        String code,
+        String message
+) {}
@@ -0,0 +1,9 @@
+package com.ricardo.takehome.devices.reactive.dto;
+
+import com.ricardo.takehome.devices.reactive.model.DeviceState;
+
+public record UpdateDeviceRequest(
+    String name,
+    String brand,
+    DeviceState state
+) {}
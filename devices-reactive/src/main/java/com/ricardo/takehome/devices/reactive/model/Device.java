@@ -0,0 +1,41 @@
+package com.ricardo.takehome.devices.reactive.model;
+
+import java.time.Instant;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Row of the {@code devices} table shared with the servlet application, which owns the schema.
+ * The state rules must stay identical to the servlet {@code Device}; the contract suite checks it.
+ * Writes bump {@code version} and {@code lastModifiedTime} like the servlet side, which serves
+ * them as ETag and Last-Modified.
+ */
+@Table("devices")
+@Data
+public class Device {
+  @Id
+  private Long id;
+
+  private String name;
+
+  private String brand;
+
+  private DeviceState state;
+
+  private Instant creationTime;
+
+  private Instant lastModifiedTime;
+
+  @Version
+  private Long version;
+
+  public boolean canBeDeleted() {
+    return state != DeviceState.IN_USE;
+  }
+
+  public boolean canUpdateNameAndBrand() {
+    return state != DeviceState.IN_USE;
+  }
+}
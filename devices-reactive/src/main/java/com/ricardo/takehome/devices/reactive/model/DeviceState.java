@@ -0,0 +1,7 @@
+package com.ricardo.takehome.devices.reactive.model;
+
+public enum DeviceState {
+  AVAILABLE,
+  IN_USE,
+  INACTIVE
+}
@@ -0,0 +1,43 @@
+package com.ricardo.takehome.devices.reactive.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * The keyset position of the last row of a page, written the same way as the servlet
+ * application's {@code DeviceCursor}: an opaque token of creation time and id for creation time
+ * orderings, so the next page does not depend on that row still existing, and the plain id
+ * otherwise.
+ */
+public record DeviceCursor(long id, Instant creationTime) {
+
+  private static final char SEPARATOR = ',';
+
+  public static DeviceCursor after(long id, Instant creationTime, boolean byCreationTime) {
+    return new DeviceCursor(id, byCreationTime ? creationTime : null);
+  }
+
+  public static DeviceCursor parse(String value, boolean byCreationTime) {
+    try {
+      if (!byCreationTime) {
+        return new DeviceCursor(Long.parseLong(value), null);
+      }
+      String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.US_ASCII);
+      int separator = decoded.lastIndexOf(SEPARATOR);
+      return new DeviceCursor(Long.parseLong(decoded.substring(separator + 1)),
+          Instant.parse(decoded.substring(0, separator)));
+    } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Invalid cursor: " + value);
+    }
+  }
+
+  public String format() {
+    if (creationTime == null) {
+      return String.valueOf(id);
+    }
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString((creationTime.toString() + SEPARATOR + id).getBytes(StandardCharsets.US_ASCII));
+  }
+}
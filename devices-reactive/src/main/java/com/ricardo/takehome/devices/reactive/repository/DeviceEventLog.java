@@ -0,0 +1,64 @@
+package com.ricardo.takehome.devices.reactive.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ricardo.takehome.devices.reactive.service.DeviceChangedEvent;
+import io.r2dbc.spi.ConnectionFactory;
+import java.io.UncheckedIOException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Appends to the servlet application's {@code device_events} log, with the same stamping rules: on
+ * PostgreSQL {@code created_at} comes from {@code clock_timestamp()} once the id is taken, on H2
+ * from this instance's clock after the insert. Must run in the writing transaction, as its last
+ * statement, so the time from taking a position to committing it stays within the servlet side's
+ * settle delay.
+ */
+@Repository
+public class DeviceEventLog {
+
+  private static final String INSERT_POSTGRESQL = "INSERT INTO device_events (device_id, type, payload, created_at)"
+      + " VALUES (:deviceId, :type, :payload, clock_timestamp())";
+  private static final String INSERT_STANDARD = "SELECT id FROM FINAL TABLE"
+      + " (INSERT INTO device_events (device_id, type, payload, created_at) VALUES (:deviceId, :type, :payload, :taken))";
+  private static final String STAMP_STANDARD = "UPDATE device_events SET created_at = :stamped WHERE id = :id";
+
+  private final DatabaseClient databaseClient;
+  private final ObjectMapper objectMapper;
+  private final boolean postgresql;
+
+  public DeviceEventLog(DatabaseClient databaseClient, ObjectMapper objectMapper, ConnectionFactory connectionFactory) {
+    this.databaseClient = databaseClient;
+    this.objectMapper = objectMapper;
+    this.postgresql = "PostgreSQL".equals(connectionFactory.getMetadata().getName());
+  }
+
+  public Mono<Void> append(DeviceChangedEvent event) {
+    DatabaseClient.GenericExecuteSpec insert = databaseClient.sql(postgresql ? INSERT_POSTGRESQL : INSERT_STANDARD)
+        .bind("deviceId", event.id())
+        .bind("type", event.type().name())
+        .bind("payload", write(event));
+    if (postgresql) {
+      return insert.then();
+    }
+    return insert.bind("taken", OffsetDateTime.now(ZoneOffset.UTC))
+        .map(row -> row.get("id", Long.class))
+        .one()
+        .flatMap(id -> databaseClient.sql(STAMP_STANDARD)
+            .bind("stamped", OffsetDateTime.now(ZoneOffset.UTC))
+            .bind("id", id)
+            .then());
+  }
+
+  private String write(DeviceChangedEvent event) {
+    try {
+      return objectMapper.writeValueAsString(event);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
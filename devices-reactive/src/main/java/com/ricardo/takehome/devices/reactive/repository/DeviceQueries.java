@@ -0,0 +1,90 @@
+package com.ricardo.takehome.devices.reactive.repository;
+
+import com.ricardo.takehome.devices.reactive.model.Device;
+import com.ricardo.takehome.devices.reactive.model.DeviceState;
+import java.time.Instant;
+import java.util.Locale;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Filtered, keyset-paginated reads with the same semantics as the servlet application's
+ * {@code DeviceSpecifications}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DeviceQueries {
+
+  private final R2dbcEntityTemplate template;
+
+  public Flux<Device> page(String brand, DeviceState state, String sort, String direction, String after, int limit) {
+    boolean ascending = ascending(direction);
+    boolean byCreationTime = byCreationTime(sort);
+    Sort.Direction sortDirection = ascending ? Sort.Direction.ASC : Sort.Direction.DESC;
+    Sort order = byCreationTime
+        ? Sort.by(sortDirection, "creationTime").and(Sort.by(sortDirection, "id"))
+        : Sort.by(sortDirection, "id");
+
+    Criteria where = after == null
+        ? filters(brand, state)
+        : filters(brand, state).and(keyset(DeviceCursor.parse(after, byCreationTime), ascending, byCreationTime));
+    return template.select(Device.class)
+        .matching(Query.query(where).sort(order).limit(limit))
+        .all();
+  }
+
+  /** The cursor to pass as {@code after} for the page that follows {@code last}. */
+  public static String cursorAfter(long id, Instant creationTime, String sort) {
+    return DeviceCursor.after(id, creationTime, byCreationTime(sort)).format();
+  }
+
+  public Flux<Device> all(String brand, DeviceState state) {
+    return template.select(Device.class)
+        .matching(Query.query(filters(brand, state)).sort(Sort.by("id")))
+        .all();
+  }
+
+  private static Criteria keyset(DeviceCursor after, boolean ascending, boolean byCreationTime) {
+    if (!byCreationTime) {
+      return ascending ? Criteria.where("id").greaterThan(after.id()) : Criteria.where("id").lessThan(after.id());
+    }
+    Instant cursorTime = after.creationTime();
+    return ascending
+        ? Criteria.where("creationTime").greaterThan(cursorTime)
+            .or(Criteria.where("creationTime").is(cursorTime).and("id").greaterThan(after.id()))
+        : Criteria.where("creationTime").lessThan(cursorTime)
+            .or(Criteria.where("creationTime").is(cursorTime).and("id").lessThan(after.id()));
+  }
+
+  private static Criteria filters(String brand, DeviceState state) {
+    Criteria criteria = Criteria.empty();
+    if (brand != null) {
+      criteria = criteria.and("brand").is(brand);
+    }
+    if (state != null) {
+      criteria = criteria.and("state").is(state.name());
+    }
+    return criteria;
+  }
+
+  private static boolean ascending(String direction) {
+    return switch (direction.toLowerCase(Locale.ROOT)) {
+      case "asc" -> true;
+      case "desc" -> false;
+      default -> throw new IllegalArgumentException("Unsupported sort direction: " + direction);
+    };
+  }
+
+  private static boolean byCreationTime(String sort) {
+    return switch (sort) {
+      case "id" -> false;
+      case "creationTime" -> true;
+      default -> throw new IllegalArgumentException("Unsupported sort property: " + sort);
+    };
+  }
+}
@@ -0,0 +1,17 @@
+package com.ricardo.takehome.devices.reactive.repository;
+
+import com.ricardo.takehome.devices.reactive.model.Device;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveDeviceRepository extends ReactiveCrudRepository<Device, Long> {
+
+  /**
+   * Takes a value from the sequence the servlet application allocates from with Hibernate's
+   * pooled optimizer. Every value returned by nextval is exclusive to its caller, so using it
+   * directly never collides with a block handed out to the servlet application.
+   */
+  @Query("SELECT nextval('devices_seq')")
+  Mono<Long> nextId();
+}
@@ -0,0 +1,52 @@
+package com.ricardo.takehome.devices.reactive.service;
+
+import com.ricardo.takehome.devices.reactive.model.Device;
+import com.ricardo.takehome.devices.reactive.model.DeviceState;
+import java.time.Instant;
+
+/**
+ * A change as the servlet application logs it in {@code device_events}. The payload must read back
+ * as its {@code DeviceChangedEvent}: its cache invalidation, change feed and history all follow
+ * the log, so changes made here reach them too.
+ *
+ * @param before the device as it was before the change, {@code null} for creations
+ * @param after the device as it is after the change, {@code null} for deletions
+ */
+public record DeviceChangedEvent(
+    ChangeType type,
+    Long id,
+    Snapshot before,
+    Snapshot after
+) {
+
+  public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+  }
+
+  /** The servlet application's {@code DeviceResponse}, version and modification time included. */
+  public record Snapshot(
+      Long id, String name, String brand,
+      DeviceState state, Instant creationTime, Long version,
+      Instant lastModifiedTime
+  ) {
+
+    public static Snapshot of(Device device) {
+      return new Snapshot(device.getId(), device.getName(), device.getBrand(), device.getState(),
+          device.getCreationTime(), device.getVersion(), device.getLastModifiedTime());
+    }
+  }
+
+  public static DeviceChangedEvent created(Device after) {
+    return new DeviceChangedEvent(ChangeType.CREATED, after.getId(), null, Snapshot.of(after));
+  }
+
+  public static DeviceChangedEvent updated(Snapshot before, Device after) {
+    return new DeviceChangedEvent(ChangeType.UPDATED, after.getId(), before, Snapshot.of(after));
+  }
+
+  public static DeviceChangedEvent deleted(Device before) {
+    return new DeviceChangedEvent(ChangeType.DELETED, before.getId(), Snapshot.of(before), null);
+  }
+}
@@ -0,0 +1,8 @@
+package com.ricardo.takehome.devices.reactive.service;
+
+public class DeviceNotFoundException extends RuntimeException {
+
+  public DeviceNotFoundException() {
+    super("Device not Found");
+  }
+}
@@ -0,0 +1,96 @@
+package com.ricardo.takehome.devices.reactive.service;
+
+import com.ricardo.takehome.devices.reactive.dto.CreateDeviceRequest;
+import com.ricardo.takehome.devices.reactive.dto.UpdateDeviceRequest;
+import com.ricardo.takehome.devices.reactive.model.Device;
+import com.ricardo.takehome.devices.reactive.model.DeviceState;
+import com.ricardo.takehome.devices.reactive.repository.DeviceEventLog;
+import com.ricardo.takehome.devices.reactive.repository.DeviceQueries;
+import com.ricardo.takehome.devices.reactive.repository.ReactiveDeviceRepository;
+import java.time.Instant;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Every write logs a {@link DeviceChangedEvent} in its transaction, so the servlet application's
+ * caches, change feed and history see changes made here as they see their own.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class ReactiveDeviceService {
+
+  private final ReactiveDeviceRepository deviceRepository;
+  private final DeviceQueries deviceQueries;
+  private final DeviceEventLog eventLog;
+  private final R2dbcEntityTemplate template;
+
+  public Mono<Device> create(CreateDeviceRequest request) {
+    return deviceRepository.nextId().flatMap(id -> {
+      Device device = new Device();
+      device.setId(id);
+      device.setName(request.name());
+      device.setBrand(request.brand());
+      device.setState(request.state());
+      device.setCreationTime(Instant.now());
+      device.setLastModifiedTime(device.getCreationTime());
+      return template.insert(device);
+    }).flatMap(saved -> eventLog.append(DeviceChangedEvent.created(saved)).thenReturn(saved));
+  }
+
+  @Transactional(readOnly = true)
+  public Mono<Device> getById(Long id) {
+    return deviceRepository.findById(id)
+        .switchIfEmpty(Mono.error(DeviceNotFoundException::new));
+  }
+
+  @Transactional(readOnly = true)
+  public Flux<Device> getPage(String brand, DeviceState state, String sort, String direction, String after, int limit) {
+    return deviceQueries.page(brand, state, sort, direction, after, limit);
+  }
+
+  @Transactional(readOnly = true)
+  public Flux<Device> streamAll(String brand, DeviceState state) {
+    return deviceQueries.all(brand, state);
+  }
+
+  public Mono<Device> update(Long id, UpdateDeviceRequest request) {
+    return getById(id).flatMap(device -> {
+      DeviceChangedEvent.Snapshot before = DeviceChangedEvent.Snapshot.of(device);
+      if (!device.canUpdateNameAndBrand()) {
+        boolean nameChanging = request.name() != null && !device.getName().equals(request.name());
+        boolean brandChanging = request.brand() != null && !device.getBrand().equals(request.brand());
+
+        if (nameChanging || brandChanging) {
+          return Mono.error(new IllegalStateException("Cannot update name or brand of a device that is in use"));
+        }
+      }
+
+      if (request.name() != null) {
+        device.setName(request.name());
+      }
+      if (request.brand() != null) {
+        device.setBrand(request.brand());
+      }
+      if (request.state() != null) {
+        device.setState(request.state());
+      }
+      device.setLastModifiedTime(Instant.now());
+      return deviceRepository.save(device)
+          .flatMap(saved -> eventLog.append(DeviceChangedEvent.updated(before, saved)).thenReturn(saved));
+    });
+  }
+
+  public Mono<Void> delete(Long id) {
+    return getById(id).flatMap(device -> {
+      if (!device.canBeDeleted()) {
+        return Mono.error(new IllegalStateException("Cannot delete a device that is in use"));
+      }
+      return deviceRepository.deleteById(id).then(eventLog.append(DeviceChangedEvent.deleted(device)));
+    });
+  }
+}
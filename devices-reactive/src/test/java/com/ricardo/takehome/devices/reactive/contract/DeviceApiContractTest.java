@@ -0,0 +1,118 @@
+package com.ricardo.takehome.devices.reactive.contract;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the implementation-neutral scenarios in {@code contract/device-api.json} against the
+ * WebFlux stack. The schema comes from the servlet module's H2 migrations so both stacks are
+ * checked against the same tables.
+ */
+@SpringBootTest(properties = {
+        "spring.r2dbc.url=r2dbc:h2:mem:///contract;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password=",
+        "spring.flyway.url=jdbc:h2:mem:contract;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.flyway.user=sa",
+        "spring.flyway.password=",
+        "spring.flyway.locations=filesystem:../devices/src/main/resources/db/migration/h2"})
+@AutoConfigureWebTestClient
+class DeviceApiContractTest {
+    private static final Path CONTRACT = Path.of("..", "contract", "device-api.json");
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{(\\w+)}");
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @TestFactory
+    Stream<DynamicTest> deviceApiContract() throws IOException {
+        JsonNode contract = objectMapper.readTree(CONTRACT.toFile());
+        return StreamSupport.stream(contract.get("scenarios").spliterator(), false)
+                .map(scenario -> DynamicTest.dynamicTest(scenario.get("name").asText(), () -> run(scenario)));
+    }
+
+    private void run(JsonNode scenario) {
+        Map<String, String> captured = new HashMap<>();
+        for (JsonNode step : scenario.get("steps")) {
+            JsonNode request = step.get("request");
+            WebTestClient.RequestBodySpec spec = webTestClient
+                    .method(HttpMethod.valueOf(request.get("method").asText()))
+                    .uri(substitute(request.get("path").asText(), captured));
+            if (request.has("accept")) {
+                spec.accept(MediaType.parseMediaType(request.get("accept").asText()));
+            }
+            WebTestClient.RequestHeadersSpec<?> ready = request.has("body")
+                    ? spec.contentType(MediaType.APPLICATION_JSON)
+                            .bodyValue(substitute(request.get("body").toString(), captured))
+                    : spec;
+
+            EntityExchangeResult<byte[]> result = ready.exchange().expectBody().returnResult();
+            HttpHeaders headers = result.getResponseHeaders();
+            byte[] raw = result.getResponseBody();
+            String body = raw == null ? "" : new String(raw, StandardCharsets.UTF_8);
+            String description = scenario.get("name").asText() + ": " + request;
+
+            JsonNode expect = step.get("expect");
+            assertThat(result.getStatus().value()).as(description).isEqualTo(expect.get("status").asInt());
+            expect.path("headers").properties().forEach(header -> {
+                boolean present = header.getValue().asText().equals("present");
+                assertThat(headers.getFirst(header.getKey()) != null).as(description + " header " + header.getKey())
+                        .isEqualTo(present);
+            });
+            expect.path("json").properties().forEach(path -> {
+                Object actual = JsonPath.read(body, path.getKey());
+                assertThat(String.valueOf(actual)).as(description + " " + path.getKey())
+                        .isEqualTo(substitute(path.getValue().asText(), captured));
+            });
+            if (expect.has("lines")) {
+                assertThat(body.lines().filter(line -> !line.isBlank()).count()).as(description)
+                        .isEqualTo(expect.get("lines").asLong());
+            }
+
+            step.path("capture").properties().forEach(capture -> {
+                String source = capture.getValue().asText();
+                String value = source.startsWith("header:")
+                        ? headers.getFirst(source.substring("header:".length()))
+                        : String.valueOf((Object) JsonPath.read(body, source));
+                captured.put(capture.getKey(), value);
+            });
+        }
+    }
+
+    private static String substitute(String text, Map<String, String> captured) {
+        Matcher matcher = PLACEHOLDER.matcher(text);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            String value = captured.getOrDefault(matcher.group(1), matcher.group());
+            matcher.appendReplacement(result, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+}
@@ -0,0 +1,90 @@
+package com.ricardo.takehome.devices.reactive.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ricardo.takehome.devices.reactive.dto.CreateDeviceRequest;
+import com.ricardo.takehome.devices.reactive.dto.UpdateDeviceRequest;
+import com.ricardo.takehome.devices.reactive.model.Device;
+import com.ricardo.takehome.devices.reactive.model.DeviceState;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Changes made here must reach the servlet application's log consumers, so each write is checked
+ * against the {@code device_events} rows it leaves, in the payload shape the servlet side reads.
+ */
+@SpringBootTest(properties = {
+        "spring.r2dbc.url=r2dbc:h2:mem:///events;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password=",
+        "spring.flyway.url=jdbc:h2:mem:events;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.flyway.user=sa",
+        "spring.flyway.password=",
+        "spring.flyway.locations=filesystem:../devices/src/main/resources/db/migration/h2"})
+class ReactiveDeviceServiceTest {
+
+    @Autowired
+    private ReactiveDeviceService deviceService;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldLogEveryWriteForTheServletApplication() throws Exception {
+        Device created = deviceService.create(new CreateDeviceRequest("Pixel 9", "Google", DeviceState.AVAILABLE))
+                .block();
+        deviceService.update(created.getId(), new UpdateDeviceRequest(null, null, DeviceState.INACTIVE)).block();
+        deviceService.delete(created.getId()).block();
+
+        List<JsonNode> events = events(created.getId());
+
+        assertThat(events).extracting(event -> event.get("type").asText())
+                .containsExactly("CREATED", "UPDATED", "DELETED");
+        // the servlet side's history needs a version for every change
+        assertThat(events.get(0).at("/after/version").isIntegralNumber()).isTrue();
+        JsonNode update = events.get(1);
+        assertThat(update.get("id").asLong()).isEqualTo(created.getId());
+        assertThat(update.at("/before/state").asText()).isEqualTo("AVAILABLE");
+        assertThat(update.at("/after/state").asText()).isEqualTo("INACTIVE");
+        assertThat(update.at("/after/version").asLong()).isEqualTo(update.at("/before/version").asLong() + 1);
+        assertThat(update.at("/after/lastModifiedTime").isMissingNode()).isFalse();
+        assertThat(events.get(2).get("after").isNull()).isTrue();
+        assertThat(events.get(2).at("/before/name").asText()).isEqualTo("Pixel 9");
+    }
+
+    @Test
+    void shouldNotLogRejectedWrites() {
+        Device created = deviceService.create(new CreateDeviceRequest("Galaxy S24", "Samsung", DeviceState.IN_USE))
+                .block();
+
+        deviceService.delete(created.getId()).onErrorComplete().block();
+
+        assertThat(events(created.getId())).extracting(event -> event.get("type").asText()).containsExactly("CREATED");
+    }
+
+    private List<JsonNode> events(Long deviceId) {
+        return databaseClient.sql("SELECT payload FROM device_events WHERE device_id = :id ORDER BY id")
+                .bind("id", deviceId)
+                .map(row -> read(row.get("payload", String.class)))
+                .all()
+                .collectList()
+                .block();
+    }
+
+    private JsonNode read(String payload) {
+        try {
+            return objectMapper.readTree(payload);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
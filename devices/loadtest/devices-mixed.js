@@ -0,0 +1,66 @@
+// Mixed read/write load against the Device API.
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e RATE=2000 --summary-export=platform.json loadtest/devices-mixed.js
+//
+// Run once against the default (platform thread) mode and once with SPRING_PROFILES_ACTIVE=virtual-threads,
+// then compare http_req_duration p(99) and http_reqs rate in the two summaries.
+//
+// Start the service with the virtual users' keys allowed, or every request shares one per-address bucket:
+//
+//   DEVICES_ADMISSION_CLIENT_KEYS=$(seq -f 'k6-%g' 1 5000 | paste -sd,)
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const DEVICES = 1000;
+
+// each virtual user is its own client (see DEVICES_ADMISSION_CLIENT_KEYS above), so the per-client rate
+// limits do not throttle the run
+function params(json) {
+    const headers = { 'X-API-Key': `k6-${__VU}` };
+    if (json) {
+        headers['Content-Type'] = 'application/json';
+    }
+    return { headers };
+}
+
+export const options = {
+    scenarios: {
+        mixed: {
+            executor: 'constant-arrival-rate',
+            rate: Number(__ENV.RATE || 2000),
+            timeUnit: '1s',
+            duration: __ENV.DURATION || '2m',
+            preAllocatedVUs: 500,
+            maxVUs: 5000,
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+export function setup() {
+    const requests = [];
+    for (let i = 0; i < DEVICES; i++) {
+        requests.push({ name: `load-${i}`, brand: `brand-${i % 20}`, state: 'AVAILABLE' });
+    }
+    const response = http.post(`${BASE_URL}/api/devices:batch`, JSON.stringify(requests), params(true));
+    return { ids: response.json('results').map((result) => result.device.id) };
+}
+
+export default function (data) {
+    const id = data.ids[Math.floor(Math.random() * data.ids.length)];
+    if (Math.random() < 0.1) {
+        const state = Math.random() < 0.5 ? 'AVAILABLE' : 'INACTIVE';
+        const response = http.patch(`${BASE_URL}/api/devices/${id}`, JSON.stringify({ state }), params(true));
+        check(response, { 'update ok': (r) => r.status === 200 });
+    } else if (Math.random() < 0.2) {
+        const response = http.get(`${BASE_URL}/api/devices?brand=brand-${id % 20}&limit=50`, params(false));
+        check(response, { 'list ok': (r) => r.status === 200 });
+    } else {
+        const response = http.get(`${BASE_URL}/api/devices/${id}`, params(false));
+        check(response, { 'get ok': (r) => r.status === 200 });
+    }
+}
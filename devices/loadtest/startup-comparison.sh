@@ -0,0 +1,56 @@
+#!/usr/bin/env bash
+# Startup time and memory of the application in each runtime mode of the Dockerfile.
+#
+#   ./loadtest/startup-comparison.sh [result-file]    (or ./mvnw -Pstartup -DskipTests verify)
+#   MODES="jvm native" ./loadtest/startup-comparison.sh
+#
+# Every mode is built, then started against the compose database. The startup time is the one
+# Spring Boot logs ("Started DevicesApplication in ..."). Memory is read once started, twice:
+# rssKiB is the application process's resident set (VmRSS of PID 1, read from a busybox container
+# sharing its PID namespace, since the native image has no shell), and containerMemory is docker
+# stats' MemUsage, the cgroup's usage, which also counts page cache and so is not the RSS. The
+# first mode is started once unmeasured, so the Flyway migrations do not count against it.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+RESULT=${1:-target/startup-result.json}
+MODES=${MODES:-jvm cds native}
+
+start() {
+  # every mode builds to the same image name, so build right before starting
+  DEVICES_RUNTIME=$1 docker compose build app
+  DEVICES_RUNTIME=$1 docker compose up -d --no-deps --force-recreate app >/dev/null
+  local container seconds=''
+  container=$(docker compose ps -q app)
+  for _ in $(seq 1 120); do
+    seconds=$(docker logs "$container" 2>&1 | grep -o 'Started DevicesApplication in [0-9.]*' | grep -o '[0-9.]*$' || true)
+    [ -n "$seconds" ] && break
+    sleep 1
+  done
+  if [ -z "$seconds" ]; then
+    echo "$1 did not start within 120s" >&2
+    docker logs "$container" >&2
+    exit 1
+  fi
+  # let the pool fill and background work settle before reading memory
+  sleep 5
+  RSS_KIB=$(docker run --rm --pid "container:$container" busybox grep VmRSS /proc/1/status | awk '{print $2}')
+  CONTAINER_MEMORY=$(docker stats --no-stream --format '{{.MemUsage}}' "$container" | cut -d/ -f1 | xargs)
+  SECONDS_TO_START=$seconds
+  docker compose stop app >/dev/null
+}
+
+docker compose up -d --wait db
+start "${MODES%% *}"
+
+mkdir -p "$(dirname "$RESULT")"
+separator=''
+echo '[' > "$RESULT"
+for mode in $MODES; do
+  start "$mode"
+  printf '%s  {"mode": "%s", "startupSeconds": %s, "rssKiB": %s, "containerMemory": "%s"}\n' \
+    "$separator" "$mode" "$SECONDS_TO_START" "$RSS_KIB" "$CONTAINER_MEMORY" >> "$RESULT"
+  separator=','
+done
+echo ']' >> "$RESULT"
+cat "$RESULT"
@@ -0,0 +1,65 @@
+package com.ricardo.takehome.devices.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one admission decision as paid by every request: a rate limit check for its client and a
+ * concurrency permit taken and returned with a latency sample. {@code clients=1} puts every thread
+ * on the same bucket, the worst case for compare-and-set contention; the rate is high enough that
+ * nothing is rejected, so the admitted path is what gets measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class AdmissionControlBenchmark {
+
+    @Param({"1", "10000"})
+    private int clients;
+
+    private String[] clientIds;
+    private ClientRateLimiter rateLimiter;
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Setup
+    public void setUp() {
+        clientIds = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            clientIds[i] = "ip:10.0." + (i / 256) + "." + (i % 256);
+        }
+        rateLimiter = new ClientRateLimiter(1e9, 1_000_000, 100_000);
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(1000, 1000, 1000, 2.0);
+    }
+
+    @Benchmark
+    public long rateLimit() {
+        return rateLimiter.tryAcquire(clientIds[ThreadLocalRandom.current().nextInt(clients)]);
+    }
+
+    @Benchmark
+    public boolean rateAndConcurrencyLimit() {
+        if (rateLimiter.tryAcquire(clientIds[ThreadLocalRandom.current().nextInt(clients)]) > 0
+                || !concurrencyLimiter.tryAcquire()) {
+            return false;
+        }
+        concurrencyLimiter.release(1_000_000);
+        return true;
+    }
+}
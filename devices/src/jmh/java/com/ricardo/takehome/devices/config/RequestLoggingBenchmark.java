@@ -0,0 +1,97 @@
+package com.ricardo.takehome.devices.config;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of request threads writing one request log line each, as the controllers used to do
+ * (synchronous appender, every request) versus the prod profile (asynchronous appender, 1% sampled).
+ * Lines go to a temporary file so the synchronous case pays real write calls. Like prod, the
+ * asynchronous appender drops INFO events when its queue is full instead of blocking.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class RequestLoggingBenchmark {
+
+    @Param({"sync", "async"})
+    private String appender;
+
+    @Param({"1.0", "0.01"})
+    private double sampleRate;
+
+    private LoggerContext context;
+    private Logger logger;
+    private SampledRequestLoggingFilter filter;
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("request-log", ".log");
+        context = new LoggerContext();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%t] %-40.40logger{39} : %m%n");
+        encoder.start();
+
+        FileAppender<ILoggingEvent> fileAppender = new FileAppender<>();
+        fileAppender.setContext(context);
+        fileAppender.setFile(file.getAbsolutePath());
+        fileAppender.setEncoder(encoder);
+        fileAppender.start();
+
+        Appender<ILoggingEvent> root = fileAppender;
+        if (appender.equals("async")) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.setNeverBlock(true);
+            async.addAppender(fileAppender);
+            async.start();
+            root = async;
+        }
+        logger = context.getLogger(SampledRequestLoggingFilter.class);
+        logger.addAppender(root);
+        filter = new SampledRequestLoggingFilter(sampleRate);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.stop();
+        file.delete();
+    }
+
+    @Benchmark
+    public void logRequest() {
+        if (filter.sampled()) {
+            logger.info("{} {} {} {}ms", "GET", "/api/devices/42", 200, 3L);
+        }
+    }
+}
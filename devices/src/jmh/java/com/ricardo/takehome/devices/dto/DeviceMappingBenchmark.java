@@ -0,0 +1,79 @@
+package com.ricardo.takehome.devices.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ricardo.takehome.devices.model.Device;
+import com.ricardo.takehome.devices.model.DeviceState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning entities into {@link DeviceResponse} and of serializing list responses with the
+ * same Jackson setup the application uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeviceMappingBenchmark {
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private List<Device> devices;
+    private List<DeviceResponse> responses;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        devices = new ArrayList<>(size);
+        DeviceState[] states = DeviceState.values();
+        for (int i = 0; i < size; i++) {
+            Device device = new Device();
+            device.setId((long) i);
+            device.setName("Device " + i);
+            device.setBrand("Brand " + (i % 50));
+            device.setState(states[i % states.length]);
+            device.setCreationTime(Instant.now());
+            devices.add(device);
+        }
+        responses = toResponses();
+    }
+
+    @Benchmark
+    public List<DeviceResponse> toResponses() {
+        return devices.stream()
+                .map(DeviceResponse::from)
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] serializeResponses() throws Exception {
+        return objectMapper.writeValueAsBytes(responses);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws Exception {
+        return objectMapper.writeValueAsBytes(toResponses());
+    }
+}
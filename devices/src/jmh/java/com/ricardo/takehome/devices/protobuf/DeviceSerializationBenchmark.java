@@ -0,0 +1,96 @@
+package com.ricardo.takehome.devices.protobuf;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.model.DeviceState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding a device list as the JSON array of {@code GET /api/devices} against the
+ * length-delimited protobuf of {@code application/x-protobuf}. Payload sizes are printed once per
+ * trial, since JMH only reports time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeviceSerializationBenchmark {
+
+    private static final TypeReference<List<DeviceResponse>> DEVICE_LIST = new TypeReference<>() { };
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private List<DeviceResponse> responses;
+    private ObjectMapper objectMapper;
+    private byte[] json;
+    private byte[] protobuf;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        responses = new ArrayList<>(size);
+        DeviceState[] states = DeviceState.values();
+        Instant now = Instant.now();
+        for (int i = 0; i < size; i++) {
+            responses.add(new DeviceResponse((long) i, "Device " + i, "Brand " + (i % 50), states[i % states.length],
+                    now.minusSeconds(i), (long) i % 7, now));
+        }
+        json = serializeJson();
+        protobuf = serializeProtobuf();
+        System.out.printf("%n%d devices: json %d bytes, protobuf %d bytes (%.0f%%)%n", size, json.length,
+                protobuf.length, 100.0 * protobuf.length / json.length);
+    }
+
+    @Benchmark
+    public byte[] serializeJson() throws IOException {
+        return objectMapper.writeValueAsBytes(responses);
+    }
+
+    @Benchmark
+    public byte[] serializeProtobuf() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        for (DeviceResponse response : responses) {
+            DeviceProtobuf.writeDelimited(response, out);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public List<DeviceResponse> deserializeJson() throws IOException {
+        return objectMapper.readValue(json, DEVICE_LIST);
+    }
+
+    @Benchmark
+    public List<DeviceResponse> deserializeProtobuf() throws IOException {
+        return DeviceProtobuf.readDelimited(CodedInputStream.newInstance(protobuf), DeviceProtobuf::readDevice);
+    }
+}
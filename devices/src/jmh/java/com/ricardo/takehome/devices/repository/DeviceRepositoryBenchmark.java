@@ -0,0 +1,130 @@
+package com.ricardo.takehome.devices.repository;
+
+import com.ricardo.takehome.devices.DevicesApplication;
+import com.ricardo.takehome.devices.dto.CreateDeviceRequest;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.dto.UpdateDeviceRequest;
+import com.ricardo.takehome.devices.model.Device;
+import com.ricardo.takehome.devices.model.DeviceState;
+import com.ricardo.takehome.devices.service.DeviceBatchService;
+import com.ricardo.takehome.devices.service.DeviceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end reads and writes through {@link DeviceService} against an embedded H2 database
+ * migrated with the application's own Flyway scripts. The device cache is disabled so every read
+ * reaches the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeviceRepositoryBenchmark {
+
+    private static final int SEED_SIZE = 10_000;
+    private static final int BATCH_SIZE = 100;
+
+    private ConfigurableApplicationContext context;
+    private DeviceService deviceService;
+    private DeviceBatchService deviceBatchService;
+    private long minId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DevicesApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--devices.cache.enabled=false",
+                        "--logging.level.root=WARN");
+        deviceService = context.getBean(DeviceService.class);
+        deviceBatchService = context.getBean(DeviceBatchService.class);
+
+        List<CreateDeviceRequest> seed = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < SEED_SIZE; i++) {
+            seed.add(request(i));
+            if (seed.size() == BATCH_SIZE) {
+                deviceBatchService.createAll(seed);
+                seed.clear();
+            }
+        }
+        minId = deviceService.getPage(null, null, DeviceSortOrder.ID_ASC, null, 1).getFirst().id();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Device getById() {
+        return deviceService.getById(randomId());
+    }
+
+    /** The by-id endpoint's read path: a projection straight into the response (cache disabled). */
+    @Benchmark
+    public DeviceResponse getResponseById() {
+        return deviceService.getResponseById(randomId());
+    }
+
+    @Benchmark
+    public List<DeviceResponse> getFilteredPage() {
+        return deviceService.getPage("Brand 7", DeviceState.AVAILABLE, DeviceSortOrder.ID_ASC,
+                new DeviceCursor(randomId(), null), 100);
+    }
+
+    @Benchmark
+    public Device updateState() {
+        DeviceState state = ThreadLocalRandom.current().nextBoolean() ? DeviceState.AVAILABLE : DeviceState.INACTIVE;
+        return deviceService.update(randomId(), new UpdateDeviceRequest(null, null, state));
+    }
+
+    @Benchmark
+    public Device createOne() {
+        return deviceService.create(request(ThreadLocalRandom.current().nextInt()));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public Object createBatch() {
+        List<CreateDeviceRequest> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(request(i));
+        }
+        return deviceBatchService.createAll(batch);
+    }
+
+    private long randomId() {
+        return minId + ThreadLocalRandom.current().nextInt(SEED_SIZE);
+    }
+
+    private static CreateDeviceRequest request(int i) {
+        DeviceState state = i % 3 == 0 ? DeviceState.IN_USE : DeviceState.AVAILABLE;
+        return new CreateDeviceRequest("Device " + i, "Brand " + Math.floorMod(i, 20), state);
+    }
+}
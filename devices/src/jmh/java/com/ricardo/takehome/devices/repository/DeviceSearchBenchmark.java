@@ -0,0 +1,131 @@
+package com.ricardo.takehome.devices.repository;
+
+import com.ricardo.takehome.devices.DevicesApplication;
+import com.ricardo.takehome.devices.dto.DeviceImportError;
+import com.ricardo.takehome.devices.dto.DeviceImportProgress;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.service.DeviceService;
+import com.ricardo.takehome.devices.transfer.DeviceImportListener;
+import com.ricardo.takehome.devices.transfer.DeviceTransferService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of {@code GET /api/devices/search} queries (sample mode reports p99) over
+ * {@code rows} devices. By default it runs on embedded H2, which only has the substring fallback;
+ * point {@code url} at PostgreSQL to measure the trigram indexes at production size, e.g.
+ * {@code -Djmh.options="-p url=jdbc:postgresql://localhost:5432/devicedb -p rows=3000000"}.
+ * Missing rows are seeded through the bulk import, so a PostgreSQL database is only filled once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeviceSearchBenchmark {
+
+    private static final String[] MODELS = {"Galaxy", "Pixel", "iPhone", "ThinkPad", "Surface", "MacBook", "Xperia", "Redmi"};
+    private static final String[] EDITIONS = {"Pro", "Max", "Mini", "Ultra", "Air", "Lite"};
+    private static final String[] BRANDS = {"Samsung", "Google", "Apple", "Lenovo", "Microsoft", "Sony", "Xiaomi", "Dell"};
+
+    /** Name and brand prefixes, short prefixes, and misspellings only the fuzzy tier can match. */
+    private static final String[] QUERIES = {"gal", "pixel 1", "ip", "lenov", "thinkpda", "macbok", "surfce pro", "xiaomi", "sony"};
+
+    @Param("")
+    private String url;
+
+    @Param("100000")
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private DeviceService deviceService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<String> args = new ArrayList<>(List.of(
+                "--devices.cache.enabled=false",
+                "--devices.stats.reconcile-interval=24h",
+                "--logging.level.root=WARN"));
+        if (url.isEmpty()) {
+            args.addAll(List.of(
+                    "--spring.datasource.url=jdbc:h2:mem:search-benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"));
+        } else {
+            args.add("--spring.datasource.url=" + url);
+        }
+        context = new SpringApplicationBuilder(DevicesApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+        deviceService = context.getBean(DeviceService.class);
+
+        long missing = rows - deviceService.getListVersion(null, null).count();
+        if (missing > 0) {
+            seed(context.getBean(DeviceTransferService.class), missing);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<DeviceResponse> search() {
+        String query = QUERIES[ThreadLocalRandom.current().nextInt(QUERIES.length)];
+        return deviceService.search(query, 0, 21);
+    }
+
+    private static void seed(DeviceTransferService transferService, long count) throws IOException {
+        Path csv = Files.createTempFile("devices-search", ".csv");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(csv)) {
+                writer.write("name,brand,state\n");
+                for (long i = 0; i < count; i++) {
+                    int model = (int) (i % MODELS.length);
+                    writer.write(MODELS[model] + " " + (i % 23) + " " + EDITIONS[(int) (i / 7 % EDITIONS.length)]
+                            + " " + i + "," + BRANDS[model] + ",AVAILABLE\n");
+                }
+            }
+            try (InputStream in = Files.newInputStream(csv)) {
+                transferService.importDevices(transferService.openCsv(in), new DeviceImportListener() {
+                    @Override
+                    public void rejected(DeviceImportError error) {
+                        throw new IllegalStateException("Seed row rejected: " + error);
+                    }
+
+                    @Override
+                    public void progress(DeviceImportProgress progress) {
+                    }
+                });
+            }
+        } finally {
+            Files.delete(csv);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.ricardo.takehome.devices.service;
+
+import com.ricardo.takehome.devices.DevicesApplication;
+import com.ricardo.takehome.devices.dto.CreateDeviceRequest;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.dto.UpdateDeviceRequest;
+import com.ricardo.takehome.devices.model.DeviceState;
+import com.ricardo.takehome.devices.repository.DeviceSortOrder;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent schedulers allocating {@code batch} devices at a time and handing them straight
+ * back: {@code claim} through {@link DeviceService#claim}, {@code listAndPatch} the old way, listing
+ * AVAILABLE devices and PATCHing each to IN_USE at its listed version. The {@code allocated} and
+ * {@code wasted} counters show devices won and PATCHes lost to another scheduler per second.
+ * Contention comes from the thread count, e.g. {@code -Djmh.options="-t 16"}; point {@code url} at
+ * PostgreSQL for SKIP LOCKED, which H2 does not have.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeviceClaimBenchmark {
+
+    private static final UpdateDeviceRequest TO_IN_USE = new UpdateDeviceRequest(null, null, DeviceState.IN_USE);
+
+    @Param("")
+    private String url;
+
+    @Param("10000")
+    private int rows;
+
+    @Param("10")
+    private int batch;
+
+    private ConfigurableApplicationContext context;
+    private DeviceService deviceService;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Allocations {
+        public long allocated;
+        public long wasted;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            allocated = 0;
+            wasted = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> args = new ArrayList<>(List.of(
+                "--devices.cache.enabled=false",
+                "--devices.stats.reconcile-interval=24h",
+                "--logging.level.root=WARN"));
+        if (url.isEmpty()) {
+            args.addAll(List.of(
+                    "--spring.datasource.url=jdbc:h2:mem:claim-benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"));
+        } else {
+            args.add("--spring.datasource.url=" + url);
+        }
+        context = new SpringApplicationBuilder(DevicesApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+        deviceService = context.getBean(DeviceService.class);
+
+        DeviceBatchService deviceBatchService = context.getBean(DeviceBatchService.class);
+        long missing = rows - deviceService.getListVersion(null, DeviceState.AVAILABLE).count();
+        while (missing > 0) {
+            List<CreateDeviceRequest> requests = new ArrayList<>();
+            for (int i = 0; i < Math.min(missing, 1000); i++) {
+                requests.add(new CreateDeviceRequest("claim-" + i, "brand-" + (i % 10), DeviceState.AVAILABLE));
+            }
+            deviceBatchService.createAll(requests);
+            missing -= requests.size();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void claim(Allocations allocations) {
+        List<DeviceResponse> claimed = deviceService.claim(batch, null);
+        allocations.allocated += claimed.size();
+        release(claimed.stream().map(DeviceResponse::id).toList());
+    }
+
+    @Benchmark
+    public void listAndPatch(Allocations allocations) {
+        List<DeviceResponse> page = deviceService.getPage(null, DeviceState.AVAILABLE, DeviceSortOrder.ID_ASC, null, batch);
+        List<Long> won = new ArrayList<>();
+        for (DeviceResponse device : page) {
+            try {
+                deviceService.update(device.id(), TO_IN_USE, device.version());
+                won.add(device.id());
+            } catch (DeviceVersionMismatchException | OptimisticLockingFailureException e) {
+                allocations.wasted++;
+            }
+        }
+        allocations.allocated += won.size();
+        release(won);
+    }
+
+    private void release(List<Long> ids) {
+        if (!ids.isEmpty()) {
+            deviceService.release(ids);
+        }
+    }
+}
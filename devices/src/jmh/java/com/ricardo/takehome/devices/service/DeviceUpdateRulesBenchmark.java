@@ -0,0 +1,100 @@
+package com.ricardo.takehome.devices.service;
+
+import com.ricardo.takehome.devices.cache.DeviceCache;
+import com.ricardo.takehome.devices.cache.DeviceCacheProperties;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.dto.UpdateDeviceRequest;
+import com.ricardo.takehome.devices.model.Device;
+import com.ricardo.takehome.devices.model.DeviceState;
+import com.ricardo.takehome.devices.repository.DeviceRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rule evaluation in {@link DeviceService#update} with the repository replaced by an in-memory
+ * stub and the cache disabled, so only the service's own work is measured. The state change takes
+ * the conditional-update path; the rejected case includes the cost of creating the
+ * {@link IllegalStateException}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeviceUpdateRulesBenchmark {
+
+    private static final UpdateDeviceRequest RENAME = new UpdateDeviceRequest("Renamed", null, null);
+    private static final UpdateDeviceRequest STATE_ONLY = new UpdateDeviceRequest(null, null, DeviceState.IN_USE);
+
+    private Device available;
+    private Device inUse;
+    private DeviceService deviceService;
+
+    @Setup
+    public void setUp() {
+        available = device(1L, DeviceState.AVAILABLE);
+        inUse = device(2L, DeviceState.IN_USE);
+        DeviceRepository repository = (DeviceRepository) Proxy.newProxyInstance(
+                DeviceRepository.class.getClassLoader(),
+                new Class<?>[]{DeviceRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.of((Long) args[0] == 1L ? available : inUse);
+                    // the state-only fast path reads its snapshot through the projection
+                    case "findResponseById" -> Optional.of(DeviceResponse.from((Long) args[0] == 1L ? available : inUse));
+                    case "saveAndFlush" -> args[0];
+                    case "updateStateIfVersion" -> 1;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        DeviceCache cache = new DeviceCache(
+                new DeviceCacheProperties(false, 0, Duration.ZERO, DeviceCacheProperties.SecondLevel.NONE, 0,
+                        Duration.ZERO),
+                Optional.empty());
+        deviceService = new DeviceService(repository, null, null, null, null, null, cache, event -> { });
+    }
+
+    @Benchmark
+    public Device renameAvailableDevice() {
+        available.setName("Device 1");
+        return deviceService.update(1L, RENAME);
+    }
+
+    @Benchmark
+    public Device changeStateOfInUseDevice() {
+        return deviceService.update(2L, STATE_ONLY);
+    }
+
+    @Benchmark
+    public Object rejectRenameOfInUseDevice() {
+        try {
+            return deviceService.update(2L, RENAME);
+        } catch (IllegalStateException e) {
+            return e;
+        }
+    }
+
+    private static Device device(Long id, DeviceState state) {
+        Device device = new Device();
+        device.setId(id);
+        device.setName("Device " + id);
+        device.setBrand("Brand");
+        device.setState(state);
+        device.setCreationTime(Instant.now());
+        device.setVersion(0L);
+        return device;
+    }
+}
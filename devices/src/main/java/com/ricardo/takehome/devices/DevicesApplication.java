@@ -1,9 +1,12 @@
 package com.ricardo.takehome.devices;
 
+import com.ricardo.takehome.devices.config.DevicesRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(DevicesRuntimeHints.class)
 public class DevicesApplication {
 
 	public static void main(String[] args) {
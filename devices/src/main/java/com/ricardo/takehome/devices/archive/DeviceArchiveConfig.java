@@ -0,0 +1,24 @@
+package com.ricardo.takehome.devices.archive;
+
+import com.ricardo.takehome.devices.repository.DeviceArchiveRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+@EnableConfigurationProperties(DeviceArchiveProperties.class)
+public class DeviceArchiveConfig {
+
+  @Bean
+  @ConditionalOnProperty(prefix = "devices.archive", name = "enabled", havingValue = "true", matchIfMissing = true)
+  public DeviceArchiver deviceArchiver(DeviceArchiveRepository deviceArchiveRepository,
+      PlatformTransactionManager transactionManager, DeviceArchiveProperties properties, MeterRegistry meterRegistry) {
+    return new DeviceArchiver(deviceArchiveRepository, new TransactionTemplate(transactionManager), properties,
+        Clock.systemUTC(), meterRegistry);
+  }
+}
@@ -0,0 +1,22 @@
+package com.ricardo.takehome.devices.archive;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param enabled run the archiver; archived devices are still read and restored when off
+ * @param minAge how long an INACTIVE device must have gone unmodified before it is archived
+ * @param chunkSize devices moved per transaction, which bounds how long their row locks are held
+ * @param maxPerRun devices moved per run at most; the rest wait for the next run
+ * @param interval time between the end of one run and the start of the next
+ */
+@ConfigurationProperties(prefix = "devices.archive")
+public record DeviceArchiveProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("90d") Duration minAge,
+    @DefaultValue("1000") int chunkSize,
+    @DefaultValue("100000") int maxPerRun,
+    @DefaultValue("1h") Duration interval
+) {
+}
@@ -0,0 +1,69 @@
+package com.ricardo.takehome.devices.archive;
+
+import com.ricardo.takehome.devices.repository.DeviceArchiveRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.time.Instant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves INACTIVE devices that have not changed for {@code devices.archive.min-age} from
+ * {@code devices} to {@code devices_archive}, a chunk per transaction so no run holds many row
+ * locks at once or for long. Archiving publishes no change events: the devices keep their content,
+ * and reads and writes find them in the archive.
+ */
+@Slf4j
+public class DeviceArchiver {
+
+  private final DeviceArchiveRepository archiveRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final DeviceArchiveProperties properties;
+  private final Clock clock;
+  private final Counter archived;
+  private final Timer runTimer;
+
+  public DeviceArchiver(DeviceArchiveRepository archiveRepository, TransactionTemplate transactionTemplate,
+      DeviceArchiveProperties properties, Clock clock, MeterRegistry meterRegistry) {
+    this.archiveRepository = archiveRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.properties = properties;
+    this.clock = clock;
+    this.archived = Counter.builder("devices.archive.archived")
+        .description("INACTIVE devices moved to devices_archive")
+        .register(meterRegistry);
+    this.runTimer = Timer.builder("devices.archive.run")
+        .description("Duration of an archiver run, all chunks included")
+        .register(meterRegistry);
+  }
+
+  /** Archives chunks until one comes back short or {@code max-per-run} is reached; returns the total. */
+  @Scheduled(fixedDelayString = "${devices.archive.interval:1h}", initialDelayString = "${devices.archive.interval:1h}")
+  public int archive() {
+    Instant now = clock.instant();
+    Instant cutoff = now.minus(properties.minAge());
+    Timer.Sample sample = Timer.start();
+    int total = 0;
+    try {
+      while (total < properties.maxPerRun()) {
+        int limit = Math.min(properties.chunkSize(), properties.maxPerRun() - total);
+        Integer moved = transactionTemplate.execute(status -> archiveRepository.archive(cutoff, limit, now));
+        int count = moved != null ? moved : 0;
+        total += count;
+        archived.increment(count);
+        if (count < limit) {
+          break;
+        }
+      }
+    } finally {
+      sample.stop(runTimer);
+    }
+    if (total > 0) {
+      log.info("Archived {} INACTIVE devices last modified before {}", total, cutoff);
+    }
+    return total;
+  }
+}
@@ -0,0 +1,61 @@
+package com.ricardo.takehome.devices.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of {@link DeviceResponse} keyed by device id, optionally backed by a
+ * {@link DeviceCacheTier}. When disabled every lookup goes straight to the loader.
+ */
+public class DeviceCache {
+
+  private final boolean enabled;
+  private final Cache<Long, DeviceResponse> local;
+  private final Optional<DeviceCacheTier> secondLevel;
+
+  public DeviceCache(DeviceCacheProperties properties, Optional<DeviceCacheTier> secondLevel) {
+    this.enabled = properties.enabled();
+    this.local = Caffeine.newBuilder()
+        .maximumSize(properties.maximumSize())
+        .expireAfterWrite(properties.ttl())
+        .recordStats()
+        .build();
+    this.secondLevel = secondLevel;
+  }
+
+  public DeviceResponse get(Long id, Function<Long, DeviceResponse> loader) {
+    if (!enabled) {
+      return loader.apply(id);
+    }
+    return local.get(id, key -> secondLevel.flatMap(tier -> tier.get(key))
+        .orElseGet(() -> loadIntoSecondLevel(key, loader)));
+  }
+
+  /**
+   * Drops the device from both tiers. Runs under the local entry's lock, which an in-flight load of
+   * the same id holds until it has also filled the second level: that load finishes first and its
+   * possibly stale result is evicted with the rest, and loads that start later read past the write.
+   */
+  public void evict(Long id) {
+    if (!enabled) {
+      return;
+    }
+    local.asMap().compute(id, (key, cached) -> {
+      secondLevel.ifPresent(tier -> tier.evict(key));
+      return null;
+    });
+  }
+
+  public Cache<Long, DeviceResponse> local() {
+    return local;
+  }
+
+  private DeviceResponse loadIntoSecondLevel(Long id, Function<Long, DeviceResponse> loader) {
+    DeviceResponse device = loader.apply(id);
+    secondLevel.ifPresent(tier -> tier.put(device));
+    return device;
+  }
+}
@@ -0,0 +1,44 @@
+package com.ricardo.takehome.devices.cache;
+
+import com.ricardo.takehome.devices.events.DeviceEventLog;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(DeviceCacheProperties.class)
+public class DeviceCacheConfig {
+
+  @Bean
+  @ConditionalOnProperty(prefix = "devices.cache", name = "second-level", havingValue = "in-memory")
+  public DeviceCacheTier inMemoryDeviceCacheTier(DeviceCacheProperties properties) {
+    return new InMemoryDeviceCacheTier(properties.secondLevelMaximumSize(), properties.secondLevelTtl());
+  }
+
+  @Bean
+  public DeviceCache deviceCache(DeviceCacheProperties properties, ObjectProvider<DeviceCacheTier> secondLevel) {
+    return new DeviceCache(properties, Optional.ofNullable(secondLevel.getIfAvailable()));
+  }
+
+  @Bean
+  public DeviceCacheInvalidator deviceCacheInvalidator(DeviceCache deviceCache) {
+    return new DeviceCacheInvalidator(deviceCache);
+  }
+
+  @Bean
+  @ConditionalOnProperty(prefix = "devices.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+  public DeviceCacheLogInvalidator deviceCacheLogInvalidator(DeviceEventLog deviceEventLog, DeviceCache deviceCache) {
+    return new DeviceCacheLogInvalidator(deviceEventLog, deviceCache);
+  }
+
+  @Bean
+  public MeterBinder deviceCacheMetrics(DeviceCache deviceCache) {
+    return new CaffeineCacheMetrics<>(deviceCache.local(), "devices", List.of());
+  }
+}
@@ -0,0 +1,21 @@
+package com.ricardo.takehome.devices.cache;
+
+import com.ricardo.takehome.devices.service.DeviceChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Drops cached entries once the writing transaction has committed. Evicting rather than putting
+ * the new value avoids racing out-of-order commits; a concurrent load in progress for the same
+ * id completes before the eviction is applied.
+ */
+@RequiredArgsConstructor
+public class DeviceCacheInvalidator {
+
+  private final DeviceCache deviceCache;
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onDeviceChanged(DeviceChangedEvent event) {
+    deviceCache.evict(event.id());
+  }
+}
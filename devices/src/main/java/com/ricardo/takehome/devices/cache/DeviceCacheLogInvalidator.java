@@ -0,0 +1,48 @@
+package com.ricardo.takehome.devices.cache;
+
+import com.ricardo.takehome.devices.events.DeviceEventLog;
+import com.ricardo.takehome.devices.events.LoggedDeviceEvent;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Drops cached entries changed by other writers: other instances and the reactive variant write
+ * the same tables, but their commits never reach this instance's {@link DeviceCacheInvalidator}.
+ * Every write logs a device event in its transaction, so following the log from where it stood at
+ * startup, when the cache was empty, catches them all within {@code devices.events.settle-delay}
+ * plus {@code devices.cache.log-poll-interval} of the commit. This instance's own changes are
+ * read back as well; evicting them again is harmless.
+ */
+@Slf4j
+public class DeviceCacheLogInvalidator {
+
+  static final int PAGE_SIZE = 500;
+
+  private final DeviceEventLog eventLog;
+  private final DeviceCache deviceCache;
+  private long position;
+
+  public DeviceCacheLogInvalidator(DeviceEventLog eventLog, DeviceCache deviceCache) {
+    this.eventLog = eventLog;
+    this.deviceCache = deviceCache;
+    this.position = eventLog.lastPosition();
+  }
+
+  @Scheduled(fixedDelayString = "${devices.cache.log-poll-interval:1s}")
+  public synchronized void poll() {
+    try {
+      List<LoggedDeviceEvent> page;
+      do {
+        page = eventLog.readAfter(position, PAGE_SIZE);
+        for (LoggedDeviceEvent event : page) {
+          deviceCache.evict(event.event().id());
+          position = event.position();
+        }
+      } while (page.size() == PAGE_SIZE);
+    } catch (RuntimeException e) {
+      // an exception would cancel the schedule; the next poll resumes from the same position
+      log.warn("Reading device events after {} failed: {}", position, e.getMessage());
+    }
+  }
+}
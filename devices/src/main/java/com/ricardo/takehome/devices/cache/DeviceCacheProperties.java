@@ -0,0 +1,21 @@
+package com.ricardo.takehome.devices.cache;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "devices.cache")
+public record DeviceCacheProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("10000") long maximumSize,
+    @DefaultValue("5m") Duration ttl,
+    @DefaultValue("none") SecondLevel secondLevel,
+    @DefaultValue("100000") long secondLevelMaximumSize,
+    @DefaultValue("30m") Duration secondLevelTtl
+) {
+
+  public enum SecondLevel {
+    NONE,
+    IN_MEMORY
+  }
+}
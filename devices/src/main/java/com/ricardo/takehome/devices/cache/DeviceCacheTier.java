@@ -0,0 +1,17 @@
+package com.ricardo.takehome.devices.cache;
+
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import java.util.Optional;
+
+/**
+ * Second-level store consulted by {@link DeviceCache} after a local miss, e.g. a cache shared
+ * between instances.
+ */
+public interface DeviceCacheTier {
+
+  Optional<DeviceResponse> get(Long id);
+
+  void put(DeviceResponse device);
+
+  void evict(Long id);
+}
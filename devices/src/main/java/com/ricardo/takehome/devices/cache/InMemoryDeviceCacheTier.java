@@ -0,0 +1,38 @@
+package com.ricardo.takehome.devices.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Process-local stand-in for a shared second-level store. Bounded like one, by size and by time
+ * since the entry was written.
+ */
+public class InMemoryDeviceCacheTier implements DeviceCacheTier {
+
+  private final Cache<Long, DeviceResponse> entries;
+
+  public InMemoryDeviceCacheTier(long maximumSize, Duration ttl) {
+    this.entries = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(ttl)
+        .build();
+  }
+
+  @Override
+  public Optional<DeviceResponse> get(Long id) {
+    return Optional.ofNullable(entries.getIfPresent(id));
+  }
+
+  @Override
+  public void put(DeviceResponse device) {
+    entries.put(device.id(), device);
+  }
+
+  @Override
+  public void evict(Long id) {
+    entries.invalidate(id);
+  }
+}
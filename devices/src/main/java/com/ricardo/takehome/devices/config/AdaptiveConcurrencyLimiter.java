@@ -0,0 +1,102 @@
+package com.ricardo.takehome.devices.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caps requests in flight at a limit that follows observed latency, after the gradient algorithm
+ * of Netflix's concurrency-limits: a short moving average of latency is compared with a long one,
+ * the limit shrinks while the short one exceeds {@code tolerance} times the long one (requests
+ * are queueing somewhere, usually for a connection) and grows by about its square root while it
+ * does not.
+ *
+ * <p>Admission is a compare-and-set on the in-flight count. Completions feed latency back under a
+ * lock that is only tried, never waited for: a sample that arrives while another is being
+ * applied is dropped.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final double SHORT_WEIGHT = 0.1;
+    private static final double LONG_WEIGHT = 0.01;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock sampleLock = new ReentrantLock();
+    private volatile int limit;
+
+    // guarded by sampleLock
+    private double estimatedLimit;
+    private double shortRtt;
+    private double longRtt;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        if (minLimit < 1 || minLimit > maxLimit || tolerance < 1.0) {
+            throw new IllegalArgumentException("need 1 <= minLimit <= maxLimit and tolerance >= 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.estimatedLimit = Math.clamp(initialLimit, minLimit, maxLimit);
+        this.limit = (int) estimatedLimit;
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /** Releases a permit whose latency says nothing about the server, e.g. a stream handed off. */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public void release(long latencyNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        if (sampleLock.tryLock()) {
+            try {
+                sample(latencyNanos, inFlightBefore);
+            } finally {
+                sampleLock.unlock();
+            }
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void sample(long latencyNanos, int inFlightBefore) {
+        if (longRtt == 0) {
+            shortRtt = latencyNanos;
+            longRtt = latencyNanos;
+            return;
+        }
+        shortRtt += (latencyNanos - shortRtt) * SHORT_WEIGHT;
+        longRtt += (latencyNanos - longRtt) * LONG_WEIGHT;
+        // after a latency spike, let the baseline catch up instead of holding the limit down
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        // lightly loaded: the samples say nothing about how much more the server could take
+        if (inFlightBefore < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.clamp(tolerance * longRtt / shortRtt, 0.5, 1.0);
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = Math.clamp(estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING, minLimit, maxLimit);
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,58 @@
+package com.ricardo.takehome.devices.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Rate and concurrency limits for the device endpoints. The SSE change feed is left out: its
+ * connections are long-lived by design and hold no database connection.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "devices.admission", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(AdmissionControlProperties.class)
+public class AdmissionControlConfig {
+
+    @Bean
+    public AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter(AdmissionControlProperties properties) {
+        return new AdaptiveConcurrencyLimiter(properties.initialConcurrency(), properties.minConcurrency(),
+                properties.maxConcurrency(), properties.latencyTolerance());
+    }
+
+    @Bean
+    public MeterBinder admissionControlMetrics(AdaptiveConcurrencyLimiter limiter) {
+        return registry -> {
+            Gauge.builder("devices.admission.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .register(registry);
+            Gauge.builder("devices.admission.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public WebMvcConfigurer admissionControlConfigurer(AdmissionControlProperties properties,
+                                                       AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                                       MeterRegistry meterRegistry) {
+        AdmissionControlInterceptor interceptor = new AdmissionControlInterceptor(
+                properties.clientHeader(),
+                properties.clientKeys(),
+                new ClientRateLimiter(properties.readRate(), properties.readBurst(), properties.maxClients()),
+                new ClientRateLimiter(properties.writeRate(), properties.writeBurst(), properties.maxClients()),
+                concurrencyLimiter,
+                meterRegistry);
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptor)
+                        .addPathPatterns("/api/devices", "/api/devices/**", "/api/devices:batch")
+                        .excludePathPatterns("/api/devices/events");
+            }
+        };
+    }
+}
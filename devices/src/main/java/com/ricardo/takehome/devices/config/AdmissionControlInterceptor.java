@@ -0,0 +1,95 @@
+package com.ricardo.takehome.devices.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Sheds load before a handler runs and therefore before it opens a transaction: first the
+ * client's read or write budget, then the server-wide adaptive concurrency limit. Async requests
+ * give their concurrency permit back once the request thread is released; their streaming time
+ * would only distort the latency samples.
+ *
+ * <p>A client is the authenticated principal if there is one, else the API key if it is one of the
+ * issued {@code clientKeys}, else the remote address. Any other header value is ignored: keying on
+ * it would let a caller get a fresh bucket per request by making up keys.
+ */
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor {
+    static final String METRIC = "devices.admission.rejections";
+    private static final String STARTED_AT = AdmissionControlInterceptor.class.getName() + ".startedAt";
+    private static final Duration BUSY_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final String clientHeader;
+    private final Set<String> clientKeys;
+    private final ClientRateLimiter readLimiter;
+    private final ClientRateLimiter writeLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final Counter readRejections;
+    private final Counter writeRejections;
+    private final Counter concurrencyRejections;
+
+    public AdmissionControlInterceptor(String clientHeader, Set<String> clientKeys, ClientRateLimiter readLimiter,
+                                       ClientRateLimiter writeLimiter, AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                       MeterRegistry meterRegistry) {
+        this.clientHeader = clientHeader;
+        this.clientKeys = Set.copyOf(clientKeys);
+        this.readLimiter = readLimiter;
+        this.writeLimiter = writeLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.readRejections = meterRegistry.counter(METRIC, "reason", "rate", "budget", "read");
+        this.writeRejections = meterRegistry.counter(METRIC, "reason", "rate", "budget", "write");
+        this.concurrencyRejections = meterRegistry.counter(METRIC, "reason", "concurrency", "budget", "none");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        boolean read = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+        long waitNanos = (read ? readLimiter : writeLimiter).tryAcquire(clientId(request));
+        if (waitNanos > 0) {
+            (read ? readRejections : writeRejections).increment();
+            throw new AdmissionRejectedException("Rate limit exceeded, retry later", Duration.ofNanos(waitNanos));
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            concurrencyRejections.increment();
+            throw new AdmissionRejectedException("Server is busy, retry later", BUSY_RETRY_AFTER);
+        }
+        request.setAttribute(STARTED_AT, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(STARTED_AT) != null) {
+            request.removeAttribute(STARTED_AT);
+            concurrencyLimiter.release();
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(STARTED_AT) instanceof Long startedAt) {
+            request.removeAttribute(STARTED_AT);
+            concurrencyLimiter.release(System.nanoTime() - startedAt);
+        }
+    }
+
+    String clientId(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            return "user:" + principal.getName();
+        }
+        String apiKey = request.getHeader(clientHeader);
+        return apiKey != null && clientKeys.contains(apiKey) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+}
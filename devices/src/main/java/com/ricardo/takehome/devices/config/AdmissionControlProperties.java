@@ -0,0 +1,36 @@
+package com.ricardo.takehome.devices.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Set;
+
+/**
+ * @param clientHeader header carrying the API key that identifies a client
+ * @param clientKeys API keys issued to clients; a request whose header carries any other value,
+ *     or none, is keyed by remote address. Authenticated requests are keyed by principal instead.
+ * @param maxClients client buckets kept at once; the least recently seen are dropped beyond it
+ * @param readRate sustained GET requests per second and client
+ * @param readBurst GET requests a client may send at once after being idle
+ * @param writeRate sustained POST, PATCH and DELETE requests per second and client
+ * @param writeBurst writes a client may send at once after being idle
+ * @param initialConcurrency requests in flight allowed before any latency has been observed
+ * @param latencyTolerance how far recent latency may rise above the long-term average before the
+ *     concurrency limit shrinks
+ */
+@ConfigurationProperties(prefix = "devices.admission")
+public record AdmissionControlProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("X-API-Key") String clientHeader,
+        @DefaultValue Set<String> clientKeys,
+        @DefaultValue("100000") long maxClients,
+        @DefaultValue("200") double readRate,
+        @DefaultValue("400") int readBurst,
+        @DefaultValue("50") double writeRate,
+        @DefaultValue("100") int writeBurst,
+        @DefaultValue("100") int initialConcurrency,
+        @DefaultValue("10") int minConcurrency,
+        @DefaultValue("1000") int maxConcurrency,
+        @DefaultValue("2.0") double latencyTolerance
+) {
+}
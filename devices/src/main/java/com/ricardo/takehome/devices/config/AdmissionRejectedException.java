@@ -0,0 +1,20 @@
+package com.ricardo.takehome.devices.config;
+
+import java.time.Duration;
+
+/**
+ * Thrown before a request reaches its controller when it is over its client's rate or the server's
+ * concurrency limit. Rejections are frequent under overload, so no stack trace is captured.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(String message, Duration retryAfter) {
+        super(message, null, false, false);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,59 @@
+package com.ricardo.takehome.devices.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket per client, kept as the GCRA "theoretical arrival time": the instant the bucket
+ * would be full again. That single long per client is advanced with a compare-and-set, so
+ * admission never takes a lock. A bucket left alone until it is full is indistinguishable from a
+ * new one, which is when the cache may drop it.
+ */
+public class ClientRateLimiter {
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final LongSupplier nanoClock;
+    private final Cache<String, AtomicLong> buckets;
+
+    public ClientRateLimiter(double ratePerSecond, int burst, long maxClients) {
+        this(ratePerSecond, burst, maxClients, System::nanoTime);
+    }
+
+    ClientRateLimiter(double ratePerSecond, int burst, long maxClients, LongSupplier nanoClock) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("rate and burst must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.nanoClock = nanoClock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofNanos(burstNanos))
+                .build();
+    }
+
+    /**
+     * Takes one token from the client's bucket.
+     *
+     * @return 0 when admitted, otherwise the nanoseconds until a token is available
+     */
+    public long tryAcquire(String client) {
+        AtomicLong bucket = buckets.get(client, key -> new AtomicLong(Long.MIN_VALUE));
+        long now = nanoClock.getAsLong();
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.ricardo.takehome.devices.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param maxConcurrency connections handed out at once; {@code null} uses the pool's maximum size,
+ *                       plus the read replicas' pools when enabled
+ * @param acquireTimeout how long a caller waits for a permit before the request is rejected
+ */
+@ConfigurationProperties(prefix = "devices.db")
+public record DbConcurrencyProperties(
+        Integer maxConcurrency,
+        @DefaultValue("2s") Duration acquireTimeout,
+        @DefaultValue("20ms") Duration pinningThreshold
+) {}
@@ -0,0 +1,17 @@
+package com.ricardo.takehome.devices.config;
+
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Resources a native image has to include that no library declares: the Flyway migrations, which
+ * sit one directory below the default {@code db/migration} location, and the Swagger UI assets.
+ */
+public class DevicesRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.resources().registerPattern("db/migration/*/*.sql");
+        hints.resources().registerPattern("META-INF/resources/webjars/swagger-ui/**");
+    }
+}
@@ -0,0 +1,33 @@
+package com.ricardo.takehome.devices.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread between {@link #start()} and
+ * {@link #stop()}. Statements issued through {@code JdbcTemplate} bypass Hibernate and are not seen.
+ */
+public class HibernateStatementCounter implements StatementInspector {
+    private final ThreadLocal<int[]> count = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        int[] current = count.get();
+        if (current != null) {
+            current[0]++;
+        }
+        return sql;
+    }
+
+    public void start() {
+        count.set(new int[1]);
+    }
+
+    /**
+     * @return statements seen since {@link #start()}, or -1 if counting was not started on this thread
+     */
+    public int stop() {
+        int[] current = count.get();
+        count.remove();
+        return current == null ? -1 : current[0];
+    }
+}
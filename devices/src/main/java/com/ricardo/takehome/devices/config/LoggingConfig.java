@@ -0,0 +1,19 @@
+package com.ricardo.takehome.devices.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(RequestLoggingProperties.class)
+public class LoggingConfig {
+
+    @Bean
+    public FilterRegistrationBean<SampledRequestLoggingFilter> sampledRequestLoggingFilter(RequestLoggingProperties properties) {
+        FilterRegistrationBean<SampledRequestLoggingFilter> registration =
+                new FilterRegistrationBean<>(new SampledRequestLoggingFilter(properties.sampleRate()));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
@@ -0,0 +1,37 @@
+package com.ricardo.takehome.devices.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Per-request Hibernate statement counts. Request timers ({@code http.server.requests}), service
+ * timers ({@code @Timed}) and Hikari pool gauges come from Spring Boot's actuator.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public HibernateStatementCounter hibernateStatementCounter() {
+        return new HibernateStatementCounter();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCountingCustomizer(HibernateStatementCounter counter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, counter);
+    }
+
+    @Bean
+    public WebMvcConfigurer statementCountingConfigurer(HibernateStatementCounter counter, MeterRegistry meterRegistry) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new StatementCountInterceptor(counter, meterRegistry)).addPathPatterns("/api/**");
+            }
+        };
+    }
+}
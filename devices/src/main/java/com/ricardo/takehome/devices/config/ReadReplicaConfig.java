@@ -0,0 +1,130 @@
+package com.ricardo.takehome.devices.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Active when {@code devices.read-replicas.enabled=true}: read-only transactions run on the
+ * replicas in {@code devices.read-replicas.urls}, everything else on {@code spring.datasource}.
+ * Flyway migrates the primary only; replicas receive the schema through replication.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "devices.read-replicas", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReadReplicaProperties.class)
+public class ReadReplicaConfig {
+
+    @Bean(destroyMethod = "close")
+    public static ReadReplicas readReplicas(Environment environment) {
+        Binder binder = Binder.get(environment);
+        ReadReplicaProperties properties = binder.bindOrCreate("devices.read-replicas", ReadReplicaProperties.class);
+        String username = properties.username() != null
+                ? properties.username()
+                : binder.bind("spring.datasource.username", String.class).orElse(null);
+        String password = properties.password() != null
+                ? properties.password()
+                : binder.bind("spring.datasource.password", String.class).orElse(null);
+        Map<String, String> dataSourceProperties = binder
+                .bind("spring.datasource.hikari.data-source-properties", Bindable.mapOf(String.class, String.class))
+                .orElse(Map.of());
+
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (int i = 0; i < properties.urls().size(); i++) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("replica-" + i);
+            config.setJdbcUrl(properties.urls().get(i));
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setMaximumPoolSize(properties.maximumPoolSize());
+            config.setReadOnly(true);
+            dataSourceProperties.forEach(config::addDataSourceProperty);
+            pools.add(new HikariDataSource(config));
+        }
+        return new ReadReplicas(pools, properties.balancing());
+    }
+
+    @Bean
+    public static RoutingPostProcessor readReplicaRouting(ObjectProvider<ReadReplicas> readReplicas) {
+        return new RoutingPostProcessor(readReplicas);
+    }
+
+    /** Lets the streaming and async request threads read from the pool their request was pinned to. */
+    @Bean
+    public TaskDecorator readReplicaTaskDecorator() {
+        return ReadReplicas::propagating;
+    }
+
+    @Bean
+    public MeterBinder readReplicaMetrics(ReadReplicas readReplicas) {
+        // the replica pools are not beans, so the pool metrics auto-configuration does not see them
+        return registry -> readReplicas.getPools()
+                .forEach(pool -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+    }
+
+    @Bean
+    public WebMvcConfigurer readYourWritesConfigurer(ReadReplicaProperties properties) {
+        if (properties.staleness() != ReadReplicaProperties.Staleness.READ_YOUR_WRITES) {
+            return new WebMvcConfigurer() {
+            };
+        }
+        ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(
+                properties.sessionHeader(), properties.readYourWritesWindow(), Clock.systemUTC());
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptor)
+                        .addPathPatterns("/api/devices", "/api/devices/**", "/api/devices:batch");
+            }
+        };
+    }
+
+    /**
+     * Wraps the primary {@link DataSource} in the routing proxy of {@link ReadReplicas#routing}. It
+     * runs before {@link VirtualThreadConfig.ConcurrencyLimiterPostProcessor}, so with virtual threads
+     * the {@code DataSource} bean nests as limiter, then routing proxy, then the primary pool or a
+     * replica pool: one permit covers a connection from whichever pool the proxy picks.
+     */
+    static class RoutingPostProcessor implements BeanPostProcessor, Ordered {
+        static final int ORDER = Ordered.LOWEST_PRECEDENCE - 20;
+
+        private final ObjectProvider<ReadReplicas> readReplicas;
+
+        RoutingPostProcessor(ObjectProvider<ReadReplicas> readReplicas) {
+            this.readReplicas = readReplicas;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource) || bean instanceof LazyConnectionDataSourceProxy) {
+                return bean;
+            }
+            return readReplicas.getObject().routing(dataSource);
+        }
+
+        @Override
+        public int getOrder() {
+            return ORDER;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.ricardo.takehome.devices.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * @param urls JDBC URLs of the replicas; each gets its own connection pool
+ * @param username replica user; {@code null} uses {@code spring.datasource.username}
+ * @param password replica password; {@code null} uses {@code spring.datasource.password}
+ * @param maximumPoolSize connections per replica pool
+ * @param balancing how a read-only transaction picks its replica
+ * @param staleness whether a client that has just written reads from the primary
+ * @param readYourWritesWindow how long after a write its client's reads stay on the primary;
+ *     should exceed the replication lag
+ * @param sessionHeader header through which writes hand out, and reads send back, the session token
+ */
+@ConfigurationProperties(prefix = "devices.read-replicas")
+public record ReadReplicaProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue List<String> urls,
+        String username,
+        String password,
+        @DefaultValue("10") int maximumPoolSize,
+        @DefaultValue("round-robin") Balancing balancing,
+        @DefaultValue("read-your-writes") Staleness staleness,
+        @DefaultValue("5s") Duration readYourWritesWindow,
+        @DefaultValue("X-Session-Token") String sessionHeader
+) {
+
+    public enum Balancing {
+        /** Replicas take turns. */
+        ROUND_ROBIN,
+        /** The replica with the fewest connections in use; turns break ties. */
+        LEAST_CONNECTIONS
+    }
+
+    public enum Staleness {
+        /** Every read-only transaction goes to a replica, however recently its client wrote. */
+        EVENTUAL,
+        /** Reads carrying a session token younger than the window go to the primary. */
+        READ_YOUR_WRITES
+    }
+}
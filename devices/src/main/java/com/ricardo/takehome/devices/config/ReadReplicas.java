@@ -0,0 +1,128 @@
+package com.ricardo.takehome.devices.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connection pools of the read replicas. {@link #routing} wraps the primary so that a transaction
+ * marked read-only, such as the {@code @Transactional(readOnly = true)} methods of
+ * {@code DeviceService}, draws its connection from a replica: the wrapper hands out a lazy
+ * connection and only picks the pool on the first statement, once the transaction manager has
+ * flagged it read-only. Everything else, including reads outside a transaction, stays on the
+ * primary.
+ *
+ * <p>A thread that has called {@link #requirePrimary()} reads from the primary until it calls
+ * {@link #clear()}; this is how a client's reads are kept consistent with its own recent writes.
+ * Tasks wrapped with {@link #propagating} inherit it from the thread that submitted them.
+ */
+public class ReadReplicas implements Closeable {
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final List<HikariDataSource> pools;
+    private final ReadReplicaProperties.Balancing balancing;
+    private final AtomicInteger turn = new AtomicInteger();
+
+    public ReadReplicas(List<HikariDataSource> pools, ReadReplicaProperties.Balancing balancing) {
+        if (pools.isEmpty()) {
+            throw new IllegalArgumentException("At least one read replica is required");
+        }
+        this.pools = List.copyOf(pools);
+        this.balancing = balancing;
+    }
+
+    public static void requirePrimary() {
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+    }
+
+    public static void clear() {
+        PRIMARY_REQUIRED.remove();
+    }
+
+    /**
+     * Carries the calling thread's {@link #requirePrimary()} over to {@code task}, for work that a
+     * request hands to another thread, such as a {@code StreamingResponseBody}.
+     */
+    public static Runnable propagating(Runnable task) {
+        Boolean required = PRIMARY_REQUIRED.get();
+        return () -> {
+            Boolean previous = PRIMARY_REQUIRED.get();
+            set(required);
+            try {
+                task.run();
+            } finally {
+                set(previous);
+            }
+        };
+    }
+
+    private static void set(Boolean required) {
+        if (required != null) {
+            PRIMARY_REQUIRED.set(required);
+        } else {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+
+    public DataSource routing(DataSource primary) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(new ReplicaDataSource(primary));
+        return proxy;
+    }
+
+    public List<HikariDataSource> getPools() {
+        return pools;
+    }
+
+    @Override
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    HikariDataSource select() {
+        int first = Math.floorMod(turn.getAndIncrement(), pools.size());
+        if (balancing == ReadReplicaProperties.Balancing.ROUND_ROBIN) {
+            return pools.get(first);
+        }
+        HikariDataSource least = null;
+        int leastActive = Integer.MAX_VALUE;
+        for (int i = 0; i < pools.size(); i++) {
+            HikariDataSource pool = pools.get((first + i) % pools.size());
+            int active = pool.getHikariPoolMXBean().getActiveConnections();
+            if (active < leastActive) {
+                least = pool;
+                leastActive = active;
+            }
+        }
+        return least;
+    }
+
+    private class ReplicaDataSource extends AbstractDataSource {
+        private final DataSource primary;
+
+        ReplicaDataSource(DataSource primary) {
+            this.primary = primary;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return target().getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return target().getConnection(username, password);
+        }
+
+        private DataSource target() {
+            return PRIMARY_REQUIRED.get() != null ? primary : select();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.ricardo.takehome.devices.config;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Gives every write a session token, the time it was received, and keeps the reads of a client
+ * that sends a recent token back on the primary. The token is a plain timestamp, so it holds
+ * across application instances as long as their clocks agree within the window.
+ */
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+    private final String sessionHeader;
+    private final long windowMillis;
+    private final Clock clock;
+
+    public ReadYourWritesInterceptor(String sessionHeader, Duration window, Clock clock) {
+        this.sessionHeader = sessionHeader;
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        long now = clock.millis();
+        boolean read = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+        if (!read) {
+            response.setHeader(sessionHeader, Long.toString(now));
+            ReadReplicas.requirePrimary();
+        } else if (isRecent(request.getHeader(sessionHeader), now)) {
+            ReadReplicas.requirePrimary();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ReadReplicas.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReadReplicas.clear();
+    }
+
+    boolean isRecent(String token, long now) {
+        if (token == null || token.isBlank()) {
+            return false;
+        }
+        try {
+            // a token from the future is only honoured within the window, so it cannot pin a client for good
+            return Math.abs(now - Long.parseLong(token.trim())) < windowMillis;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
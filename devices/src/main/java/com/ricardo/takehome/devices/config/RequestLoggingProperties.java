@@ -0,0 +1,14 @@
+package com.ricardo.takehome.devices.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param sampleRate fraction of requests (0.0 to 1.0) written to the request log; server errors
+ *     are always written
+ */
+@ConfigurationProperties(prefix = "devices.logging.requests")
+public record RequestLoggingProperties(
+        @DefaultValue("1.0") double sampleRate
+) {
+}
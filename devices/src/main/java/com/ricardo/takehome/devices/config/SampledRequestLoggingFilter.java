@@ -0,0 +1,44 @@
+package com.ricardo.takehome.devices.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes one line per sampled request instead of the controllers logging every call. The sampling
+ * decision is made before any message is built, so skipped requests cost a random number.
+ */
+@Slf4j
+public class SampledRequestLoggingFilter extends OncePerRequestFilter {
+    private final double sampleRate;
+
+    public SampledRequestLoggingFilter(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int status = response.getStatus();
+            if (status >= 500 || sampled()) {
+                log.info("{} {} {} {}ms", request.getMethod(), request.getRequestURI(), status,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        }
+    }
+
+    boolean sampled() {
+        return sampleRate >= 1.0 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+}
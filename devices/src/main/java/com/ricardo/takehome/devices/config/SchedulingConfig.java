@@ -0,0 +1,14 @@
+package com.ricardo.takehome.devices.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the {@code @Scheduled} jobs of every module: counts reconciliation, event log purge and
+ * tailing, history partitions, idempotency leases and cleanup, archival. Kept out of the feature
+ * configurations so turning one of them off does not stop the others' jobs.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,51 @@
+package com.ricardo.takehome.devices.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records how many Hibernate statements each request issued, per method and URI template, so an
+ * N+1 or a runaway query shows up as a shift in {@code devices.http.statements}. Async requests
+ * are counted per dispatch, since their work leaves the request thread.
+ */
+public class StatementCountInterceptor implements AsyncHandlerInterceptor {
+    static final String METRIC = "devices.http.statements";
+
+    private final HibernateStatementCounter counter;
+    private final MeterRegistry meterRegistry;
+
+    public StatementCountInterceptor(HibernateStatementCounter counter, MeterRegistry meterRegistry) {
+        this.counter = counter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        counter.start();
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        counter.stop();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        int statements = counter.stop();
+        if (statements < 0) {
+            return;
+        }
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder(METRIC)
+                .description("Hibernate statements issued per request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri != null ? uri.toString() : "UNKNOWN")
+                .register(meterRegistry)
+                .record(statements);
+    }
+}
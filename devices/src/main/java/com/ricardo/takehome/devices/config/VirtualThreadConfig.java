@@ -0,0 +1,121 @@
+package com.ricardo.takehome.devices.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Active when {@code spring.threads.virtual.enabled=true} (see the {@code virtual-threads}
+ * profile): Tomcat then serves each request, and therefore each {@code DeviceService}
+ * transaction, on its own virtual thread.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@EnableConfigurationProperties(DbConcurrencyProperties.class)
+@ImportRuntimeHints(VirtualThreadConfig.ConnectionProxyHints.class)
+public class VirtualThreadConfig {
+
+    @Bean
+    public static ConcurrencyLimiterPostProcessor dbConcurrencyLimiter(Environment environment,
+                                                                       ObjectProvider<ReadReplicas> readReplicas) {
+        return new ConcurrencyLimiterPostProcessor(environment, readReplicas);
+    }
+
+    @Bean
+    public MeterBinder dbConcurrencyMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof ConcurrencyLimitingDataSource limiter) {
+                Gauge.builder("devices.db.permits.available", limiter, ConcurrencyLimitingDataSource::getAvailablePermits)
+                        .register(registry);
+                Gauge.builder("devices.db.permits.waiting", limiter, ConcurrencyLimitingDataSource::getWaitingThreads)
+                        .register(registry);
+            }
+        };
+    }
+
+    @Bean
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(DbConcurrencyProperties properties,
+                                                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        return new VirtualThreadPinningMonitor(properties.pinningThreshold(), meterRegistry.getIfAvailable());
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException ignored) {
+            // fall through to the Hikari default
+        }
+        return 10;
+    }
+
+    /**
+     * Wraps the {@code DataSource} bean in a {@link ConcurrencyLimitingDataSource}. It runs after
+     * {@link ReadReplicaConfig.RoutingPostProcessor}, so the limiter is the outermost wrapper: it
+     * sees every connection the application takes, and without {@code devices.db.max-concurrency}
+     * allows as many as the primary and the replica pools hold together.
+     */
+    static class ConcurrencyLimiterPostProcessor implements BeanPostProcessor, Ordered {
+        static final int ORDER = ReadReplicaConfig.RoutingPostProcessor.ORDER + 10;
+
+        private final Environment environment;
+        private final ObjectProvider<ReadReplicas> readReplicas;
+
+        ConcurrencyLimiterPostProcessor(Environment environment, ObjectProvider<ReadReplicas> readReplicas) {
+            this.environment = environment;
+            this.readReplicas = readReplicas;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource) || bean instanceof ConcurrencyLimitingDataSource) {
+                return bean;
+            }
+            DbConcurrencyProperties properties = Binder.get(environment)
+                    .bindOrCreate("devices.db", DbConcurrencyProperties.class);
+            int maxConcurrency = properties.maxConcurrency() != null
+                    ? properties.maxConcurrency()
+                    : poolSize(dataSource) + replicaPoolSize();
+            return new ConcurrencyLimitingDataSource(dataSource, maxConcurrency, properties.acquireTimeout());
+        }
+
+        @Override
+        public int getOrder() {
+            return ORDER;
+        }
+
+        private int replicaPoolSize() {
+            ReadReplicas replicas = readReplicas.getIfAvailable();
+            return replicas == null
+                    ? 0
+                    : replicas.getPools().stream().mapToInt(HikariDataSource::getMaximumPoolSize).sum();
+        }
+    }
+
+    /** {@link ConcurrencyLimitingDataSource} hands out JDK proxies of {@link Connection}. */
+    static class ConnectionProxyHints implements RuntimeHintsRegistrar {
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.proxies().registerJdkProxy(Connection.class);
+        }
+    }
+}
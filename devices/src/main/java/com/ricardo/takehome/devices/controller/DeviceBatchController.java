@@ -0,0 +1,47 @@
+package com.ricardo.takehome.devices.controller;
+
+import com.ricardo.takehome.devices.dto.BatchResponse;
+import com.ricardo.takehome.devices.dto.BatchUpdateDeviceRequest;
+import com.ricardo.takehome.devices.dto.CreateDeviceRequest;
+import com.ricardo.takehome.devices.service.DeviceBatchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+@Tag(name = "Device API", description = "Device management operations")
+public class DeviceBatchController {
+    static final int MAX_BATCH_SIZE = 1000;
+
+    private final DeviceBatchService deviceBatchService;
+
+    @PostMapping("/devices:batch")
+    @Operation(summary = "Create devices in bulk")
+    public BatchResponse createAll(@RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE) List<CreateDeviceRequest> requests) {
+        log.debug("Creating {} devices in batch", requests.size());
+        return BatchResponse.of(deviceBatchService.createAll(requests));
+    }
+
+    @PatchMapping("/devices:batch")
+    @Operation(summary = "Update devices in bulk")
+    public BatchResponse updateAll(@RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE) List<BatchUpdateDeviceRequest> requests) {
+        log.debug("Updating {} devices in batch", requests.size());
+        return BatchResponse.of(deviceBatchService.updateAll(requests));
+    }
+
+    @DeleteMapping("/devices:batch")
+    @Operation(summary = "Delete devices in bulk")
+    public BatchResponse deleteAll(@RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE) List<Long> ids) {
+        log.debug("Deleting {} devices in batch", ids.size());
+        return BatchResponse.of(deviceBatchService.deleteAll(ids));
+    }
+}
@@ -0,0 +1,43 @@
+package com.ricardo.takehome.devices.controller;
+
+import com.ricardo.takehome.devices.dto.ClaimDevicesRequest;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.service.DeviceService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/devices")
+@RequiredArgsConstructor
+@Tag(name = "Device API", description = "Device management operations")
+public class DeviceClaimController {
+    static final int MAX_RELEASE_SIZE = 1000;
+
+    private final DeviceService deviceService;
+
+    @PostMapping("/claim")
+    @Operation(summary = "Claim available devices",
+            description = "Atomically moves up to count AVAILABLE devices (of brand, if given) to IN_USE and returns them. "
+                    + "Concurrent claims never return the same device; fewer than count means no more were available.")
+    public List<DeviceResponse> claim(@Valid @RequestBody ClaimDevicesRequest request) {
+        log.debug("Claiming up to {} devices of brand={}", request.count(), request.brand());
+        return deviceService.claim(request.count(), request.brand());
+    }
+
+    @PostMapping("/release")
+    @Operation(summary = "Release claimed devices",
+            description = "Moves the given IN_USE devices back to AVAILABLE and returns them; other ids are ignored.")
+    public List<DeviceResponse> release(@RequestBody @NotEmpty @Size(max = MAX_RELEASE_SIZE) List<Long> ids) {
+        log.debug("Releasing {} devices", ids.size());
+        return deviceService.release(ids);
+    }
+}
@@ -1,24 +1,40 @@
 package com.ricardo.takehome.devices.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedOutputStream;
 import com.ricardo.takehome.devices.dto.CreateDeviceRequest;
 import com.ricardo.takehome.devices.dto.DeviceResponse;
-import com.ricardo.takehome.devices.dto.ErrorResponse;
 import com.ricardo.takehome.devices.dto.UpdateDeviceRequest;
 import com.ricardo.takehome.devices.model.Device;
 import com.ricardo.takehome.devices.model.DeviceState;
+import com.ricardo.takehome.devices.protobuf.DeviceProtobuf;
+import com.ricardo.takehome.devices.repository.DeviceCursor;
+import com.ricardo.takehome.devices.repository.DeviceListVersion;
+import com.ricardo.takehome.devices.repository.DeviceSearchRepository;
+import com.ricardo.takehome.devices.repository.DeviceSortOrder;
 import com.ricardo.takehome.devices.service.DeviceService;
+import com.ricardo.takehome.devices.service.DeviceVersionMismatchException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Slf4j
 @RestController
@@ -26,94 +42,204 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Tag(name = "Device API", description = "Device management operations")
 public class DeviceController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final String NEXT_OFFSET_HEADER = "X-Next-Offset";
+    static final int DEFAULT_SEARCH_PAGE_SIZE = 20;
+    static final int MAX_SEARCH_PAGE_SIZE = 100;
+    static final int MAX_SEARCH_OFFSET = 1000;
+    static final int MAX_SEARCH_QUERY_LENGTH = 100;
+    private static final Pattern STRONG_VERSION_TAG = Pattern.compile("\"(\\d{1,18})\"");
+
     private final DeviceService deviceService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @Operation(summary = "Create a new device")
     public DeviceResponse create(@Valid @RequestBody CreateDeviceRequest request) {
-        log.info("Creating device: name={}, brand={}", request.name(), request.brand());
+        log.debug("Creating device: name={}, brand={}", request.name(), request.brand());
         Device device = deviceService.create(request);
         log.debug("Device created with id={}", device.getId());
-        return toResponse(device);
+        return DeviceResponse.from(device);
     }
 
     @GetMapping("/{id}")
-    @Operation(summary = "Get device by ID")
-    public DeviceResponse getById(@PathVariable Long id) {
-        log.info("Fetching device id={}", id);
-        Device device = deviceService.getById(id);
-        return toResponse(device);
+    @Operation(summary = "Get device by ID",
+            description = "The ETag header carries the device version for If-Match; If-None-Match and If-Modified-Since answer 304 while it is unchanged.")
+    public ResponseEntity<DeviceResponse> getById(@PathVariable Long id) {
+        log.debug("Fetching device id={}", id);
+        DeviceResponse device = deviceService.getResponseById(id);
+        return ResponseEntity.ok()
+                .eTag(String.valueOf(device.version()))
+                .lastModified(device.lastModifiedTime())
+                .body(device);
     }
 
     @GetMapping
-    @Operation(summary = "Get all devices with optional filters")
-    public List<DeviceResponse> getAll(@RequestParam(required = false) String brand, @RequestParam(required = false) DeviceState state) {
-        log.info("Fetching devices with filters: brand={}, state={}", brand, state);
-        List<Device> devices;
-        if (brand != null) {
-            devices = deviceService.getByBrand(brand);
-        } else if (state != null) {
-            devices = deviceService.getByState(state);
-        } else {
-            devices = deviceService.getAll();
+    @Operation(summary = "Get a page of devices with optional filters",
+            description = "Pages are ordered by 'sort' (id or creationTime) and 'direction' (asc or desc), ties broken by id. "
+                    + "Pass the X-Next-Cursor response header, an opaque token, as 'after' to fetch the next page. "
+                    + "The ETag changes whenever a device matching the filters does; send it as If-None-Match to get 304 otherwise. "
+                    + "With archived=true, pages come from the archived INACTIVE devices instead.")
+    public ResponseEntity<List<DeviceResponse>> getAll(
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) DeviceState state,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(defaultValue = "false") boolean archived,
+            WebRequest webRequest) {
+        DeviceSortOrder order = DeviceSortOrder.of(sort, direction);
+        DeviceCursor cursor = after != null ? DeviceCursor.parse(after, order) : null;
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        log.debug("Fetching devices with filters: brand={}, state={}, order={}, after={}, limit={}, archived={}",
+                brand, state, order, after, pageSize, archived);
+        // the version is read before the page and from the same database, so a concurrent write can only
+        // make the tag older than the body; checkNotModified also sets it as the ETag of a 200
+        Optional<List<DeviceResponse>> page = deviceService.getPageIfModified(brand, state, order, cursor,
+                pageSize + 1, archived, version -> webRequest.checkNotModified(listTag(version)));
+        if (page.isEmpty()) {
+            return null;
+        }
+        List<DeviceResponse> devices = page.get();
+        boolean hasMore = devices.size() > pageSize;
+        if (hasMore) {
+            devices = devices.subList(0, pageSize);
         }
         log.debug("Found {} devices", devices.size());
-        return devices.stream()
-                .map(this::toResponse)
-                .toList();
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (hasMore) {
+            response.header(NEXT_CURSOR_HEADER, DeviceCursor.after(devices.getLast(), order).format());
+        }
+        return response.body(devices);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all devices as newline-delimited JSON")
+    public ResponseEntity<StreamingResponseBody> streamAll(
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) DeviceState state) {
+        log.debug("Streaming devices with filters: brand={}, state={}", brand, state);
+        StreamingResponseBody body = out -> deviceService.streamAll(brand, state, device -> writeLine(out, device));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping(produces = DeviceProtobuf.STREAM_MEDIA_TYPE_VALUE)
+    @Operation(summary = "Stream all devices as length-delimited protobuf messages")
+    public ResponseEntity<StreamingResponseBody> streamAllProtobuf(
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) DeviceState state) {
+        log.debug("Streaming devices as protobuf with filters: brand={}, state={}", brand, state);
+        StreamingResponseBody body = out -> {
+            CodedOutputStream coded = CodedOutputStream.newInstance(out);
+            deviceService.streamAll(brand, state, device -> writeDelimited(coded, device));
+            coded.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(DeviceProtobuf.STREAM_MEDIA_TYPE)
+                .body(body);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search devices by name and brand",
+            description = "Case-insensitive. Name prefixes rank first, then brand prefixes, then, for queries of at least "
+                    + DeviceSearchRepository.MIN_FUZZY_LENGTH + " characters, fuzzy matches on either. "
+                    + "Pass the X-Next-Offset response header as 'offset' to fetch the next page.")
+    public ResponseEntity<List<DeviceResponse>> search(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "" + DEFAULT_SEARCH_PAGE_SIZE) int limit) {
+        if (q.isBlank() || q.length() > MAX_SEARCH_QUERY_LENGTH) {
+            throw new IllegalArgumentException("q must be 1 to " + MAX_SEARCH_QUERY_LENGTH + " characters");
+        }
+        if (offset < 0 || offset > MAX_SEARCH_OFFSET) {
+            throw new IllegalArgumentException("offset must be between 0 and " + MAX_SEARCH_OFFSET);
+        }
+        int pageSize = Math.clamp(limit, 1, MAX_SEARCH_PAGE_SIZE);
+        log.debug("Searching devices: q={}, offset={}, limit={}", q, offset, pageSize);
+        List<DeviceResponse> devices = deviceService.search(q, offset, pageSize + 1);
+        boolean hasMore = devices.size() > pageSize;
+        if (hasMore) {
+            devices = devices.subList(0, pageSize);
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (hasMore && offset + pageSize <= MAX_SEARCH_OFFSET) {
+            response.header(NEXT_OFFSET_HEADER, String.valueOf(offset + pageSize));
+        }
+        return response.body(devices);
     }
 
     @PatchMapping("/{id}")
-    @Operation(summary = "Update a device")
-    public DeviceResponse update(
+    @Operation(summary = "Update a device",
+            description = "Send the ETag from a previous read as If-Match to fail with 412 instead of overwriting a newer version.")
+    public ResponseEntity<DeviceResponse> update(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody UpdateDeviceRequest request) {
-        log.info("Updating device id={}", id);
-        Device device = deviceService.update(id, request);
-        return toResponse(device);
+        log.debug("Updating device id={}", id);
+        Device device = deviceService.update(id, request, expectedVersion(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(String.valueOf(device.getVersion()))
+                .body(DeviceResponse.from(device));
     }
 
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @Operation(summary = "Delete a device")
     public void delete(@PathVariable Long id) {
-        log.info("Deleting device id={}", id);
+        log.debug("Deleting device id={}", id);
         deviceService.delete(id);
     }
 
-    @ExceptionHandler
-    public ResponseEntity<ErrorResponse> handleIllegalStateException(IllegalStateException ex) {
-        log.warn("Conflict: {}", ex.getMessage());
-        ErrorResponse error = new ErrorResponse("CONFLICT", ex.getMessage());
-        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    /**
+     * Reads the version out of an {@code If-Match} header. {@code *} matches any existing device;
+     * weak or foreign entity tags can never match a strong comparison.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Matcher matcher = STRONG_VERSION_TAG.matcher(ifMatch.trim());
+        if (!matcher.matches()) {
+            throw new DeviceVersionMismatchException("If-Match " + ifMatch + " does not match the current version");
+        }
+        return Long.valueOf(matcher.group(1));
     }
 
-    @ExceptionHandler
-    public ResponseEntity<ErrorResponse> handleRuntimeException(RuntimeException ex) {
-        log.warn("Not found: {}", ex.getMessage());
-        ErrorResponse error = new ErrorResponse("NOT_FOUND", ex.getMessage());
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    /**
+     * Strong entity tag for a filtered list. No Last-Modified is sent for lists: deleting a device
+     * does not move the newest modification time, and an instance with a slow clock can modify one
+     * without moving it either, so only the tag can tell.
+     */
+    static String listTag(DeviceListVersion version) {
+        Instant lastModifiedTime = version.lastModifiedTime();
+        String modified = lastModifiedTime == null
+                ? "0"
+                : lastModifiedTime.getEpochSecond() + "." + lastModifiedTime.getNano();
+        return version.count() + "-" + modified + "-" + version.position();
     }
 
-    @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<ErrorResponse> handleValidation(MethodArgumentNotValidException e) {
-        String message = e.getBindingResult().getFieldErrors().stream()
-                .map(err -> err.getField() + ": " + err.getDefaultMessage())
-                .collect(Collectors.joining(", "));
-        log.warn("Validation failed: {}", message);
-        ErrorResponse error = new ErrorResponse("BAD_REQUEST", message);
-        return ResponseEntity.badRequest().body(error);
+    private void writeLine(OutputStream out, DeviceResponse device) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(device));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
-
-    private DeviceResponse toResponse(Device device) {
-        return new DeviceResponse(
-                device.getId(),
-                device.getName(),
-                device.getBrand(),
-                device.getState(),
-                device.getCreationTime()
-        );
+    private static void writeDelimited(CodedOutputStream out, DeviceResponse device) {
+        try {
+            DeviceProtobuf.writeDelimited(device, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -0,0 +1,35 @@
+package com.ricardo.takehome.devices.controller;
+
+import com.ricardo.takehome.devices.events.DeviceEventBroadcaster;
+import com.ricardo.takehome.devices.model.DeviceState;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/devices")
+@RequiredArgsConstructor
+@Tag(name = "Device API", description = "Device management operations")
+public class DeviceEventController {
+    static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    private final DeviceEventBroadcaster deviceEventBroadcaster;
+
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream committed device changes as server-sent events",
+            description = "Each event is named created, updated or deleted and carries the device before and after the change. "
+                    + "A change is sent when the device matched the filters before or after it. "
+                    + "Reconnect with Last-Event-ID to receive everything committed since that event.")
+    public SseEmitter events(
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) DeviceState state,
+            @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) Long lastEventId) {
+        log.debug("Subscribing to device events: brand={}, state={}, lastEventId={}", brand, state, lastEventId);
+        return deviceEventBroadcaster.subscribe(brand, state, lastEventId);
+    }
+}
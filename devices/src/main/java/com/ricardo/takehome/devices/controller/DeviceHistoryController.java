@@ -0,0 +1,52 @@
+package com.ricardo.takehome.devices.controller;
+
+import com.ricardo.takehome.devices.history.DeviceHistoryEntry;
+import com.ricardo.takehome.devices.history.DeviceHistoryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/devices")
+@RequiredArgsConstructor
+@Tag(name = "Device API", description = "Device management operations")
+public class DeviceHistoryController {
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private final DeviceHistoryService deviceHistoryService;
+
+    @GetMapping("/{id}/history")
+    @Operation(summary = "Get the change history of a device",
+            description = "Changes newest first, optionally within [from, to). Pass the X-Next-Cursor response header as "
+                    + "'before' to fetch the next page. Changes are written shortly after they commit, and the history "
+                    + "of deleted devices stays available until it expires.")
+    public ResponseEntity<List<DeviceHistoryEntry>> history(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        log.debug("Fetching history of device id={} from={} to={} before={} limit={}", id, from, to, before, pageSize);
+        List<DeviceHistoryEntry> entries = deviceHistoryService.getHistory(id, from, to, before, pageSize + 1);
+        boolean hasMore = entries.size() > pageSize;
+        if (hasMore) {
+            entries = entries.subList(0, pageSize);
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (hasMore) {
+            response.header(DeviceController.NEXT_CURSOR_HEADER, String.valueOf(entries.getLast().version()));
+        }
+        return response.body(entries);
+    }
+}
@@ -0,0 +1,33 @@
+package com.ricardo.takehome.devices.controller;
+
+import com.ricardo.takehome.devices.dto.StateTransitionRequest;
+import com.ricardo.takehome.devices.transitions.DeviceStateWriteBehind;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/devices")
+@RequiredArgsConstructor
+@Tag(name = "Device API", description = "Device management operations")
+public class DeviceStateController {
+
+    private final DeviceStateWriteBehind deviceStateWriteBehind;
+
+    @PutMapping("/{id}/state")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @Operation(summary = "Queue a state transition",
+            description = "Answers 202 before anything is written. Transitions of the same device within one flush interval "
+                    + "are coalesced into the latest and applied with the PATCH rules; one for a device that no longer exists, "
+                    + "or was modified after the transition was received, is dropped. Answers 429 with Retry-After while the "
+                    + "queue is full.")
+    public void transition(@PathVariable Long id, @Valid @RequestBody StateTransitionRequest request) {
+        log.debug("Queueing state transition of device id={} to {}", id, request.state());
+        deviceStateWriteBehind.submit(id, request.state());
+    }
+}
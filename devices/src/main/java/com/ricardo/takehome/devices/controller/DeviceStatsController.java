@@ -0,0 +1,23 @@
+package com.ricardo.takehome.devices.controller;
+
+import com.ricardo.takehome.devices.dto.DeviceStatsResponse;
+import com.ricardo.takehome.devices.stats.DeviceStatsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/devices")
+@RequiredArgsConstructor
+@Tag(name = "Device API", description = "Device management operations")
+public class DeviceStatsController {
+
+    private final DeviceStatsService deviceStatsService;
+
+    @GetMapping("/stats")
+    @Operation(summary = "Count devices by state, by brand and by brand and state")
+    public DeviceStatsResponse stats() {
+        return deviceStatsService.getStats();
+    }
+}
@@ -0,0 +1,107 @@
+package com.ricardo.takehome.devices.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ricardo.takehome.devices.dto.DeviceImportError;
+import com.ricardo.takehome.devices.dto.DeviceImportProgress;
+import com.ricardo.takehome.devices.transfer.DeviceImportListener;
+import com.ricardo.takehome.devices.transfer.DeviceImportReader;
+import com.ricardo.takehome.devices.transfer.DeviceTransferService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+@RestController
+@RequestMapping("/api/devices")
+@RequiredArgsConstructor
+@Tag(name = "Device API", description = "Device management operations")
+public class DeviceTransferController {
+    static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final DeviceTransferService deviceTransferService;
+    private final ObjectMapper objectMapper;
+
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Import devices from CSV",
+            description = "The header row must name the name, brand and state columns; other columns are ignored. "
+                    + "The response streams one line per rejected row and a progress line per committed chunk, the last one with done=true.")
+    public ResponseEntity<StreamingResponseBody> importCsv(InputStream body) throws IOException {
+        return importDevices(deviceTransferService.openCsv(body));
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Import devices from newline-delimited JSON",
+            description = "The response streams one line per rejected row and a progress line per committed chunk, the last one with done=true.")
+    public ResponseEntity<StreamingResponseBody> importNdjson(InputStream body) {
+        return importDevices(deviceTransferService.openNdjson(body));
+    }
+
+    @GetMapping(value = "/export", produces = TEXT_CSV_VALUE)
+    @Operation(summary = "Export every device as CSV")
+    public ResponseEntity<StreamingResponseBody> exportCsv() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(TEXT_CSV_VALUE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("devices.csv").build().toString())
+                .body(deviceTransferService::exportCsv);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export every device as newline-delimited JSON")
+    public ResponseEntity<StreamingResponseBody> exportNdjson() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(deviceTransferService::exportNdjson);
+    }
+
+    private ResponseEntity<StreamingResponseBody> importDevices(DeviceImportReader reader) {
+        StreamingResponseBody body = out -> {
+            try (reader) {
+                deviceTransferService.importDevices(reader, new ReportWriter(out));
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /** Streams the import report; progress lines are flushed so clients see each committed chunk. */
+    private class ReportWriter implements DeviceImportListener {
+        private final OutputStream out;
+
+        ReportWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void rejected(DeviceImportError error) {
+            writeLine(error, false);
+        }
+
+        @Override
+        public void progress(DeviceImportProgress progress) {
+            writeLine(progress, true);
+        }
+
+        private void writeLine(Object line, boolean flush) {
+            try {
+                out.write(objectMapper.writeValueAsBytes(line));
+                out.write('\n');
+                if (flush) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
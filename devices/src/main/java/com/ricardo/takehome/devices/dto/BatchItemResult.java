@@ -0,0 +1,21 @@
+package com.ricardo.takehome.devices.dto;
+
+public record BatchItemResult(
+    int index,
+    int status,
+    DeviceResponse device,
+    ErrorResponse error
+) {
+
+  public static BatchItemResult success(int index, int status, DeviceResponse device) {
+    return new BatchItemResult(index, status, device, null);
+  }
+
+  public static BatchItemResult failure(int index, int status, String code, String message) {
+    return new BatchItemResult(index, status, null, new ErrorResponse(code, message));
+  }
+
+  public boolean succeeded() {
+    return error == null;
+  }
+}
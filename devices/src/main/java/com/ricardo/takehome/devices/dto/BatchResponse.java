@@ -0,0 +1,15 @@
+package com.ricardo.takehome.devices.dto;
+
+import java.util.List;
+
+public record BatchResponse(
+    int succeeded,
+    int failed,
+    List<BatchItemResult> results
+) {
+
+  public static BatchResponse of(List<BatchItemResult> results) {
+    int succeeded = (int) results.stream().filter(BatchItemResult::succeeded).count();
+    return new BatchResponse(succeeded, results.size() - succeeded, results);
+  }
+}
@@ -0,0 +1,16 @@
+package com.ricardo.takehome.devices.dto;
+
+import com.ricardo.takehome.devices.model.DeviceState;
+import jakarta.validation.constraints.NotNull;
+
+public record BatchUpdateDeviceRequest(
+    @NotNull Long id,
+    String name,
+    String brand,
+    DeviceState state
+) {
+
+  public UpdateDeviceRequest toUpdateRequest() {
+    return new UpdateDeviceRequest(name, brand, state);
+  }
+}
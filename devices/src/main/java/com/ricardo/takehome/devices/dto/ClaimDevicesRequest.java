@@ -0,0 +1,11 @@
+package com.ricardo.takehome.devices.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public record ClaimDevicesRequest(
+    @NotNull @Min(1) @Max(1000) Integer count,
+    @Size(max = 255) String brand
+) {}
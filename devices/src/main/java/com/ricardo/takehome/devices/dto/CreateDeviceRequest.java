@@ -3,9 +3,10 @@ package com.ricardo.takehome.devices.dto;
 import com.ricardo.takehome.devices.model.DeviceState;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 public record CreateDeviceRequest(
-    @NotBlank String name,
-    @NotBlank String brand,
+    @NotBlank @Size(max = 255) String name,
+    @NotBlank @Size(max = 255) String brand,
     @NotNull DeviceState state
 ) {}
@@ -0,0 +1,6 @@
+package com.ricardo.takehome.devices.dto;
+
+public record DeviceImportError(
+    long line,
+    String error
+) {}
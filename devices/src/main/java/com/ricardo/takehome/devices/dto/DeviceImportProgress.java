@@ -0,0 +1,8 @@
+package com.ricardo.takehome.devices.dto;
+
+public record DeviceImportProgress(
+    long read,
+    long imported,
+    long rejected,
+    boolean done
+) {}
@@ -1,9 +1,24 @@
 package com.ricardo.takehome.devices.dto;
 
+import com.ricardo.takehome.devices.model.Device;
 import com.ricardo.takehome.devices.model.DeviceState;
 import java.time.Instant;
 
 public record DeviceResponse(
     Long id, String name, String brand,
-    DeviceState state, Instant creationTime
-) {}
+    DeviceState state, Instant creationTime, Long version,
+    Instant lastModifiedTime
+) {
+
+  public static DeviceResponse from(Device device) {
+    return new DeviceResponse(
+        device.getId(),
+        device.getName(),
+        device.getBrand(),
+        device.getState(),
+        device.getCreationTime(),
+        device.getVersion(),
+        device.getLastModifiedTime()
+    );
+  }
+}
@@ -0,0 +1,12 @@
+package com.ricardo.takehome.devices.dto;
+
+import com.ricardo.takehome.devices.model.DeviceState;
+import java.util.Map;
+
+public record DeviceStatsResponse(
+    long total,
+    Map<DeviceState, Long> byState,
+    Map<String, Long> byBrand,
+    Map<String, Map<DeviceState, Long>> byBrandAndState
+) {
+}
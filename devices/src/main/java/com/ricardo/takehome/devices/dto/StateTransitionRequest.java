@@ -0,0 +1,8 @@
+package com.ricardo.takehome.devices.dto;
+
+import com.ricardo.takehome.devices.model.DeviceState;
+import jakarta.validation.constraints.NotNull;
+
+public record StateTransitionRequest(
+    @NotNull DeviceState state
+) {}
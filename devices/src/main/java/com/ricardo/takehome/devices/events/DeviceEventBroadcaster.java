@@ -0,0 +1,148 @@
+package com.ricardo.takehome.devices.events;
+
+import com.ricardo.takehome.devices.model.DeviceState;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Fans committed device changes out to SSE subscribers. Live events are read back from the
+ * {@link DeviceEventLog} in position order by a single tail task, woken once a local commit's
+ * events have settled and every {@code poll-interval} (which also picks up other instances'
+ * commits), so no subscriber sees positions out of order or skips one. Subscribers that pass a {@code Last-Event-ID} are first
+ * caught up from the log, page by page, before live events are released to them. Closing it ends
+ * every stream so clients reconnect elsewhere.
+ */
+@Slf4j
+public class DeviceEventBroadcaster implements AutoCloseable {
+
+  private final DeviceEventLog eventLog;
+  private final DeviceEventsProperties properties;
+  private final Executor executor;
+  private final Set<DeviceEventSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+  private final AtomicBoolean tailRequested = new AtomicBoolean();
+  private final AtomicBoolean tailing = new AtomicBoolean();
+  // last position handed to subscribers; only the tail task moves it
+  private volatile long published;
+
+  public DeviceEventBroadcaster(DeviceEventLog eventLog, DeviceEventsProperties properties, Executor executor) {
+    this.eventLog = eventLog;
+    this.properties = properties;
+    this.executor = executor;
+    this.published = eventLog.lastPosition();
+  }
+
+  public SseEmitter subscribe(String brand, DeviceState state, Long lastEventId) {
+    return subscribe(brand, state, lastEventId, new SseEmitter(properties.timeout().toMillis()));
+  }
+
+  SseEmitter subscribe(String brand, DeviceState state, Long lastEventId, SseEmitter emitter) {
+    DeviceEventSubscription subscription = new DeviceEventSubscription(
+        brand, state, emitter, properties, executor, subscriptions::remove);
+    emitter.onCompletion(subscription::close);
+    emitter.onTimeout(subscription::close);
+    emitter.onError(e -> subscription.close());
+
+    // registered before the replay starts so nothing committed in between is missed
+    subscriptions.add(subscription);
+    if (lastEventId == null) {
+      subscription.replayed(0);
+    } else {
+      executor.execute(() -> replay(subscription, lastEventId));
+    }
+    return emitter;
+  }
+
+  /** Called after a transaction that logged events has committed; the log returns them once settled. */
+  public void committed() {
+    Duration settleDelay = properties.settleDelay();
+    if (settleDelay.isZero()) {
+      poll();
+    } else {
+      CompletableFuture.delayedExecutor(settleDelay.toMillis(), TimeUnit.MILLISECONDS, executor).execute(this::poll);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${devices.events.poll-interval:1s}")
+  public void poll() {
+    tailRequested.set(true);
+    if (tailing.compareAndSet(false, true)) {
+      executor.execute(this::tail);
+    }
+  }
+
+  void publish(LoggedDeviceEvent event) {
+    for (DeviceEventSubscription subscription : subscriptions) {
+      subscription.offer(event);
+    }
+  }
+
+  public int subscriberCount() {
+    return subscriptions.size();
+  }
+
+  @Override
+  public void close() throws Exception {
+    subscriptions.forEach(DeviceEventSubscription::close);
+    if (executor instanceof AutoCloseable closeable) {
+      closeable.close();
+    }
+  }
+
+  private void tail() {
+    try {
+      while (tailRequested.getAndSet(false)) {
+        if (subscriptions.isEmpty()) {
+          // nobody to send to: skip the payloads, a later subscriber starts from here
+          long last = eventLog.lastPosition();
+          if (subscriptions.isEmpty()) {
+            published = last;
+            continue;
+          }
+        }
+        List<LoggedDeviceEvent> page;
+        do {
+          page = eventLog.readAfter(published, properties.replayPageSize());
+          for (LoggedDeviceEvent event : page) {
+            publish(event);
+            published = event.position();
+          }
+        } while (page.size() == properties.replayPageSize());
+      }
+    } catch (RuntimeException e) {
+      log.warn("Reading device events after {} failed: {}", published, e.getMessage());
+    } finally {
+      tailing.set(false);
+    }
+    if (tailRequested.get() && tailing.compareAndSet(false, true)) {
+      executor.execute(this::tail);
+    }
+  }
+
+  private void replay(DeviceEventSubscription subscription, long lastEventId) {
+    long position = lastEventId;
+    try {
+      List<LoggedDeviceEvent> page;
+      do {
+        page = eventLog.readAfter(position, properties.replayPageSize());
+        for (LoggedDeviceEvent event : page) {
+          subscription.replay(event);
+          position = event.position();
+        }
+      } while (page.size() == properties.replayPageSize() && !subscription.isClosed());
+    } catch (RuntimeException e) {
+      log.warn("Replay after event {} failed: {}", lastEventId, e.getMessage());
+      subscription.close();
+      return;
+    }
+    subscription.replayed(position);
+  }
+}
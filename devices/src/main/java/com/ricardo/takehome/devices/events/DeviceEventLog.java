@@ -0,0 +1,152 @@
+package com.ricardo.takehome.devices.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ricardo.takehome.devices.service.DeviceChangedEvent;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Append-only {@code device_events} table. Rows are written in the transaction that made the
+ * change, so the log never contains a change that was rolled back. An event's position is its
+ * identity id, taken at insert without any shared lock, so transactions can commit their positions
+ * out of order. Every row is stamped with the time it was inserted, after its id was taken, and
+ * appends happen just before commit: once a row is older than {@code settleDelay}, every lower
+ * position has committed or rolled back. Readers only read up to the newest such row, so a reader
+ * that has seen position {@code n} has seen everything before it. A transaction that takes longer
+ * than {@code settleDelay} from append to commit can have its events passed over.
+ *
+ * <p>On PostgreSQL the stamp and the settle cutoff both come from {@code clock_timestamp()}, so
+ * instances' clocks do not matter. H2 has no such function; it runs embedded in one instance,
+ * which stamps its rows from its own clock once their ids are taken.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class DeviceEventLog {
+
+  private static final int PURGE_CHUNK_SIZE = 1000;
+
+  private static final String INSERT_POSTGRESQL =
+      "INSERT INTO device_events (device_id, type, payload, created_at) VALUES (?, ?, ?, clock_timestamp())";
+  private static final String INSERT_STANDARD = "SELECT id FROM FINAL TABLE"
+      + " (INSERT INTO device_events (device_id, type, payload, created_at) VALUES (?, ?, ?, ?))";
+  private static final String STAMP_STANDARD = "UPDATE device_events SET created_at = ? WHERE id = ?";
+  private static final String SETTLED_POSTGRESQL = "created_at <= clock_timestamp() - ? * INTERVAL '1 millisecond'";
+  private static final String SETTLED_STANDARD = "created_at <= ?";
+  private static final String WATERMARK = "SELECT MAX(id) FROM device_events WHERE ";
+  private static final String LOCK_CURSOR =
+      "SELECT last_position FROM device_event_cursors WHERE consumer = ? FOR UPDATE";
+  private static final String ADVANCE_CURSOR = "UPDATE device_event_cursors SET last_position = ? WHERE consumer = ?";
+  // never past a consumer that has not read the events yet
+  private static final String PURGE = "DELETE FROM device_events WHERE id IN (SELECT id FROM device_events"
+      + " WHERE created_at < ? AND id <= (SELECT COALESCE(MIN(last_position), ?) FROM device_event_cursors)"
+      + " ORDER BY id LIMIT ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ObjectMapper objectMapper;
+  private final boolean postgresql;
+  private final Duration settleDelay;
+  private final Duration retention;
+
+  /** Appends the events of a transaction that is about to commit, in order. */
+  @Transactional
+  public void append(List<DeviceChangedEvent> events) {
+    if (postgresql) {
+      jdbcTemplate.batchUpdate(INSERT_POSTGRESQL, events.stream()
+          .map(event -> new Object[] {event.id(), event.type().name(), write(event)})
+          .toList());
+      return;
+    }
+    Timestamp taken = Timestamp.from(Instant.now());
+    List<Long> ids = new ArrayList<>(events.size());
+    for (DeviceChangedEvent event : events) {
+      ids.add(jdbcTemplate.queryForObject(INSERT_STANDARD, Long.class,
+          event.id(), event.type().name(), write(event), taken));
+    }
+    Timestamp stamped = Timestamp.from(Instant.now());
+    jdbcTemplate.batchUpdate(STAMP_STANDARD, ids.stream().map(id -> new Object[] {stamped, id}).toList());
+  }
+
+  /** The newest position readers may read up to, or 0 if nothing has settled yet. */
+  public long lastPosition() {
+    return jdbcTemplate.queryForObject(
+        "SELECT COALESCE((" + WATERMARK + settled() + "), 0)", Long.class, settledParameter());
+  }
+
+  /** Events after {@code afterPosition} up to {@link #lastPosition}, in position order. */
+  public List<LoggedDeviceEvent> readAfter(long afterPosition, int limit) {
+    return jdbcTemplate.query("SELECT id, payload, created_at FROM device_events WHERE id > ? AND id <= ("
+        + WATERMARK + settled() + ") ORDER BY id LIMIT ?", (rs, rowNum) -> {
+          String json = rs.getString("payload");
+          return new LoggedDeviceEvent(rs.getLong("id"), read(json), json, rs.getTimestamp("created_at").toInstant());
+        }, afterPosition, settledParameter(), limit);
+  }
+
+  /**
+   * The position a durable consumer has read up to, locked until the calling transaction ends so
+   * only one instance reads on from it at a time.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public long lockCursor(String consumer) {
+    return jdbcTemplate.queryForObject(LOCK_CURSOR, Long.class, consumer);
+  }
+
+  /** Moves a cursor locked by {@link #lockCursor} past what the calling transaction has stored. */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void advanceCursor(String consumer, long position) {
+    jdbcTemplate.update(ADVANCE_CURSOR, position, consumer);
+  }
+
+  /**
+   * Deletes events older than {@code devices.events.retention} that every durable consumer has
+   * read, oldest first and a chunk per statement so the log is never locked for long. Clients
+   * resuming from a purged position get what is left after it.
+   */
+  @Scheduled(fixedDelayString = "${devices.events.purge-interval:1h}")
+  public void purge() {
+    Timestamp before = Timestamp.from(Instant.now().minus(retention));
+    int purged = 0;
+    int chunk;
+    do {
+      chunk = jdbcTemplate.update(PURGE, before, Long.MAX_VALUE, PURGE_CHUNK_SIZE);
+      purged += chunk;
+    } while (chunk == PURGE_CHUNK_SIZE);
+    if (purged > 0) {
+      log.debug("Purged {} device events older than {}", purged, before);
+    }
+  }
+
+  private String settled() {
+    return postgresql ? SETTLED_POSTGRESQL : SETTLED_STANDARD;
+  }
+
+  private Object settledParameter() {
+    return postgresql ? settleDelay.toMillis() : Timestamp.from(Instant.now().minus(settleDelay));
+  }
+
+  private String write(DeviceChangedEvent event) {
+    try {
+      return objectMapper.writeValueAsString(event);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private DeviceChangedEvent read(String json) {
+    try {
+      return objectMapper.readValue(json, DeviceChangedEvent.class);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
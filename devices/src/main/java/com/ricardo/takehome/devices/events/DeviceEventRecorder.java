@@ -0,0 +1,59 @@
+package com.ricardo.takehome.devices.events;
+
+import com.ricardo.takehome.devices.service.DeviceChangedEvent;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Collects the {@link DeviceChangedEvent}s of a transaction, logs them just before it commits and
+ * wakes the {@link DeviceEventBroadcaster} once it has. Appending last keeps the time from taking
+ * a log position to committing it well inside the log's settle delay.
+ */
+@RequiredArgsConstructor
+public class DeviceEventRecorder {
+
+  private final DeviceEventLog eventLog;
+  private final DeviceEventBroadcaster broadcaster;
+
+  @EventListener
+  public void onDeviceChanged(DeviceChangedEvent event) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      eventLog.append(List.of(event));
+      broadcaster.committed();
+      return;
+    }
+    PendingEvents bound = (PendingEvents) TransactionSynchronizationManager.getResource(this);
+    PendingEvents pending = bound != null ? bound : bindNew();
+    pending.events.add(event);
+  }
+
+  private PendingEvents bindNew() {
+    PendingEvents pending = new PendingEvents();
+    TransactionSynchronizationManager.bindResource(this, pending);
+    TransactionSynchronizationManager.registerSynchronization(pending);
+    return pending;
+  }
+
+  private final class PendingEvents implements TransactionSynchronization {
+    private final List<DeviceChangedEvent> events = new ArrayList<>();
+
+    @Override
+    public void beforeCommit(boolean readOnly) {
+      eventLog.append(events);
+    }
+
+    @Override
+    public void afterCommit() {
+      broadcaster.committed();
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+      TransactionSynchronizationManager.unbindResourceIfPossible(DeviceEventRecorder.this);
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package com.ricardo.takehome.devices.events;
+
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.events.DeviceEventsProperties.SlowConsumerPolicy;
+import com.ricardo.takehome.devices.model.DeviceState;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * One SSE client. Publishers only ever {@link #offer} into its bounded buffer; a single drain task
+ * at a time writes the buffer to the connection on the executor, so a slow client never holds up
+ * the committing thread or other clients.
+ */
+class DeviceEventSubscription {
+
+  private final String brand;
+  private final DeviceState state;
+  private final SseEmitter emitter;
+  private final BlockingQueue<LoggedDeviceEvent> buffer;
+  private final SlowConsumerPolicy slowConsumer;
+  private final Executor executor;
+  private final Consumer<DeviceEventSubscription> onClose;
+  // held from creation until the replay has finished, so live events wait behind it
+  private final AtomicBoolean draining = new AtomicBoolean(true);
+  // live events up to here were already sent by the replay
+  private volatile long replayedThrough;
+  private volatile boolean closed;
+
+  DeviceEventSubscription(String brand, DeviceState state, SseEmitter emitter, DeviceEventsProperties properties,
+      Executor executor, Consumer<DeviceEventSubscription> onClose) {
+    this.brand = brand;
+    this.state = state;
+    this.emitter = emitter;
+    this.buffer = new ArrayBlockingQueue<>(properties.bufferSize());
+    this.slowConsumer = properties.slowConsumer();
+    this.executor = executor;
+    this.onClose = onClose;
+  }
+
+  /** A change is relevant if the device matched the filters before or after it. */
+  boolean matches(LoggedDeviceEvent event) {
+    return matches(event.event().before()) || matches(event.event().after());
+  }
+
+  void offer(LoggedDeviceEvent event) {
+    if (closed || !matches(event)) {
+      return;
+    }
+    while (!buffer.offer(event)) {
+      if (slowConsumer == SlowConsumerPolicy.DISCONNECT) {
+        close();
+        return;
+      }
+      buffer.poll();
+    }
+    scheduleDrain();
+  }
+
+  /** Sends replayed events directly; only called while the drain is held. */
+  void replay(LoggedDeviceEvent event) {
+    if (matches(event)) {
+      send(event);
+    }
+  }
+
+  /**
+   * Ends the replay at {@code position} and releases live events queued meanwhile. Readers only
+   * see settled log positions, in order, and live events arrive in position order, so the queued
+   * events at or below it are exactly those the replay already sent.
+   */
+  void replayed(long position) {
+    replayedThrough = position;
+    draining.set(false);
+    if (!buffer.isEmpty()) {
+      scheduleDrain();
+    }
+  }
+
+  boolean isClosed() {
+    return closed;
+  }
+
+  void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    buffer.clear();
+    onClose.accept(this);
+    emitter.complete();
+  }
+
+  private void scheduleDrain() {
+    if (draining.compareAndSet(false, true)) {
+      executor.execute(this::drain);
+    }
+  }
+
+  private void drain() {
+    try {
+      LoggedDeviceEvent event;
+      while (!closed && (event = buffer.poll()) != null) {
+        if (event.position() > replayedThrough) {
+          send(event);
+        }
+      }
+    } finally {
+      draining.set(false);
+    }
+    if (!closed && !buffer.isEmpty()) {
+      scheduleDrain();
+    }
+  }
+
+  private void send(LoggedDeviceEvent event) {
+    if (closed) {
+      return;
+    }
+    try {
+      emitter.send(SseEmitter.event()
+          .id(String.valueOf(event.position()))
+          .name(event.event().type().name().toLowerCase(Locale.ROOT))
+          .data(event.json()));
+    } catch (IOException | IllegalStateException e) {
+      close();
+    }
+  }
+
+  private boolean matches(DeviceResponse device) {
+    return device != null
+        && (brand == null || brand.equals(device.brand()))
+        && (state == null || state == device.state());
+  }
+}
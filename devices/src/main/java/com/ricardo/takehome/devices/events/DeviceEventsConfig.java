@@ -0,0 +1,50 @@
+package com.ricardo.takehome.devices.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ricardo.takehome.devices.service.DeviceChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.sql.DatabaseMetaData;
+import java.util.concurrent.Executors;
+import javax.sql.DataSource;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+@Configuration
+@EnableConfigurationProperties(DeviceEventsProperties.class)
+@RegisterReflectionForBinding(DeviceChangedEvent.class)
+public class DeviceEventsConfig {
+
+  @Bean
+  public DeviceEventLog deviceEventLog(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, DataSource dataSource,
+      DeviceEventsProperties properties) throws MetaDataAccessException {
+    String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+    return new DeviceEventLog(jdbcTemplate, objectMapper, "PostgreSQL".equals(product), properties.settleDelay(),
+        properties.retention());
+  }
+
+  /**
+   * Replays and per-subscriber drains block on socket writes, so each runs on its own virtual
+   * thread. The executor is deliberately not a bean: one would replace Spring's task executor.
+   */
+  @Bean
+  public DeviceEventBroadcaster deviceEventBroadcaster(DeviceEventLog deviceEventLog, DeviceEventsProperties properties) {
+    return new DeviceEventBroadcaster(deviceEventLog, properties, Executors.newVirtualThreadPerTaskExecutor());
+  }
+
+  @Bean
+  public DeviceEventRecorder deviceEventRecorder(DeviceEventLog deviceEventLog, DeviceEventBroadcaster broadcaster) {
+    return new DeviceEventRecorder(deviceEventLog, broadcaster);
+  }
+
+  @Bean
+  public MeterBinder deviceEventsMetrics(DeviceEventBroadcaster broadcaster) {
+    return registry -> Gauge.builder("devices.events.subscribers", broadcaster, DeviceEventBroadcaster::subscriberCount)
+        .register(registry);
+  }
+}
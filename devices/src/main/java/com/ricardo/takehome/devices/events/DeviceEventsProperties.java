@@ -0,0 +1,35 @@
+package com.ricardo.takehome.devices.events;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param bufferSize events queued per subscriber before {@code slowConsumer} applies
+ * @param slowConsumer what happens to a subscriber whose buffer is full
+ * @param timeout how long a single SSE connection is kept open; clients reconnect with
+ *     {@code Last-Event-ID}
+ * @param replayPageSize log rows read per query while catching a subscriber up or tailing the log
+ * @param pollInterval how often the log is checked for events committed by other instances
+ * @param settleDelay how old an event must be before readers see it; longer than any transaction
+ *     takes from appending its events to committing
+ * @param retention how long events are kept for clients to resume from
+ */
+@ConfigurationProperties(prefix = "devices.events")
+public record DeviceEventsProperties(
+    @DefaultValue("256") int bufferSize,
+    @DefaultValue("disconnect") SlowConsumerPolicy slowConsumer,
+    @DefaultValue("30m") Duration timeout,
+    @DefaultValue("500") int replayPageSize,
+    @DefaultValue("1s") Duration pollInterval,
+    @DefaultValue("500ms") Duration settleDelay,
+    @DefaultValue("7d") Duration retention
+) {
+
+  public enum SlowConsumerPolicy {
+    /** Close the stream; the client resumes from its last event id without losing anything. */
+    DISCONNECT,
+    /** Discard the oldest buffered event and keep the stream open. */
+    DROP
+  }
+}
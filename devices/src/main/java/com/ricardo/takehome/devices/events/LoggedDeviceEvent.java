@@ -0,0 +1,12 @@
+package com.ricardo.takehome.devices.events;
+
+import com.ricardo.takehome.devices.service.DeviceChangedEvent;
+import java.time.Instant;
+
+/**
+ * A {@link DeviceChangedEvent} as stored in the event log. {@code position} is the SSE event id,
+ * {@code json} the serialized event, kept so fan-out never serializes the same event twice, and
+ * {@code loggedAt} when its transaction appended it.
+ */
+public record LoggedDeviceEvent(long position, DeviceChangedEvent event, String json, Instant loggedAt) {
+}
@@ -0,0 +1,46 @@
+package com.ricardo.takehome.devices.history;
+
+import com.ricardo.takehome.devices.events.DeviceEventLog;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.DatabaseMetaData;
+import java.time.Clock;
+import javax.sql.DataSource;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+@EnableConfigurationProperties(DeviceHistoryProperties.class)
+public class DeviceHistoryConfig {
+
+  @Bean
+  public DeviceHistoryLog deviceHistoryLog(JdbcTemplate jdbcTemplate) {
+    return new DeviceHistoryLog(jdbcTemplate);
+  }
+
+  @Bean
+  public DeviceHistoryWriter deviceHistoryWriter(DeviceEventLog deviceEventLog, DeviceHistoryLog deviceHistoryLog,
+      PlatformTransactionManager transactionManager, DeviceHistoryProperties properties, MeterRegistry meterRegistry) {
+    return new DeviceHistoryWriter(deviceEventLog, deviceHistoryLog, new TransactionTemplate(transactionManager),
+        properties, meterRegistry);
+  }
+
+  @Bean
+  public DeviceHistoryPartitions deviceHistoryPartitions(JdbcTemplate jdbcTemplate, DataSource dataSource,
+      DeviceHistoryProperties properties) throws MetaDataAccessException {
+    String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+    return new DeviceHistoryPartitions(jdbcTemplate, "PostgreSQL".equals(product), properties.monthsAhead(),
+        properties.retention(), Clock.systemUTC());
+  }
+
+  @Bean
+  public DeviceHistoryService deviceHistoryService(DeviceHistoryLog deviceHistoryLog,
+      DeviceHistoryPartitions deviceHistoryPartitions) {
+    return new DeviceHistoryService(deviceHistoryLog, deviceHistoryPartitions);
+  }
+}
@@ -0,0 +1,44 @@
+package com.ricardo.takehome.devices.history;
+
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.model.DeviceState;
+import com.ricardo.takehome.devices.service.DeviceChangedEvent;
+import com.ricardo.takehome.devices.service.DeviceChangedEvent.ChangeType;
+import java.time.Instant;
+
+/**
+ * One committed change of a device.
+ *
+ * @param version the device version the change produced; a deletion counts as one more version
+ * @param fromState state before the change, {@code null} for creations
+ * @param toState state after the change, {@code null} for deletions
+ * @param name name after the change, or before a deletion
+ * @param brand brand after the change, or before a deletion
+ */
+public record DeviceHistoryEntry(
+    long deviceId,
+    long version,
+    ChangeType type,
+    DeviceState fromState,
+    DeviceState toState,
+    String name,
+    String brand,
+    Instant changedAt
+) {
+
+  /** Deletions carry no modification time, so they are dated when they were logged. */
+  static DeviceHistoryEntry of(DeviceChangedEvent event, Instant loggedAt) {
+    DeviceResponse before = event.before();
+    DeviceResponse after = event.after();
+    DeviceResponse current = after != null ? after : before;
+    return new DeviceHistoryEntry(
+        event.id(),
+        after != null ? after.version() : before.version() + 1,
+        event.type(),
+        before != null ? before.state() : null,
+        after != null ? after.state() : null,
+        current.name(),
+        current.brand(),
+        after != null && after.lastModifiedTime() != null ? after.lastModifiedTime() : loggedAt);
+  }
+}
@@ -0,0 +1,71 @@
+package com.ricardo.takehome.devices.history;
+
+import com.ricardo.takehome.devices.model.DeviceState;
+import com.ricardo.takehome.devices.service.DeviceChangedEvent.ChangeType;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/** Append-only {@code device_history} table, written in batches and read one device at a time. */
+@RequiredArgsConstructor
+public class DeviceHistoryLog {
+
+  private static final String INSERT = "INSERT INTO device_history"
+      + " (device_id, version, type, from_state, to_state, name, brand, changed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+  private static final String SELECT =
+      "SELECT device_id, version, type, from_state, to_state, name, brand, changed_at FROM device_history";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public void append(List<DeviceHistoryEntry> entries) {
+    jdbcTemplate.batchUpdate(INSERT, entries, entries.size(), (statement, entry) -> {
+      statement.setLong(1, entry.deviceId());
+      statement.setLong(2, entry.version());
+      statement.setString(3, entry.type().name());
+      statement.setString(4, entry.fromState() != null ? entry.fromState().name() : null);
+      statement.setString(5, entry.toState() != null ? entry.toState().name() : null);
+      statement.setString(6, entry.name());
+      statement.setString(7, entry.brand());
+      statement.setTimestamp(8, Timestamp.from(entry.changedAt()));
+    });
+  }
+
+  /**
+   * Changes of one device, newest first, optionally limited to {@code [from, to)} and to versions
+   * below {@code beforeVersion}. On PostgreSQL the time bounds also prune partitions.
+   */
+  public List<DeviceHistoryEntry> find(long deviceId, Instant from, Instant to, Long beforeVersion, int limit) {
+    List<Object> parameters = new ArrayList<>(List.of(deviceId));
+    StringBuilder sql = new StringBuilder(SELECT).append(" WHERE device_id = ?");
+    if (from != null) {
+      sql.append(" AND changed_at >= ?");
+      parameters.add(Timestamp.from(from));
+    }
+    if (to != null) {
+      sql.append(" AND changed_at < ?");
+      parameters.add(Timestamp.from(to));
+    }
+    if (beforeVersion != null) {
+      sql.append(" AND version < ?");
+      parameters.add(beforeVersion);
+    }
+    sql.append(" ORDER BY version DESC LIMIT ?");
+    parameters.add(limit);
+    return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new DeviceHistoryEntry(
+        rs.getLong("device_id"),
+        rs.getLong("version"),
+        ChangeType.valueOf(rs.getString("type")),
+        state(rs.getString("from_state")),
+        state(rs.getString("to_state")),
+        rs.getString("name"),
+        rs.getString("brand"),
+        rs.getTimestamp("changed_at").toInstant()), parameters.toArray());
+  }
+
+  private static DeviceState state(String value) {
+    return value != null ? DeviceState.valueOf(value) : null;
+  }
+}
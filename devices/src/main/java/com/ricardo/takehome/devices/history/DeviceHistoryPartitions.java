@@ -0,0 +1,89 @@
+package com.ricardo.takehome.devices.history;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Keeps the monthly (UTC) partitions of {@code device_history}: creates the coming months before
+ * any row needs them and drops every month that ended before the retention period. Dropping a
+ * partition discards its rows without scanning, deleting or vacuuming them. H2, used in tests,
+ * has no partitions, so there old rows are deleted instead.
+ */
+@Slf4j
+public class DeviceHistoryPartitions {
+
+  private static final String PREFIX = "device_history_";
+  private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy_MM");
+  private static final String SELECT_PARTITIONS = "SELECT c.relname FROM pg_inherits i"
+      + " JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent"
+      + " WHERE p.relname = 'device_history'";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final boolean postgresql;
+  private final int monthsAhead;
+  private final Duration retention;
+  private final Clock clock;
+
+  public DeviceHistoryPartitions(JdbcTemplate jdbcTemplate, boolean postgresql, int monthsAhead, Duration retention,
+      Clock clock) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.postgresql = postgresql;
+    this.monthsAhead = monthsAhead;
+    this.retention = retention;
+    this.clock = clock;
+  }
+
+  public void maintain() {
+    Instant cutoff = clock.instant().minus(retention);
+    if (!postgresql) {
+      jdbcTemplate.update("DELETE FROM device_history WHERE changed_at < ?", Timestamp.from(cutoff));
+      return;
+    }
+    YearMonth current = YearMonth.now(clock.withZone(ZoneOffset.UTC));
+    for (int i = 0; i <= monthsAhead; i++) {
+      create(current.plusMonths(i));
+    }
+    for (String partition : jdbcTemplate.queryForList(SELECT_PARTITIONS, String.class)) {
+      YearMonth month = month(partition);
+      if (month != null && !start(month.plusMonths(1)).isAfter(cutoff)) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+        log.info("Dropped device history partition {}", partition);
+      }
+    }
+  }
+
+  private void create(YearMonth month) {
+    try {
+      jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + PREFIX + MONTH.format(month)
+          + " PARTITION OF device_history FOR VALUES FROM ('" + start(month) + "') TO ('" + start(month.plusMonths(1)) + "')");
+    } catch (DataAccessException e) {
+      // the default partition already holds rows of this month; they stay there until it is split by hand
+      log.warn("Could not create device history partition for {}: {}", month, e.getMessage());
+    }
+  }
+
+  private static Instant start(YearMonth month) {
+    return month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+  }
+
+  private static YearMonth month(String partition) {
+    if (!partition.startsWith(PREFIX)) {
+      return null;
+    }
+    try {
+      return YearMonth.parse(partition.substring(PREFIX.length()), MONTH);
+    } catch (DateTimeParseException e) {
+      // device_history_default and anything created by hand
+      return null;
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package com.ricardo.takehome.devices.history;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param flushInterval how often the event log is read for changes to write
+ * @param maxBatchSize changes written per INSERT batch and transaction
+ * @param retention age after which history is dropped, a whole month at a time
+ * @param monthsAhead monthly partitions created beyond the current one
+ * @param maintenanceInterval how often partitions are created and dropped; also runs at startup
+ * @param shutdownTimeout how long shutdown waits for a flush already in progress
+ */
+@ConfigurationProperties(prefix = "devices.history")
+public record DeviceHistoryProperties(
+    @DefaultValue("500ms") Duration flushInterval,
+    @DefaultValue("1000") int maxBatchSize,
+    @DefaultValue("400d") Duration retention,
+    @DefaultValue("2") int monthsAhead,
+    @DefaultValue("1h") Duration maintenanceInterval,
+    @DefaultValue("10s") Duration shutdownTimeout
+) {
+}
@@ -0,0 +1,30 @@
+package com.ricardo.takehome.devices.history;
+
+import java.time.Instant;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.annotation.Transactional;
+
+@RequiredArgsConstructor
+public class DeviceHistoryService {
+
+  private final DeviceHistoryLog historyLog;
+  private final DeviceHistoryPartitions partitions;
+
+  /**
+   * Changes of one device, newest first. Changes are read from the event log behind their
+   * transaction, so the latest may take up to {@code devices.history.flush-interval} and the log's
+   * settle delay to appear.
+   */
+  @Transactional(readOnly = true)
+  public List<DeviceHistoryEntry> getHistory(long deviceId, Instant from, Instant to, Long beforeVersion, int limit) {
+    return historyLog.find(deviceId, from, to, beforeVersion, limit);
+  }
+
+  /** Runs at startup, creating the current month's partition before anything is written to it. */
+  @Scheduled(fixedDelayString = "${devices.history.maintenance-interval:1h}")
+  public void maintainPartitions() {
+    partitions.maintain();
+  }
+}
@@ -0,0 +1,132 @@
+package com.ricardo.takehome.devices.history;
+
+import com.ricardo.takehome.devices.events.DeviceEventLog;
+import com.ricardo.takehome.devices.events.LoggedDeviceEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Feeds {@code device_history} from {@code device_events}, off the request path: writers pay
+ * nothing beyond the event they already log. A background thread reads the log after the
+ * {@code history} cursor and writes each batch in one transaction that also advances the cursor,
+ * so every committed change reaches the history exactly once, across crashes and restarts, and
+ * rolled-back changes never do. The cursor stays locked while a batch is written, so with several
+ * instances one writes at a time and the others find nothing left to read.
+ */
+@Slf4j
+public class DeviceHistoryWriter implements SmartLifecycle {
+
+  static final String CURSOR = "history";
+
+  private final DeviceEventLog eventLog;
+  private final DeviceHistoryLog historyLog;
+  private final TransactionTemplate transactionTemplate;
+  private final DeviceHistoryProperties properties;
+  private final Object flushLock = new Object();
+  private final Counter written;
+  private final Timer flushTimer;
+  private ScheduledExecutorService scheduler;
+  private volatile boolean running;
+
+  public DeviceHistoryWriter(DeviceEventLog eventLog, DeviceHistoryLog historyLog,
+      TransactionTemplate transactionTemplate, DeviceHistoryProperties properties, MeterRegistry meterRegistry) {
+    this.eventLog = eventLog;
+    this.historyLog = historyLog;
+    this.transactionTemplate = transactionTemplate;
+    this.properties = properties;
+    this.written = meterRegistry.counter("devices.history.entries", "outcome", "written");
+    this.flushTimer = Timer.builder("devices.history.flush")
+        .description("Time to write one batch of device history")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Writes what the log holds after the cursor, {@code max-batch-size} changes per transaction. A
+   * batch that fails leaves the cursor where it was, so the next flush reads it again and history
+   * stays in order.
+   */
+  public void flush() {
+    synchronized (flushLock) {
+      int batch;
+      do {
+        batch = writeBatch();
+      } while (batch == properties.maxBatchSize());
+    }
+  }
+
+  @Override
+  public void start() {
+    long interval = properties.flushInterval().toMillis();
+    scheduler = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("device-history-writer").daemon().factory());
+    scheduler.scheduleWithFixedDelay(this::scheduledFlush, interval, interval, TimeUnit.MILLISECONDS);
+    running = true;
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    scheduler.shutdown();
+    try {
+      scheduler.awaitTermination(properties.shutdownTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    // not needed for durability, only so the history is current when the instance goes away
+    flush();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /** Stops after the web server and the state write-behind, the last sources of changes. */
+  @Override
+  public int getPhase() {
+    return SmartLifecycle.DEFAULT_PHASE - 8192;
+  }
+
+  private void scheduledFlush() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      // an exception would cancel the schedule
+      log.error("Writing device history failed", e);
+    }
+  }
+
+  /** Returns how many changes were written, 0 when none were or writing failed. */
+  private int writeBatch() {
+    long start = System.nanoTime();
+    try {
+      Integer count = transactionTemplate.execute(status -> {
+        long position = eventLog.lockCursor(CURSOR);
+        List<LoggedDeviceEvent> events = eventLog.readAfter(position, properties.maxBatchSize());
+        if (events.isEmpty()) {
+          return 0;
+        }
+        historyLog.append(events.stream()
+            .map(event -> DeviceHistoryEntry.of(event.event(), event.loggedAt()))
+            .toList());
+        eventLog.advanceCursor(CURSOR, events.getLast().position());
+        return events.size();
+      });
+      written.increment(count);
+      return count;
+    } catch (RuntimeException e) {
+      log.warn("Writing device history failed, retrying on the next flush: {}", e.getMessage());
+      return 0;
+    } finally {
+      flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package com.ricardo.takehome.devices.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+@ConditionalOnProperty(prefix = "devices.idempotency", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyConfig {
+
+  @Bean
+  @ConditionalOnProperty(prefix = "devices.idempotency", name = "store", havingValue = "in-memory", matchIfMissing = true)
+  public InMemoryIdempotencyStore inMemoryIdempotencyStore(IdempotencyProperties properties) {
+    return new InMemoryIdempotencyStore(properties);
+  }
+
+  @Bean
+  @ConditionalOnProperty(prefix = "devices.idempotency", name = "store", havingValue = "in-memory", matchIfMissing = true)
+  public MeterBinder idempotencyStoreMetrics(InMemoryIdempotencyStore store) {
+    return new CaffeineCacheMetrics<>(store.responses(), "idempotency", List.of());
+  }
+
+  @Bean
+  @ConditionalOnProperty(prefix = "devices.idempotency", name = "store", havingValue = "jdbc")
+  public JdbcIdempotencyStore jdbcIdempotencyStore(JdbcTemplate jdbcTemplate, IdempotencyProperties properties) {
+    return new JdbcIdempotencyStore(jdbcTemplate, properties.ttl(), properties.lease());
+  }
+
+  @Bean
+  public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(IdempotencyStore store,
+      IdempotencyProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+    FilterRegistrationBean<IdempotencyFilter> registration =
+        new FilterRegistrationBean<>(new IdempotencyFilter(store, properties, objectMapper, meterRegistry));
+    registration.addUrlPatterns("/api/*");
+    return registration;
+  }
+}
@@ -0,0 +1,307 @@
+package com.ricardo.takehome.devices.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ricardo.takehome.devices.dto.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Executes device creates and updates that carry an idempotency key at most once per key, client,
+ * method and path, and answers retries with the stored response instead of touching the devices
+ * table again. Concurrent duplicates wait for the first to finish and get its response.
+ *
+ * <p>Responses a retry could legitimately change are not kept: 5xx, 409 (in use, concurrent
+ * modification) and 429. A key reused with a different body or {@code If-Match} gets 422.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+  static final String REPLAYED_HEADER = "Idempotent-Replayed";
+  static final int MAX_KEY_LENGTH = 255;
+
+  private static final Pattern POST_PATHS = Pattern.compile("/api/devices(:batch)?");
+  private static final Pattern PATCH_PATHS = Pattern.compile("/api/devices(/\\d+|:batch)");
+  private static final long POLL_INTERVAL_MILLIS = 50;
+  // set again by the container for every response
+  private static final Set<String> FRAMING_HEADERS =
+      Set.of("content-type", "content-length", "transfer-encoding", "date", "connection", "keep-alive");
+
+  private final IdempotencyStore store;
+  private final IdempotencyProperties properties;
+  private final ObjectMapper objectMapper;
+  private final Map<String, CompletableFuture<IdempotentResponse>> inFlight = new ConcurrentHashMap<>();
+  private final Counter executed;
+  private final Counter replayed;
+  private final Counter collapsed;
+  private final Counter mismatched;
+  private final Counter inProgress;
+  private final Counter leaseLost;
+
+  public IdempotencyFilter(IdempotencyStore store, IdempotencyProperties properties, ObjectMapper objectMapper,
+      MeterRegistry meterRegistry) {
+    this.store = store;
+    this.properties = properties;
+    this.objectMapper = objectMapper;
+    this.executed = meterRegistry.counter("devices.idempotency.requests", "outcome", "executed");
+    this.replayed = meterRegistry.counter("devices.idempotency.requests", "outcome", "replayed");
+    this.collapsed = meterRegistry.counter("devices.idempotency.requests", "outcome", "collapsed");
+    this.mismatched = meterRegistry.counter("devices.idempotency.requests", "outcome", "mismatched");
+    this.inProgress = meterRegistry.counter("devices.idempotency.requests", "outcome", "in-progress");
+    this.leaseLost = meterRegistry.counter("devices.idempotency.requests", "outcome", "lease-lost");
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    if (request.getHeader(properties.header()) == null) {
+      return true;
+    }
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    return switch (request.getMethod()) {
+      case "POST" -> !POST_PATHS.matcher(path).matches();
+      case "PATCH" -> !PATCH_PATHS.matcher(path).matches();
+      default -> true;
+    };
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    String idempotencyKey = request.getHeader(properties.header());
+    if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+      writeError(response, HttpStatus.BAD_REQUEST,
+          properties.header() + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+      return;
+    }
+    byte[] body = request.getInputStream().readAllBytes();
+    String key = sha256(clientId(request) + "\n" + request.getMethod() + " " + request.getRequestURI() + "\n",
+        idempotencyKey.getBytes(StandardCharsets.UTF_8));
+    String requestHash = sha256(request.getHeader(HttpHeaders.IF_MATCH) + "\n", body);
+
+    CompletableFuture<IdempotentResponse> execution = new CompletableFuture<>();
+    CompletableFuture<IdempotentResponse> running = inFlight.putIfAbsent(key, execution);
+    if (running != null) {
+      collapsed.increment();
+      send(awaitLocal(running), requestHash, response);
+      return;
+    }
+
+    boolean reserved = false;
+    try {
+      Optional<IdempotentResponse> stored = store.find(key);
+      if (stored.isEmpty()) {
+        reserved = store.reserve(key, requestHash, Instant.now().plus(properties.lease()));
+        if (!reserved) {
+          // another instance is executing it
+          collapsed.increment();
+          stored = awaitShared(key);
+          execution.complete(stored.orElse(null));
+          send(stored.orElse(null), requestHash, response);
+          return;
+        }
+      }
+      if (stored.isPresent()) {
+        replayed.increment();
+        execution.complete(stored.get());
+        send(stored.get(), requestHash, response);
+        return;
+      }
+
+      // the change commits inside execute; a crash before complete leaves the key to expire and a
+      // retry after the lease runs the request again (see README, Idempotency Keys)
+      IdempotentResponse result = execute(new CachedBodyRequest(request, body), response, chain, requestHash);
+      executed.increment();
+      if (keep(result.status())) {
+        if (!store.complete(key, result)) {
+          // another instance took the key over and may execute it again
+          leaseLost.increment();
+        }
+      } else {
+        store.release(key);
+      }
+      execution.complete(result);
+    } catch (IOException | ServletException | RuntimeException e) {
+      execution.completeExceptionally(e);
+      if (reserved) {
+        store.release(key);
+      }
+      throw e;
+    } finally {
+      inFlight.remove(key, execution);
+    }
+  }
+
+  private IdempotentResponse execute(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+      String requestHash) throws ServletException, IOException {
+    ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+    chain.doFilter(request, wrapper);
+    Map<String, List<String>> headers = new LinkedHashMap<>();
+    for (String name : wrapper.getHeaderNames()) {
+      if (!FRAMING_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+        headers.put(name, List.copyOf(wrapper.getHeaders(name)));
+      }
+    }
+    IdempotentResponse result = new IdempotentResponse(requestHash, wrapper.getStatus(), wrapper.getContentType(),
+        headers, wrapper.getContentAsByteArray());
+    wrapper.copyBodyToResponse();
+    return result;
+  }
+
+  /** The response of the duplicate running in this instance, or {@code null} if it did not produce one in time. */
+  private IdempotentResponse awaitLocal(CompletableFuture<IdempotentResponse> running) {
+    try {
+      return running.get(properties.waitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException | TimeoutException e) {
+      return null;
+    }
+  }
+
+  private Optional<IdempotentResponse> awaitShared(String key) {
+    long deadline = System.nanoTime() + properties.waitTimeout().toNanos();
+    while (System.nanoTime() < deadline) {
+      try {
+        Thread.sleep(POLL_INTERVAL_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+      Optional<IdempotentResponse> stored = store.find(key);
+      if (stored.isPresent()) {
+        return stored;
+      }
+    }
+    return Optional.empty();
+  }
+
+  private void send(IdempotentResponse stored, String requestHash, HttpServletResponse response) throws IOException {
+    if (stored == null) {
+      inProgress.increment();
+      response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+      writeError(response, HttpStatus.CONFLICT,
+          "A request with this " + properties.header() + " is still in progress, retry later");
+      return;
+    }
+    if (!stored.requestHash().equals(requestHash)) {
+      mismatched.increment();
+      writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+          properties.header() + " was already used for a different request");
+      return;
+    }
+    response.setStatus(stored.status());
+    stored.headers().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+    if (stored.contentType() != null) {
+      response.setContentType(stored.contentType());
+    }
+    response.setHeader(REPLAYED_HEADER, "true");
+    response.getOutputStream().write(stored.body());
+  }
+
+  private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+    response.setStatus(status.value());
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(status.name(), message));
+  }
+
+  private String clientId(HttpServletRequest request) {
+    String client = request.getHeader(properties.clientHeader());
+    return client != null && !client.isBlank() ? "key:" + client : "ip:" + request.getRemoteAddr();
+  }
+
+  static boolean keep(int status) {
+    return status < 500 && status != HttpStatus.CONFLICT.value() && status != HttpStatus.TOO_MANY_REQUESTS.value();
+  }
+
+  private static String sha256(String prefix, byte[] value) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(prefix.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest.digest(value));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** Serves the body already read for hashing to the rest of the chain. */
+  private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+    private final byte[] body;
+
+    CachedBodyRequest(HttpServletRequest request, byte[] body) {
+      super(request);
+      this.body = body;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+      ByteArrayInputStream in = new ByteArrayInputStream(body);
+      return new ServletInputStream() {
+        @Override
+        public boolean isFinished() {
+          return in.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener listener) {
+          // what ServletInputStream specifies when non-blocking reads are not available
+          throw new IllegalStateException("Request body is already buffered");
+        }
+
+        @Override
+        public int read() {
+          return in.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+          return in.read(buffer, offset, length);
+        }
+      };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+      String encoding = getCharacterEncoding();
+      return new BufferedReader(new InputStreamReader(getInputStream(),
+          encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+    }
+  }
+}
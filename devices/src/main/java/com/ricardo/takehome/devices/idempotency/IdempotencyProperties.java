@@ -0,0 +1,38 @@
+package com.ricardo.takehome.devices.idempotency;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param header request header carrying the client's idempotency key
+ * @param clientHeader header identifying the client; keys are scoped per client, method and path,
+ *     and requests without it are identified by their remote address
+ * @param store where responses are kept: {@code in-memory} (per instance) or {@code jdbc} (shared)
+ * @param maximumSize responses kept in memory at most; the least recently used go first
+ * @param ttl how long a response is replayed for its key
+ * @param waitTimeout how long a duplicate waits for the request already executing before it gets 409
+ * @param lease how long a shared reservation is honoured, so a key held by a crashed instance frees up
+ * @param leaseRenewal how often the instance executing a shared reservation extends its lease;
+ *     well below {@code lease}
+ * @param purgeInterval how often expired keys are deleted from the shared table
+ */
+@ConfigurationProperties(prefix = "devices.idempotency")
+public record IdempotencyProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("Idempotency-Key") String header,
+    @DefaultValue("X-API-Key") String clientHeader,
+    @DefaultValue("in-memory") Store store,
+    @DefaultValue("100000") long maximumSize,
+    @DefaultValue("24h") Duration ttl,
+    @DefaultValue("10s") Duration waitTimeout,
+    @DefaultValue("30s") Duration lease,
+    @DefaultValue("10s") Duration leaseRenewal,
+    @DefaultValue("10m") Duration purgeInterval
+) {
+
+  public enum Store {
+    IN_MEMORY,
+    JDBC
+  }
+}
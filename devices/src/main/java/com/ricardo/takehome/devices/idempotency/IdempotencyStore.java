@@ -0,0 +1,30 @@
+package com.ricardo.takehome.devices.idempotency;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Responses by idempotency key. Keys arrive hashed, so a store never sees client identities.
+ * Duplicates within one instance are collapsed before the store is consulted; {@link #reserve}
+ * only has to keep other instances from executing the same key.
+ */
+public interface IdempotencyStore {
+
+  /** The completed response for {@code key}, if it has not expired. */
+  Optional<IdempotentResponse> find(String key);
+
+  /**
+   * Claims {@code key} for execution until {@code leaseUntil}; {@code false} if another instance
+   * holds it or has completed it.
+   */
+  boolean reserve(String key, String requestHash, Instant leaseUntil);
+
+  /**
+   * Stores the response of a reserved key; {@code false} if the reservation was lost to another
+   * instance meanwhile, in which case the response is not stored.
+   */
+  boolean complete(String key, IdempotentResponse response);
+
+  /** Gives up a reservation, so a retry executes again. */
+  void release(String key);
+}
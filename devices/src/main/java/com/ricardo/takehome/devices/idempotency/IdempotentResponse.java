@@ -0,0 +1,19 @@
+package com.ricardo.takehome.devices.idempotency;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A response as first sent for an idempotency key, replayed byte for byte to retries.
+ *
+ * @param requestHash hash of the request body and preconditions the key was first used with
+ * @param headers response headers other than {@code Content-Type} and framing headers
+ */
+public record IdempotentResponse(
+    String requestHash,
+    int status,
+    String contentType,
+    Map<String, List<String>> headers,
+    byte[] body
+) {
+}
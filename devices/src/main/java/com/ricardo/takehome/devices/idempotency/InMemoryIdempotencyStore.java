@@ -0,0 +1,47 @@
+package com.ricardo.takehome.devices.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Bounded, per-instance store: {@code maximum-size} responses, each kept for {@code ttl}.
+ * Retries routed to another instance execute again.
+ */
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+  private final Cache<String, IdempotentResponse> responses;
+
+  public InMemoryIdempotencyStore(IdempotencyProperties properties) {
+    this.responses = Caffeine.newBuilder()
+        .maximumSize(properties.maximumSize())
+        .expireAfterWrite(properties.ttl())
+        .recordStats()
+        .build();
+  }
+
+  @Override
+  public Optional<IdempotentResponse> find(String key) {
+    return Optional.ofNullable(responses.getIfPresent(key));
+  }
+
+  @Override
+  public boolean reserve(String key, String requestHash, Instant leaseUntil) {
+    return true;
+  }
+
+  @Override
+  public boolean complete(String key, IdempotentResponse response) {
+    responses.put(key, response);
+    return true;
+  }
+
+  @Override
+  public void release(String key) {
+  }
+
+  Cache<String, IdempotentResponse> responses() {
+    return responses;
+  }
+}
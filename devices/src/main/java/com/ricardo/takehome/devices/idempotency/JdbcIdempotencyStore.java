@@ -0,0 +1,138 @@
+package com.ricardo.takehome.devices.idempotency;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * The {@code idempotency_keys} table, shared by every instance. A reservation is a row without a
+ * status, inserted before the request executes; the primary key makes exactly one instance win it.
+ * Rows expire at {@code expires_at}: the lease while pending, {@code ttl} once complete. Statements
+ * run outside the request's transaction, so a reservation is visible to other instances at once.
+ *
+ * <p>Leases of reservations still executing here are renewed every {@code lease-renewal}. Each
+ * reservation carries a random {@code lease_token}, so if a lease lapses anyway (a long pause) and
+ * another instance takes the key over, the former holder can neither renew nor complete it.
+ */
+@Slf4j
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+  private static final String SELECT_COMPLETED =
+      "SELECT request_hash, status, content_type, headers, body FROM idempotency_keys"
+          + " WHERE key_hash = ? AND status IS NOT NULL AND expires_at > ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final Duration ttl;
+  private final Duration lease;
+  // lease tokens of the reservations this instance holds, by key
+  private final Map<String, String> held = new ConcurrentHashMap<>();
+
+  public JdbcIdempotencyStore(JdbcTemplate jdbcTemplate, Duration ttl, Duration lease) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.ttl = ttl;
+    this.lease = lease;
+  }
+
+  @Override
+  public Optional<IdempotentResponse> find(String key) {
+    return jdbcTemplate.query(SELECT_COMPLETED, (rs, rowNum) -> mapRow(rs), key, Timestamp.from(Instant.now()))
+        .stream().findFirst();
+  }
+
+  @Override
+  public boolean reserve(String key, String requestHash, Instant leaseUntil) {
+    jdbcTemplate.update("DELETE FROM idempotency_keys WHERE key_hash = ? AND expires_at <= ?",
+        key, Timestamp.from(Instant.now()));
+    String token = UUID.randomUUID().toString();
+    try {
+      jdbcTemplate.update("INSERT INTO idempotency_keys (key_hash, request_hash, expires_at, lease_token)"
+          + " VALUES (?, ?, ?, ?)", key, requestHash, Timestamp.from(leaseUntil), token);
+    } catch (DuplicateKeyException e) {
+      return false;
+    }
+    held.put(key, token);
+    return true;
+  }
+
+  @Override
+  public boolean complete(String key, IdempotentResponse response) {
+    String token = held.remove(key);
+    int updated = token == null ? 0 : jdbcTemplate.update(
+        "UPDATE idempotency_keys SET status = ?, content_type = ?, headers = ?, body = ?, expires_at = ?,"
+            + " lease_token = NULL WHERE key_hash = ? AND status IS NULL AND lease_token = ?",
+        response.status(), response.contentType(), encode(response.headers()), response.body(),
+        Timestamp.from(Instant.now().plus(ttl)), key, token);
+    if (updated == 0) {
+      log.warn("Reservation of idempotency key {} was lost before its response could be stored", key);
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public void release(String key) {
+    String token = held.remove(key);
+    if (token != null) {
+      jdbcTemplate.update("DELETE FROM idempotency_keys WHERE key_hash = ? AND status IS NULL AND lease_token = ?",
+          key, token);
+    }
+  }
+
+  /** Extends the lease of every reservation still executing here; drops those taken over meanwhile. */
+  @Scheduled(fixedDelayString = "${devices.idempotency.lease-renewal:10s}")
+  public void renewLeases() {
+    Timestamp leaseUntil = Timestamp.from(Instant.now().plus(lease));
+    held.forEach((key, token) -> {
+      int renewed = jdbcTemplate.update("UPDATE idempotency_keys SET expires_at = ?"
+          + " WHERE key_hash = ? AND status IS NULL AND lease_token = ?", leaseUntil, key, token);
+      if (renewed == 0) {
+        log.warn("Reservation of idempotency key {} expired and was taken over", key);
+        held.remove(key, token);
+      }
+    });
+  }
+
+  /** Expired rows are skipped by every read; this only reclaims their space. */
+  @Scheduled(fixedDelayString = "${devices.idempotency.purge-interval:10m}")
+  public void purge() {
+    int purged = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at <= ?", Timestamp.from(Instant.now()));
+    if (purged > 0) {
+      log.debug("Purged {} expired idempotency keys", purged);
+    }
+  }
+
+  private static IdempotentResponse mapRow(ResultSet rs) throws SQLException {
+    return new IdempotentResponse(rs.getString("request_hash"), rs.getInt("status"), rs.getString("content_type"),
+        decode(rs.getString("headers")), rs.getBytes("body"));
+  }
+
+  // one "name: value" line per value; header values cannot contain line breaks
+  private static String encode(Map<String, List<String>> headers) {
+    return headers.entrySet().stream()
+        .flatMap(header -> header.getValue().stream().map(value -> header.getKey() + ": " + value))
+        .collect(Collectors.joining("\n"));
+  }
+
+  private static Map<String, List<String>> decode(String headers) {
+    if (headers == null || headers.isEmpty()) {
+      return Map.of();
+    }
+    return headers.lines()
+        .map(line -> line.split(": ", 2))
+        .collect(Collectors.groupingBy(header -> header[0], LinkedHashMap::new,
+            Collectors.mapping(header -> header.length > 1 ? header[1] : "", Collectors.toList())));
+  }
+}
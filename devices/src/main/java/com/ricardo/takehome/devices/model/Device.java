@@ -7,7 +7,10 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
 import java.time.Instant;
 import lombok.Data;
@@ -17,7 +20,8 @@ import lombok.Data;
 @Data
 public class Device {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "devices_seq")
+  @SequenceGenerator(name = "devices_seq", sequenceName = "devices_seq", allocationSize = 50)
   private Long id;
 
   @NotBlank
@@ -32,6 +36,16 @@ public class Device {
   @Column(updatable = false)
   private Instant creationTime = Instant.now();
 
+  private Instant lastModifiedTime = Instant.now();
+
+  @Version
+  private Long version;
+
+  @PreUpdate
+  void touch() {
+    lastModifiedTime = Instant.now();
+  }
+
   public boolean canBeDeleted() {
     return state != DeviceState.IN_USE;
   }
@@ -0,0 +1,245 @@
+package com.ricardo.takehome.devices.protobuf;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.ricardo.takehome.devices.dto.CreateDeviceRequest;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.dto.ErrorResponse;
+import com.ricardo.takehome.devices.dto.UpdateDeviceRequest;
+import com.ricardo.takehome.devices.model.DeviceState;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.http.MediaType;
+
+/**
+ * Protobuf wire format of the messages in {@code contract/device.proto}, written straight from and
+ * read straight into the API records, so the binary and JSON representations share one model and
+ * no generated message objects are built per device. Lists and streams are sequences of
+ * varint-length-prefixed messages, the framing of protobuf's {@code writeDelimitedTo}.
+ */
+public final class DeviceProtobuf {
+
+  public static final String MEDIA_TYPE_VALUE = "application/x-protobuf";
+  public static final MediaType MEDIA_TYPE = MediaType.valueOf(MEDIA_TYPE_VALUE);
+  /** Every matching device, length-delimited, for as long as the cursor runs. */
+  public static final String STREAM_MEDIA_TYPE_VALUE = "application/x-protobuf-stream";
+  public static final MediaType STREAM_MEDIA_TYPE = MediaType.valueOf(STREAM_MEDIA_TYPE_VALUE);
+
+  private static final int VARINT = 0;
+  private static final int LENGTH_DELIMITED = 2;
+
+  // Device
+  private static final int ID = 1;
+  private static final int NAME = 2;
+  private static final int BRAND = 3;
+  private static final int STATE = 4;
+  private static final int CREATION_TIME = 5;
+  private static final int VERSION = 6;
+  private static final int LAST_MODIFIED_TIME = 7;
+  // CreateDevice and UpdateDevice
+  private static final int REQUEST_NAME = 1;
+  private static final int REQUEST_BRAND = 2;
+  private static final int REQUEST_STATE = 3;
+  // Error
+  private static final int ERROR_CODE = 1;
+  private static final int ERROR_MESSAGE = 2;
+  // google.protobuf.Timestamp
+  private static final int SECONDS = 1;
+  private static final int NANOS = 2;
+
+  private DeviceProtobuf() {
+  }
+
+  public static int deviceSize(DeviceResponse device) {
+    int size = 0;
+    if (device.id() != null) {
+      size += CodedOutputStream.computeInt64Size(ID, device.id());
+    }
+    if (device.name() != null) {
+      size += CodedOutputStream.computeStringSize(NAME, device.name());
+    }
+    if (device.brand() != null) {
+      size += CodedOutputStream.computeStringSize(BRAND, device.brand());
+    }
+    if (device.state() != null) {
+      size += CodedOutputStream.computeEnumSize(STATE, number(device.state()));
+    }
+    size += timestampFieldSize(CREATION_TIME, device.creationTime());
+    if (device.version() != null) {
+      size += CodedOutputStream.computeInt64Size(VERSION, device.version());
+    }
+    size += timestampFieldSize(LAST_MODIFIED_TIME, device.lastModifiedTime());
+    return size;
+  }
+
+  public static void writeDevice(DeviceResponse device, CodedOutputStream out) throws IOException {
+    if (device.id() != null) {
+      out.writeInt64(ID, device.id());
+    }
+    if (device.name() != null) {
+      out.writeString(NAME, device.name());
+    }
+    if (device.brand() != null) {
+      out.writeString(BRAND, device.brand());
+    }
+    if (device.state() != null) {
+      out.writeEnum(STATE, number(device.state()));
+    }
+    writeTimestamp(CREATION_TIME, device.creationTime(), out);
+    if (device.version() != null) {
+      out.writeInt64(VERSION, device.version());
+    }
+    writeTimestamp(LAST_MODIFIED_TIME, device.lastModifiedTime(), out);
+  }
+
+  public static void writeDelimited(DeviceResponse device, CodedOutputStream out) throws IOException {
+    out.writeUInt32NoTag(deviceSize(device));
+    writeDevice(device, out);
+  }
+
+  public static void writeError(ErrorResponse error, CodedOutputStream out) throws IOException {
+    if (error.code() != null) {
+      out.writeString(ERROR_CODE, error.code());
+    }
+    if (error.message() != null) {
+      out.writeString(ERROR_MESSAGE, error.message());
+    }
+  }
+
+  public static DeviceResponse readDevice(CodedInputStream in) throws IOException {
+    Long id = null;
+    String name = null;
+    String brand = null;
+    DeviceState state = null;
+    Instant creationTime = null;
+    Long version = null;
+    Instant lastModifiedTime = null;
+    for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+      switch (tag) {
+        case ID << 3 | VARINT -> id = in.readInt64();
+        case NAME << 3 | LENGTH_DELIMITED -> name = in.readStringRequireUtf8();
+        case BRAND << 3 | LENGTH_DELIMITED -> brand = in.readStringRequireUtf8();
+        case STATE << 3 | VARINT -> state = state(in.readEnum());
+        case CREATION_TIME << 3 | LENGTH_DELIMITED -> creationTime = readTimestamp(in);
+        case VERSION << 3 | VARINT -> version = in.readInt64();
+        case LAST_MODIFIED_TIME << 3 | LENGTH_DELIMITED -> lastModifiedTime = readTimestamp(in);
+        default -> in.skipField(tag);
+      }
+    }
+    return new DeviceResponse(id, name, brand, state, creationTime, version, lastModifiedTime);
+  }
+
+  /** Missing or unknown fields stay {@code null}, for bean validation to reject. */
+  public static CreateDeviceRequest readCreate(CodedInputStream in) throws IOException {
+    String[] nameAndBrand = new String[2];
+    DeviceState state = readRequest(in, nameAndBrand);
+    return new CreateDeviceRequest(nameAndBrand[0], nameAndBrand[1], state);
+  }
+
+  /** Absent fields are left unchanged, as in a JSON merge patch without them. */
+  public static UpdateDeviceRequest readUpdate(CodedInputStream in) throws IOException {
+    String[] nameAndBrand = new String[2];
+    DeviceState state = readRequest(in, nameAndBrand);
+    return new UpdateDeviceRequest(nameAndBrand[0], nameAndBrand[1], state);
+  }
+
+  public static <T> List<T> readDelimited(CodedInputStream in, MessageReader<T> reader) throws IOException {
+    List<T> messages = new ArrayList<>();
+    while (!in.isAtEnd()) {
+      int limit = in.pushLimit(in.readRawVarint32());
+      messages.add(reader.read(in));
+      in.popLimit(limit);
+    }
+    return messages;
+  }
+
+  @FunctionalInterface
+  public interface MessageReader<T> {
+    T read(CodedInputStream in) throws IOException;
+  }
+
+  private static DeviceState readRequest(CodedInputStream in, String[] nameAndBrand) throws IOException {
+    DeviceState state = null;
+    for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+      switch (tag) {
+        case REQUEST_NAME << 3 | LENGTH_DELIMITED -> nameAndBrand[0] = in.readStringRequireUtf8();
+        case REQUEST_BRAND << 3 | LENGTH_DELIMITED -> nameAndBrand[1] = in.readStringRequireUtf8();
+        case REQUEST_STATE << 3 | VARINT -> state = state(in.readEnum());
+        default -> in.skipField(tag);
+      }
+    }
+    return state;
+  }
+
+  private static int timestampFieldSize(int field, Instant instant) {
+    if (instant == null) {
+      return 0;
+    }
+    int size = timestampSize(instant);
+    return CodedOutputStream.computeTagSize(field) + CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+  }
+
+  private static int timestampSize(Instant instant) {
+    int size = 0;
+    if (instant.getEpochSecond() != 0) {
+      size += CodedOutputStream.computeInt64Size(SECONDS, instant.getEpochSecond());
+    }
+    if (instant.getNano() != 0) {
+      size += CodedOutputStream.computeInt32Size(NANOS, instant.getNano());
+    }
+    return size;
+  }
+
+  private static void writeTimestamp(int field, Instant instant, CodedOutputStream out) throws IOException {
+    if (instant == null) {
+      return;
+    }
+    out.writeTag(field, LENGTH_DELIMITED);
+    out.writeUInt32NoTag(timestampSize(instant));
+    if (instant.getEpochSecond() != 0) {
+      out.writeInt64(SECONDS, instant.getEpochSecond());
+    }
+    if (instant.getNano() != 0) {
+      out.writeInt32(NANOS, instant.getNano());
+    }
+  }
+
+  private static Instant readTimestamp(CodedInputStream in) throws IOException {
+    int limit = in.pushLimit(in.readRawVarint32());
+    long seconds = 0;
+    int nanos = 0;
+    for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+      switch (tag) {
+        case SECONDS << 3 | VARINT -> seconds = in.readInt64();
+        case NANOS << 3 | VARINT -> nanos = in.readInt32();
+        default -> in.skipField(tag);
+      }
+    }
+    in.popLimit(limit);
+    if (nanos < 0 || nanos > 999_999_999) {
+      throw new InvalidProtocolBufferException("Timestamp nanos out of range: " + nanos);
+    }
+    return Instant.ofEpochSecond(seconds, nanos);
+  }
+
+  // numbers of the State enum; 0 is STATE_UNSPECIFIED
+  private static int number(DeviceState state) {
+    return switch (state) {
+      case AVAILABLE -> 1;
+      case IN_USE -> 2;
+      case INACTIVE -> 3;
+    };
+  }
+
+  private static DeviceState state(int number) {
+    return switch (number) {
+      case 1 -> DeviceState.AVAILABLE;
+      case 2 -> DeviceState.IN_USE;
+      case 3 -> DeviceState.INACTIVE;
+      default -> null;
+    };
+  }
+}
@@ -0,0 +1,25 @@
+package com.ricardo.takehome.devices.protobuf;
+
+import java.util.List;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class ProtobufConfig {
+
+  /**
+   * Appended after Jackson, so JSON stays the answer to {@code Accept: *}{@code /*} and protobuf is
+   * only chosen when asked for.
+   */
+  @Bean
+  public WebMvcConfigurer protobufConverterConfigurer() {
+    return new WebMvcConfigurer() {
+      @Override
+      public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new ProtobufDeviceHttpMessageConverter());
+      }
+    };
+  }
+}
@@ -0,0 +1,87 @@
+package com.ricardo.takehome.devices.protobuf;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.ricardo.takehome.devices.dto.CreateDeviceRequest;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.dto.ErrorResponse;
+import com.ricardo.takehome.devices.dto.UpdateDeviceRequest;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+
+/**
+ * Reads device creates and updates from, and writes devices, device lists and errors to,
+ * {@code application/x-protobuf}. A list is written as length-delimited devices, so agents decode
+ * it the same way as the stream endpoint.
+ */
+public class ProtobufDeviceHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+  public ProtobufDeviceHttpMessageConverter() {
+    super(DeviceProtobuf.MEDIA_TYPE);
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return clazz == DeviceResponse.class || clazz == ErrorResponse.class
+        || clazz == CreateDeviceRequest.class || clazz == UpdateDeviceRequest.class;
+  }
+
+  @Override
+  public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+    return (type == CreateDeviceRequest.class || type == UpdateDeviceRequest.class) && canRead(mediaType);
+  }
+
+  @Override
+  public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+    if (!canWrite(mediaType)) {
+      return false;
+    }
+    ResolvableType resolved = type != null ? ResolvableType.forType(type) : ResolvableType.forClass(clazz);
+    if (Collection.class.isAssignableFrom(resolved.toClass())) {
+      return resolved.asCollection().getGeneric().toClass() == DeviceResponse.class;
+    }
+    Class<?> target = resolved.toClass();
+    return target == DeviceResponse.class || target == ErrorResponse.class;
+  }
+
+  @Override
+  public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+    return readInternal(ResolvableType.forType(type).toClass(), inputMessage);
+  }
+
+  @Override
+  protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+    CodedInputStream in = CodedInputStream.newInstance(inputMessage.getBody());
+    try {
+      return clazz == CreateDeviceRequest.class ? DeviceProtobuf.readCreate(in) : DeviceProtobuf.readUpdate(in);
+    } catch (InvalidProtocolBufferException e) {
+      throw new HttpMessageNotReadableException("Malformed protobuf request body", e, inputMessage);
+    }
+  }
+
+  @Override
+  protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage)
+      throws IOException {
+    CodedOutputStream out = CodedOutputStream.newInstance(outputMessage.getBody());
+    switch (object) {
+      case DeviceResponse device -> DeviceProtobuf.writeDevice(device, out);
+      case ErrorResponse error -> DeviceProtobuf.writeError(error, out);
+      case Collection<?> devices -> {
+        for (Object device : devices) {
+          DeviceProtobuf.writeDelimited((DeviceResponse) device, out);
+        }
+      }
+      default -> throw new IllegalArgumentException("Unsupported type " + object.getClass());
+    }
+    out.flush();
+  }
+}
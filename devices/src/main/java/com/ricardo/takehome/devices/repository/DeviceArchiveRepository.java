@@ -0,0 +1,152 @@
+package com.ricardo.takehome.devices.repository;
+
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.model.DeviceState;
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * The {@code devices_archive} table: INACTIVE devices moved out of {@code devices} once they have
+ * not changed for a while. On PostgreSQL a chunk moves in one statement, picking its rows with
+ * {@code FOR UPDATE SKIP LOCKED} so the archiver never waits on, or blocks, a device being written;
+ * elsewhere (H2 in tests) as a locking SELECT, an INSERT and a DELETE. Rows keep their id and
+ * version, so a device moved back with {@link #restore} is indistinguishable from one never moved.
+ */
+@Repository
+public class DeviceArchiveRepository {
+
+  private static final String COLUMNS = "id, name, brand, state, creation_time, version, last_modified_time";
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final boolean postgresql;
+
+  public DeviceArchiveRepository(NamedParameterJdbcTemplate jdbcTemplate, DataSource dataSource)
+      throws MetaDataAccessException {
+    this.jdbcTemplate = jdbcTemplate;
+    this.postgresql = "PostgreSQL".equals(
+        JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+  }
+
+  /**
+   * Moves up to {@code limit} INACTIVE devices last modified before {@code cutoff}, in id order, and
+   * returns how many moved. Fewer than {@code limit} means no more were old enough, or the rest were
+   * locked by writers. Each call should be its own short transaction.
+   */
+  public int archive(Instant cutoff, int limit, Instant now) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource()
+        .addValue("state", DeviceState.INACTIVE.name())
+        .addValue("cutoff", Timestamp.from(cutoff))
+        .addValue("limit", limit)
+        .addValue("now", Timestamp.from(now));
+    String pick = "SELECT id FROM devices WHERE state = :state AND last_modified_time < :cutoff"
+        + " ORDER BY id LIMIT :limit FOR UPDATE";
+    if (postgresql) {
+      return jdbcTemplate.update("WITH picked AS (" + pick + " SKIP LOCKED),"
+          + " moved AS (DELETE FROM devices d USING picked WHERE d.id = picked.id RETURNING d.*)"
+          + " INSERT INTO devices_archive (" + COLUMNS + ", archived_at)"
+          + " SELECT " + COLUMNS + ", :now FROM moved", parameters);
+    }
+    List<Long> picked = jdbcTemplate.queryForList(pick, parameters, Long.class);
+    if (picked.isEmpty()) {
+      return 0;
+    }
+    parameters.addValue("picked", picked);
+    jdbcTemplate.update("INSERT INTO devices_archive (" + COLUMNS + ", archived_at)"
+        + " SELECT " + COLUMNS + ", :now FROM devices WHERE id IN (:picked)", parameters);
+    return jdbcTemplate.update("DELETE FROM devices WHERE id IN (:picked)", parameters);
+  }
+
+  /**
+   * Moves the archived devices among {@code ids} back to {@code devices} and returns how many
+   * moved, so a write can go on as if the device had never left.
+   */
+  public int restore(Collection<Long> ids) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("ids", ids);
+    if (postgresql) {
+      return jdbcTemplate.update("WITH restored AS (DELETE FROM devices_archive WHERE id IN (:ids)"
+          + " RETURNING " + COLUMNS + ")"
+          + " INSERT INTO devices (" + COLUMNS + ") SELECT " + COLUMNS + " FROM restored", parameters);
+    }
+    int restored = jdbcTemplate.update("INSERT INTO devices (" + COLUMNS + ")"
+        + " SELECT " + COLUMNS + " FROM devices_archive WHERE id IN (:ids)", parameters);
+    if (restored > 0) {
+      jdbcTemplate.update("DELETE FROM devices_archive WHERE id IN (:ids)", parameters);
+    }
+    return restored;
+  }
+
+  @Transactional(readOnly = true)
+  public Optional<DeviceResponse> findById(Long id) {
+    return jdbcTemplate.query("SELECT " + COLUMNS + " FROM devices_archive WHERE id = :id",
+        new MapSqlParameterSource("id", id), (rs, rowNum) -> DeviceStreamRepository.mapRow(rs)).stream().findFirst();
+  }
+
+  /**
+   * A keyset page of archived devices, the counterpart of {@link DeviceRepository#findResponses}:
+   * rows strictly after the cursor in the given order.
+   */
+  public List<DeviceResponse> findResponses(String brand, DeviceState state, DeviceSortOrder order,
+      DeviceCursor after, int limit) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("limit", limit);
+    List<String> conditions = conditions(brand, state, parameters);
+    if (after != null) {
+      parameters.addValue("after", after.id());
+      String comparison = order.ascending() ? ">" : "<";
+      String idAfter = "id " + comparison + " :after";
+      if (order.byCreationTime()) {
+        parameters.addValue("afterTime", Timestamp.from(after.creationTime()));
+        conditions.add("(creation_time " + comparison + " :afterTime"
+            + " OR (creation_time = :afterTime AND " + idAfter + "))");
+      } else {
+        conditions.add(idAfter);
+      }
+    }
+    String direction = order.ascending() ? "ASC" : "DESC";
+    String orderBy = order.byCreationTime()
+        ? "creation_time " + direction + ", id " + direction
+        : "id " + direction;
+    return jdbcTemplate.query("SELECT " + COLUMNS + " FROM devices_archive" + where(conditions)
+            + " ORDER BY " + orderBy + " LIMIT :limit",
+        parameters, (rs, rowNum) -> DeviceStreamRepository.mapRow(rs));
+  }
+
+  /** Like {@link DeviceStreamRepository#listVersion}; archiving and restoring change the count. */
+  public DeviceListVersion listVersion(String brand, DeviceState state) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource();
+    String where = where(conditions(brand, state, parameters));
+    return jdbcTemplate.queryForObject("SELECT COUNT(*), MAX(last_modified_time) FROM devices_archive" + where,
+        parameters, (rs, rowNum) -> {
+          Timestamp lastModifiedTime = rs.getTimestamp(2);
+          return new DeviceListVersion(rs.getLong(1), lastModifiedTime != null ? lastModifiedTime.toInstant() : null);
+        });
+  }
+
+  private static List<String> conditions(String brand, DeviceState state, MapSqlParameterSource parameters) {
+    List<String> conditions = new ArrayList<>();
+    if (brand != null) {
+      conditions.add("brand = :brand");
+      parameters.addValue("brand", brand);
+    }
+    if (state != null) {
+      conditions.add("state = :state");
+      parameters.addValue("state", state.name());
+    }
+    return conditions;
+  }
+
+  private static String where(List<String> conditions) {
+    return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+  }
+}
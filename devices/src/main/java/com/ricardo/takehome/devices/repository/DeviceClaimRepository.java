@@ -0,0 +1,109 @@
+package com.ricardo.takehome.devices.repository;
+
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.model.DeviceState;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Moves devices between AVAILABLE and IN_USE in bulk. On PostgreSQL each call is one statement:
+ * a locking SELECT picks the rows and the UPDATE around it returns them. A claim locks with
+ * {@code FOR UPDATE SKIP LOCKED}, so concurrent claimers take disjoint devices instead of queueing
+ * behind, and then losing, the same rows. Both walk the {@code (state, id)} and
+ * {@code (brand, state, id)} indexes in id order, which also keeps lock order consistent.
+ *
+ * <p>Elsewhere (H2 in tests) the same happens as a locking SELECT, an UPDATE and a read back,
+ * without skipping locked rows.
+ */
+@Repository
+public class DeviceClaimRepository {
+
+  private static final String RETURNING =
+      "d.id, d.name, d.brand, d.state, d.creation_time, d.version, d.last_modified_time,"
+          + " picked.last_modified_time AS previous_modified_time";
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final boolean postgresql;
+
+  public DeviceClaimRepository(NamedParameterJdbcTemplate jdbcTemplate, DataSource dataSource)
+      throws MetaDataAccessException {
+    this.jdbcTemplate = jdbcTemplate;
+    this.postgresql = "PostgreSQL".equals(
+        JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+  }
+
+  /** Up to {@code count} AVAILABLE devices, of {@code brand} if given, now IN_USE, by id. */
+  public List<DeviceStateChange> claim(int count, String brand, Instant now) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource()
+        .addValue("from", DeviceState.AVAILABLE.name())
+        .addValue("count", count);
+    String where = "state = :from";
+    if (brand != null) {
+      where += " AND brand = :brand";
+      parameters.addValue("brand", brand);
+    }
+    String pick = "SELECT id, last_modified_time FROM devices WHERE " + where + " ORDER BY id LIMIT :count FOR UPDATE";
+    return transition(postgresql ? pick + " SKIP LOCKED" : pick, parameters, DeviceState.IN_USE, now);
+  }
+
+  /** The devices among {@code ids} that were IN_USE, now AVAILABLE, by id. */
+  public List<DeviceStateChange> release(List<Long> ids, Instant now) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource()
+        .addValue("from", DeviceState.IN_USE.name())
+        .addValue("ids", ids);
+    String pick = "SELECT id, last_modified_time FROM devices WHERE id IN (:ids) AND state = :from ORDER BY id FOR UPDATE";
+    return transition(pick, parameters, DeviceState.AVAILABLE, now);
+  }
+
+  private List<DeviceStateChange> transition(String pick, MapSqlParameterSource parameters, DeviceState to,
+      Instant now) {
+    parameters.addValue("to", to.name()).addValue("now", Timestamp.from(now));
+    List<DeviceStateChange> changes;
+    if (postgresql) {
+      changes = jdbcTemplate.query("WITH picked AS (" + pick + ")"
+              + " UPDATE devices d SET state = :to, version = d.version + 1, last_modified_time = :now"
+              + " FROM picked WHERE d.id = picked.id RETURNING " + RETURNING,
+          parameters, (rs, rowNum) -> change(rs));
+    } else {
+      Map<Long, Timestamp> picked = new HashMap<>();
+      jdbcTemplate.query(pick, parameters, rs -> {
+        picked.put(rs.getLong("id"), rs.getTimestamp("last_modified_time"));
+      });
+      if (picked.isEmpty()) {
+        return List.of();
+      }
+      parameters.addValue("picked", picked.keySet());
+      jdbcTemplate.update("UPDATE devices SET state = :to, version = version + 1, last_modified_time = :now"
+          + " WHERE id IN (:picked)", parameters);
+      changes = jdbcTemplate.query("SELECT id, name, brand, state, creation_time, version, last_modified_time"
+              + " FROM devices WHERE id IN (:picked)", parameters,
+          (rs, rowNum) -> change(DeviceStreamRepository.mapRow(rs), picked.get(rs.getLong("id"))));
+    }
+    // RETURNING and IN lists come back in no particular order
+    return changes.stream().sorted(Comparator.comparing(change -> change.after().id())).toList();
+  }
+
+  private static DeviceStateChange change(ResultSet rs) throws SQLException {
+    return change(DeviceStreamRepository.mapRow(rs), rs.getTimestamp("previous_modified_time"));
+  }
+
+  private static DeviceStateChange change(DeviceResponse after, Timestamp previousModifiedTime) {
+    DeviceState previousState = after.state() == DeviceState.IN_USE ? DeviceState.AVAILABLE : DeviceState.IN_USE;
+    DeviceResponse before = new DeviceResponse(after.id(), after.name(), after.brand(), previousState,
+        after.creationTime(), after.version() - 1, previousModifiedTime.toInstant());
+    return new DeviceStateChange(before, after);
+  }
+}
@@ -0,0 +1,45 @@
+package com.ricardo.takehome.devices.repository;
+
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * The keyset position of the last row of a page, as passed back in {@code after}. For creation
+ * time orderings it carries that row's creation time as well as its id, so the next page does not
+ * depend on the row still being there to look the time up; clients get it as an opaque token. For
+ * id orderings it is just the id.
+ */
+public record DeviceCursor(long id, Instant creationTime) {
+
+  private static final char SEPARATOR = ',';
+
+  public static DeviceCursor after(DeviceResponse last, DeviceSortOrder order) {
+    return new DeviceCursor(last.id(), order.byCreationTime() ? last.creationTime() : null);
+  }
+
+  /** Reads a cursor written by {@link #format} for the same order. */
+  public static DeviceCursor parse(String value, DeviceSortOrder order) {
+    try {
+      if (!order.byCreationTime()) {
+        return new DeviceCursor(Long.parseLong(value), null);
+      }
+      String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.US_ASCII);
+      int separator = decoded.lastIndexOf(SEPARATOR);
+      return new DeviceCursor(Long.parseLong(decoded.substring(separator + 1)),
+          Instant.parse(decoded.substring(0, separator)));
+    } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Invalid cursor for sort " + order + ": " + value);
+    }
+  }
+
+  public String format() {
+    if (creationTime == null) {
+      return String.valueOf(id);
+    }
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString((creationTime.toString() + SEPARATOR + id).getBytes(StandardCharsets.US_ASCII));
+  }
+}
@@ -0,0 +1,21 @@
+package com.ricardo.takehome.devices.repository;
+
+import java.time.Instant;
+
+/**
+ * Cheap fingerprint of a filtered device list: how many devices match, when the newest of them
+ * was last modified ({@code null} when none match) and the device event log position it was read
+ * at (0 when not read). Modification times come from the writers' clocks, so an update by an
+ * instance running behind can leave the first two unchanged; the position moves with every logged
+ * change whatever the clocks say.
+ */
+public record DeviceListVersion(long count, Instant lastModifiedTime, long position) {
+
+  public DeviceListVersion(long count, Instant lastModifiedTime) {
+    this(count, lastModifiedTime, 0);
+  }
+
+  public DeviceListVersion atPosition(long position) {
+    return new DeviceListVersion(count, lastModifiedTime, position);
+  }
+}
@@ -1,13 +1,40 @@
 package com.ricardo.takehome.devices.repository;
 
+import com.ricardo.takehome.devices.dto.DeviceResponse;
 import com.ricardo.takehome.devices.model.Device;
 import com.ricardo.takehome.devices.model.DeviceState;
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface DeviceRepository extends JpaRepository<Device,Long> {
+public interface DeviceRepository extends JpaRepository<Device,Long>, JpaSpecificationExecutor<Device>,
+    DeviceResponseQueries {
 
   List<Device> getDeviceByBrand(String brand);
 
   List<Device> getDeviceByState(DeviceState state);
+
+  @Query("select new com.ricardo.takehome.devices.dto.DeviceResponse("
+      + "d.id, d.name, d.brand, d.state, d.creationTime, d.version, d.lastModifiedTime)"
+      + " from Device d where d.id = :id")
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+  @Transactional(readOnly = true)
+  Optional<DeviceResponse> findResponseById(Long id);
+
+  /**
+   * Compare-and-set of the state column: a single UPDATE that only matches while the row is still
+   * at {@code version}. Returns the number of rows changed, 0 if the device is gone or has moved on.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Device d set d.state = :state, d.version = d.version + 1, d.lastModifiedTime = :modifiedAt"
+      + " where d.id = :id and d.version = :version")
+  int updateStateIfVersion(Long id, DeviceState state, Long version, Instant modifiedAt);
 }
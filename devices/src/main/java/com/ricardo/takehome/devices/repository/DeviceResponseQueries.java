@@ -0,0 +1,16 @@
+package com.ricardo.takehome.devices.repository;
+
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.model.Device;
+import java.util.List;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Read paths that select straight into {@link DeviceResponse}: no entities are instantiated,
+ * enter the persistence context or get snapshotted for dirty checking.
+ */
+public interface DeviceResponseQueries {
+
+  List<DeviceResponse> findResponses(Specification<Device> specification, Sort sort, int limit);
+}
@@ -0,0 +1,40 @@
+package com.ricardo.takehome.devices.repository;
+
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.model.Device;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.List;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+class DeviceResponseQueriesImpl implements DeviceResponseQueries {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  public List<DeviceResponse> findResponses(Specification<Device> specification, Sort sort, int limit) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<DeviceResponse> query = cb.createQuery(DeviceResponse.class);
+    Root<Device> root = query.from(Device.class);
+    query.select(cb.construct(DeviceResponse.class,
+        root.get("id"), root.get("name"), root.get("brand"), root.get("state"),
+        root.get("creationTime"), root.get("version"), root.get("lastModifiedTime")));
+    Predicate predicate = specification.toPredicate(root, query, cb);
+    if (predicate != null) {
+      query.where(predicate);
+    }
+    query.orderBy(QueryUtils.toOrders(sort, root, cb));
+    return entityManager.createQuery(query)
+        .setMaxResults(limit)
+        .setHint(HibernateHints.HINT_READ_ONLY, true)
+        .getResultList();
+  }
+}
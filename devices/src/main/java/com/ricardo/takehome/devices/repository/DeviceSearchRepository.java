@@ -0,0 +1,87 @@
+package com.ricardo.takehome.devices.repository;
+
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Ranked, case-insensitive search over device name and brand. Results come in tiers: name
+ * prefix, brand prefix, then (from {@value #MIN_FUZZY_LENGTH} characters) fuzzy name and brand
+ * matches. Each tier is read as its own top-N query, so no tier ever sorts all of its matches;
+ * the tiers are then merged and a device found by several keeps its best one.
+ *
+ * <p>On PostgreSQL, fuzzy means pg_trgm word similarity, ordered by distance through the GiST
+ * indexes of migration V7. Elsewhere (H2 in tests) it falls back to a substring match by id.
+ */
+@Repository
+public class DeviceSearchRepository {
+
+  public static final int MIN_FUZZY_LENGTH = 3;
+
+  private static final String COLUMNS = "id, name, brand, state, creation_time, version, last_modified_time";
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final boolean postgresql;
+
+  public DeviceSearchRepository(NamedParameterJdbcTemplate jdbcTemplate, DataSource dataSource)
+      throws MetaDataAccessException {
+    this.jdbcTemplate = jdbcTemplate;
+    this.postgresql = "PostgreSQL".equals(
+        JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+  }
+
+  public List<DeviceResponse> search(String query, int offset, int limit) {
+    String term = query.trim().toLowerCase(Locale.ROOT);
+    MapSqlParameterSource parameters = new MapSqlParameterSource()
+        .addValue("q", term)
+        .addValue("prefix", escapeLike(term) + "%")
+        .addValue("contains", "%" + escapeLike(term) + "%")
+        .addValue("candidates", offset + limit)
+        .addValue("offset", offset)
+        .addValue("limit", limit);
+    return jdbcTemplate.query(sql(term.length() >= MIN_FUZZY_LENGTH), parameters,
+        (rs, rowNum) -> DeviceStreamRepository.mapRow(rs));
+  }
+
+  private String sql(boolean fuzzy) {
+    List<String> tiers = new ArrayList<>();
+    if (postgresql) {
+      tiers.add(tier(0, "lower(name) COLLATE \"C\" LIKE :prefix ESCAPE '\\'", "lower(name) COLLATE \"C\", id"));
+      tiers.add(tier(1, "lower(brand) COLLATE \"C\" LIKE :prefix ESCAPE '\\'", "lower(brand) COLLATE \"C\", id"));
+      if (fuzzy) {
+        // no id tie-break: the GiST scan yields rows by distance only, anything more would sort them all
+        tiers.add(tier(2, ":q <% lower(name)", ":q <<-> lower(name)"));
+        tiers.add(tier(3, ":q <% lower(brand)", ":q <<-> lower(brand)"));
+      }
+    } else {
+      tiers.add(tier(0, "lower(name) LIKE :prefix ESCAPE '\\'", "lower(name), id"));
+      tiers.add(tier(1, "lower(brand) LIKE :prefix ESCAPE '\\'", "lower(brand), id"));
+      if (fuzzy) {
+        tiers.add(tier(2, "lower(name) LIKE :contains ESCAPE '\\'", "id"));
+        tiers.add(tier(3, "lower(brand) LIKE :contains ESCAPE '\\'", "id"));
+      }
+    }
+    return "SELECT " + COLUMNS + " FROM ("
+        + " SELECT " + COLUMNS + ", tier, pos, ROW_NUMBER() OVER (PARTITION BY id ORDER BY tier, pos) AS occurrence"
+        + " FROM (" + String.join(" UNION ALL ", tiers) + ") candidates"
+        + ") ranked WHERE occurrence = 1 ORDER BY tier, pos LIMIT :limit OFFSET :offset";
+  }
+
+  // offset + limit rows per tier are enough: a tier only loses rows to better tiers above it
+  private static String tier(int tier, String where, String order) {
+    return "(SELECT " + COLUMNS + ", " + tier + " AS tier, ROW_NUMBER() OVER (ORDER BY " + order + ") AS pos"
+        + " FROM devices WHERE " + where + " ORDER BY " + order + " LIMIT :candidates)";
+  }
+
+  private static String escapeLike(String term) {
+    return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+}
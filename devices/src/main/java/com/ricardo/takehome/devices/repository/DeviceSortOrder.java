@@ -0,0 +1,49 @@
+package com.ricardo.takehome.devices.repository;
+
+import java.util.Locale;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Orderings supported by keyset pagination. Every ordering ends in {@code id} so the cursor is
+ * always unique.
+ */
+public enum DeviceSortOrder {
+  ID_ASC(false, Sort.Direction.ASC),
+  ID_DESC(false, Sort.Direction.DESC),
+  CREATION_TIME_ASC(true, Sort.Direction.ASC),
+  CREATION_TIME_DESC(true, Sort.Direction.DESC);
+
+  private final boolean byCreationTime;
+  private final Sort.Direction direction;
+
+  DeviceSortOrder(boolean byCreationTime, Sort.Direction direction) {
+    this.byCreationTime = byCreationTime;
+    this.direction = direction;
+  }
+
+  public static DeviceSortOrder of(String property, String direction) {
+    boolean ascending = switch (direction.toLowerCase(Locale.ROOT)) {
+      case "asc" -> true;
+      case "desc" -> false;
+      default -> throw new IllegalArgumentException("Unsupported sort direction: " + direction);
+    };
+    return switch (property) {
+      case "id" -> ascending ? ID_ASC : ID_DESC;
+      case "creationTime" -> ascending ? CREATION_TIME_ASC : CREATION_TIME_DESC;
+      default -> throw new IllegalArgumentException("Unsupported sort property: " + property);
+    };
+  }
+
+  public boolean byCreationTime() {
+    return byCreationTime;
+  }
+
+  public boolean ascending() {
+    return direction.isAscending();
+  }
+
+  public Sort toSort() {
+    Sort byId = Sort.by(direction, "id");
+    return byCreationTime ? Sort.by(direction, "creationTime").and(byId) : byId;
+  }
+}
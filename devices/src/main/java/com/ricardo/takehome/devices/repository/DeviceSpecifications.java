@@ -0,0 +1,62 @@
+package com.ricardo.takehome.devices.repository;
+
+import com.ricardo.takehome.devices.model.Device;
+import com.ricardo.takehome.devices.model.DeviceState;
+import jakarta.persistence.criteria.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.data.jpa.domain.Specification;
+
+public final class DeviceSpecifications {
+
+  private DeviceSpecifications() {
+  }
+
+  public static Specification<Device> matching(String brand, DeviceState state, DeviceCursor after,
+      DeviceSortOrder order) {
+    List<Specification<Device>> specifications = new ArrayList<>();
+    if (brand != null) {
+      specifications.add(hasBrand(brand));
+    }
+    if (state != null) {
+      specifications.add(hasState(state));
+    }
+    if (after != null) {
+      specifications.add(after(after, order));
+    }
+    return Specification.allOf(specifications);
+  }
+
+  public static Specification<Device> hasBrand(String brand) {
+    return (root, query, cb) -> cb.equal(root.get("brand"), brand);
+  }
+
+  public static Specification<Device> hasState(DeviceState state) {
+    return (root, query, cb) -> cb.equal(root.get("state"), state);
+  }
+
+  /**
+   * Rows strictly after the cursor in the given order. For creation time ordering the comparison
+   * uses the time carried by the cursor, so it holds even once the cursor row is gone.
+   */
+  public static Specification<Device> after(DeviceCursor after, DeviceSortOrder order) {
+    return (root, query, cb) -> {
+      Path<Long> id = root.get("id");
+      if (!order.byCreationTime()) {
+        return order.ascending() ? cb.greaterThan(id, after.id()) : cb.lessThan(id, after.id());
+      }
+
+      Path<Instant> creationTime = root.get("creationTime");
+      Instant cursorTime = after.creationTime();
+      if (order.ascending()) {
+        return cb.or(
+            cb.greaterThan(creationTime, cursorTime),
+            cb.and(cb.equal(creationTime, cursorTime), cb.greaterThan(id, after.id())));
+      }
+      return cb.or(
+          cb.lessThan(creationTime, cursorTime),
+          cb.and(cb.equal(creationTime, cursorTime), cb.lessThan(id, after.id())));
+    };
+  }
+}
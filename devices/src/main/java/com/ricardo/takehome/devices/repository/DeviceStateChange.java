@@ -0,0 +1,7 @@
+package com.ricardo.takehome.devices.repository;
+
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+
+/** A device as it was before and after a state change written directly in SQL. */
+public record DeviceStateChange(DeviceResponse before, DeviceResponse after) {
+}
@@ -0,0 +1,93 @@
+package com.ricardo.takehome.devices.repository;
+
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.model.DeviceState;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads devices through a forward-only JDBC cursor so callers can process tables of any size
+ * without materializing them. Must be called inside a transaction: PostgreSQL only honours the
+ * fetch size when auto-commit is off. Also answers {@link #listVersion} with a single aggregate
+ * over the same filters.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DeviceStreamRepository {
+
+  static final int FETCH_SIZE = 500;
+
+  private static final String SELECT_DEVICES =
+      "SELECT id, name, brand, state, creation_time, version, last_modified_time FROM devices";
+
+  private static final String SELECT_LIST_VERSION =
+      "SELECT COUNT(*), MAX(last_modified_time) FROM devices";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public void streamAll(String brand, DeviceState state, Consumer<DeviceResponse> consumer) {
+    List<Object> parameters = new ArrayList<>();
+    String sql = SELECT_DEVICES + where(brand, state, parameters) + " ORDER BY id";
+
+    RowCallbackHandler handler = rs -> consumer.accept(mapRow(rs));
+    jdbcTemplate.query(connection -> {
+      PreparedStatement statement = connection.prepareStatement(
+          sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      statement.setFetchSize(FETCH_SIZE);
+      for (int i = 0; i < parameters.size(); i++) {
+        statement.setObject(i + 1, parameters.get(i));
+      }
+      return statement;
+    }, handler);
+  }
+
+  /**
+   * Row count and newest modification among the devices matching the filters. Any insert, update
+   * or delete in that set changes at least one of the two, without reading a single device row.
+   */
+  public DeviceListVersion listVersion(String brand, DeviceState state) {
+    List<Object> parameters = new ArrayList<>();
+    String sql = SELECT_LIST_VERSION + where(brand, state, parameters);
+    return jdbcTemplate.queryForObject(sql, (rs, rowNum) -> {
+      Timestamp lastModifiedTime = rs.getTimestamp(2);
+      return new DeviceListVersion(rs.getLong(1), lastModifiedTime != null ? lastModifiedTime.toInstant() : null);
+    }, parameters.toArray());
+  }
+
+  private static String where(String brand, DeviceState state, List<Object> parameters) {
+    List<String> conditions = new ArrayList<>();
+    if (brand != null) {
+      conditions.add("brand = ?");
+      parameters.add(brand);
+    }
+    if (state != null) {
+      conditions.add("state = ?");
+      parameters.add(state.name());
+    }
+    return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+  }
+
+  /** Reads a row holding every {@code devices} column. */
+  public static DeviceResponse mapRow(ResultSet rs) throws SQLException {
+    Timestamp creationTime = rs.getTimestamp("creation_time");
+    Timestamp lastModifiedTime = rs.getTimestamp("last_modified_time");
+    return new DeviceResponse(
+        rs.getLong("id"),
+        rs.getString("name"),
+        rs.getString("brand"),
+        DeviceState.valueOf(rs.getString("state")),
+        creationTime != null ? creationTime.toInstant() : null,
+        rs.getLong("version"),
+        lastModifiedTime != null ? lastModifiedTime.toInstant() : null
+    );
+  }
+}
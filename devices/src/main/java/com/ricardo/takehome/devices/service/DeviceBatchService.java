@@ -0,0 +1,191 @@
+package com.ricardo.takehome.devices.service;
+
+import com.ricardo.takehome.devices.dto.BatchItemResult;
+import com.ricardo.takehome.devices.dto.BatchUpdateDeviceRequest;
+import com.ricardo.takehome.devices.dto.CreateDeviceRequest;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.model.Device;
+import com.ricardo.takehome.devices.repository.DeviceArchiveRepository;
+import com.ricardo.takehome.devices.repository.DeviceRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Applies create/update/delete to many devices in one transaction. Every item is validated and
+ * checked against the same rules as {@link DeviceService}; failing items are reported individually
+ * while the rest are written in JDBC batches.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class DeviceBatchService {
+
+  private final DeviceRepository deviceRepository;
+  private final DeviceArchiveRepository deviceArchiveRepository;
+  private final Validator validator;
+  private final ApplicationEventPublisher eventPublisher;
+
+  public List<BatchItemResult> createAll(List<CreateDeviceRequest> requests) {
+    BatchItemResult[] results = new BatchItemResult[requests.size()];
+    List<Integer> indexes = new ArrayList<>();
+    List<Device> devices = new ArrayList<>();
+
+    for (int i = 0; i < requests.size(); i++) {
+      String violations = validate(requests.get(i));
+      if (violations != null) {
+        results[i] = badRequest(i, violations);
+        continue;
+      }
+      indexes.add(i);
+      devices.add(DeviceService.newDevice(requests.get(i)));
+    }
+
+    List<Device> saved = deviceRepository.saveAll(devices);
+    for (int k = 0; k < saved.size(); k++) {
+      DeviceResponse created = DeviceResponse.from(saved.get(k));
+      results[indexes.get(k)] = BatchItemResult.success(indexes.get(k), HttpStatus.CREATED.value(), created);
+      eventPublisher.publishEvent(DeviceChangedEvent.created(created));
+    }
+    return Arrays.asList(results);
+  }
+
+  public List<BatchItemResult> updateAll(List<BatchUpdateDeviceRequest> requests) {
+    return updateAll(requests, null);
+  }
+
+  /**
+   * As {@link #updateAll(List)}, but an item whose device was modified after the instant at the
+   * same index of {@code ifUnmodifiedSince} is not applied and reported as 412.
+   */
+  public List<BatchItemResult> updateAll(List<BatchUpdateDeviceRequest> requests, List<Instant> ifUnmodifiedSince) {
+    Map<Long, Device> devices = findAll(requests.stream()
+        .filter(Objects::nonNull)
+        .map(BatchUpdateDeviceRequest::id)
+        .toList());
+    BatchItemResult[] results = new BatchItemResult[requests.size()];
+    List<Integer> indexes = new ArrayList<>();
+    List<DeviceResponse> befores = new ArrayList<>();
+    List<Device> updated = new ArrayList<>();
+
+    for (int i = 0; i < requests.size(); i++) {
+      BatchUpdateDeviceRequest request = requests.get(i);
+      String violations = validate(request);
+      if (violations != null) {
+        results[i] = badRequest(i, violations);
+        continue;
+      }
+      Device device = devices.get(request.id());
+      if (device == null) {
+        results[i] = notFound(i);
+        continue;
+      }
+      if (ifUnmodifiedSince != null && device.getLastModifiedTime().isAfter(ifUnmodifiedSince.get(i))) {
+        results[i] = BatchItemResult.failure(i, HttpStatus.PRECONDITION_FAILED.value(), "PRECONDITION_FAILED",
+            "Device was modified since " + ifUnmodifiedSince.get(i));
+        continue;
+      }
+
+      DeviceResponse before = DeviceResponse.from(device);
+      try {
+        DeviceService.applyUpdate(device, request.toUpdateRequest());
+      } catch (IllegalStateException e) {
+        results[i] = BatchItemResult.failure(i, HttpStatus.CONFLICT.value(), "CONFLICT", e.getMessage());
+        continue;
+      }
+      indexes.add(i);
+      befores.add(before);
+      updated.add(device);
+    }
+
+    // versions are only bumped on flush, and the results report them
+    deviceRepository.saveAll(updated);
+    deviceRepository.flush();
+    for (int k = 0; k < updated.size(); k++) {
+      DeviceResponse after = DeviceResponse.from(updated.get(k));
+      results[indexes.get(k)] = BatchItemResult.success(indexes.get(k), HttpStatus.OK.value(), after);
+      eventPublisher.publishEvent(DeviceChangedEvent.updated(befores.get(k), after));
+    }
+    return Arrays.asList(results);
+  }
+
+  public List<BatchItemResult> deleteAll(List<Long> ids) {
+    Map<Long, Device> devices = findAll(ids);
+    List<BatchItemResult> results = new ArrayList<>(ids.size());
+    Set<Long> deletable = new LinkedHashSet<>();
+
+    for (int i = 0; i < ids.size(); i++) {
+      Device device = ids.get(i) != null ? devices.get(ids.get(i)) : null;
+      if (device == null) {
+        results.add(notFound(i));
+        continue;
+      }
+      if (!device.canBeDeleted()) {
+        DeviceService.DELETE_REJECTIONS.increment();
+        results.add(BatchItemResult.failure(i, HttpStatus.CONFLICT.value(), "CONFLICT",
+            "Cannot delete a device that is in use"));
+        continue;
+      }
+      results.add(BatchItemResult.success(i, HttpStatus.NO_CONTENT.value(), null));
+      if (deletable.add(device.getId())) {
+        eventPublisher.publishEvent(DeviceChangedEvent.deleted(DeviceResponse.from(device)));
+      }
+    }
+
+    if (!deletable.isEmpty()) {
+      deviceRepository.deleteAllByIdInBatch(deletable);
+    }
+    return results;
+  }
+
+  /** Managed devices by id; archived ones among {@code ids} are moved back first. */
+  private Map<Long, Device> findAll(List<Long> ids) {
+    List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+    if (distinct.isEmpty()) {
+      return Map.of();
+    }
+    Map<Long, Device> devices = deviceRepository.findAllById(distinct).stream()
+        .collect(Collectors.toMap(Device::getId, Function.identity()));
+    List<Long> missing = distinct.stream().filter(id -> !devices.containsKey(id)).toList();
+    if (!missing.isEmpty() && deviceArchiveRepository.restore(missing) > 0) {
+      deviceRepository.findAllById(missing).forEach(device -> devices.put(device.getId(), device));
+    }
+    return devices;
+  }
+
+  private <T> String validate(T item) {
+    if (item == null) {
+      return "item must not be null";
+    }
+    Set<ConstraintViolation<T>> violations = validator.validate(item);
+    if (violations.isEmpty()) {
+      return null;
+    }
+    return violations.stream()
+        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+        .sorted()
+        .collect(Collectors.joining(", "));
+  }
+
+  private static BatchItemResult badRequest(int index, String message) {
+    return BatchItemResult.failure(index, HttpStatus.BAD_REQUEST.value(), "BAD_REQUEST", message);
+  }
+
+  private static BatchItemResult notFound(int index) {
+    return BatchItemResult.failure(index, HttpStatus.NOT_FOUND.value(), "NOT_FOUND", "Device not Found");
+  }
+}
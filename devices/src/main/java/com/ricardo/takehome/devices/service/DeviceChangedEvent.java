@@ -0,0 +1,36 @@
+package com.ricardo.takehome.devices.service;
+
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+
+/**
+ * Published by {@link DeviceService} from inside each writing transaction. Listeners that must not
+ * observe uncommitted state should use {@code @TransactionalEventListener}.
+ *
+ * @param before the device as it was before the change, {@code null} for creations
+ * @param after the device as it is after the change, {@code null} for deletions
+ */
+public record DeviceChangedEvent(
+    ChangeType type,
+    Long id,
+    DeviceResponse before,
+    DeviceResponse after
+) {
+
+  public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+  }
+
+  public static DeviceChangedEvent created(DeviceResponse after) {
+    return new DeviceChangedEvent(ChangeType.CREATED, after.id(), null, after);
+  }
+
+  public static DeviceChangedEvent updated(DeviceResponse before, DeviceResponse after) {
+    return new DeviceChangedEvent(ChangeType.UPDATED, after.id(), before, after);
+  }
+
+  public static DeviceChangedEvent deleted(DeviceResponse before) {
+    return new DeviceChangedEvent(ChangeType.DELETED, before.id(), before, null);
+  }
+}
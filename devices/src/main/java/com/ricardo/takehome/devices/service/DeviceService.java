@@ -1,38 +1,80 @@
 package com.ricardo.takehome.devices.service;
 
+import com.ricardo.takehome.devices.cache.DeviceCache;
 import com.ricardo.takehome.devices.dto.CreateDeviceRequest;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
 import com.ricardo.takehome.devices.dto.UpdateDeviceRequest;
+import com.ricardo.takehome.devices.events.DeviceEventLog;
 import com.ricardo.takehome.devices.model.Device;
 import com.ricardo.takehome.devices.model.DeviceState;
+import com.ricardo.takehome.devices.repository.DeviceArchiveRepository;
+import com.ricardo.takehome.devices.repository.DeviceClaimRepository;
+import com.ricardo.takehome.devices.repository.DeviceCursor;
+import com.ricardo.takehome.devices.repository.DeviceListVersion;
 import com.ricardo.takehome.devices.repository.DeviceRepository;
+import com.ricardo.takehome.devices.repository.DeviceSearchRepository;
+import com.ricardo.takehome.devices.repository.DeviceSortOrder;
+import com.ricardo.takehome.devices.repository.DeviceSpecifications;
+import com.ricardo.takehome.devices.repository.DeviceStateChange;
+import com.ricardo.takehome.devices.repository.DeviceStreamRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
+@Timed("devices.service")
 public class DeviceService {
 
+  // on the global registry because the rules are also enforced from static helpers
+  static final Counter NAME_AND_BRAND_REJECTIONS =
+      Metrics.counter("devices.rule.rejections", "rule", "canUpdateNameAndBrand");
+  static final Counter DELETE_REJECTIONS =
+      Metrics.counter("devices.rule.rejections", "rule", "canBeDeleted");
+
   private final DeviceRepository deviceRepository;
+  private final DeviceStreamRepository deviceStreamRepository;
+  private final DeviceSearchRepository deviceSearchRepository;
+  private final DeviceClaimRepository deviceClaimRepository;
+  private final DeviceArchiveRepository deviceArchiveRepository;
+  private final DeviceEventLog deviceEventLog;
+  private final DeviceCache deviceCache;
+  private final ApplicationEventPublisher eventPublisher;
 
   public Device create(CreateDeviceRequest request){
-    Device device = new Device();
-    device.setName(request.name());
-    device.setBrand(request.brand());
-    device.setState(request.state());
-    device.setCreationTime(Instant.now());
-    return deviceRepository.save(device);
+    Device saved = deviceRepository.save(newDevice(request));
+    eventPublisher.publishEvent(DeviceChangedEvent.created(DeviceResponse.from(saved)));
+    return saved;
   }
 
+  /** Falls back to the archive; an archived device comes back detached and must not be saved. */
   @Transactional(readOnly = true)
   public Device getById(Long id) {
     return deviceRepository.findById(id)
+        .or(() -> deviceArchiveRepository.findById(id).map(DeviceService::detached))
         .orElseThrow(() -> new RuntimeException("Device not Found"));
   }
 
+  /**
+   * Runs without a transaction so that a cache hit takes no connection; on a miss the loader's
+   * queries each run read-only, and therefore on a replica when those are enabled.
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public DeviceResponse getResponseById(Long id) {
+    return deviceCache.get(id, this::loadResponse);
+  }
+
   @Transactional(readOnly = true)
   public List<Device> getAll() {
     return deviceRepository.findAll();
@@ -48,14 +90,174 @@ public class DeviceService {
     return deviceRepository.getDeviceByState(state);
   }
 
+  @Transactional(readOnly = true)
+  public List<DeviceResponse> getPage(String brand, DeviceState state, DeviceSortOrder order, DeviceCursor after,
+      int limit) {
+    return deviceRepository.findResponses(DeviceSpecifications.matching(brand, state, after, order), order.toSort(), limit);
+  }
+
+  /**
+   * Every write to {@code devices} logs an event in its transaction, so the log position tells
+   * lists apart whatever clocks stamped the devices. It is read first: everything at or below it
+   * has committed and is in the aggregate read after it. A change still settling above it shows
+   * up once it settles, so a list can be reported unchanged for up to {@code settle-delay}.
+   */
+  @Transactional(readOnly = true)
+  public DeviceListVersion getListVersion(String brand, DeviceState state) {
+    long position = deviceEventLog.lastPosition();
+    return deviceStreamRepository.listVersion(brand, state).atPosition(position);
+  }
+
+  @Transactional(readOnly = true)
+  public List<DeviceResponse> getArchivedPage(String brand, DeviceState state, DeviceSortOrder order,
+      DeviceCursor after, int limit) {
+    return deviceArchiveRepository.findResponses(brand, state, order, after, limit);
+  }
+
+  @Transactional(readOnly = true)
+  public DeviceListVersion getArchivedListVersion(String brand, DeviceState state) {
+    return deviceArchiveRepository.listVersion(brand, state);
+  }
+
+  /**
+   * Reads the list version, then the page unless {@code notModified} accepts that version, in one
+   * read-only transaction: both come from the same database, so with read replicas the version can
+   * never be newer than the page. Empty when the page was not read.
+   */
+  @Transactional(readOnly = true)
+  public Optional<List<DeviceResponse>> getPageIfModified(String brand, DeviceState state, DeviceSortOrder order,
+      DeviceCursor after, int limit, boolean archived, Predicate<DeviceListVersion> notModified) {
+    DeviceListVersion version = archived ? getArchivedListVersion(brand, state) : getListVersion(brand, state);
+    if (notModified.test(version)) {
+      return Optional.empty();
+    }
+    return Optional.of(archived
+        ? getArchivedPage(brand, state, order, after, limit)
+        : getPage(brand, state, order, after, limit));
+  }
+
+  @Transactional(readOnly = true)
+  public List<DeviceResponse> search(String query, int offset, int limit) {
+    return deviceSearchRepository.search(query, offset, limit);
+  }
+
+  @Transactional(readOnly = true)
+  public void streamAll(String brand, DeviceState state, Consumer<DeviceResponse> consumer) {
+    deviceStreamRepository.streamAll(brand, state, consumer);
+  }
+
   public Device update(Long id, UpdateDeviceRequest request) {
-    Device device = getById(id);
+    return update(id, request, null);
+  }
+
+  /**
+   * Applies a PATCH, optionally only if the device is still at {@code expectedVersion}.
+   * State-only changes carry no rule to evaluate, so they are tried first as a single conditional
+   * UPDATE against the cached snapshot's version; a stale snapshot or a concurrent writer makes it
+   * match no row and the regular read-modify-write path decides instead.
+   */
+  public Device update(Long id, UpdateDeviceRequest request, Long expectedVersion) {
+    if (request.name() == null && request.brand() == null && request.state() != null) {
+      DeviceResponse snapshot = deviceCache.get(id, this::loadResponse);
+      if (expectedVersion == null || expectedVersion.equals(snapshot.version())) {
+        Instant now = Instant.now();
+        int updated = deviceRepository.updateStateIfVersion(id, request.state(), snapshot.version(), now);
+        if (updated == 1) {
+          Device device = detached(snapshot);
+          device.setState(request.state());
+          device.setVersion(snapshot.version() + 1);
+          device.setLastModifiedTime(now);
+          eventPublisher.publishEvent(DeviceChangedEvent.updated(snapshot, DeviceResponse.from(device)));
+          return device;
+        }
+      }
+    }
+
+    Device device = getForWrite(id);
+    if (expectedVersion != null && !expectedVersion.equals(device.getVersion())) {
+      throw new DeviceVersionMismatchException(
+          "Device is at version " + device.getVersion() + ", not " + expectedVersion);
+    }
+    DeviceResponse before = DeviceResponse.from(device);
+
+    applyUpdate(device, request);
+
+    Device saved = deviceRepository.saveAndFlush(device);
+    eventPublisher.publishEvent(DeviceChangedEvent.updated(before, DeviceResponse.from(saved)));
+    return saved;
+  }
 
+  /**
+   * Moves up to {@code count} AVAILABLE devices, of {@code brand} if given, to IN_USE and returns
+   * them. Devices another claimer holds locked are skipped rather than waited for, so concurrent
+   * callers never receive the same device; fewer than {@code count} means no more were free.
+   */
+  public List<DeviceResponse> claim(int count, String brand) {
+    return published(deviceClaimRepository.claim(count, brand, Instant.now()));
+  }
+
+  /** Moves the given devices that are IN_USE back to AVAILABLE and returns them; others are ignored. */
+  public List<DeviceResponse> release(List<Long> ids) {
+    return published(deviceClaimRepository.release(ids, Instant.now()));
+  }
+
+  public void delete(Long id){
+    Device device = getForWrite(id);
+    if (!device.canBeDeleted()) {
+      DELETE_REJECTIONS.increment();
+      throw new IllegalStateException("Cannot delete a device that is in use");
+    }
+    deviceRepository.deleteById(id);
+    eventPublisher.publishEvent(DeviceChangedEvent.deleted(DeviceResponse.from(device)));
+  }
+
+  private List<DeviceResponse> published(List<DeviceStateChange> changes) {
+    changes.forEach(change -> eventPublisher.publishEvent(DeviceChangedEvent.updated(change.before(), change.after())));
+    return changes.stream().map(DeviceStateChange::after).toList();
+  }
+
+  /** The managed device, moved back out of the archive first if that is where it is. */
+  private Device getForWrite(Long id) {
+    return deviceRepository.findById(id)
+        .or(() -> deviceArchiveRepository.restore(List.of(id)) > 0 ? deviceRepository.findById(id) : Optional.empty())
+        .orElseThrow(() -> new RuntimeException("Device not Found"));
+  }
+
+  private DeviceResponse loadResponse(Long id) {
+    return deviceRepository.findResponseById(id)
+        .or(() -> deviceArchiveRepository.findById(id))
+        .orElseThrow(() -> new RuntimeException("Device not Found"));
+  }
+
+  static Device newDevice(CreateDeviceRequest request) {
+    Device device = new Device();
+    device.setName(request.name());
+    device.setBrand(request.brand());
+    device.setState(request.state());
+    device.setCreationTime(Instant.now());
+    device.setLastModifiedTime(device.getCreationTime());
+    return device;
+  }
+
+  private static Device detached(DeviceResponse snapshot) {
+    Device device = new Device();
+    device.setId(snapshot.id());
+    device.setName(snapshot.name());
+    device.setBrand(snapshot.brand());
+    device.setState(snapshot.state());
+    device.setCreationTime(snapshot.creationTime());
+    device.setVersion(snapshot.version());
+    device.setLastModifiedTime(snapshot.lastModifiedTime());
+    return device;
+  }
+
+  static void applyUpdate(Device device, UpdateDeviceRequest request) {
     if (!device.canUpdateNameAndBrand()) {
       boolean nameChanging = request.name() != null && !device.getName().equals(request.name());
       boolean brandChanging = request.brand() != null && !device.getBrand().equals(request.brand());
 
       if (nameChanging || brandChanging) {
+        NAME_AND_BRAND_REJECTIONS.increment();
         throw new IllegalStateException("Cannot update name or brand of a device that is in use");
       }
     }
@@ -69,15 +271,5 @@ public class DeviceService {
     if (request.state() != null){
       device.setState(request.state());
     }
-
-    return deviceRepository.save(device);
-  }
-
-  public void delete(Long id){
-    Device device = getById(id);
-    if (!device.canBeDeleted()) {
-      throw new IllegalStateException("Cannot delete a device that is in use");
-    }
-    deviceRepository.deleteById(id);
   }
 }
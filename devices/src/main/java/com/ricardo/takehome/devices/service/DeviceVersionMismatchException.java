@@ -0,0 +1,11 @@
+package com.ricardo.takehome.devices.service;
+
+/**
+ * The caller's {@code If-Match} precondition does not name the device's current version.
+ */
+public class DeviceVersionMismatchException extends RuntimeException {
+
+  public DeviceVersionMismatchException(String message) {
+    super(message);
+  }
+}
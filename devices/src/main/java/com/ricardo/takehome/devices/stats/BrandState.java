@@ -0,0 +1,16 @@
+package com.ricardo.takehome.devices.stats;
+
+import com.ricardo.takehome.devices.model.DeviceState;
+import java.util.Comparator;
+
+/** One row key of {@code device_counts}. Ordered so every writer locks rows in the same order. */
+public record BrandState(String brand, DeviceState state) implements Comparable<BrandState> {
+
+  private static final Comparator<BrandState> ORDER =
+      Comparator.comparing(BrandState::brand).thenComparing(BrandState::state);
+
+  @Override
+  public int compareTo(BrandState other) {
+    return ORDER.compare(this, other);
+  }
+}
@@ -0,0 +1,68 @@
+package com.ricardo.takehome.devices.stats;
+
+import com.ricardo.takehome.devices.model.DeviceState;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The {@code device_counts} summary table: how many devices exist per brand and state. Writers
+ * add deltas with an atomic upsert; PostgreSQL uses {@code ON CONFLICT}, which cannot fail on a
+ * concurrent insert of the same key, other databases the standard {@code MERGE}.
+ */
+@RequiredArgsConstructor
+public class DeviceCounts {
+
+  private static final String UPSERT_POSTGRESQL =
+      "INSERT INTO device_counts (brand, state, device_count) VALUES (?, ?, ?)"
+          + " ON CONFLICT (brand, state) DO UPDATE SET device_count = device_counts.device_count + EXCLUDED.device_count";
+  private static final String UPSERT_STANDARD =
+      "MERGE INTO device_counts c USING (VALUES (?, ?, CAST(? AS BIGINT))) AS d (brand, state, delta)"
+          + " ON c.brand = d.brand AND c.state = d.state"
+          + " WHEN MATCHED THEN UPDATE SET device_count = c.device_count + d.delta"
+          + " WHEN NOT MATCHED THEN INSERT (brand, state, device_count) VALUES (d.brand, d.state, d.delta)";
+  private static final String SELECT_ALL =
+      "SELECT brand, state, device_count FROM device_counts WHERE device_count <> 0";
+  // archived devices still exist, they are only kept elsewhere
+  private static final String RECOUNT =
+      "INSERT INTO device_counts (brand, state, device_count) SELECT brand, state, COUNT(*)"
+          + " FROM (SELECT brand, state FROM devices UNION ALL SELECT brand, state FROM devices_archive) d"
+          + " GROUP BY brand, state";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final boolean postgresql;
+
+  public void add(Map<BrandState, Long> deltas) {
+    List<Object[]> rows = new TreeMap<>(deltas).entrySet().stream()
+        .filter(delta -> delta.getValue() != 0)
+        .map(delta -> new Object[] {delta.getKey().brand(), delta.getKey().state().name(), delta.getValue()})
+        .toList();
+    if (!rows.isEmpty()) {
+      jdbcTemplate.batchUpdate(postgresql ? UPSERT_POSTGRESQL : UPSERT_STANDARD, rows);
+    }
+  }
+
+  public Map<BrandState, Long> findAll() {
+    Map<BrandState, Long> counts = new TreeMap<>();
+    jdbcTemplate.query(SELECT_ALL, rs -> {
+      counts.put(new BrandState(rs.getString("brand"), DeviceState.valueOf(rs.getString("state"))),
+          rs.getLong("device_count"));
+    });
+    return counts;
+  }
+
+  /**
+   * Recounts from {@code devices} and {@code devices_archive}. Must run in a transaction; on
+   * PostgreSQL the table lock makes concurrent writers apply their deltas after the recount instead
+   * of into the rows it replaces.
+   */
+  public void rebuild() {
+    if (postgresql) {
+      jdbcTemplate.execute("LOCK TABLE device_counts IN SHARE ROW EXCLUSIVE MODE");
+    }
+    jdbcTemplate.update("DELETE FROM device_counts");
+    jdbcTemplate.update(RECOUNT);
+  }
+}
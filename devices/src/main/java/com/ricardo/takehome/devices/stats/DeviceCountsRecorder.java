@@ -0,0 +1,66 @@
+package com.ricardo.takehome.devices.stats;
+
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.service.DeviceChangedEvent;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Turns every {@link DeviceChangedEvent} into count deltas and writes them in the same
+ * transaction. Deltas are summed per transaction and applied just before commit, so a batch of
+ * 1000 devices touches each brand/state row once and its row locks are held only briefly.
+ */
+@RequiredArgsConstructor
+public class DeviceCountsRecorder {
+
+  private final DeviceCounts deviceCounts;
+
+  @EventListener
+  public void onDeviceChanged(DeviceChangedEvent event) {
+    Map<BrandState, Long> deltas = new HashMap<>();
+    count(deltas, event.before(), -1);
+    count(deltas, event.after(), 1);
+    deltas.values().removeIf(delta -> delta == 0);
+    if (deltas.isEmpty()) {
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      deviceCounts.add(deltas);
+      return;
+    }
+    PendingDeltas bound = (PendingDeltas) TransactionSynchronizationManager.getResource(this);
+    PendingDeltas pending = bound != null ? bound : bindNew();
+    deltas.forEach((key, delta) -> pending.deltas.merge(key, delta, Long::sum));
+  }
+
+  private PendingDeltas bindNew() {
+    PendingDeltas pending = new PendingDeltas();
+    TransactionSynchronizationManager.bindResource(this, pending);
+    TransactionSynchronizationManager.registerSynchronization(pending);
+    return pending;
+  }
+
+  private static void count(Map<BrandState, Long> deltas, DeviceResponse device, long delta) {
+    if (device != null) {
+      deltas.merge(new BrandState(device.brand(), device.state()), delta, Long::sum);
+    }
+  }
+
+  private final class PendingDeltas implements TransactionSynchronization {
+    private final Map<BrandState, Long> deltas = new HashMap<>();
+
+    @Override
+    public void beforeCommit(boolean readOnly) {
+      deviceCounts.add(deltas);
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+      TransactionSynchronizationManager.unbindResourceIfPossible(DeviceCountsRecorder.this);
+    }
+  }
+}
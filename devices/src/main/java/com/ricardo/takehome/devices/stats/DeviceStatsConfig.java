@@ -0,0 +1,29 @@
+package com.ricardo.takehome.devices.stats;
+
+import java.sql.DatabaseMetaData;
+import javax.sql.DataSource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+@Configuration
+public class DeviceStatsConfig {
+
+  @Bean
+  public DeviceCounts deviceCounts(JdbcTemplate jdbcTemplate, DataSource dataSource) throws MetaDataAccessException {
+    String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+    return new DeviceCounts(jdbcTemplate, "PostgreSQL".equals(product));
+  }
+
+  @Bean
+  public DeviceCountsRecorder deviceCountsRecorder(DeviceCounts deviceCounts) {
+    return new DeviceCountsRecorder(deviceCounts);
+  }
+
+  @Bean
+  public DeviceStatsService deviceStatsService(DeviceCounts deviceCounts) {
+    return new DeviceStatsService(deviceCounts);
+  }
+}
@@ -0,0 +1,51 @@
+package com.ricardo.takehome.devices.stats;
+
+import com.ricardo.takehome.devices.dto.DeviceStatsResponse;
+import com.ricardo.takehome.devices.model.DeviceState;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@RequiredArgsConstructor
+public class DeviceStatsService {
+
+  private final DeviceCounts deviceCounts;
+
+  /** Reads one summary row per brand and state; the devices table is not touched. */
+  @Transactional(readOnly = true)
+  public DeviceStatsResponse getStats() {
+    long total = 0;
+    Map<DeviceState, Long> byState = new EnumMap<>(DeviceState.class);
+    Map<String, Long> byBrand = new TreeMap<>();
+    Map<String, Map<DeviceState, Long>> byBrandAndState = new TreeMap<>();
+    for (Map.Entry<BrandState, Long> row : deviceCounts.findAll().entrySet()) {
+      BrandState key = row.getKey();
+      long count = row.getValue();
+      total += count;
+      byState.merge(key.state(), count, Long::sum);
+      byBrand.merge(key.brand(), count, Long::sum);
+      byBrandAndState.computeIfAbsent(key.brand(), brand -> new EnumMap<>(DeviceState.class)).put(key.state(), count);
+    }
+    return new DeviceStatsResponse(total, byState, byBrand, byBrandAndState);
+  }
+
+  /**
+   * Recounts the summary from the devices table, correcting drift left by writes that bypass
+   * {@link DeviceCountsRecorder} (manual SQL, the reactive variant).
+   */
+  @Transactional
+  @Scheduled(fixedDelayString = "${devices.stats.reconcile-interval:1h}", initialDelayString = "${devices.stats.reconcile-interval:1h}")
+  public void reconcile() {
+    Map<BrandState, Long> before = deviceCounts.findAll();
+    deviceCounts.rebuild();
+    Map<BrandState, Long> after = deviceCounts.findAll();
+    if (!before.equals(after)) {
+      log.warn("Device counts had drifted; rebuilt {} brand/state rows", after.size());
+    }
+  }
+}
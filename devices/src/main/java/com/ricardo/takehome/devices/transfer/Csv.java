@@ -0,0 +1,108 @@
+package com.ricardo.takehome.devices.transfer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Minimal RFC 4180 support: comma separated, fields quoted with {@code "} when they contain a
+ * separator, quote or line break, quotes inside quoted fields doubled.
+ */
+final class Csv {
+
+  static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+  private Csv() {
+  }
+
+  static String line(Object... values) {
+    StringJoiner line = new StringJoiner(",", "", "\n");
+    for (Object value : values) {
+      line.add(value == null ? "" : quote(value.toString()));
+    }
+    return line.toString();
+  }
+
+  private static String quote(String value) {
+    boolean needsQuotes = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+        || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+    return needsQuotes ? '"' + value.replace("\"", "\"\"") + '"' : value;
+  }
+
+  /**
+   * Reads one record at a time. A record is capped at {@link #MAX_RECORD_LENGTH} characters so an
+   * unterminated quote cannot pull the rest of the input into memory.
+   */
+  static final class Reader {
+    private final BufferedReader in;
+    private long nextLine = 1;
+    private long line;
+
+    Reader(BufferedReader in) {
+      this.in = in;
+    }
+
+    /** Line the last record returned by {@link #next} started on. */
+    long line() {
+      return line;
+    }
+
+    /** Next non-blank record, or null at the end of the input. */
+    List<String> next() throws IOException {
+      List<String> record;
+      do {
+        record = read();
+      } while (record != null && record.size() == 1 && record.getFirst().isBlank());
+      return record;
+    }
+
+    private List<String> read() throws IOException {
+      int c = in.read();
+      if (c == -1) {
+        return null;
+      }
+      line = nextLine;
+      List<String> fields = new ArrayList<>();
+      StringBuilder field = new StringBuilder();
+      int length = 0;
+      boolean quoted = false;
+      for (; ; c = in.read()) {
+        if (++length > MAX_RECORD_LENGTH) {
+          throw new IllegalArgumentException("line " + line + ": record longer than " + MAX_RECORD_LENGTH + " characters");
+        }
+        if (quoted) {
+          if (c == -1) {
+            throw new IllegalArgumentException("line " + line + ": unterminated quoted field");
+          }
+          if (c == '"') {
+            in.mark(1);
+            if (in.read() == '"') {
+              field.append('"');
+            } else {
+              in.reset();
+              quoted = false;
+            }
+            continue;
+          }
+          if (c == '\n') {
+            nextLine++;
+          }
+          field.append((char) c);
+        } else if (c == '"' && field.isEmpty()) {
+          quoted = true;
+        } else if (c == ',') {
+          fields.add(field.toString());
+          field.setLength(0);
+        } else if (c == '\n' || c == -1) {
+          nextLine++;
+          fields.add(field.toString());
+          return fields;
+        } else if (c != '\r') {
+          field.append((char) c);
+        }
+      }
+    }
+  }
+}
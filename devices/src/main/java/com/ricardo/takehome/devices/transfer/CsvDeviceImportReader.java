@@ -0,0 +1,53 @@
+package com.ricardo.takehome.devices.transfer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * CSV with a header row naming at least the {@code name}, {@code brand} and {@code state} columns,
+ * in any order. Other columns, such as those written by the export, are ignored.
+ */
+class CsvDeviceImportReader implements DeviceImportReader {
+
+  private final BufferedReader in;
+  private final Csv.Reader csv;
+  private final int name;
+  private final int brand;
+  private final int state;
+
+  CsvDeviceImportReader(BufferedReader in) throws IOException {
+    this.in = in;
+    this.csv = new Csv.Reader(in);
+    List<String> header = csv.next();
+    if (header == null) {
+      throw new IllegalArgumentException("CSV input is empty");
+    }
+    List<String> columns = header.stream().map(column -> column.trim().toLowerCase(Locale.ROOT)).toList();
+    this.name = columns.indexOf("name");
+    this.brand = columns.indexOf("brand");
+    this.state = columns.indexOf("state");
+    if (name < 0 || brand < 0 || state < 0) {
+      throw new IllegalArgumentException("CSV header must name the name, brand and state columns");
+    }
+  }
+
+  @Override
+  public DeviceImportRow next() throws IOException {
+    List<String> record = csv.next();
+    if (record == null) {
+      return null;
+    }
+    return DeviceImportRow.of(csv.line(), field(record, name), field(record, brand), field(record, state));
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  private static String field(List<String> record, int index) {
+    return index < record.size() ? record.get(index) : null;
+  }
+}
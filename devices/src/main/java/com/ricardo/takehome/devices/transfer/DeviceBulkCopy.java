@@ -0,0 +1,111 @@
+package com.ricardo.takehome.devices.transfer;
+
+import com.ricardo.takehome.devices.dto.CreateDeviceRequest;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.repository.DeviceStreamRepository;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Moves devices in and out of the database in bulk. On PostgreSQL imports are staged with
+ * {@code COPY ... FROM STDIN} and exports written by {@code COPY ... TO STDOUT}, both through
+ * pgjdbc's copy API; other databases (H2 in tests) stage with JDBC batches and export through the
+ * {@link DeviceStreamRepository} cursor.
+ */
+@RequiredArgsConstructor
+public class DeviceBulkCopy {
+
+  static final String CSV_HEADER = "id,name,brand,state,creation_time,version,last_modified_time";
+
+  private static final String COPY_IN =
+      "COPY device_import_rows (line, name, brand, state) FROM STDIN WITH (FORMAT csv)";
+  private static final String INSERT_STAGED =
+      "INSERT INTO device_import_rows (line, name, brand, state) VALUES (?, ?, ?, ?)";
+  // every row takes a whole block of the pooled devices_seq, so it can never collide with ids
+  // Hibernate hands out from blocks it reserved earlier
+  private static final String MERGE_POSTGRESQL =
+      "INSERT INTO devices (" + CSV_HEADER + ")"
+          + " SELECT nextval('devices_seq'), name, brand, state, ?, 0, ? FROM device_import_rows"
+          + " RETURNING " + CSV_HEADER;
+  private static final String MERGE_STANDARD =
+      "SELECT " + CSV_HEADER + " FROM FINAL TABLE (INSERT INTO devices (" + CSV_HEADER + ")"
+          + " SELECT NEXT VALUE FOR devices_seq, name, brand, state, ?, 0, ? FROM device_import_rows)";
+  private static final String CLEAR_STAGED = "DELETE FROM device_import_rows";
+  private static final String COPY_OUT =
+      "COPY (SELECT " + CSV_HEADER + " FROM devices ORDER BY id) TO STDOUT WITH (FORMAT csv, HEADER)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final DeviceStreamRepository deviceStreamRepository;
+  private final boolean postgresql;
+
+  /** Writes validated rows to the staging table; must run in the transaction that merges them. */
+  public void stage(List<DeviceImportRow> rows) {
+    if (postgresql) {
+      jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+        try (Writer writer = new OutputStreamWriter(
+            new PGCopyOutputStream(connection.unwrap(PGConnection.class), COPY_IN), StandardCharsets.UTF_8)) {
+          for (DeviceImportRow row : rows) {
+            CreateDeviceRequest request = row.request();
+            writer.write(Csv.line(row.line(), request.name(), request.brand(), request.state().name()));
+          }
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        return null;
+      });
+      return;
+    }
+    jdbcTemplate.batchUpdate(INSERT_STAGED, rows.stream()
+        .map(row -> new Object[] {row.line(), row.request().name(), row.request().brand(), row.request().state().name()})
+        .toList());
+  }
+
+  /**
+   * Inserts every staged row into {@code devices} as a new device and empties the staging table.
+   * Returns the devices added, read back from the same statement.
+   */
+  public List<DeviceResponse> merge(Instant now) {
+    Timestamp timestamp = Timestamp.from(now);
+    List<DeviceResponse> added = jdbcTemplate.query(postgresql ? MERGE_POSTGRESQL : MERGE_STANDARD,
+        (rs, rowNum) -> DeviceStreamRepository.mapRow(rs), timestamp, timestamp);
+    jdbcTemplate.update(CLEAR_STAGED);
+    return added;
+  }
+
+  /** Writes every device as CSV, ordered by id; must run in a transaction. */
+  public void exportCsv(OutputStream out) throws IOException {
+    if (postgresql) {
+      jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+        try {
+          return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(COPY_OUT, out);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      return;
+    }
+    Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    writer.write(CSV_HEADER + "\n");
+    deviceStreamRepository.streamAll(null, null, device -> {
+      try {
+        writer.write(Csv.line(device.id(), device.name(), device.brand(), device.state(),
+            device.creationTime(), device.version(), device.lastModifiedTime()));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+    writer.flush();
+  }
+}
@@ -0,0 +1,13 @@
+package com.ricardo.takehome.devices.transfer;
+
+import com.ricardo.takehome.devices.dto.DeviceImportError;
+import com.ricardo.takehome.devices.dto.DeviceImportProgress;
+
+/** Receives the outcome of an import while it runs. */
+public interface DeviceImportListener {
+
+  void rejected(DeviceImportError error);
+
+  /** Called after every committed chunk, and once more with {@code done} set at the end. */
+  void progress(DeviceImportProgress progress);
+}
@@ -0,0 +1,11 @@
+package com.ricardo.takehome.devices.transfer;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/** Reads an import body one record at a time, so memory use does not grow with its size. */
+public interface DeviceImportReader extends Closeable {
+
+  /** Next row, or null at the end of the input. */
+  DeviceImportRow next() throws IOException;
+}
@@ -0,0 +1,28 @@
+package com.ricardo.takehome.devices.transfer;
+
+import com.ricardo.takehome.devices.dto.CreateDeviceRequest;
+import com.ricardo.takehome.devices.model.DeviceState;
+import java.util.Arrays;
+
+/** One input record; either a request still to be validated or the reason it could not be read. */
+public record DeviceImportRow(
+    long line,
+    CreateDeviceRequest request,
+    String error
+) {
+
+  static DeviceImportRow of(long line, String name, String brand, String state) {
+    if (state == null || state.isBlank()) {
+      return new DeviceImportRow(line, new CreateDeviceRequest(name, brand, null), null);
+    }
+    try {
+      return new DeviceImportRow(line, new CreateDeviceRequest(name, brand, DeviceState.valueOf(state)), null);
+    } catch (IllegalArgumentException e) {
+      return rejected(line, "state: must be one of " + Arrays.toString(DeviceState.values()));
+    }
+  }
+
+  static DeviceImportRow rejected(long line, String error) {
+    return new DeviceImportRow(line, null, error);
+  }
+}
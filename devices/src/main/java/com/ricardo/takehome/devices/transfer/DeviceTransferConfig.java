@@ -0,0 +1,43 @@
+package com.ricardo.takehome.devices.transfer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ricardo.takehome.devices.dto.DeviceImportError;
+import com.ricardo.takehome.devices.dto.DeviceImportProgress;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.repository.DeviceStreamRepository;
+import jakarta.validation.Validator;
+import java.sql.DatabaseMetaData;
+import javax.sql.DataSource;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// (de)serialized through the ObjectMapper directly, so AOT does not find them in any handler signature
+@Configuration
+@EnableConfigurationProperties(DeviceTransferProperties.class)
+@RegisterReflectionForBinding({NdjsonDeviceImportReader.ImportedDevice.class, DeviceImportError.class,
+    DeviceImportProgress.class, DeviceResponse.class})
+public class DeviceTransferConfig {
+
+  @Bean
+  public DeviceBulkCopy deviceBulkCopy(JdbcTemplate jdbcTemplate, DeviceStreamRepository deviceStreamRepository,
+      DataSource dataSource) throws MetaDataAccessException {
+    String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+    return new DeviceBulkCopy(jdbcTemplate, deviceStreamRepository, "PostgreSQL".equals(product));
+  }
+
+  @Bean
+  public DeviceTransferService deviceTransferService(DeviceBulkCopy deviceBulkCopy,
+      DeviceStreamRepository deviceStreamRepository, ApplicationEventPublisher eventPublisher, Validator validator,
+      ObjectMapper objectMapper, PlatformTransactionManager transactionManager, DeviceTransferProperties properties) {
+    return new DeviceTransferService(deviceBulkCopy, deviceStreamRepository, eventPublisher, validator, objectMapper,
+        new TransactionTemplate(transactionManager), properties.chunkSize());
+  }
+}
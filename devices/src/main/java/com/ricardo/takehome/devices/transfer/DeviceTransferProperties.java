@@ -0,0 +1,13 @@
+package com.ricardo.takehome.devices.transfer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param chunkSize valid rows staged, merged and committed per import transaction
+ */
+@ConfigurationProperties(prefix = "devices.transfer")
+public record DeviceTransferProperties(
+    @DefaultValue("5000") int chunkSize
+) {
+}
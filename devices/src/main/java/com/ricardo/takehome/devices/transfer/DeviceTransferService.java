@@ -0,0 +1,130 @@
+package com.ricardo.takehome.devices.transfer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ricardo.takehome.devices.dto.CreateDeviceRequest;
+import com.ricardo.takehome.devices.dto.DeviceImportError;
+import com.ricardo.takehome.devices.dto.DeviceImportProgress;
+import com.ricardo.takehome.devices.repository.DeviceStreamRepository;
+import com.ricardo.takehome.devices.service.DeviceChangedEvent;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Bulk import and export of the device inventory. Imports are read record by record, validated
+ * against the {@link CreateDeviceRequest} constraints and written in chunks of
+ * {@code devices.transfer.chunk-size} valid rows, each staged, merged into {@code devices} and
+ * committed in its own transaction. Chunks committed before a failure stay imported. Every
+ * imported device is published as a {@link DeviceChangedEvent} from its chunk's transaction, so it
+ * reaches the counts, the event log and the history like one created through the API.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class DeviceTransferService {
+
+  private final DeviceBulkCopy bulkCopy;
+  private final DeviceStreamRepository deviceStreamRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final Validator validator;
+  private final ObjectMapper objectMapper;
+  private final TransactionTemplate transactionTemplate;
+  private final int chunkSize;
+
+  /** Reads the header right away, so a body without the required columns fails before importing. */
+  public DeviceImportReader openCsv(InputStream in) throws IOException {
+    return new CsvDeviceImportReader(reader(in));
+  }
+
+  public DeviceImportReader openNdjson(InputStream in) {
+    return new NdjsonDeviceImportReader(reader(in), objectMapper);
+  }
+
+  public DeviceImportProgress importDevices(DeviceImportReader reader, DeviceImportListener listener) throws IOException {
+    long read = 0;
+    long imported = 0;
+    long rejected = 0;
+    List<DeviceImportRow> chunk = new ArrayList<>(chunkSize);
+    for (DeviceImportRow row = reader.next(); row != null; row = reader.next()) {
+      read++;
+      String error = row.error() != null ? row.error() : validate(row.request());
+      if (error != null) {
+        rejected++;
+        listener.rejected(new DeviceImportError(row.line(), error));
+        continue;
+      }
+      chunk.add(row);
+      if (chunk.size() == chunkSize) {
+        imported += write(chunk);
+        listener.progress(new DeviceImportProgress(read, imported, rejected, false));
+      }
+    }
+    imported += write(chunk);
+
+    DeviceImportProgress result = new DeviceImportProgress(read, imported, rejected, true);
+    listener.progress(result);
+    log.info("Imported {} of {} devices, {} rejected", imported, read, rejected);
+    return result;
+  }
+
+  @Transactional(readOnly = true)
+  public void exportCsv(OutputStream out) throws IOException {
+    bulkCopy.exportCsv(out);
+  }
+
+  @Transactional(readOnly = true)
+  public void exportNdjson(OutputStream out) {
+    deviceStreamRepository.streamAll(null, null, device -> {
+      try {
+        out.write(objectMapper.writeValueAsBytes(device));
+        out.write('\n');
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  private int write(List<DeviceImportRow> chunk) {
+    if (chunk.isEmpty()) {
+      return 0;
+    }
+    Instant now = Instant.now();
+    transactionTemplate.executeWithoutResult(status -> {
+      bulkCopy.stage(chunk);
+      bulkCopy.merge(now).forEach(device -> eventPublisher.publishEvent(DeviceChangedEvent.created(device)));
+    });
+    int written = chunk.size();
+    chunk.clear();
+    return written;
+  }
+
+  private String validate(CreateDeviceRequest request) {
+    Set<ConstraintViolation<CreateDeviceRequest>> violations = validator.validate(request);
+    if (violations.isEmpty()) {
+      return null;
+    }
+    return violations.stream()
+        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+        .sorted()
+        .collect(Collectors.joining(", "));
+  }
+
+  private static BufferedReader reader(InputStream in) {
+    return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+  }
+}
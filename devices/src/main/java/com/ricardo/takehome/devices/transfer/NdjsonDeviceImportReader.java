@@ -0,0 +1,55 @@
+package com.ricardo.takehome.devices.transfer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * One JSON object per line. Fields other than {@code name}, {@code brand} and {@code state} are
+ * ignored, so the output of the export reads back unchanged; a malformed line only rejects itself.
+ */
+class NdjsonDeviceImportReader implements DeviceImportReader {
+
+  private final BufferedReader in;
+  private final ObjectReader reader;
+  private long line;
+
+  NdjsonDeviceImportReader(BufferedReader in, ObjectMapper objectMapper) {
+    this.in = in;
+    this.reader = objectMapper.readerFor(ImportedDevice.class)
+        .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+  }
+
+  @Override
+  public DeviceImportRow next() throws IOException {
+    String json;
+    do {
+      json = in.readLine();
+      line++;
+    } while (json != null && json.isBlank());
+    if (json == null) {
+      return null;
+    }
+    try {
+      ImportedDevice device = reader.readValue(json);
+      if (device == null) {
+        return DeviceImportRow.rejected(line, "expected a JSON object");
+      }
+      return DeviceImportRow.of(line, device.name(), device.brand(), device.state());
+    } catch (JsonProcessingException e) {
+      return DeviceImportRow.rejected(line, "malformed JSON: " + e.getOriginalMessage());
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  // state stays a string so an unknown value is reported like any other invalid field
+  record ImportedDevice(String name, String brand, String state) {
+  }
+}
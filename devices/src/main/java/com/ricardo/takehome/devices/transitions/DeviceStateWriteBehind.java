@@ -0,0 +1,243 @@
+package com.ricardo.takehome.devices.transitions;
+
+import com.ricardo.takehome.devices.config.AdmissionRejectedException;
+import com.ricardo.takehome.devices.dto.BatchItemResult;
+import com.ricardo.takehome.devices.dto.BatchUpdateDeviceRequest;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.model.DeviceState;
+import com.ricardo.takehome.devices.service.DeviceBatchService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Accepts device state transitions without a transaction and writes them behind. Pending
+ * transitions are kept per device, so a device flipped many times within one flush interval is
+ * written once, with its latest state. Each flush goes through
+ * {@link DeviceBatchService#updateAll}: the same rules, versioning, change events and JDBC-batched
+ * {@code UPDATE}s as {@code PATCH /api/devices:batch}. A transition is only applied if its device
+ * has not been modified since the transition was received, so one that waited in the queue never
+ * overwrites a later {@code PATCH}, and one for a device deleted meanwhile is dropped.
+ *
+ * <p>Pending transitions live only in memory. A graceful shutdown writes them after the web server
+ * has stopped accepting requests ({@code devices.write-behind.flush-on-shutdown}); a crash loses
+ * up to one flush interval of them.
+ */
+@Slf4j
+public class DeviceStateWriteBehind implements SmartLifecycle {
+
+  private static final Duration FULL_RETRY_AFTER = Duration.ofSeconds(1);
+
+  private final DeviceBatchService deviceBatchService;
+  private final DeviceWriteBehindProperties properties;
+  private final Map<Long, Transition> pending = new ConcurrentHashMap<>();
+  private final AtomicInteger pendingCount = new AtomicInteger();
+  private final Object flushLock = new Object();
+  private final Counter applied;
+  private final Counter coalesced;
+  private final Counter rejected;
+  private final Counter stale;
+  private final Counter failed;
+  private final Timer flushTimer;
+  private ScheduledExecutorService scheduler;
+  private volatile boolean running;
+
+  public DeviceStateWriteBehind(DeviceBatchService deviceBatchService, DeviceWriteBehindProperties properties,
+      MeterRegistry meterRegistry) {
+    this.deviceBatchService = deviceBatchService;
+    this.properties = properties;
+    this.applied = meterRegistry.counter("devices.write-behind.transitions", "outcome", "applied");
+    this.coalesced = meterRegistry.counter("devices.write-behind.transitions", "outcome", "coalesced");
+    this.rejected = meterRegistry.counter("devices.write-behind.transitions", "outcome", "rejected");
+    this.stale = meterRegistry.counter("devices.write-behind.transitions", "outcome", "stale");
+    this.failed = meterRegistry.counter("devices.write-behind.transitions", "outcome", "failed");
+    this.flushTimer = Timer.builder("devices.write-behind.flush")
+        .description("Time to write one batch of pending state transitions")
+        .register(meterRegistry);
+    Gauge.builder("devices.write-behind.pending", pendingCount, AtomicInteger::get)
+        .description("Devices with a state transition waiting to be written")
+        .register(meterRegistry);
+  }
+
+  /** Queues a transition, replacing one still pending for the same device. */
+  public void submit(Long id, DeviceState state) {
+    if (!running) {
+      throw new AdmissionRejectedException("State transitions are not being accepted, retry later", FULL_RETRY_AFTER);
+    }
+    Instant receivedAt = Instant.now();
+    pending.compute(id, (key, previous) -> {
+      if (previous != null) {
+        coalesced.increment();
+      } else if (pendingCount.incrementAndGet() > properties.capacity()) {
+        pendingCount.decrementAndGet();
+        rejected.increment();
+        throw new AdmissionRejectedException("State transition queue is full, retry later", FULL_RETRY_AFTER);
+      }
+      return new Transition(id, state, receivedAt);
+    });
+  }
+
+  public int pendingCount() {
+    return pendingCount.get();
+  }
+
+  /**
+   * Writes what is pending when called, one transaction per {@code max-batch-size} transitions.
+   * Transitions submitted meanwhile wait for the next flush. A batch that loses an optimistic lock
+   * on one of its devices is split and the halves written separately, so only that device's
+   * transition is put back, to be checked against the concurrent update on the next flush. A batch
+   * that fails otherwise is put back whole; either way, unless a newer transition for the same
+   * device has arrived.
+   */
+  public void flush() {
+    synchronized (flushLock) {
+      int remaining = pendingCount.get();
+      while (remaining > 0) {
+        List<Transition> batch = drain(Math.min(remaining, properties.maxBatchSize()));
+        if (batch.isEmpty() || !write(batch)) {
+          return;
+        }
+        remaining -= batch.size();
+      }
+    }
+  }
+
+  @Override
+  public void start() {
+    long interval = properties.flushInterval().toMillis();
+    scheduler = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("device-write-behind").daemon().factory());
+    scheduler.scheduleWithFixedDelay(this::scheduledFlush, interval, interval, TimeUnit.MILLISECONDS);
+    running = true;
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    scheduler.shutdown();
+    try {
+      scheduler.awaitTermination(properties.shutdownTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (properties.flushOnShutdown()) {
+      flush();
+    }
+    if (pendingCount.get() > 0) {
+      log.warn("Discarding {} state transitions that were not written", pendingCount.get());
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /** Stops after the web server, so nothing is accepted once the final flush has run. */
+  @Override
+  public int getPhase() {
+    return SmartLifecycle.DEFAULT_PHASE - 4096;
+  }
+
+  private void scheduledFlush() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      // an exception would cancel the schedule
+      log.error("Flushing state transitions failed", e);
+    }
+  }
+
+  private List<Transition> drain(int max) {
+    List<Transition> batch = new ArrayList<>(max);
+    Iterator<Long> ids = pending.keySet().iterator();
+    while (batch.size() < max && ids.hasNext()) {
+      Transition transition = pending.remove(ids.next());
+      if (transition != null) {
+        pendingCount.decrementAndGet();
+        batch.add(transition);
+      }
+    }
+    return batch;
+  }
+
+  private boolean write(List<Transition> batch) {
+    long start = System.nanoTime();
+    try {
+      List<BatchItemResult> results = deviceBatchService.updateAll(
+          batch.stream().map(Transition::request).toList(),
+          batch.stream().map(Transition::receivedAt).toList());
+      for (BatchItemResult result : results) {
+        Transition transition = batch.get(result.index());
+        if (result.succeeded()) {
+          applied.increment();
+          written(transition.id(), result.device());
+        } else if (result.status() == HttpStatus.PRECONDITION_FAILED.value()) {
+          stale.increment();
+          log.debug("Dropped state transition of device {}: modified since it was received", transition.id());
+        } else {
+          failed.increment();
+          log.warn("Dropped state transition of device {}: {}", transition.id(), result.error().message());
+        }
+      }
+      return true;
+    } catch (OptimisticLockingFailureException e) {
+      if (batch.size() == 1) {
+        putBack(batch);
+        return true;
+      }
+      int half = batch.size() / 2;
+      // both halves are written, or put back, whatever happens to the first
+      return write(batch.subList(0, half)) & write(batch.subList(half, batch.size()));
+    } catch (RuntimeException e) {
+      log.warn("Writing {} state transitions failed, retrying on the next flush: {}", batch.size(), e.getMessage());
+      putBack(batch);
+      return false;
+    } finally {
+      flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * A transition still pending for a device just written was received after this write was drained,
+   * so the write must not make it look stale.
+   */
+  private void written(Long id, DeviceResponse device) {
+    if (device != null && device.lastModifiedTime() != null) {
+      pending.computeIfPresent(id, (key, newer) -> newer.receivedAt().isBefore(device.lastModifiedTime())
+          ? new Transition(id, newer.state(), device.lastModifiedTime())
+          : newer);
+    }
+  }
+
+  private void putBack(List<Transition> batch) {
+    for (Transition transition : batch) {
+      if (pending.putIfAbsent(transition.id(), transition) == null) {
+        pendingCount.incrementAndGet();
+      }
+    }
+  }
+
+  private record Transition(Long id, DeviceState state, Instant receivedAt) {
+
+    BatchUpdateDeviceRequest request() {
+      return new BatchUpdateDeviceRequest(id, null, null, state);
+    }
+  }
+}
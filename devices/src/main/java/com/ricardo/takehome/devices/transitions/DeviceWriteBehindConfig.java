@@ -0,0 +1,18 @@
+package com.ricardo.takehome.devices.transitions;
+
+import com.ricardo.takehome.devices.service.DeviceBatchService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(DeviceWriteBehindProperties.class)
+public class DeviceWriteBehindConfig {
+
+  @Bean
+  public DeviceStateWriteBehind deviceStateWriteBehind(DeviceBatchService deviceBatchService,
+      DeviceWriteBehindProperties properties, MeterRegistry meterRegistry) {
+    return new DeviceStateWriteBehind(deviceBatchService, properties, meterRegistry);
+  }
+}
@@ -0,0 +1,24 @@
+package com.ricardo.takehome.devices.transitions;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param flushInterval how long transitions are collected, and coalesced per device, before they
+ *     are written
+ * @param capacity devices with a pending transition; submissions beyond it are refused with 429
+ * @param maxBatchSize transitions written per transaction
+ * @param flushOnShutdown write what is pending when the application stops; otherwise it is
+ *     discarded with a warning
+ * @param shutdownTimeout how long shutdown waits for a flush already in progress
+ */
+@ConfigurationProperties(prefix = "devices.write-behind")
+public record DeviceWriteBehindProperties(
+    @DefaultValue("200ms") Duration flushInterval,
+    @DefaultValue("10000") int capacity,
+    @DefaultValue("1000") int maxBatchSize,
+    @DefaultValue("true") boolean flushOnShutdown,
+    @DefaultValue("10s") Duration shutdownTimeout
+) {
+}
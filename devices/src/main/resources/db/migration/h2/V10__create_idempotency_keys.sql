@@ -0,0 +1,13 @@
+-- Shared store for Idempotency-Key replays (devices.idempotency.store=jdbc). H2 in PostgreSQL mode
+-- rejects BLOB, so the body is VARBINARY.
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    key_hash     CHAR(64)                    PRIMARY KEY,
+    request_hash CHAR(64)                    NOT NULL,
+    status       INTEGER,
+    content_type VARCHAR(255),
+    headers      CHARACTER LARGE OBJECT,
+    body         VARBINARY,
+    expires_at   TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
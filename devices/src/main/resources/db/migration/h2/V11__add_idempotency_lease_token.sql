@@ -0,0 +1,3 @@
+-- Identifies the instance holding a reservation, so a lease that expired and was taken over is not
+-- renewed or completed by its former holder.
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS lease_token CHAR(36);
@@ -0,0 +1,15 @@
+-- Commit-ordered positions for device_events, the SSE ids clients resume from. A transaction
+-- takes its positions from the single device_event_positions row just before committing and keeps
+-- the row locked until it has, so positions become visible in order, without gaps behind them.
+-- Identity ids are assigned at insert and can commit out of order, so readers must not page by id.
+ALTER TABLE device_events ADD COLUMN IF NOT EXISTS log_position BIGINT;
+UPDATE device_events SET log_position = id WHERE log_position IS NULL;
+ALTER TABLE device_events ALTER COLUMN log_position SET NOT NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS idx_device_events_log_position ON device_events (log_position);
+
+CREATE TABLE IF NOT EXISTS device_event_positions (
+    id            INTEGER PRIMARY KEY,
+    last_position BIGINT  NOT NULL
+);
+INSERT INTO device_event_positions (id, last_position)
+SELECT 1, COALESCE(MAX(log_position), 0) FROM device_events;
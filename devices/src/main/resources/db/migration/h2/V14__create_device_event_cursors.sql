@@ -0,0 +1,10 @@
+-- Durable positions of the readers of device_events that must not miss an event. Each advances
+-- its row in the transaction that stores what it read, so after a crash it reads on from there;
+-- the log is only purged up to the slowest of them.
+CREATE TABLE IF NOT EXISTS device_event_cursors (
+    consumer      VARCHAR(64) PRIMARY KEY,
+    last_position BIGINT      NOT NULL
+);
+-- device_history was fed from memory until now and already holds what the log holds
+INSERT INTO device_event_cursors (consumer, last_position)
+SELECT 'history', COALESCE(MAX(id), 0) FROM device_events;
@@ -0,0 +1,14 @@
+CREATE SEQUENCE IF NOT EXISTS devices_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS devices (
+    id            BIGINT                   PRIMARY KEY,
+    name          VARCHAR(255)             NOT NULL,
+    brand         VARCHAR(255)             NOT NULL,
+    state         VARCHAR(255)             NOT NULL,
+    creation_time TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_devices_brand_id ON devices (brand, id);
+CREATE INDEX IF NOT EXISTS idx_devices_state_id ON devices (state, id);
+CREATE INDEX IF NOT EXISTS idx_devices_brand_state_id ON devices (brand, state, id);
+CREATE INDEX IF NOT EXISTS idx_devices_creation_time_id ON devices (creation_time, id);
@@ -0,0 +1,2 @@
+-- Optimistic-locking counter; existing rows start at version 0.
+ALTER TABLE devices ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
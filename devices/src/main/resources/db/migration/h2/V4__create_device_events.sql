@@ -0,0 +1,7 @@
+CREATE TABLE IF NOT EXISTS device_events (
+    id         BIGINT                      GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    device_id  BIGINT                      NOT NULL,
+    type       VARCHAR(16)                 NOT NULL,
+    payload    TEXT                        NOT NULL,
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,10 @@
+-- Per brand and state device counts behind GET /api/devices/stats, kept current by every write.
+CREATE TABLE IF NOT EXISTS device_counts (
+    brand        VARCHAR(255) NOT NULL,
+    state        VARCHAR(255) NOT NULL,
+    device_count BIGINT       NOT NULL,
+    PRIMARY KEY (brand, state)
+);
+
+INSERT INTO device_counts (brand, state, device_count)
+SELECT brand, state, COUNT(*) FROM devices GROUP BY brand, state;
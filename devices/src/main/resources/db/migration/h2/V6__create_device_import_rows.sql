@@ -0,0 +1,7 @@
+-- Staging area for POST /api/devices/import; rows only live inside the transaction that merges them.
+CREATE TABLE IF NOT EXISTS device_import_rows (
+    line  BIGINT       NOT NULL,
+    name  VARCHAR(255) NOT NULL,
+    brand VARCHAR(255) NOT NULL,
+    state VARCHAR(255) NOT NULL
+);
@@ -0,0 +1,14 @@
+-- History behind GET /api/devices/{id}/history. H2 has no partitioning; retention deletes rows.
+CREATE TABLE IF NOT EXISTS device_history (
+    device_id  BIGINT                      NOT NULL,
+    version    BIGINT                      NOT NULL,
+    type       VARCHAR(16)                 NOT NULL,
+    from_state VARCHAR(255),
+    to_state   VARCHAR(255),
+    name       VARCHAR(255)                NOT NULL,
+    brand      VARCHAR(255)                NOT NULL,
+    changed_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_device_history_changed_at ON device_history (changed_at);
+CREATE INDEX IF NOT EXISTS idx_device_history_device_version ON device_history (device_id, version);
@@ -0,0 +1,14 @@
+-- INACTIVE devices moved out of devices by DeviceArchiver; they move back when written to.
+CREATE TABLE IF NOT EXISTS devices_archive (
+    id                 BIGINT                      PRIMARY KEY,
+    name               VARCHAR(255)                NOT NULL,
+    brand              VARCHAR(255)                NOT NULL,
+    state              VARCHAR(255)                NOT NULL,
+    creation_time      TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    version            BIGINT                      NOT NULL,
+    last_modified_time TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    archived_at        TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_devices_archive_brand_id ON devices_archive (brand, id);
+CREATE INDEX IF NOT EXISTS idx_devices_archive_creation_time_id ON devices_archive (creation_time, id);
@@ -0,0 +1,7 @@
+-- Log positions are the identity ids again, taken at insert without the lock V12 serialized every
+-- write on; readers only read events older than devices.events.settle-delay instead. Ids and V12
+-- positions only disagree among transactions that were committing at the same time, so a client
+-- resuming from a V12 position may be replayed a few events twice.
+DROP TABLE IF EXISTS device_event_positions;
+DROP INDEX IF EXISTS idx_device_events_log_position;
+ALTER TABLE device_events DROP COLUMN IF EXISTS log_position;
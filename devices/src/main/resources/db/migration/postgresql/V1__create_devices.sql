@@ -0,0 +1,20 @@
+-- Databases created by hibernate.ddl-auto already have the devices table; CREATE ... IF NOT EXISTS
+-- lets this migration adopt them (see spring.flyway.baseline-on-migrate).
+CREATE SEQUENCE IF NOT EXISTS devices_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS devices (
+    id            BIGINT                   PRIMARY KEY,
+    name          VARCHAR(255)             NOT NULL,
+    brand         VARCHAR(255)             NOT NULL,
+    state         VARCHAR(255)             NOT NULL,
+    creation_time TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+-- Ids used to come from an IDENTITY column; move the pooled sequence past anything already issued.
+SELECT setval('devices_seq', (SELECT COALESCE(MAX(id), 0) FROM devices) + 50);
+
+-- Each filter index ends in id so keyset pages (WHERE ... AND id > ? ORDER BY id) are index range scans.
+CREATE INDEX IF NOT EXISTS idx_devices_brand_id ON devices (brand, id);
+CREATE INDEX IF NOT EXISTS idx_devices_state_id ON devices (state, id);
+CREATE INDEX IF NOT EXISTS idx_devices_brand_state_id ON devices (brand, state, id);
+CREATE INDEX IF NOT EXISTS idx_devices_creation_time_id ON devices (creation_time, id);
@@ -0,0 +1,4 @@
+-- Drives Last-Modified and the list ETags; rows that predate it were last touched when created.
+ALTER TABLE devices ADD COLUMN IF NOT EXISTS last_modified_time TIMESTAMP(6) WITH TIME ZONE;
+UPDATE devices SET last_modified_time = creation_time WHERE last_modified_time IS NULL;
+ALTER TABLE devices ALTER COLUMN last_modified_time SET NOT NULL;
@@ -0,0 +1,8 @@
+-- Append-only log behind GET /api/devices/events; ids are the SSE event ids clients resume from.
+CREATE TABLE IF NOT EXISTS device_events (
+    id         BIGINT                      GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    device_id  BIGINT                      NOT NULL,
+    type       VARCHAR(16)                 NOT NULL,
+    payload    TEXT                        NOT NULL,
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
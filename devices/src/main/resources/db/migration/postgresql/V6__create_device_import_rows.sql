@@ -0,0 +1,8 @@
+-- Staging area for POST /api/devices/import. Rows only live inside the transaction that copies
+-- them in and merges them into devices, so the table is never worth writing to the WAL.
+CREATE UNLOGGED TABLE IF NOT EXISTS device_import_rows (
+    line  BIGINT       NOT NULL,
+    name  VARCHAR(255) NOT NULL,
+    brand VARCHAR(255) NOT NULL,
+    state VARCHAR(255) NOT NULL
+);
@@ -0,0 +1,9 @@
+-- GET /api/devices/search. Every ranking tier is a top-N read straight off an index:
+-- prefixes walk a C-collated btree (which LIKE 'abc%' can use) in order, fuzzy matches are
+-- nearest-neighbour scans of a trigram GiST index ordered by word-similarity distance.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_devices_name_prefix ON devices ((lower(name) COLLATE "C"), id);
+CREATE INDEX IF NOT EXISTS idx_devices_brand_prefix ON devices ((lower(brand) COLLATE "C"), id);
+CREATE INDEX IF NOT EXISTS idx_devices_name_trgm ON devices USING gist (lower(name) gist_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_devices_brand_trgm ON devices USING gist (lower(brand) gist_trgm_ops);
@@ -0,0 +1,35 @@
+-- History behind GET /api/devices/{id}/history, appended in batches after each commit.
+-- Range-partitioned by month (UTC) so retention drops whole partitions instead of deleting rows.
+-- DeviceHistoryPartitions creates months ahead of time; the default partition only receives rows
+-- if that job has not run for a while.
+CREATE TABLE IF NOT EXISTS device_history (
+    device_id  BIGINT                      NOT NULL,
+    version    BIGINT                      NOT NULL,
+    type       VARCHAR(16)                 NOT NULL,
+    from_state VARCHAR(255),
+    to_state   VARCHAR(255),
+    name       VARCHAR(255)                NOT NULL,
+    brand      VARCHAR(255)                NOT NULL,
+    changed_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+) PARTITION BY RANGE (changed_at);
+
+CREATE TABLE IF NOT EXISTS device_history_default PARTITION OF device_history DEFAULT;
+
+-- Rows arrive in roughly changed_at order, so a BRIN index keeps a few bytes per block range and
+-- time-range scans skip the rest.
+CREATE INDEX IF NOT EXISTS idx_device_history_changed_at ON device_history USING BRIN (changed_at);
+-- One device's history, paged newest first by version.
+CREATE INDEX IF NOT EXISTS idx_device_history_device_version ON device_history (device_id, version);
+
+DO $$
+DECLARE
+    month_start TIMESTAMP := date_trunc('month', now() AT TIME ZONE 'UTC');
+BEGIN
+    FOR i IN 0..1 LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF device_history FOR VALUES FROM (%L) TO (%L)',
+            'device_history_' || to_char(month_start, 'YYYY_MM'),
+            month_start AT TIME ZONE 'UTC',
+            (month_start + INTERVAL '1 month') AT TIME ZONE 'UTC');
+        month_start := month_start + INTERVAL '1 month';
+    END LOOP;
+END $$;
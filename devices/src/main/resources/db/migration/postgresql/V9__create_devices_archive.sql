@@ -0,0 +1,16 @@
+-- INACTIVE devices moved out of devices by DeviceArchiver, so the hot table, its indexes and
+-- autovacuum only deal with devices still in circulation. Rows keep their id and version and move
+-- back to devices when written to. Only pages by brand and the two sort orders are served from here.
+CREATE TABLE IF NOT EXISTS devices_archive (
+    id                 BIGINT                      PRIMARY KEY,
+    name               VARCHAR(255)                NOT NULL,
+    brand              VARCHAR(255)                NOT NULL,
+    state              VARCHAR(255)                NOT NULL,
+    creation_time      TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    version            BIGINT                      NOT NULL,
+    last_modified_time TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    archived_at        TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_devices_archive_brand_id ON devices_archive (brand, id);
+CREATE INDEX IF NOT EXISTS idx_devices_archive_creation_time_id ON devices_archive (creation_time, id);
@@ -0,0 +1,336 @@
+package com.ricardo.takehome.devices;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ricardo.takehome.devices.dto.CreateDeviceRequest;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.events.DeviceEventLog;
+import com.ricardo.takehome.devices.events.LoggedDeviceEvent;
+import com.ricardo.takehome.devices.history.DeviceHistoryPartitions;
+import com.ricardo.takehome.devices.model.DeviceState;
+import com.ricardo.takehome.devices.repository.DeviceArchiveRepository;
+import com.ricardo.takehome.devices.repository.DeviceClaimRepository;
+import com.ricardo.takehome.devices.repository.DeviceSearchRepository;
+import com.ricardo.takehome.devices.repository.DeviceStateChange;
+import com.ricardo.takehome.devices.service.DeviceChangedEvent;
+import com.ricardo.takehome.devices.stats.BrandState;
+import com.ricardo.takehome.devices.stats.DeviceCounts;
+import com.ricardo.takehome.devices.transfer.DeviceBulkCopy;
+import com.ricardo.takehome.devices.transfer.DeviceImportRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the PostgreSQL-only SQL (SKIP LOCKED claims and archiving, ON CONFLICT counts, COPY,
+ * partition maintenance, pg_trgm search, clock_timestamp() event positions) against a real
+ * PostgreSQL; the H2 tests only cover the standard paths. Needs an empty database that Flyway may
+ * migrate and the pg_trgm extension may be created in, e.g.
+ * {@code docker run -d -p 5432:5432 -e POSTGRES_PASSWORD=postgres postgres:16} and
+ * {@code DEVICES_TEST_POSTGRES_URL=jdbc:postgresql://localhost:5432/postgres}. Skipped when the URL
+ * is not set.
+ */
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "DEVICES_TEST_POSTGRES_URL", matches = ".+")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PostgresIntegrationTest {
+
+    private static final Instant CREATED = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.MICROS);
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("DEVICES_TEST_POSTGRES_URL"));
+        registry.add("spring.datasource.username",
+                () -> Objects.requireNonNullElse(System.getenv("DEVICES_TEST_POSTGRES_USERNAME"), "postgres"));
+        registry.add("spring.datasource.password",
+                () -> Objects.requireNonNullElse(System.getenv("DEVICES_TEST_POSTGRES_PASSWORD"), "postgres"));
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        jdbcTemplate.execute("TRUNCATE devices, devices_archive, device_counts, device_events, device_history,"
+                + " device_import_rows");
+        jdbcTemplate.update("UPDATE device_event_cursors SET last_position = 0");
+    }
+
+    @Test
+    void shouldSkipDevicesClaimedByAnOpenTransaction() throws Exception {
+        DeviceClaimRepository claims = new DeviceClaimRepository(namedParameterJdbcTemplate, dataSource);
+        insertDevices(10, DeviceState.AVAILABLE, CREATED);
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<Long>> first = executor.submit(() -> transactionTemplate.execute(status -> {
+                List<Long> ids = ids(claims.claim(4, null, NOW));
+                claimed.countDown();
+                await(release);
+                return ids;
+            }));
+            assertThat(claimed.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // the first claimer still holds its rows: this one neither waits for them nor takes them
+            List<Long> second = transactionTemplate.execute(status -> ids(claims.claim(4, null, NOW)));
+            release.countDown();
+
+            assertThat(second).hasSize(4).doesNotContainAnyElementsOf(first.get(5, TimeUnit.SECONDS));
+            assertThat(first.get()).hasSize(4);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldClaimEachDeviceOnceUnderConcurrentClaimers() throws Exception {
+        DeviceClaimRepository claims = new DeviceClaimRepository(namedParameterJdbcTemplate, dataSource);
+        Set<Long> devices = new HashSet<>(insertDevices(200, DeviceState.AVAILABLE, CREATED));
+        int claimers = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(claimers);
+        try {
+            List<Future<List<Long>>> results = new ArrayList<>();
+            for (int i = 0; i < claimers; i++) {
+                results.add(executor.submit(() -> {
+                    await(start);
+                    List<Long> ids = new ArrayList<>();
+                    List<Long> batch;
+                    do {
+                        batch = transactionTemplate.execute(status -> ids(claims.claim(3, null, NOW)));
+                        ids.addAll(batch);
+                    } while (!batch.isEmpty());
+                    return ids;
+                }));
+            }
+            start.countDown();
+
+            List<Long> claimed = new ArrayList<>();
+            for (Future<List<Long>> result : results) {
+                claimed.addAll(result.get(30, TimeUnit.SECONDS));
+            }
+            assertThat(claimed).doesNotHaveDuplicates();
+            assertThat(new HashSet<>(claimed)).isEqualTo(devices);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldArchiveAndRestoreDevices() throws Exception {
+        DeviceArchiveRepository archive = new DeviceArchiveRepository(namedParameterJdbcTemplate, dataSource);
+        List<Long> inactive = insertDevices(3, DeviceState.INACTIVE, CREATED);
+        insertDevices(2, DeviceState.AVAILABLE, CREATED);
+
+        Integer archived = transactionTemplate.execute(status -> archive.archive(NOW, 10, NOW));
+
+        assertThat(archived).isEqualTo(3);
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM devices_archive ORDER BY id", Long.class))
+                .isEqualTo(inactive);
+        assertThat(count("devices")).isEqualTo(2);
+
+        Integer restored = transactionTemplate.execute(status -> archive.restore(inactive.subList(0, 2)));
+
+        assertThat(restored).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM devices_archive", Long.class))
+                .containsExactly(inactive.get(2));
+        assertThat(count("devices")).isEqualTo(4);
+    }
+
+    @Test
+    void shouldUpsertCountsFromConcurrentWriters() throws Exception {
+        DeviceCounts counts = new DeviceCounts(jdbcTemplate, true);
+        BrandState samsung = new BrandState("Samsung", DeviceState.AVAILABLE);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                writers.add(executor.submit(() -> {
+                    for (int j = 0; j < 25; j++) {
+                        counts.add(Map.of(samsung, 1L));
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        counts.add(Map.of(samsung, -10L, new BrandState("Google", DeviceState.IN_USE), 1L));
+
+        assertThat(counts.findAll()).containsOnly(
+                Map.entry(new BrandState("Google", DeviceState.IN_USE), 1L), Map.entry(samsung, 90L));
+
+        insertDevices(2, DeviceState.AVAILABLE, CREATED);
+        transactionTemplate.executeWithoutResult(status -> counts.rebuild());
+
+        assertThat(counts.findAll()).containsOnly(Map.entry(new BrandState("Test Brand", DeviceState.AVAILABLE), 2L));
+    }
+
+    @Test
+    void shouldCopyImportedRowsInAndDevicesOut() {
+        DeviceBulkCopy bulkCopy = new DeviceBulkCopy(jdbcTemplate, null, true);
+        List<DeviceImportRow> rows = List.of(
+                new DeviceImportRow(1, new CreateDeviceRequest("Galaxy, \"S24\"", "Samsung", DeviceState.AVAILABLE), null),
+                new DeviceImportRow(2, new CreateDeviceRequest("Pixel 9", "Google", DeviceState.IN_USE), null));
+
+        List<DeviceResponse> added = transactionTemplate.execute(status -> {
+            bulkCopy.stage(rows);
+            return bulkCopy.merge(NOW);
+        });
+
+        assertThat(added).extracting(DeviceResponse::name).containsExactlyInAnyOrder("Galaxy, \"S24\"", "Pixel 9");
+        assertThat(added).extracting(DeviceResponse::id).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(added).extracting(DeviceResponse::lastModifiedTime).containsOnly(NOW);
+        assertThat(count("device_import_rows")).isZero();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                bulkCopy.exportCsv(out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(0)).isEqualTo("id,name,brand,state,creation_time,version,last_modified_time");
+        assertThat(lines).anyMatch(line -> line.contains("\"Galaxy, \"\"S24\"\"\",Samsung,AVAILABLE"));
+    }
+
+    @Test
+    void shouldCreateAndDropHistoryPartitions() {
+        Clock past = Clock.fixed(Instant.parse("2020-01-15T00:00:00Z"), ZoneOffset.UTC);
+        new DeviceHistoryPartitions(jdbcTemplate, true, 2, Duration.ofDays(3650), past).maintain();
+
+        assertThat(partitions()).contains("device_history_2020_01", "device_history_2020_02", "device_history_2020_03");
+
+        new DeviceHistoryPartitions(jdbcTemplate, true, 2, Duration.ofDays(365), Clock.systemUTC()).maintain();
+
+        assertThat(partitions()).contains("device_history_default")
+                .noneMatch(partition -> partition.startsWith("device_history_2020_"));
+    }
+
+    @Test
+    void shouldFindDevicesByPrefixAndBySimilarity() throws Exception {
+        DeviceSearchRepository search = new DeviceSearchRepository(namedParameterJdbcTemplate, dataSource);
+        insertDevice("Galaxy S24", "Samsung", DeviceState.AVAILABLE, CREATED);
+        insertDevice("Pixel 9", "Google", DeviceState.AVAILABLE, CREATED);
+
+        assertThat(search.search("pix", 0, 10)).extracting(DeviceResponse::name).containsExactly("Pixel 9");
+        assertThat(search.search("galxy", 0, 10)).extracting(DeviceResponse::name).containsExactly("Galaxy S24");
+    }
+
+    @Test
+    void shouldReadEventsOnlyOnceSettledByTheDatabaseClock() throws Exception {
+        DeviceEventLog eventLog = new DeviceEventLog(jdbcTemplate, new ObjectMapper().findAndRegisterModules(), true,
+                Duration.ofMillis(200), Duration.ofDays(7));
+        DeviceResponse device = new DeviceResponse(1L, "Pixel 9", "Google", DeviceState.AVAILABLE, CREATED, 0L, CREATED);
+
+        transactionTemplate.executeWithoutResult(status -> eventLog.append(List.of(DeviceChangedEvent.created(device))));
+
+        assertThat(eventLog.readAfter(0, 10)).isEmpty();
+        Thread.sleep(300);
+        List<LoggedDeviceEvent> events = eventLog.readAfter(0, 10);
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).event().after()).isEqualTo(device);
+        assertThat(eventLog.lastPosition()).isEqualTo(events.get(0).position());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertThat(eventLog.lockCursor("history")).isZero();
+            eventLog.advanceCursor("history", events.get(0).position());
+        });
+        Long cursor = transactionTemplate.execute(status -> eventLog.lockCursor("history"));
+        assertThat(cursor).isEqualTo(events.get(0).position());
+    }
+
+    private List<Long> insertDevices(int count, DeviceState state, Instant lastModified) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(insertDevice("Device " + i, "Test Brand", state, lastModified));
+        }
+        return ids;
+    }
+
+    private Long insertDevice(String name, String brand, DeviceState state, Instant lastModified) {
+        return jdbcTemplate.queryForObject("INSERT INTO devices (id, name, brand, state, creation_time, version,"
+                + " last_modified_time) VALUES (nextval('devices_seq'), ?, ?, ?, ?, 0, ?) RETURNING id", Long.class,
+                name, brand, state.name(), Timestamp.from(CREATED), Timestamp.from(lastModified));
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid"
+                + " JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = 'device_history'", String.class);
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private static List<Long> ids(List<DeviceStateChange> changes) {
+        return changes.stream().map(change -> change.after().id()).toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.ricardo.takehome.devices.cache;
+
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.events.DeviceEventLog;
+import com.ricardo.takehome.devices.events.LoggedDeviceEvent;
+import com.ricardo.takehome.devices.model.DeviceState;
+import com.ricardo.takehome.devices.service.DeviceChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DeviceCacheLogInvalidatorTest {
+
+    private final DeviceEventLog eventLog = mock(DeviceEventLog.class);
+    private final DeviceCache cache = new DeviceCache(
+            new DeviceCacheProperties(true, 100, Duration.ofMinutes(5), DeviceCacheProperties.SecondLevel.NONE, 100,
+                    Duration.ofMinutes(5)), Optional.empty());
+
+    @Test
+    void shouldEvictDevicesChangedElsewhereFromWhereTheLogStoodAtStartup() {
+        when(eventLog.lastPosition()).thenReturn(10L);
+        DeviceCacheLogInvalidator invalidator = new DeviceCacheLogInvalidator(eventLog, cache);
+        cache.get(1L, DeviceCacheLogInvalidatorTest::device);
+        cache.get(2L, DeviceCacheLogInvalidatorTest::device);
+        when(eventLog.readAfter(10L, DeviceCacheLogInvalidator.PAGE_SIZE)).thenReturn(List.of(updated(11, 1L)));
+
+        invalidator.poll();
+
+        assertThat(cache.local().asMap()).containsOnlyKeys(2L);
+    }
+
+    @Test
+    void shouldResumeAfterTheLastEventRead() {
+        when(eventLog.lastPosition()).thenReturn(0L);
+        DeviceCacheLogInvalidator invalidator = new DeviceCacheLogInvalidator(eventLog, cache);
+        when(eventLog.readAfter(0L, DeviceCacheLogInvalidator.PAGE_SIZE)).thenReturn(List.of(updated(5, 1L)));
+        invalidator.poll();
+        cache.get(2L, DeviceCacheLogInvalidatorTest::device);
+        when(eventLog.readAfter(5L, DeviceCacheLogInvalidator.PAGE_SIZE)).thenReturn(List.of(updated(6, 2L)));
+
+        invalidator.poll();
+
+        assertThat(cache.local().asMap()).isEmpty();
+    }
+
+    @Test
+    void shouldRetryFromTheSamePositionWhenReadingFails() {
+        when(eventLog.lastPosition()).thenReturn(3L);
+        DeviceCacheLogInvalidator invalidator = new DeviceCacheLogInvalidator(eventLog, cache);
+        cache.get(1L, DeviceCacheLogInvalidatorTest::device);
+        when(eventLog.readAfter(3L, DeviceCacheLogInvalidator.PAGE_SIZE))
+                .thenThrow(new IllegalStateException("connection refused"))
+                .thenReturn(List.of(updated(4, 1L)));
+
+        invalidator.poll();
+        invalidator.poll();
+
+        assertThat(cache.local().asMap()).isEmpty();
+    }
+
+    private static LoggedDeviceEvent updated(long position, long id) {
+        DeviceChangedEvent event = DeviceChangedEvent.updated(device(id), device(id));
+        return new LoggedDeviceEvent(position, event, "{}", Instant.now());
+    }
+
+    private static DeviceResponse device(Long id) {
+        return new DeviceResponse(id, "Test Device", "Test Brand", DeviceState.AVAILABLE, null, 0L, null);
+    }
+}
@@ -0,0 +1,145 @@
+package com.ricardo.takehome.devices.cache;
+
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.model.DeviceState;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeviceCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Function<Long, DeviceResponse> loader = id -> {
+        loads.incrementAndGet();
+        return new DeviceResponse(id, "Test Device", "Test Brand", DeviceState.AVAILABLE, null, 0L, null);
+    };
+
+    @Test
+    void shouldServeRepeatedReadsFromCache() {
+        DeviceCache cache = new DeviceCache(properties(true, DeviceCacheProperties.SecondLevel.NONE), Optional.empty());
+
+        cache.get(1L, loader);
+        cache.get(1L, loader);
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.local().stats().hitCount()).isEqualTo(1);
+        assertThat(cache.local().stats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReloadAfterEviction() {
+        DeviceCache cache = new DeviceCache(properties(true, DeviceCacheProperties.SecondLevel.NONE), Optional.empty());
+
+        cache.get(1L, loader);
+        cache.evict(1L);
+        cache.get(1L, loader);
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldAlwaysLoadWhenDisabled() {
+        DeviceCache cache = new DeviceCache(properties(false, DeviceCacheProperties.SecondLevel.NONE), Optional.empty());
+
+        cache.get(1L, loader);
+        cache.get(1L, loader);
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldFillLocalCacheFromSecondLevel() {
+        InMemoryDeviceCacheTier tier = tier();
+        tier.put(new DeviceResponse(1L, "Shared Device", "Test Brand", DeviceState.IN_USE, null, 0L, null));
+        DeviceCache cache = new DeviceCache(properties(true, DeviceCacheProperties.SecondLevel.IN_MEMORY), Optional.of(tier));
+
+        DeviceResponse result = cache.get(1L, loader);
+
+        assertThat(result.name()).isEqualTo("Shared Device");
+        assertThat(loads.get()).isZero();
+    }
+
+    @Test
+    void shouldEvictFromBothTiers() {
+        InMemoryDeviceCacheTier tier = tier();
+        DeviceCache cache = new DeviceCache(properties(true, DeviceCacheProperties.SecondLevel.IN_MEMORY), Optional.of(tier));
+
+        cache.get(1L, loader);
+        cache.evict(1L);
+
+        assertThat(tier.get(1L)).isEmpty();
+        assertThat(cache.local().getIfPresent(1L)).isNull();
+    }
+
+    @Test
+    void shouldNotKeepValueLoadedBeforeEvictionInSecondLevel() throws Exception {
+        InMemoryDeviceCacheTier tier = tier();
+        DeviceCache cache = new DeviceCache(properties(true, DeviceCacheProperties.SecondLevel.IN_MEMORY), Optional.of(tier));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> evicting = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // read the row before the write committed, fills the tiers after its eviction started
+            Future<?> staleLoad = executor.submit(() -> cache.get(1L, id -> {
+                loading.countDown();
+                await(release);
+                return loader.apply(id);
+            }));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<?> eviction = executor.submit(() -> {
+                evicting.set(Thread.currentThread());
+                cache.evict(1L);
+            });
+            // let the eviction reach the in-flight load before that load completes
+            while (!eviction.isDone()
+                    && (evicting.get() == null || evicting.get().getState() == Thread.State.RUNNABLE)) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+            staleLoad.get(5, TimeUnit.SECONDS);
+            eviction.get(5, TimeUnit.SECONDS);
+
+            assertThat(tier.get(1L)).isEmpty();
+            assertThat(cache.local().getIfPresent(1L)).isNull();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldBoundSecondLevel() {
+        InMemoryDeviceCacheTier tier = new InMemoryDeviceCacheTier(100, Duration.ofNanos(1));
+        tier.put(new DeviceResponse(1L, "Shared Device", "Test Brand", DeviceState.IN_USE, null, 0L, null));
+
+        assertThat(tier.get(1L)).isEmpty();
+    }
+
+    private static InMemoryDeviceCacheTier tier() {
+        return new InMemoryDeviceCacheTier(100, Duration.ofMinutes(5));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static DeviceCacheProperties properties(boolean enabled, DeviceCacheProperties.SecondLevel secondLevel) {
+        return new DeviceCacheProperties(enabled, 100, Duration.ofMinutes(5), secondLevel, 100, Duration.ofMinutes(5));
+    }
+}
@@ -0,0 +1,72 @@
+package com.ricardo.takehome.devices.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+
+    @Test
+    void shouldRejectOnceLimitIsInFlight() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 2.0);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        limiter.release();
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void shouldGrowWhileLatencyHoldsUnderLoad() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 5, 50, 2.0);
+
+        for (int i = 0; i < 200; i++) {
+            complete(limiter, FAST);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(50);
+    }
+
+    @Test
+    void shouldShrinkWhenLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(40, 5, 50, 2.0);
+        for (int i = 0; i < 50; i++) {
+            complete(limiter, FAST);
+        }
+        int before = limiter.getLimit();
+
+        for (int i = 0; i < 20; i++) {
+            complete(limiter, FAST * 10);
+        }
+
+        assertThat(limiter.getLimit()).isLessThan(before);
+    }
+
+    @Test
+    void shouldNotLearnFromLightLoad() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 5, 50, 2.0);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.release(FAST);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(20);
+    }
+
+    /** Completes one request while the limiter is saturated. */
+    private static void complete(AdaptiveConcurrencyLimiter limiter, long latencyNanos) {
+        while (limiter.tryAcquire()) {
+            // fill every permit
+        }
+        limiter.release(latencyNanos);
+        while (limiter.getInFlight() > 0) {
+            limiter.release();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.ricardo.takehome.devices.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdmissionControlInterceptorTest {
+    private final AdmissionControlInterceptor interceptor = new AdmissionControlInterceptor("X-API-Key",
+            Set.of("issued"), new ClientRateLimiter(1, 1, 100), new ClientRateLimiter(1, 1, 100),
+            new AdaptiveConcurrencyLimiter(100, 10, 1000, 2.0), new SimpleMeterRegistry());
+
+    @Test
+    void shouldKeyIssuedApiKeysByKey() {
+        assertThat(interceptor.clientId(request("issued"))).isEqualTo("key:issued");
+    }
+
+    @Test
+    void shouldKeyUnknownApiKeysByRemoteAddress() {
+        assertThat(interceptor.clientId(request("made-up"))).isEqualTo("ip:10.0.0.1");
+        assertThat(interceptor.clientId(request(null))).isEqualTo("ip:10.0.0.1");
+    }
+
+    @Test
+    void shouldKeyAuthenticatedRequestsByPrincipal() {
+        MockHttpServletRequest request = request("issued");
+        request.setUserPrincipal(() -> "alice");
+
+        assertThat(interceptor.clientId(request)).isEqualTo("user:alice");
+    }
+
+    @Test
+    void shouldNotGiveInventedKeysTheirOwnBudget() {
+        assertThat(interceptor.preHandle(request("first"), new MockHttpServletResponse(), null)).isTrue();
+
+        assertThatThrownBy(() -> interceptor.preHandle(request("second"), new MockHttpServletResponse(), null))
+                .isInstanceOf(AdmissionRejectedException.class);
+    }
+
+    private static MockHttpServletRequest request(String apiKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/devices");
+        request.setRemoteAddr("10.0.0.1");
+        if (apiKey != null) {
+            request.addHeader("X-API-Key", apiKey);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,58 @@
+package com.ricardo.takehome.devices.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class ConcurrencyLimitingDataSourceTest {
+
+    @Test
+    void shouldRejectWhenAllPermitsAreInUse() throws SQLException {
+        ConcurrencyLimitingDataSource dataSource = limited(pooled(), 1);
+
+        Connection first = dataSource.getConnection();
+
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        first.close();
+        assertThat(dataSource.getConnection()).isNotNull();
+    }
+
+    @Test
+    void shouldReleasePermitOnlyOnceWhenClosedTwice() throws SQLException {
+        ConcurrencyLimitingDataSource dataSource = limited(pooled(), 2);
+
+        Connection connection = dataSource.getConnection();
+        connection.close();
+        connection.close();
+
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldReleasePermitWhenPoolFails() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenThrow(new SQLException("pool exhausted"));
+        ConcurrencyLimitingDataSource dataSource = limited(target, 1);
+
+        assertThatThrownBy(dataSource::getConnection).hasMessage("pool exhausted");
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+    }
+
+    private static ConcurrencyLimitingDataSource limited(DataSource target, int permits) {
+        return new ConcurrencyLimitingDataSource(target, permits, Duration.ofMillis(50));
+    }
+
+    private static DataSource pooled() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        return target;
+    }
+}
@@ -0,0 +1,49 @@
+package com.ricardo.takehome.devices.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DataSourceNestingTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withPropertyValues(
+                    "spring.threads.virtual.enabled=true",
+                    "devices.read-replicas.enabled=true",
+                    "devices.read-replicas.urls=jdbc:h2:mem:nesting-replica",
+                    "devices.read-replicas.maximum-pool-size=3")
+            .withBean(DataSource.class, DataSourceNestingTest::primary);
+
+    @Test
+    void shouldWrapRoutingProxyInConcurrencyLimiter() {
+        contextRunner.withUserConfiguration(ReadReplicaConfig.class, VirtualThreadConfig.class)
+                .run(context -> assertNesting(context.getBean(DataSource.class)));
+    }
+
+    @Test
+    void shouldNestTheSameWayWhateverTheConfigurationOrder() {
+        contextRunner.withUserConfiguration(VirtualThreadConfig.class, ReadReplicaConfig.class)
+                .run(context -> assertNesting(context.getBean(DataSource.class)));
+    }
+
+    private static void assertNesting(DataSource dataSource) {
+        assertThat(dataSource).isInstanceOf(ConcurrencyLimitingDataSource.class);
+        ConcurrencyLimitingDataSource limiter = (ConcurrencyLimitingDataSource) dataSource;
+        assertThat(limiter.getTargetDataSource()).isInstanceOf(LazyConnectionDataSourceProxy.class);
+        assertThat(((LazyConnectionDataSourceProxy) limiter.getTargetDataSource()).getTargetDataSource())
+                .isInstanceOf(HikariDataSource.class);
+        assertThat(limiter.getMaxConcurrency()).isEqualTo(4 + 3);
+    }
+
+    private static DataSource primary() {
+        HikariDataSource primary = new HikariDataSource();
+        primary.setJdbcUrl("jdbc:h2:mem:nesting-primary");
+        primary.setMaximumPoolSize(4);
+        return primary;
+    }
+}
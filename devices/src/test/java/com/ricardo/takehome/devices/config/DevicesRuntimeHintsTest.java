@@ -0,0 +1,31 @@
+package com.ricardo.takehome.devices.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.sql.Connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DevicesRuntimeHintsTest {
+
+    @Test
+    void shouldIncludeMigrationsOfEveryVendor() {
+        RuntimeHints hints = new RuntimeHints();
+        new DevicesRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertThat(RuntimeHintsPredicates.resource().forResource("db/migration/postgresql/V1__create_devices.sql"))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("db/migration/h2/V1__create_devices.sql"))
+                .accepts(hints);
+    }
+
+    @Test
+    void shouldAllowConnectionProxiesOfConcurrencyLimiter() {
+        RuntimeHints hints = new RuntimeHints();
+        new VirtualThreadConfig.ConnectionProxyHints().registerHints(hints, getClass().getClassLoader());
+
+        assertThat(RuntimeHintsPredicates.proxies().forInterfaces(Connection.class)).accepts(hints);
+    }
+}
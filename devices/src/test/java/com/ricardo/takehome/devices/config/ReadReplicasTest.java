@@ -0,0 +1,157 @@
+package com.ricardo.takehome.devices.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadReplicasTest {
+
+    private final String run = UUID.randomUUID().toString();
+    private ReadReplicas replicas;
+
+    @AfterEach
+    void tearDown() {
+        ReadReplicas.clear();
+        replicas.close();
+    }
+
+    @Test
+    void shouldSendReadOnlyTransactionsToReplicasInTurn() {
+        DataSource routing = routing(ReadReplicaProperties.Balancing.ROUND_ROBIN);
+
+        assertThat(List.of(readOnly(routing), readOnly(routing), readOnly(routing)))
+                .containsExactly("replica-a", "replica-b", "replica-a");
+    }
+
+    @Test
+    void shouldKeepWritesAndNonTransactionalReadsOnPrimary() {
+        DataSource routing = routing(ReadReplicaProperties.Balancing.ROUND_ROBIN);
+
+        assertThat(readWrite(routing)).isEqualTo("primary");
+        assertThat(new JdbcTemplate(routing).queryForObject("SELECT name FROM marker", String.class))
+                .isEqualTo("primary");
+    }
+
+    @Test
+    void shouldReadFromPrimaryWhileRequired() {
+        DataSource routing = routing(ReadReplicaProperties.Balancing.ROUND_ROBIN);
+
+        ReadReplicas.requirePrimary();
+        assertThat(readOnly(routing)).isEqualTo("primary");
+
+        ReadReplicas.clear();
+        assertThat(readOnly(routing)).isEqualTo("replica-a");
+    }
+
+    @Test
+    void shouldCarryPrimaryRequirementToPropagatedTasks() throws Exception {
+        DataSource routing = routing(ReadReplicaProperties.Balancing.ROUND_ROBIN);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            String[] read = new String[1];
+            ReadReplicas.requirePrimary();
+            Future<?> pinned = executor.submit(ReadReplicas.propagating(() -> read[0] = readOnly(routing)));
+            ReadReplicas.clear();
+            pinned.get(5, TimeUnit.SECONDS);
+
+            assertThat(read[0]).isEqualTo("primary");
+            // the worker goes back to how it was
+            assertThat(executor.submit(() -> readOnly(routing)).get(5, TimeUnit.SECONDS)).isEqualTo("replica-a");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldPickReplicaWithFewestConnectionsInUse() throws SQLException {
+        DataSource routing = routing(ReadReplicaProperties.Balancing.LEAST_CONNECTIONS);
+
+        try (Connection ignored = replicas.getPools().get(0).getConnection()) {
+            assertThat(List.of(readOnly(routing), readOnly(routing))).containsExactly("replica-b", "replica-b");
+        }
+    }
+
+    @Test
+    void shouldPinReadsCarryingRecentSessionTokenToPrimary() throws Exception {
+        DataSource routing = routing(ReadReplicaProperties.Balancing.ROUND_ROBIN);
+        Clock clock = Clock.fixed(Instant.parse("2025-01-01T00:00:00Z"), ZoneOffset.UTC);
+        ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor("X-Session-Token", Duration.ofSeconds(5), clock);
+
+        MockHttpServletResponse written = new MockHttpServletResponse();
+        interceptor.preHandle(new MockHttpServletRequest("PATCH", "/api/devices/1"), written, null);
+        interceptor.afterCompletion(null, null, null, null);
+        String token = written.getHeader("X-Session-Token");
+
+        MockHttpServletRequest fresh = new MockHttpServletRequest("GET", "/api/devices/1");
+        fresh.addHeader("X-Session-Token", token);
+        interceptor.preHandle(fresh, new MockHttpServletResponse(), null);
+        assertThat(readOnly(routing)).isEqualTo("primary");
+        interceptor.afterCompletion(fresh, null, null, null);
+
+        MockHttpServletRequest stale = new MockHttpServletRequest("GET", "/api/devices/1");
+        stale.addHeader("X-Session-Token", Long.toString(clock.millis() - 5000));
+        interceptor.preHandle(stale, new MockHttpServletResponse(), null);
+        assertThat(readOnly(routing)).isEqualTo("replica-a");
+    }
+
+    private DataSource routing(ReadReplicaProperties.Balancing balancing) {
+        DataSource primary = new DriverManagerDataSource(url("primary"));
+        mark(primary, "primary");
+        replicas = new ReadReplicas(List.of(pool("replica-a"), pool("replica-b")), balancing);
+        return replicas.routing(primary);
+    }
+
+    private HikariDataSource pool(String name) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url(name));
+        config.setMaximumPoolSize(2);
+        HikariDataSource pool = new HikariDataSource(config);
+        mark(pool, name);
+        return pool;
+    }
+
+    private String url(String name) {
+        return "jdbc:h2:mem:" + name + "-" + run + ";DB_CLOSE_DELAY=-1";
+    }
+
+    private static void mark(DataSource dataSource, String name) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE marker (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO marker VALUES (?)", name);
+    }
+
+    private static String readOnly(DataSource routing) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(routing));
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate.execute(status ->
+                new JdbcTemplate(routing).queryForObject("SELECT name FROM marker", String.class));
+    }
+
+    private static String readWrite(DataSource routing) {
+        return new TransactionTemplate(new DataSourceTransactionManager(routing)).execute(status ->
+                new JdbcTemplate(routing).queryForObject("SELECT name FROM marker", String.class));
+    }
+}
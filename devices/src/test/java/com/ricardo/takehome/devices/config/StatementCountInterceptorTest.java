@@ -0,0 +1,50 @@
+package com.ricardo.takehome.devices.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatementCountInterceptorTest {
+
+    private final HibernateStatementCounter counter = new HibernateStatementCounter();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StatementCountInterceptor interceptor = new StatementCountInterceptor(counter, meterRegistry);
+
+    @Test
+    void shouldRecordStatementsIssuedDuringRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/devices/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/devices/{id}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        counter.inspect("select 1");
+        interceptor.preHandle(request, response, new Object());
+        counter.inspect("select d from devices d where id = ?");
+        counter.inspect("select d from devices d where id = ?");
+        interceptor.afterCompletion(request, response, new Object(), null);
+        counter.inspect("select 2");
+
+        DistributionSummary summary = meterRegistry.get(StatementCountInterceptor.METRIC)
+                .tag("uri", "/api/devices/{id}")
+                .tag("method", "GET")
+                .summary();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotRecordWhenHandlingContinuesAsynchronously() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/devices/events");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.preHandle(request, response, new Object());
+        interceptor.afterConcurrentHandlingStarted(request, response, new Object());
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        assertThat(meterRegistry.find(StatementCountInterceptor.METRIC).summary()).isNull();
+    }
+}
@@ -0,0 +1,118 @@
+package com.ricardo.takehome.devices.contract;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.request;
+
+/**
+ * Runs the implementation-neutral scenarios in {@code contract/device-api.json} against the
+ * servlet stack. The reactive module runs the same file against its WebFlux stack.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:contract;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"})
+@AutoConfigureMockMvc
+class DeviceApiContractTest {
+    private static final Path CONTRACT = Path.of("..", "contract", "device-api.json");
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{(\\w+)}");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @TestFactory
+    Stream<DynamicTest> deviceApiContract() throws IOException {
+        JsonNode contract = objectMapper.readTree(CONTRACT.toFile());
+        return StreamSupport.stream(contract.get("scenarios").spliterator(), false)
+                .map(scenario -> DynamicTest.dynamicTest(scenario.get("name").asText(), () -> run(scenario)));
+    }
+
+    private void run(JsonNode scenario) throws Exception {
+        Map<String, String> captured = new HashMap<>();
+        for (JsonNode step : scenario.get("steps")) {
+            JsonNode request = step.get("request");
+            MockHttpServletRequestBuilder builder = request(
+                    HttpMethod.valueOf(request.get("method").asText()),
+                    substitute(request.get("path").asText(), captured));
+            if (request.has("body")) {
+                builder.contentType(MediaType.APPLICATION_JSON)
+                        .content(substitute(request.get("body").toString(), captured));
+            }
+            if (request.has("accept")) {
+                builder.accept(request.get("accept").asText());
+            }
+
+            MvcResult result = mockMvc.perform(builder).andReturn();
+            if (result.getRequest().isAsyncStarted()) {
+                result = mockMvc.perform(asyncDispatch(result)).andReturn();
+            }
+            MockHttpServletResponse response = result.getResponse();
+            String body = response.getContentAsString();
+            String description = scenario.get("name").asText() + ": " + request;
+
+            JsonNode expect = step.get("expect");
+            assertThat(response.getStatus()).as(description).isEqualTo(expect.get("status").asInt());
+            expect.path("headers").properties().forEach(header -> {
+                boolean present = header.getValue().asText().equals("present");
+                assertThat(response.getHeader(header.getKey()) != null).as(description + " header " + header.getKey())
+                        .isEqualTo(present);
+            });
+            expect.path("json").properties().forEach(path -> {
+                Object actual = JsonPath.read(body, path.getKey());
+                assertThat(String.valueOf(actual)).as(description + " " + path.getKey())
+                        .isEqualTo(substitute(path.getValue().asText(), captured));
+            });
+            if (expect.has("lines")) {
+                assertThat(body.lines().filter(line -> !line.isBlank()).count()).as(description)
+                        .isEqualTo(expect.get("lines").asLong());
+            }
+
+            step.path("capture").properties().forEach(capture -> {
+                String source = capture.getValue().asText();
+                String value = source.startsWith("header:")
+                        ? response.getHeader(source.substring("header:".length()))
+                        : String.valueOf((Object) JsonPath.read(body, source));
+                captured.put(capture.getKey(), value);
+            });
+        }
+    }
+
+    private static String substitute(String text, Map<String, String> captured) {
+        Matcher matcher = PLACEHOLDER.matcher(text);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            String value = captured.getOrDefault(matcher.group(1), matcher.group());
+            matcher.appendReplacement(result, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package com.ricardo.takehome.devices.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ricardo.takehome.devices.dto.BatchItemResult;
+import com.ricardo.takehome.devices.dto.CreateDeviceRequest;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.model.DeviceState;
+import com.ricardo.takehome.devices.service.DeviceBatchService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(DeviceBatchController.class)
+class DeviceBatchControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private DeviceBatchService deviceBatchService;
+
+    @Test
+    void shouldReportPerItemResultsForBatchCreate() throws Exception {
+        List<CreateDeviceRequest> requests = List.of(
+                new CreateDeviceRequest("Device A", "Brand", DeviceState.AVAILABLE),
+                new CreateDeviceRequest("", "Brand", DeviceState.AVAILABLE));
+        when(deviceBatchService.createAll(anyList())).thenReturn(List.of(
+                BatchItemResult.success(0, 201, new DeviceResponse(1L, "Device A", "Brand", DeviceState.AVAILABLE, null, 0L, null)),
+                BatchItemResult.failure(1, 400, "BAD_REQUEST", "name: must not be blank")));
+
+        mockMvc.perform(post("/api/devices:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[0].device.id").value(1))
+                .andExpect(jsonPath("$.results[1].status").value(400))
+                .andExpect(jsonPath("$.results[1].error.code").value("BAD_REQUEST"));
+    }
+
+    @Test
+    void shouldReportConflictsForBatchDelete() throws Exception {
+        when(deviceBatchService.deleteAll(List.of(1L, 2L))).thenReturn(List.of(
+                BatchItemResult.success(0, 204, null),
+                BatchItemResult.failure(1, 409, "CONFLICT", "Cannot delete a device that is in use")));
+
+        mockMvc.perform(delete("/api/devices:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 2]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[1].status").value(409));
+    }
+
+    @Test
+    void shouldRejectEmptyBatch() throws Exception {
+        mockMvc.perform(patch("/api/devices:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -1,33 +1,58 @@
 package com.ricardo.takehome.devices.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
 import com.ricardo.takehome.devices.dto.CreateDeviceRequest;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
 import com.ricardo.takehome.devices.dto.UpdateDeviceRequest;
 import com.ricardo.takehome.devices.model.Device;
 import com.ricardo.takehome.devices.model.DeviceState;
+import com.ricardo.takehome.devices.protobuf.DeviceProtobuf;
+import com.ricardo.takehome.devices.protobuf.ProtobufConfig;
+import com.ricardo.takehome.devices.repository.DeviceCursor;
+import com.ricardo.takehome.devices.repository.DeviceListVersion;
+import com.ricardo.takehome.devices.repository.DeviceSortOrder;
 import com.ricardo.takehome.devices.service.DeviceService;
+import com.ricardo.takehome.devices.service.DeviceVersionMismatchException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayOutputStream;
 import java.time.Instant;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
 @WebMvcTest(DeviceController.class)
+@Import(ProtobufConfig.class)
 class DeviceControllerTest {
     @Autowired
     private MockMvc mockMvc;
@@ -48,6 +73,14 @@ class DeviceControllerTest {
         sampleDevice.setBrand("Test Brand");
         sampleDevice.setState(DeviceState.AVAILABLE);
         sampleDevice.setCreationTime(Instant.now());
+        sampleDevice.setVersion(3L);
+        sampleDevice.setLastModifiedTime(Instant.parse("2025-01-01T10:00:00Z"));
+
+        when(deviceService.getListVersion(any(), any()))
+                .thenReturn(new DeviceListVersion(1, Instant.parse("2025-01-01T10:00:00.000123Z"), 42));
+        // reads the version and the page through the stubs below
+        when(deviceService.getPageIfModified(any(), any(), any(), any(), anyInt(), anyBoolean(), any()))
+                .thenCallRealMethod();
     }
 
     @Test
@@ -78,17 +111,29 @@ class DeviceControllerTest {
     @Test
     @DisplayName("GET /api/devices/{id} - Should return device")
     void shouldReturnDevice() throws Exception {
-        when(deviceService.getById(1L)).thenReturn(sampleDevice);
+        when(deviceService.getResponseById(1L)).thenReturn(DeviceResponse.from(sampleDevice));
 
         mockMvc.perform(get("/api/devices/1"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
                 .andExpect(jsonPath("$.id").value(1))
                 .andExpect(jsonPath("$.name").value("Test Device"));
     }
 
+    @Test
+    void shouldReturn304WhenDeviceIsUnchanged() throws Exception {
+        when(deviceService.getResponseById(1L)).thenReturn(DeviceResponse.from(sampleDevice));
+
+        mockMvc.perform(get("/api/devices/1").header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/devices/1").header("If-Modified-Since", "Wed, 01 Jan 2025 10:00:00 GMT"))
+                .andExpect(status().isNotModified());
+    }
+
     @Test
     void shouldReturn404WhenNotFound() throws Exception {
-        when(deviceService.getById(99L)).thenThrow(new RuntimeException("Device not found"));
+        when(deviceService.getResponseById(99L)).thenThrow(new RuntimeException("Device not found"));
 
         mockMvc.perform(get("/api/devices/99"))
                 .andExpect(status().isNotFound());
@@ -96,17 +141,247 @@ class DeviceControllerTest {
 
     @Test
     void shouldReturnAllDevices() throws Exception {
-        when(deviceService.getAll()).thenReturn(List.of(sampleDevice));
+        when(deviceService.getPage(null, null, DeviceSortOrder.ID_ASC, null, DeviceController.DEFAULT_PAGE_SIZE + 1))
+                .thenReturn(List.of(DeviceResponse.from(sampleDevice)));
 
         mockMvc.perform(get("/api/devices"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isArray())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(header().string("ETag", "\"1-1735725600.123000-42\""))
+                .andExpect(header().doesNotExist(DeviceController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void shouldReturn304ForUnchangedListWithoutReadingDevices() throws Exception {
+        mockMvc.perform(get("/api/devices")
+                        .param("state", "AVAILABLE")
+                        .header("If-None-Match", "\"1-1735725600.123000-42\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(deviceService).getListVersion(null, DeviceState.AVAILABLE);
+        verify(deviceService, never()).getPage(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void shouldChangeListTagWhenLogMovesEvenIfCountAndTimeDoNot() throws Exception {
+        // an update stamped by an instance whose clock is behind leaves count and newest time as they were
+        when(deviceService.getListVersion(any(), any()))
+                .thenReturn(new DeviceListVersion(1, Instant.parse("2025-01-01T10:00:00.000123Z"), 43));
+        when(deviceService.getPage(null, null, DeviceSortOrder.ID_ASC, null, DeviceController.DEFAULT_PAGE_SIZE + 1))
+                .thenReturn(List.of(DeviceResponse.from(sampleDevice)));
+
+        mockMvc.perform(get("/api/devices").header("If-None-Match", "\"1-1735725600.123000-42\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-1735725600.123000-43\""));
+    }
+
+    @Test
+    void shouldReturnNextCursorWhenMoreDevicesRemain() throws Exception {
+        Device second = new Device();
+        second.setId(2L);
+        second.setName("Second Device");
+        second.setBrand("Test Brand");
+        second.setState(DeviceState.AVAILABLE);
+        when(deviceService.getPage(null, null, DeviceSortOrder.ID_ASC, new DeviceCursor(0, null), 2)).thenReturn(List.of(DeviceResponse.from(sampleDevice), DeviceResponse.from(second)));
+
+        mockMvc.perform(get("/api/devices").param("after", "0").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(header().string(DeviceController.NEXT_CURSOR_HEADER, "1"));
+    }
+
+    @Test
+    void shouldCarryCreationTimeInCursorWhenSortedByCreationTime() throws Exception {
+        Device second = new Device();
+        second.setId(2L);
+        second.setName("Second Device");
+        second.setBrand("Test Brand");
+        second.setState(DeviceState.AVAILABLE);
+        DeviceCursor cursor = new DeviceCursor(7L, Instant.parse("2025-01-01T10:00:00.000123Z"));
+        when(deviceService.getPage(null, null, DeviceSortOrder.CREATION_TIME_ASC, cursor, 2))
+                .thenReturn(List.of(DeviceResponse.from(sampleDevice), DeviceResponse.from(second)));
+
+        MvcResult result = mockMvc.perform(get("/api/devices")
+                        .param("sort", "creationTime")
+                        .param("after", cursor.format())
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andReturn();
+
+        String next = result.getResponse().getHeader(DeviceController.NEXT_CURSOR_HEADER);
+        assertThat(DeviceCursor.parse(next, DeviceSortOrder.CREATION_TIME_ASC))
+                .isEqualTo(new DeviceCursor(1L, sampleDevice.getCreationTime()));
+    }
+
+    @Test
+    void shouldReturn400ForMalformedCursor() throws Exception {
+        mockMvc.perform(get("/api/devices").param("sort", "creationTime").param("after", "42"))
+                .andExpect(status().isBadRequest());
+        verify(deviceService, never()).getPage(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void shouldCombineBrandAndStateFiltersWithSortOrder() throws Exception {
+        when(deviceService.getPage("Test Brand", DeviceState.AVAILABLE, DeviceSortOrder.CREATION_TIME_DESC, null,
+                DeviceController.DEFAULT_PAGE_SIZE + 1)).thenReturn(List.of(DeviceResponse.from(sampleDevice)));
+
+        mockMvc.perform(get("/api/devices")
+                        .param("brand", "Test Brand")
+                        .param("state", "AVAILABLE")
+                        .param("sort", "creationTime")
+                        .param("direction", "desc"))
+                .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].id").value(1));
     }
 
+    @Test
+    void shouldListArchivedDevicesOnlyWhenAsked() throws Exception {
+        sampleDevice.setState(DeviceState.INACTIVE);
+        when(deviceService.getArchivedListVersion("Test Brand", null))
+                .thenReturn(new DeviceListVersion(1, Instant.parse("2024-01-01T10:00:00Z")));
+        when(deviceService.getArchivedPage("Test Brand", null, DeviceSortOrder.ID_ASC, null,
+                DeviceController.DEFAULT_PAGE_SIZE + 1)).thenReturn(List.of(DeviceResponse.from(sampleDevice)));
+
+        mockMvc.perform(get("/api/devices").param("brand", "Test Brand").param("archived", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].state").value("INACTIVE"));
+
+        verify(deviceService, never()).getPage(any(), any(), any(), any(), anyInt());
+        verify(deviceService, never()).getListVersion(any(), any());
+    }
+
+    @Test
+    void shouldReturn400ForUnsupportedSort() throws Exception {
+        mockMvc.perform(get("/api/devices").param("sort", "name"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldSearchAndReturnNextOffsetWhenMoreMatchesRemain() throws Exception {
+        DeviceResponse first = DeviceResponse.from(sampleDevice);
+        DeviceResponse second = new DeviceResponse(2L, "Test Phone", "Test Brand", DeviceState.IN_USE, null, 0L, null);
+        when(deviceService.search("test", 20, 2)).thenReturn(List.of(first, second));
+
+        mockMvc.perform(get("/api/devices/search").param("q", "test").param("offset", "20").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(header().string(DeviceController.NEXT_OFFSET_HEADER, "21"));
+    }
+
+    @Test
+    void shouldReturn400ForBlankSearchOrOffsetBeyondLimit() throws Exception {
+        mockMvc.perform(get("/api/devices/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/devices/search").param("q", "test")
+                        .param("offset", String.valueOf(DeviceController.MAX_SEARCH_OFFSET + 1)))
+                .andExpect(status().isBadRequest());
+
+        verify(deviceService, never()).search(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void shouldStreamDevicesAsNdjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<DeviceResponse> consumer = invocation.getArgument(2);
+            consumer.accept(new DeviceResponse(1L, "Test Device", "Test Brand", DeviceState.AVAILABLE, null, 0L, null));
+            consumer.accept(new DeviceResponse(2L, "Second Device", "Test Brand", DeviceState.IN_USE, null, 0L, null));
+            return null;
+        }).when(deviceService).streamAll(isNull(), isNull(), any());
+
+        MvcResult result = mockMvc.perform(get("/api/devices").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"id\":1,\"name\":\"Test Device\",\"brand\":\"Test Brand\",\"state\":\"AVAILABLE\",\"creationTime\":null,\"version\":0,\"lastModifiedTime\":null}\n"
+                                + "{\"id\":2,\"name\":\"Second Device\",\"brand\":\"Test Brand\",\"state\":\"IN_USE\",\"creationTime\":null,\"version\":0,\"lastModifiedTime\":null}\n"));
+    }
+
+    @Test
+    void shouldStreamDevicesAsDelimitedProtobuf() throws Exception {
+        DeviceResponse first = new DeviceResponse(1L, "Test Device", "Test Brand", DeviceState.AVAILABLE, null, 0L, null);
+        DeviceResponse second = new DeviceResponse(2L, "Second Device", "Test Brand", DeviceState.IN_USE, null, 0L, null);
+        doAnswer(invocation -> {
+            Consumer<DeviceResponse> consumer = invocation.getArgument(2);
+            consumer.accept(first);
+            consumer.accept(second);
+            return null;
+        }).when(deviceService).streamAll(isNull(), isNull(), any());
+
+        MvcResult result = mockMvc.perform(get("/api/devices").accept(DeviceProtobuf.STREAM_MEDIA_TYPE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(DeviceProtobuf.STREAM_MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(DeviceProtobuf.readDelimited(CodedInputStream.newInstance(body), DeviceProtobuf::readDevice))
+                .containsExactly(first, second);
+    }
+
+    @Test
+    void shouldServeDeviceAsProtobufWhenAsked() throws Exception {
+        DeviceResponse device = DeviceResponse.from(sampleDevice);
+        when(deviceService.getResponseById(1L)).thenReturn(device);
+
+        byte[] body = mockMvc.perform(get("/api/devices/1").accept(DeviceProtobuf.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(DeviceProtobuf.MEDIA_TYPE))
+                .andExpect(header().string("ETag", "\"3\""))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(DeviceProtobuf.readDevice(CodedInputStream.newInstance(body))).isEqualTo(device);
+    }
+
+    @Test
+    void shouldCreateDeviceFromProtobuf() throws Exception {
+        when(deviceService.create(any(CreateDeviceRequest.class))).thenReturn(sampleDevice);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream request = CodedOutputStream.newInstance(bytes);
+        request.writeString(1, "Test Device");
+        request.writeString(2, "Test Brand");
+        request.writeEnum(3, 1);
+        request.flush();
+
+        mockMvc.perform(post("/api/devices")
+                        .contentType(DeviceProtobuf.MEDIA_TYPE)
+                        .content(bytes.toByteArray()))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.name").value("Test Device"));
+
+        verify(deviceService).create(new CreateDeviceRequest("Test Device", "Test Brand", DeviceState.AVAILABLE));
+    }
+
+    @Test
+    void shouldRejectProtobufCreateMissingFields() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream request = CodedOutputStream.newInstance(bytes);
+        request.writeString(2, "Test Brand");
+        request.flush();
+
+        mockMvc.perform(post("/api/devices")
+                        .contentType(DeviceProtobuf.MEDIA_TYPE)
+                        .accept(DeviceProtobuf.MEDIA_TYPE)
+                        .content(bytes.toByteArray()))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(DeviceProtobuf.MEDIA_TYPE));
+
+        verify(deviceService, never()).create(any());
+    }
+
     @Test
     void shouldFilterByBrand() throws Exception {
-        when(deviceService.getByBrand("Test Brand")).thenReturn(List.of(sampleDevice));
+        when(deviceService.getPage("Test Brand", null, DeviceSortOrder.ID_ASC, null, DeviceController.DEFAULT_PAGE_SIZE + 1))
+                .thenReturn(List.of(DeviceResponse.from(sampleDevice)));
 
         mockMvc.perform(get("/api/devices").param("brand", "Test Brand"))
                 .andExpect(status().isOk())
@@ -116,7 +391,8 @@ class DeviceControllerTest {
     @Test
     @DisplayName("GET /api/devices?state=AVAILABLE - Should filter by state")
     void shouldFilterByState() throws Exception {
-        when(deviceService.getByState(DeviceState.AVAILABLE)).thenReturn(List.of(sampleDevice));
+        when(deviceService.getPage(null, DeviceState.AVAILABLE, DeviceSortOrder.ID_ASC, null, DeviceController.DEFAULT_PAGE_SIZE + 1))
+                .thenReturn(List.of(DeviceResponse.from(sampleDevice)));
 
         mockMvc.perform(get("/api/devices").param("state", "AVAILABLE"))
                 .andExpect(status().isOk())
@@ -127,19 +403,72 @@ class DeviceControllerTest {
     void shouldUpdateDevice() throws Exception {
         UpdateDeviceRequest request = new UpdateDeviceRequest("New Name", null, null);
         sampleDevice.setName("New Name");
-        when(deviceService.update(eq(1L), any(UpdateDeviceRequest.class))).thenReturn(sampleDevice);
+        when(deviceService.update(eq(1L), any(UpdateDeviceRequest.class), isNull())).thenReturn(sampleDevice);
 
         mockMvc.perform(patch("/api/devices/1")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
                 .andExpect(jsonPath("$.name").value("New Name"));
     }
 
+    @Test
+    void shouldPassIfMatchVersionToUpdate() throws Exception {
+        UpdateDeviceRequest request = new UpdateDeviceRequest(null, null, DeviceState.IN_USE);
+        sampleDevice.setVersion(4L);
+        when(deviceService.update(eq(1L), any(UpdateDeviceRequest.class), eq(3L))).thenReturn(sampleDevice);
+
+        mockMvc.perform(patch("/api/devices/1")
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    void shouldReturn412WhenIfMatchIsStale() throws Exception {
+        UpdateDeviceRequest request = new UpdateDeviceRequest(null, null, DeviceState.IN_USE);
+        when(deviceService.update(eq(1L), any(UpdateDeviceRequest.class), eq(2L)))
+                .thenThrow(new DeviceVersionMismatchException("Device is at version 3, not 2"));
+
+        mockMvc.perform(patch("/api/devices/1")
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.code").value("PRECONDITION_FAILED"));
+    }
+
+    @Test
+    void shouldReturn412WhenIfMatchIsWeak() throws Exception {
+        UpdateDeviceRequest request = new UpdateDeviceRequest(null, null, DeviceState.IN_USE);
+
+        mockMvc.perform(patch("/api/devices/1")
+                        .header("If-Match", "W/\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void shouldReturn409OnConcurrentModification() throws Exception {
+        UpdateDeviceRequest request = new UpdateDeviceRequest("New Name", null, null);
+        when(deviceService.update(eq(1L), any(UpdateDeviceRequest.class), isNull()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Device.class, 1L));
+
+        mockMvc.perform(patch("/api/devices/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value("CONFLICT"));
+    }
+
     @Test
     void shouldReturn409WhenDeviceInUse() throws Exception {
         UpdateDeviceRequest request = new UpdateDeviceRequest("New Name", null, null);
-        when(deviceService.update(eq(1L), any(UpdateDeviceRequest.class)))
+        when(deviceService.update(eq(1L), any(UpdateDeviceRequest.class), isNull()))
                 .thenThrow(new IllegalStateException("Cannot update name or brand of a device that is in use"));
 
         mockMvc.perform(patch("/api/devices/1")
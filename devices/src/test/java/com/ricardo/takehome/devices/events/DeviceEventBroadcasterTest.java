@@ -0,0 +1,146 @@
+package com.ricardo.takehome.devices.events;
+
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.events.DeviceEventsProperties.SlowConsumerPolicy;
+import com.ricardo.takehome.devices.model.DeviceState;
+import com.ricardo.takehome.devices.service.DeviceChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DeviceEventBroadcasterTest {
+
+    private final DeviceEventLog eventLog = mock(DeviceEventLog.class);
+    private final List<Runnable> pending = new ArrayList<>();
+
+    @Test
+    void shouldSendChangesEnteringOrLeavingTheFilteredState() {
+        DeviceEventBroadcaster broadcaster = broadcaster(16, SlowConsumerPolicy.DISCONNECT, Runnable::run);
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.subscribe(null, DeviceState.AVAILABLE, null, emitter);
+
+        broadcaster.publish(updated(1, DeviceState.AVAILABLE, DeviceState.IN_USE));
+        broadcaster.publish(updated(2, DeviceState.IN_USE, DeviceState.INACTIVE));
+        broadcaster.publish(updated(3, DeviceState.INACTIVE, DeviceState.AVAILABLE));
+
+        assertThat(emitter.ids).containsExactly("1", "3");
+    }
+
+    @Test
+    void shouldReplayFromLastEventIdBeforeLiveEventsWithoutDuplicates() {
+        List<Runnable> replay = new ArrayList<>();
+        DeviceEventBroadcaster broadcaster = broadcaster(16, SlowConsumerPolicy.DISCONNECT,
+                task -> (replay.isEmpty() ? replay : pending).add(task));
+        when(eventLog.readAfter(5, 2)).thenReturn(List.of(
+                updated(6, DeviceState.AVAILABLE, DeviceState.IN_USE),
+                updated(7, DeviceState.IN_USE, DeviceState.AVAILABLE)));
+        when(eventLog.readAfter(7, 2)).thenReturn(List.of(updated(8, DeviceState.AVAILABLE, DeviceState.INACTIVE)));
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.subscribe(null, null, 5L, emitter);
+
+        // committed while the replay is still pending: 8 is also in the log, 9 is not yet
+        broadcaster.publish(updated(8, DeviceState.AVAILABLE, DeviceState.INACTIVE));
+        broadcaster.publish(updated(9, DeviceState.INACTIVE, DeviceState.AVAILABLE));
+        replay.getFirst().run();
+        runPending();
+
+        assertThat(emitter.ids).containsExactly("6", "7", "8", "9");
+    }
+
+    @Test
+    void shouldTailCommittedEventsFromTheLogInPositionOrder() {
+        when(eventLog.lastPosition()).thenReturn(3L);
+        DeviceEventBroadcaster broadcaster = broadcaster(16, SlowConsumerPolicy.DISCONNECT, pending::add);
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.subscribe(null, null, null, emitter);
+        when(eventLog.readAfter(3, 2)).thenReturn(List.of(
+                updated(4, DeviceState.AVAILABLE, DeviceState.IN_USE),
+                updated(5, DeviceState.IN_USE, DeviceState.AVAILABLE)));
+        when(eventLog.readAfter(5, 2)).thenReturn(List.of());
+
+        // two commits wake a single tail task
+        broadcaster.committed();
+        broadcaster.committed();
+        runPending();
+        when(eventLog.readAfter(5, 2)).thenReturn(List.of(updated(6, DeviceState.AVAILABLE, DeviceState.INACTIVE)));
+        when(eventLog.readAfter(6, 2)).thenReturn(List.of());
+        broadcaster.poll();
+        runPending();
+
+        assertThat(emitter.ids).containsExactly("4", "5", "6");
+    }
+
+    @Test
+    void shouldDisconnectSubscriberWhoseBufferIsFull() {
+        DeviceEventBroadcaster broadcaster = broadcaster(2, SlowConsumerPolicy.DISCONNECT, pending::add);
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.subscribe(null, null, null, emitter);
+
+        for (int id = 1; id <= 3; id++) {
+            broadcaster.publish(updated(id, DeviceState.AVAILABLE, DeviceState.IN_USE));
+        }
+        runPending();
+
+        assertThat(emitter.completed).isTrue();
+        assertThat(emitter.ids).isEmpty();
+        assertThat(broadcaster.subscriberCount()).isZero();
+    }
+
+    @Test
+    void shouldDropOldestEventsWhenConfiguredTo() {
+        DeviceEventBroadcaster broadcaster = broadcaster(2, SlowConsumerPolicy.DROP, pending::add);
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.subscribe(null, null, null, emitter);
+
+        for (int id = 1; id <= 3; id++) {
+            broadcaster.publish(updated(id, DeviceState.AVAILABLE, DeviceState.IN_USE));
+        }
+        runPending();
+
+        assertThat(emitter.completed).isFalse();
+        assertThat(emitter.ids).containsExactly("2", "3");
+    }
+
+    private DeviceEventBroadcaster broadcaster(int bufferSize, SlowConsumerPolicy policy, Executor executor) {
+        return new DeviceEventBroadcaster(eventLog,
+                new DeviceEventsProperties(bufferSize, policy, Duration.ofMinutes(1), 2, Duration.ofSeconds(1),
+                        Duration.ZERO, Duration.ofDays(7)), executor);
+    }
+
+    private void runPending() {
+        while (!pending.isEmpty()) {
+            pending.removeFirst().run();
+        }
+    }
+
+    private static LoggedDeviceEvent updated(long id, DeviceState from, DeviceState to) {
+        DeviceResponse before = new DeviceResponse(id, "Device " + id, "Test Brand", from, null, 0L, null);
+        DeviceResponse after = new DeviceResponse(id, "Device " + id, "Test Brand", to, null, 1L, null);
+        return new LoggedDeviceEvent(id, DeviceChangedEvent.updated(before, after), "{}", Instant.now());
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> ids = new ArrayList<>();
+        private boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            String event = builder.build().iterator().next().getData().toString();
+            ids.add(event.substring("id:".length(), event.indexOf('\n')));
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+    }
+}
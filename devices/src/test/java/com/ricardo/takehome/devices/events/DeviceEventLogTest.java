@@ -0,0 +1,175 @@
+package com.ricardo.takehome.devices.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.model.DeviceState;
+import com.ricardo.takehome.devices.service.DeviceChangedEvent;
+import com.ricardo.takehome.devices.service.DeviceChangedEvent.ChangeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@JdbcTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DeviceEventLogTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private static final Duration SETTLE_DELAY = Duration.ofMillis(200);
+
+    private DeviceEventLog eventLog;
+    private DeviceEventRecorder recorder;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        eventLog = new DeviceEventLog(jdbcTemplate, new ObjectMapper().findAndRegisterModules(), false, SETTLE_DELAY,
+                Duration.ofDays(7));
+        recorder = new DeviceEventRecorder(eventLog, mock(DeviceEventBroadcaster.class));
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM device_events");
+        jdbcTemplate.update("UPDATE device_event_cursors SET last_position = 0");
+    }
+
+    @Test
+    void shouldNotReadPastAnEventStillCommitting() throws Exception {
+        long start = eventLog.lastPosition();
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // takes the lower position, but commits after device 2's transaction
+            Future<?> slow = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                eventLog.append(List.of(created(1)));
+                recorded.countDown();
+                await(release);
+            }));
+            assertThat(recorded.await(5, TimeUnit.SECONDS)).isTrue();
+            transactionTemplate.executeWithoutResult(status -> recorder.onDeviceChanged(created(2)));
+
+            List<LoggedDeviceEvent> unsettled = eventLog.readAfter(start, 10);
+            release.countDown();
+            slow.get(5, TimeUnit.SECONDS);
+            Thread.sleep(SETTLE_DELAY.toMillis());
+            List<LoggedDeviceEvent> settled = eventLog.readAfter(start, 10);
+
+            assertThat(unsettled).isEmpty();
+            assertThat(settled).extracting(event -> event.event().id()).containsExactly(1L, 2L);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldLoseNoEventWhileTailingConcurrentWriters() throws Exception {
+        int writers = 8;
+        int transactionsPerWriter = 40;
+        long start = eventLog.lastPosition();
+        AtomicLong nextDeviceId = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        List<Future<?>> writes = new ArrayList<>();
+        for (int writer = 0; writer < writers; writer++) {
+            writes.add(executor.submit(() -> {
+                for (int i = 0; i < transactionsPerWriter; i++) {
+                    int events = 1 + i % 3;
+                    transactionTemplate.executeWithoutResult(status -> {
+                        for (int event = 0; event < events; event++) {
+                            recorder.onDeviceChanged(created(nextDeviceId.incrementAndGet()));
+                        }
+                    });
+                }
+            }));
+        }
+
+        // a reader advancing its cursor over whatever it has seen, as the tail and Last-Event-ID do
+        List<LoggedDeviceEvent> seen = new ArrayList<>();
+        long cursor = start;
+        boolean writing = true;
+        while (writing) {
+            writing = writes.stream().anyMatch(write -> !write.isDone());
+            List<LoggedDeviceEvent> page;
+            do {
+                page = eventLog.readAfter(cursor, 50);
+                seen.addAll(page);
+                cursor = page.isEmpty() ? cursor : page.getLast().position();
+            } while (!page.isEmpty());
+        }
+        for (Future<?> write : writes) {
+            write.get();
+        }
+        executor.shutdown();
+        Thread.sleep(SETTLE_DELAY.toMillis());
+        seen.addAll(eventLog.readAfter(cursor, Integer.MAX_VALUE));
+
+        long total = nextDeviceId.get();
+        assertThat(seen).extracting(LoggedDeviceEvent::position).isSorted().doesNotHaveDuplicates();
+        assertThat(seen).extracting(event -> event.event().id())
+                .containsExactlyInAnyOrderElementsOf(LongStream.rangeClosed(1, total).boxed().toList());
+    }
+
+    @Test
+    void shouldPurgeEventsOlderThanTheRetentionThatConsumersHaveRead() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (long id = 1; id <= 3; id++) {
+                recorder.onDeviceChanged(created(id));
+            }
+        });
+        jdbcTemplate.update("UPDATE device_events SET created_at = ? WHERE device_id < 3",
+                Timestamp.from(Instant.now().minus(Duration.ofDays(8))));
+        long readUpTo = jdbcTemplate.queryForObject("SELECT id FROM device_events WHERE device_id = 1", Long.class);
+        transactionTemplate.executeWithoutResult(status -> {
+            eventLog.lockCursor("history");
+            eventLog.advanceCursor("history", readUpTo);
+        });
+
+        eventLog.purge();
+
+        // device 2's event is old enough but the history has not read it yet
+        assertThat(jdbcTemplate.queryForList("SELECT device_id FROM device_events ORDER BY id", Long.class))
+                .containsExactly(2L, 3L);
+    }
+
+    private static DeviceChangedEvent created(long id) {
+        DeviceResponse device = new DeviceResponse(id, "Device " + id, "Test Brand", DeviceState.AVAILABLE, null, 0L, null);
+        return new DeviceChangedEvent(ChangeType.CREATED, id, null, device);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.ricardo.takehome.devices.history;
+
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.events.DeviceEventLog;
+import com.ricardo.takehome.devices.events.LoggedDeviceEvent;
+import com.ricardo.takehome.devices.model.DeviceState;
+import com.ricardo.takehome.devices.service.DeviceChangedEvent;
+import com.ricardo.takehome.devices.service.DeviceChangedEvent.ChangeType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceHistoryWriterTest {
+
+    private static final Instant CREATED = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Instant MODIFIED = Instant.parse("2025-01-02T00:00:00Z");
+
+    @Mock
+    private DeviceEventLog eventLog;
+
+    @Mock
+    private DeviceHistoryLog historyLog;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldRecordTransitionOfUpdate() {
+        DeviceResponse before = device(DeviceState.AVAILABLE, 3L, CREATED);
+        DeviceResponse after = device(DeviceState.IN_USE, 4L, MODIFIED);
+
+        DeviceHistoryEntry entry = DeviceHistoryEntry.of(DeviceChangedEvent.updated(before, after), Instant.now());
+
+        assertThat(entry).isEqualTo(new DeviceHistoryEntry(
+                1L, 4L, ChangeType.UPDATED, DeviceState.AVAILABLE, DeviceState.IN_USE, "Pixel 9", "Google", MODIFIED));
+    }
+
+    @Test
+    void shouldCountDeletionAsNextVersionAtTimeItWasLogged() {
+        Instant loggedAt = Instant.parse("2025-01-03T00:00:00Z");
+
+        DeviceHistoryEntry entry = DeviceHistoryEntry.of(
+                DeviceChangedEvent.deleted(device(DeviceState.INACTIVE, 4L, MODIFIED)), loggedAt);
+
+        assertThat(entry.version()).isEqualTo(5L);
+        assertThat(entry.fromState()).isEqualTo(DeviceState.INACTIVE);
+        assertThat(entry.toState()).isNull();
+        assertThat(entry.changedAt()).isEqualTo(loggedAt);
+    }
+
+    @Test
+    void shouldWriteLoggedChangesInBatchesAdvancingTheCursor() {
+        DeviceHistoryWriter writer = writer(2);
+        when(eventLog.lockCursor(DeviceHistoryWriter.CURSOR)).thenReturn(0L, 2L, 4L);
+        when(eventLog.readAfter(0, 2)).thenReturn(created(1, 2));
+        when(eventLog.readAfter(2, 2)).thenReturn(created(3, 4));
+        when(eventLog.readAfter(4, 2)).thenReturn(created(5, 5));
+
+        writer.flush();
+
+        ArgumentCaptor<List<DeviceHistoryEntry>> batches = ArgumentCaptor.captor();
+        InOrder inOrder = inOrder(historyLog, eventLog);
+        inOrder.verify(historyLog).append(batches.capture());
+        inOrder.verify(eventLog).advanceCursor(DeviceHistoryWriter.CURSOR, 2L);
+        inOrder.verify(historyLog).append(batches.capture());
+        inOrder.verify(eventLog).advanceCursor(DeviceHistoryWriter.CURSOR, 4L);
+        inOrder.verify(historyLog).append(batches.capture());
+        inOrder.verify(eventLog).advanceCursor(DeviceHistoryWriter.CURSOR, 5L);
+        assertThat(batches.getAllValues().stream().flatMap(List::stream).map(DeviceHistoryEntry::version))
+                .containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(meterRegistry.counter("devices.history.entries", "outcome", "written").count()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldLeaveTheCursorWhereItWasWhenWritingFails() {
+        DeviceHistoryWriter writer = writer(10);
+        when(eventLog.lockCursor(DeviceHistoryWriter.CURSOR)).thenReturn(0L);
+        when(eventLog.readAfter(0, 10)).thenReturn(created(1, 2));
+        doThrow(new DataAccessResourceFailureException("database down")).doNothing().when(historyLog).append(anyList());
+
+        writer.flush();
+        verify(eventLog, never()).advanceCursor(eq(DeviceHistoryWriter.CURSOR), anyLong());
+        writer.flush();
+
+        verify(historyLog, times(2)).append(anyList());
+        verify(eventLog).advanceCursor(DeviceHistoryWriter.CURSOR, 2L);
+    }
+
+    private DeviceHistoryWriter writer(int maxBatchSize) {
+        DeviceHistoryProperties properties = new DeviceHistoryProperties(Duration.ofHours(1), maxBatchSize,
+                Duration.ofDays(400), 2, Duration.ofHours(1), Duration.ofSeconds(1));
+        return new DeviceHistoryWriter(eventLog, historyLog, new TransactionTemplate(transactionManager), properties,
+                meterRegistry);
+    }
+
+    /** Creations logged at positions {@code from..to}, each producing that version. */
+    private static List<LoggedDeviceEvent> created(long from, long to) {
+        return LongStream.rangeClosed(from, to)
+                .mapToObj(position -> new LoggedDeviceEvent(position,
+                        DeviceChangedEvent.created(device(DeviceState.AVAILABLE, position, CREATED)), "{}", CREATED))
+                .toList();
+    }
+
+    private static DeviceResponse device(DeviceState state, Long version, Instant lastModifiedTime) {
+        return new DeviceResponse(1L, "Pixel 9", "Google", state, CREATED, version, lastModifiedTime);
+    }
+}
@@ -0,0 +1,152 @@
+package com.ricardo.takehome.devices.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyFilterTest {
+
+    private static final String BODY = "{\"name\":\"Pixel 9\",\"brand\":\"Google\",\"state\":\"AVAILABLE\"}";
+
+    private final IdempotencyProperties properties = new IdempotencyProperties(true, "Idempotency-Key", "X-API-Key",
+            IdempotencyProperties.Store.IN_MEMORY, 100, Duration.ofHours(1), Duration.ofSeconds(5),
+            Duration.ofSeconds(30), Duration.ofSeconds(10), Duration.ofMinutes(10));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final IdempotencyFilter filter = new IdempotencyFilter(new InMemoryIdempotencyStore(properties), properties,
+            new ObjectMapper(), meterRegistry);
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void shouldReplayStoredResponseWithoutExecutingAgain() throws Exception {
+        FilterChain create = created(201);
+
+        MockHttpServletResponse first = perform(post("key-1", BODY), create);
+        MockHttpServletResponse retry = perform(post("key-1", BODY), create);
+
+        assertThat(executions).hasValue(1);
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getContentAsString()).isEqualTo(first.getContentAsString()).contains("\"id\":1");
+        assertThat(retry.getHeader("Location")).isEqualTo("/api/devices/1");
+        assertThat(retry.getContentType()).startsWith("application/json");
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(first.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+    }
+
+    @Test
+    void shouldScopeKeysPerClient() throws Exception {
+        FilterChain create = created(201);
+        MockHttpServletRequest other = post("key-1", BODY);
+        other.addHeader("X-API-Key", "other-client");
+
+        perform(post("key-1", BODY), create);
+        perform(other, create);
+
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void shouldRejectKeyReusedForDifferentRequest() throws Exception {
+        FilterChain create = created(201);
+
+        perform(post("key-1", BODY), create);
+        MockHttpServletResponse reused = perform(post("key-1", BODY.replace("Pixel 9", "Pixel 10")), create);
+
+        assertThat(executions).hasValue(1);
+        assertThat(reused.getStatus()).isEqualTo(422);
+    }
+
+    @Test
+    void shouldExecuteAgainAfterRetryableFailure() throws Exception {
+        perform(post("key-1", BODY), created(503));
+        MockHttpServletResponse retry = perform(post("key-1", BODY), created(201));
+
+        assertThat(executions).hasValue(2);
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+    }
+
+    @Test
+    void shouldCollapseConcurrentDuplicatesIntoOneExecution() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slowCreate = (request, response) -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            created(201).doFilter(request, response);
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<MockHttpServletResponse> leader = executor.submit(() -> perform(post("key-1", BODY), slowCreate));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<MockHttpServletResponse> duplicate1 = executor.submit(() -> perform(post("key-1", BODY), slowCreate));
+            Future<MockHttpServletResponse> duplicate2 = executor.submit(() -> perform(post("key-1", BODY), slowCreate));
+            // let the duplicates reach the in-flight execution before it completes
+            Thread.sleep(200);
+            release.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(201);
+            assertThat(duplicate1.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(201);
+            assertThat(duplicate2.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(201);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void shouldIgnoreRequestsWithoutKey() throws Exception {
+        perform(post(null, BODY), created(201));
+        perform(post(null, BODY), created(201));
+
+        assertThat(executions).hasValue(2);
+    }
+
+    private FilterChain created(int status) {
+        return (request, response) -> {
+            int id = executions.incrementAndGet();
+            // the controller reads the body the filter already consumed for hashing
+            assertThat(new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8)).startsWith("{");
+            HttpServletResponse http = (HttpServletResponse) response;
+            http.setStatus(status);
+            http.setHeader("Location", "/api/devices/" + id);
+            http.setContentType("application/json");
+            http.getWriter().write("{\"id\":" + id + "}");
+        };
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest post(String key, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/devices");
+        if (key != null) {
+            request.addHeader("Idempotency-Key", key);
+        }
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
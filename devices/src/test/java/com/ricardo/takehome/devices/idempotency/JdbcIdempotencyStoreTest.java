@@ -0,0 +1,80 @@
+package com.ricardo.takehome.devices.idempotency;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+class JdbcIdempotencyStoreTest {
+
+    private static final Duration TTL = Duration.ofHours(1);
+    private static final Duration LEASE = Duration.ofSeconds(30);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldReplayCompletedResponse() {
+        JdbcIdempotencyStore store = new JdbcIdempotencyStore(jdbcTemplate, TTL, LEASE);
+
+        assertThat(store.reserve("key", "hash", Instant.now().plus(LEASE))).isTrue();
+        assertThat(store.complete("key", response(201))).isTrue();
+
+        assertThat(store.find("key")).hasValueSatisfying(stored -> {
+            assertThat(stored.status()).isEqualTo(201);
+            assertThat(stored.headers()).containsEntry("Location", List.of("/api/devices/1"));
+            assertThat(stored.body()).isEqualTo(new byte[] {1, 2, 3});
+        });
+    }
+
+    @Test
+    void shouldNotCompleteReservationTakenOverAfterItsLeaseLapsed() {
+        JdbcIdempotencyStore first = new JdbcIdempotencyStore(jdbcTemplate, TTL, LEASE);
+        JdbcIdempotencyStore second = new JdbcIdempotencyStore(jdbcTemplate, TTL, LEASE);
+
+        assertThat(first.reserve("key", "hash", Instant.now().minusSeconds(1))).isTrue();
+        assertThat(second.reserve("key", "hash", Instant.now().plus(LEASE))).isTrue();
+
+        assertThat(first.complete("key", response(201))).isFalse();
+        assertThat(first.find("key")).isEmpty();
+        assertThat(second.complete("key", response(200))).isTrue();
+        assertThat(first.find("key")).hasValueSatisfying(stored -> assertThat(stored.status()).isEqualTo(200));
+    }
+
+    @Test
+    void shouldKeepRenewedReservationFromBeingTakenOver() {
+        JdbcIdempotencyStore first = new JdbcIdempotencyStore(jdbcTemplate, TTL, LEASE);
+        JdbcIdempotencyStore second = new JdbcIdempotencyStore(jdbcTemplate, TTL, LEASE);
+
+        assertThat(first.reserve("key", "hash", Instant.now().minusSeconds(1))).isTrue();
+        first.renewLeases();
+
+        assertThat(second.reserve("key", "hash", Instant.now().plus(LEASE))).isFalse();
+        assertThat(first.complete("key", response(201))).isTrue();
+    }
+
+    @Test
+    void shouldNotReleaseReservationOfAnotherInstance() {
+        JdbcIdempotencyStore first = new JdbcIdempotencyStore(jdbcTemplate, TTL, LEASE);
+        JdbcIdempotencyStore second = new JdbcIdempotencyStore(jdbcTemplate, TTL, LEASE);
+
+        assertThat(first.reserve("key", "hash", Instant.now().minusSeconds(1))).isTrue();
+        assertThat(second.reserve("key", "hash", Instant.now().plus(LEASE))).isTrue();
+        first.release("key");
+
+        assertThat(second.complete("key", response(201))).isTrue();
+    }
+
+    private static IdempotentResponse response(int status) {
+        return new IdempotentResponse("hash", status, "application/json",
+                Map.of("Location", List.of("/api/devices/1")), new byte[] {1, 2, 3});
+    }
+}
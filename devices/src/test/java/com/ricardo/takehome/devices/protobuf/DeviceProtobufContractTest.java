@@ -0,0 +1,258 @@
+package com.ricardo.takehome.devices.protobuf;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumDescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumValueDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.OneofDescriptorProto;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.DescriptorValidationException;
+import com.google.protobuf.Descriptors.FileDescriptor;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.Message;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.TimestampProto;
+import com.ricardo.takehome.devices.dto.CreateDeviceRequest;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.dto.ErrorResponse;
+import com.ricardo.takehome.devices.dto.UpdateDeviceRequest;
+import com.ricardo.takehome.devices.model.DeviceState;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the hand-written codec against {@code contract/device.proto} rather than against itself:
+ * the schema is read from the contract file into descriptors, and protobuf's own
+ * {@link DynamicMessage} parses what the codec writes and writes what the codec reads. There is no
+ * protoc step in the build, so the test reads the proto3 subset the contract uses (top-level enums
+ * and messages of scalar, enum, Timestamp and {@code optional} fields) and fails on anything else.
+ */
+class DeviceProtobufContractTest {
+
+    private static final Path CONTRACT = Path.of("..", "contract", "device.proto");
+    private static final Pattern PACKAGE = Pattern.compile("package\\s+([\\w.]+)\\s*;");
+    private static final Pattern BLOCK = Pattern.compile("(enum|message)\\s+(\\w+)\\s*\\{([^}]*)}");
+    private static final Pattern ENUM_VALUE = Pattern.compile("(\\w+)\\s*=\\s*(\\d+)\\s*;");
+    private static final Pattern FIELD = Pattern.compile("(optional\\s+)?([\\w.]+)\\s+(\\w+)\\s*=\\s*(\\d+)\\s*;");
+    private static final Map<String, FieldDescriptorProto.Type> SCALARS = Map.of(
+            "int64", FieldDescriptorProto.Type.TYPE_INT64,
+            "int32", FieldDescriptorProto.Type.TYPE_INT32,
+            "string", FieldDescriptorProto.Type.TYPE_STRING,
+            "bool", FieldDescriptorProto.Type.TYPE_BOOL);
+
+    private static final DeviceResponse DEVICE = new DeviceResponse(42L, "Pixel 9", "Google", DeviceState.IN_USE,
+            Instant.parse("2025-01-01T10:00:00.000123Z"), 3L, Instant.parse("2025-02-01T10:00:00Z"));
+
+    private static FileDescriptor contract;
+
+    @BeforeAll
+    static void readContract() throws IOException, DescriptorValidationException {
+        contract = FileDescriptor.buildFrom(parse(Files.readString(CONTRACT)),
+                new FileDescriptor[] {TimestampProto.getDescriptor()});
+    }
+
+    @Test
+    void shouldWriteDevicesTheContractParses() throws IOException {
+        DynamicMessage device = DynamicMessage.parseFrom(message("Device"),
+                write(out -> DeviceProtobuf.writeDevice(DEVICE, out)));
+
+        assertThat(device.getUnknownFields().asMap()).isEmpty();
+        assertThat(field(device, "id")).isEqualTo(42L);
+        assertThat(field(device, "name")).isEqualTo("Pixel 9");
+        assertThat(field(device, "brand")).isEqualTo("Google");
+        assertThat(field(device, "state").toString()).isEqualTo("IN_USE");
+        assertThat(timestamp(device, "creation_time")).isEqualTo(DEVICE.creationTime());
+        assertThat(field(device, "version")).isEqualTo(3L);
+        assertThat(timestamp(device, "last_modified_time")).isEqualTo(DEVICE.lastModifiedTime());
+    }
+
+    @Test
+    void shouldWriteDelimitedStreamsTheContractParses() throws IOException {
+        DeviceResponse sparse = new DeviceResponse(7L, "Galaxy S8", "Samsung", DeviceState.INACTIVE, null, 0L, null);
+        byte[] bytes = write(out -> {
+            DeviceProtobuf.writeDelimited(DEVICE, out);
+            DeviceProtobuf.writeDelimited(sparse, out);
+        });
+
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+        List<DynamicMessage> devices = new ArrayList<>();
+        DynamicMessage.Builder builder = DynamicMessage.newBuilder(message("Device"));
+        while (builder.mergeDelimitedFrom(in)) {
+            devices.add(builder.build());
+            builder = DynamicMessage.newBuilder(message("Device"));
+        }
+
+        assertThat(devices).extracting(device -> field(device, "id")).containsExactly(42L, 7L);
+        DynamicMessage second = devices.get(1);
+        assertThat(field(second, "state").toString()).isEqualTo("INACTIVE");
+        assertThat(second.hasField(message("Device").findFieldByName("creation_time"))).isFalse();
+    }
+
+    @Test
+    void shouldWriteErrorsTheContractParses() throws IOException {
+        DynamicMessage error = DynamicMessage.parseFrom(message("Error"),
+                write(out -> DeviceProtobuf.writeError(new ErrorResponse("NOT_FOUND", "Device not found"), out)));
+
+        assertThat(field(error, "code")).isEqualTo("NOT_FOUND");
+        assertThat(field(error, "message")).isEqualTo("Device not found");
+    }
+
+    @Test
+    void shouldReadRequestsEncodedFromTheContract() throws IOException {
+        Descriptor create = message("CreateDevice");
+        byte[] createBytes = DynamicMessage.newBuilder(create)
+                .setField(create.findFieldByName("name"), "Pixel 9")
+                .setField(create.findFieldByName("brand"), "Google")
+                .setField(create.findFieldByName("state"), create.findFieldByName("state").getEnumType()
+                        .findValueByName("AVAILABLE"))
+                .build().toByteArray();
+
+        Descriptor update = message("UpdateDevice");
+        byte[] updateBytes = DynamicMessage.newBuilder(update)
+                .setField(update.findFieldByName("brand"), "Google")
+                .build().toByteArray();
+
+        assertThat(DeviceProtobuf.readCreate(CodedInputStream.newInstance(createBytes)))
+                .isEqualTo(new CreateDeviceRequest("Pixel 9", "Google", DeviceState.AVAILABLE));
+        assertThat(DeviceProtobuf.readUpdate(CodedInputStream.newInstance(updateBytes)))
+                .isEqualTo(new UpdateDeviceRequest(null, "Google", null));
+    }
+
+    @Test
+    void shouldReadDevicesEncodedFromTheContract() throws IOException {
+        Descriptor descriptor = message("Device");
+        byte[] bytes = DynamicMessage.newBuilder(descriptor)
+                .setField(descriptor.findFieldByName("id"), 42L)
+                .setField(descriptor.findFieldByName("name"), "Pixel 9")
+                .setField(descriptor.findFieldByName("brand"), "Google")
+                .setField(descriptor.findFieldByName("state"), descriptor.findFieldByName("state").getEnumType()
+                        .findValueByName("IN_USE"))
+                .setField(descriptor.findFieldByName("creation_time"), timestamp(DEVICE.creationTime()))
+                .setField(descriptor.findFieldByName("version"), 3L)
+                .setField(descriptor.findFieldByName("last_modified_time"), timestamp(DEVICE.lastModifiedTime()))
+                .build().toByteArray();
+
+        assertThat(DeviceProtobuf.readDevice(CodedInputStream.newInstance(bytes))).isEqualTo(DEVICE);
+    }
+
+    private static Descriptor message(String name) {
+        Descriptor descriptor = contract.findMessageTypeByName(name);
+        assertThat(descriptor).as("message %s in %s", name, CONTRACT).isNotNull();
+        return descriptor;
+    }
+
+    private static Object field(Message message, String name) {
+        return message.getField(message.getDescriptorForType().findFieldByName(name));
+    }
+
+    private static Instant timestamp(Message message, String name) {
+        Message timestamp = (Message) field(message, name);
+        return Instant.ofEpochSecond((Long) field(timestamp, "seconds"), (Integer) field(timestamp, "nanos"));
+    }
+
+    private static Timestamp timestamp(Instant instant) {
+        return Timestamp.newBuilder().setSeconds(instant.getEpochSecond()).setNanos(instant.getNano()).build();
+    }
+
+    /** Reads the contract into a descriptor; only the constructs listed on the class are understood. */
+    private static FileDescriptorProto parse(String proto) {
+        String source = proto.replaceAll("//[^\n]*", "");
+        Matcher packageName = PACKAGE.matcher(source);
+        assertThat(packageName.find()).as("package of %s", CONTRACT).isTrue();
+        String prefix = "." + packageName.group(1) + ".";
+        assertThat(source).as("syntax of %s", CONTRACT).contains("syntax = \"proto3\";");
+
+        Set<String> enums = new HashSet<>();
+        Matcher block = BLOCK.matcher(source);
+        while (block.find()) {
+            if (block.group(1).equals("enum")) {
+                enums.add(block.group(2));
+            }
+        }
+
+        FileDescriptorProto.Builder file = FileDescriptorProto.newBuilder()
+                .setName("device.proto")
+                .setPackage(packageName.group(1))
+                .setSyntax("proto3")
+                .addDependency("google/protobuf/timestamp.proto");
+        block.reset();
+        while (block.find()) {
+            if (block.group(1).equals("enum")) {
+                EnumDescriptorProto.Builder type = EnumDescriptorProto.newBuilder().setName(block.group(2));
+                Matcher value = ENUM_VALUE.matcher(block.group(3));
+                while (value.find()) {
+                    type.addValue(EnumValueDescriptorProto.newBuilder()
+                            .setName(value.group(1))
+                            .setNumber(Integer.parseInt(value.group(2))));
+                }
+                assertUnderstood(block, ENUM_VALUE);
+                file.addEnumType(type);
+                continue;
+            }
+            DescriptorProto.Builder type = DescriptorProto.newBuilder().setName(block.group(2));
+            Matcher field = FIELD.matcher(block.group(3));
+            while (field.find()) {
+                FieldDescriptorProto.Builder descriptor = FieldDescriptorProto.newBuilder()
+                        .setName(field.group(3))
+                        .setNumber(Integer.parseInt(field.group(4)))
+                        .setLabel(FieldDescriptorProto.Label.LABEL_OPTIONAL);
+                String fieldType = field.group(2);
+                if (SCALARS.containsKey(fieldType)) {
+                    descriptor.setType(SCALARS.get(fieldType));
+                } else if (fieldType.equals("google.protobuf.Timestamp")) {
+                    descriptor.setType(FieldDescriptorProto.Type.TYPE_MESSAGE).setTypeName("." + fieldType);
+                } else if (enums.contains(fieldType)) {
+                    descriptor.setType(FieldDescriptorProto.Type.TYPE_ENUM).setTypeName(prefix + fieldType);
+                } else {
+                    descriptor.setType(FieldDescriptorProto.Type.TYPE_MESSAGE).setTypeName(prefix + fieldType);
+                }
+                if (field.group(1) != null) {
+                    // proto3 optional: presence is tracked through a synthetic oneof, as protoc does
+                    descriptor.setProto3Optional(true).setOneofIndex(type.getOneofDeclCount());
+                    type.addOneofDecl(OneofDescriptorProto.newBuilder().setName("_" + field.group(3)));
+                }
+                type.addField(descriptor);
+            }
+            assertUnderstood(block, FIELD);
+            file.addMessageType(type);
+        }
+        return file.build();
+    }
+
+    private static void assertUnderstood(Matcher block, Pattern statement) {
+        assertThat(statement.matcher(block.group(3)).replaceAll("")).as("unsupported syntax in %s %s of %s",
+                block.group(1), block.group(2), CONTRACT).isBlank();
+    }
+
+    private static byte[] write(Writer writer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        writer.write(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(CodedOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,81 @@
+package com.ricardo.takehome.devices.protobuf;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.ricardo.takehome.devices.dto.CreateDeviceRequest;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.dto.UpdateDeviceRequest;
+import com.ricardo.takehome.devices.model.DeviceState;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeviceProtobufTest {
+
+    private static final DeviceResponse DEVICE = new DeviceResponse(42L, "Pixel 9", "Google", DeviceState.IN_USE,
+            Instant.parse("2025-01-01T10:00:00.000123Z"), 3L, Instant.parse("2025-02-01T10:00:00Z"));
+
+    @Test
+    void shouldRoundTripDevice() throws IOException {
+        byte[] bytes = write(out -> DeviceProtobuf.writeDevice(DEVICE, out));
+
+        assertThat(bytes).hasSize(DeviceProtobuf.deviceSize(DEVICE));
+        assertThat(DeviceProtobuf.readDevice(CodedInputStream.newInstance(bytes))).isEqualTo(DEVICE);
+    }
+
+    @Test
+    void shouldRoundTripDelimitedDevices() throws IOException {
+        DeviceResponse sparse = new DeviceResponse(7L, "Galaxy S8", "Samsung", DeviceState.INACTIVE, null, 0L, null);
+        byte[] bytes = write(out -> {
+            DeviceProtobuf.writeDelimited(DEVICE, out);
+            DeviceProtobuf.writeDelimited(sparse, out);
+        });
+
+        List<DeviceResponse> devices = DeviceProtobuf.readDelimited(CodedInputStream.newInstance(bytes),
+                DeviceProtobuf::readDevice);
+
+        assertThat(devices).containsExactly(DEVICE, sparse);
+    }
+
+    @Test
+    void shouldLeaveAbsentRequestFieldsNullAndSkipUnknownOnes() throws IOException {
+        byte[] bytes = write(out -> {
+            out.writeString(2, "Google");
+            out.writeInt64(15, 99L);
+            out.writeEnum(3, 2);
+        });
+
+        assertThat(DeviceProtobuf.readUpdate(CodedInputStream.newInstance(bytes)))
+                .isEqualTo(new UpdateDeviceRequest(null, "Google", DeviceState.IN_USE));
+        assertThat(DeviceProtobuf.readCreate(CodedInputStream.newInstance(bytes)))
+                .isEqualTo(new CreateDeviceRequest(null, "Google", DeviceState.IN_USE));
+    }
+
+    @Test
+    void shouldReadUnknownStateAsMissing() throws IOException {
+        byte[] bytes = write(out -> {
+            out.writeString(1, "Pixel 9");
+            out.writeEnum(3, 9);
+        });
+
+        assertThat(DeviceProtobuf.readCreate(CodedInputStream.newInstance(bytes)).state()).isNull();
+    }
+
+    private static byte[] write(Writer writer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        writer.write(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(CodedOutputStream out) throws IOException;
+    }
+}
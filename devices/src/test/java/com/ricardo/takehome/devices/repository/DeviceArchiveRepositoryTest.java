@@ -0,0 +1,102 @@
+package com.ricardo.takehome.devices.repository;
+
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.model.Device;
+import com.ricardo.takehome.devices.model.DeviceState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(DeviceArchiveRepository.class)
+class DeviceArchiveRepositoryTest {
+
+    private static final Instant OLD = Instant.parse("2024-01-01T00:00:00Z");
+    private static final Instant RECENT = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    private static final Instant CUTOFF = RECENT.minus(90, ChronoUnit.DAYS);
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private DeviceArchiveRepository deviceArchiveRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private List<Device> devices;
+
+    @BeforeEach
+    void setUp() {
+        devices = deviceRepository.saveAllAndFlush(List.of(
+                device("Galaxy S8", "Samsung", DeviceState.INACTIVE, OLD),
+                device("Pixel 2", "Google", DeviceState.INACTIVE, OLD),
+                device("Galaxy S24", "Samsung", DeviceState.INACTIVE, RECENT),
+                device("Galaxy S9", "Samsung", DeviceState.AVAILABLE, OLD),
+                device("Galaxy S7", "Samsung", DeviceState.INACTIVE, OLD)));
+    }
+
+    @Test
+    void shouldArchiveOnlyOldInactiveDevicesInChunks() {
+        assertThat(deviceArchiveRepository.archive(CUTOFF, 2, RECENT)).isEqualTo(2);
+        assertThat(deviceArchiveRepository.archive(CUTOFF, 2, RECENT)).isEqualTo(1);
+        assertThat(deviceArchiveRepository.archive(CUTOFF, 2, RECENT)).isZero();
+
+        assertThat(liveNames()).containsExactlyInAnyOrder("Galaxy S24", "Galaxy S9");
+        DeviceResponse archived = deviceArchiveRepository.findById(devices.get(0).getId()).orElseThrow();
+        assertThat(archived).isEqualTo(DeviceResponse.from(devices.get(0)));
+    }
+
+    @Test
+    void shouldRestoreArchivedDevicesUnchanged() {
+        deviceArchiveRepository.archive(CUTOFF, 10, RECENT);
+        Long id = devices.get(1).getId();
+
+        assertThat(deviceArchiveRepository.restore(List.of(id, devices.get(3).getId(), -1L))).isEqualTo(1);
+
+        assertThat(deviceArchiveRepository.findById(id)).isEmpty();
+        entityManager.clear();
+        assertThat(deviceRepository.findResponseById(id)).contains(DeviceResponse.from(devices.get(1)));
+    }
+
+    @Test
+    void shouldPageArchivedDevicesByCreationTime() {
+        deviceArchiveRepository.archive(CUTOFF, 10, RECENT);
+
+        List<DeviceResponse> first = deviceArchiveRepository.findResponses(
+                "Samsung", null, DeviceSortOrder.CREATION_TIME_DESC, null, 1);
+        assertThat(deviceArchiveRepository.listVersion("Samsung", null).count()).isEqualTo(2);
+        // the cursor row leaving the archive must not end the paging
+        deviceArchiveRepository.restore(List.of(first.getLast().id()));
+        List<DeviceResponse> second = deviceArchiveRepository.findResponses("Samsung", null,
+                DeviceSortOrder.CREATION_TIME_DESC, DeviceCursor.after(first.getLast(), DeviceSortOrder.CREATION_TIME_DESC), 10);
+
+        assertThat(first).extracting(DeviceResponse::name).containsExactly("Galaxy S7");
+        assertThat(second).extracting(DeviceResponse::name).containsExactly("Galaxy S8");
+    }
+
+    private List<String> liveNames() {
+        // archiving bypasses the persistence context, which still holds the devices as saved
+        entityManager.clear();
+        return deviceRepository.findAll().stream().map(Device::getName).toList();
+    }
+
+    private static Device device(String name, String brand, DeviceState state, Instant lastModifiedTime) {
+        Device device = new Device();
+        device.setName(name);
+        device.setBrand(brand);
+        device.setState(state);
+        device.setCreationTime(lastModifiedTime);
+        device.setLastModifiedTime(lastModifiedTime);
+        return device;
+    }
+}
@@ -0,0 +1,94 @@
+package com.ricardo.takehome.devices.repository;
+
+import com.ricardo.takehome.devices.model.Device;
+import com.ricardo.takehome.devices.model.DeviceState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(DeviceClaimRepository.class)
+class DeviceClaimRepositoryTest {
+
+    private static final Instant CREATED = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.MICROS);
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private DeviceClaimRepository deviceClaimRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private List<Device> devices;
+
+    @BeforeEach
+    void setUp() {
+        devices = deviceRepository.saveAllAndFlush(List.of(
+                device("Galaxy S24", "Samsung", DeviceState.AVAILABLE),
+                device("Pixel 9", "Google", DeviceState.AVAILABLE),
+                device("Galaxy Tab", "Samsung", DeviceState.IN_USE),
+                device("Galaxy A5", "Samsung", DeviceState.AVAILABLE),
+                device("Galaxy Z", "Samsung", DeviceState.AVAILABLE)));
+    }
+
+    @Test
+    void shouldClaimLowestAvailableDevicesOfBrand() {
+        List<DeviceStateChange> claimed = deviceClaimRepository.claim(2, "Samsung", NOW);
+
+        assertThat(claimed).extracting(change -> change.after().name()).containsExactly("Galaxy S24", "Galaxy A5");
+        DeviceStateChange first = claimed.get(0);
+        assertThat(first.after().state()).isEqualTo(DeviceState.IN_USE);
+        assertThat(first.after().version()).isEqualTo(first.before().version() + 1);
+        assertThat(first.after().lastModifiedTime()).isEqualTo(NOW);
+        assertThat(first.before().state()).isEqualTo(DeviceState.AVAILABLE);
+        assertThat(first.before().lastModifiedTime()).isEqualTo(CREATED);
+    }
+
+    @Test
+    void shouldClaimOnlyWhatIsAvailable() {
+        assertThat(deviceClaimRepository.claim(10, null, NOW)).hasSize(4);
+        assertThat(deviceClaimRepository.claim(10, null, NOW)).isEmpty();
+        assertThat(deviceStates()).containsOnly(DeviceState.IN_USE);
+    }
+
+    @Test
+    void shouldReleaseOnlyDevicesInUse() {
+        Long inUse = devices.get(2).getId();
+        Long available = devices.get(1).getId();
+
+        List<DeviceStateChange> released = deviceClaimRepository.release(List.of(inUse, available, -1L), NOW);
+
+        assertThat(released).extracting(change -> change.after().id()).containsExactly(inUse);
+        assertThat(released.get(0).after().state()).isEqualTo(DeviceState.AVAILABLE);
+        assertThat(released.get(0).before().state()).isEqualTo(DeviceState.IN_USE);
+        assertThat(deviceStates()).containsOnly(DeviceState.AVAILABLE);
+    }
+
+    private List<DeviceState> deviceStates() {
+        // the claims bypass the persistence context, which still holds the devices as saved
+        entityManager.clear();
+        return deviceRepository.findAll().stream().map(Device::getState).toList();
+    }
+
+    private static Device device(String name, String brand, DeviceState state) {
+        Device device = new Device();
+        device.setName(name);
+        device.setBrand(brand);
+        device.setState(state);
+        device.setCreationTime(CREATED);
+        device.setLastModifiedTime(CREATED);
+        return device;
+    }
+}
@@ -0,0 +1,112 @@
+package com.ricardo.takehome.devices.repository;
+
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.model.Device;
+import com.ricardo.takehome.devices.model.DeviceState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class DeviceRepositoryTest {
+    private static final Instant BASE_TIME = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    private List<Device> devices;
+
+    @BeforeEach
+    void setUp() {
+        devices = deviceRepository.saveAll(List.of(
+                device("Alpha", "Acme", DeviceState.AVAILABLE, 3),
+                device("Beta", "Acme", DeviceState.IN_USE, 1),
+                device("Gamma", "Globex", DeviceState.AVAILABLE, 2),
+                device("Delta", "Acme", DeviceState.AVAILABLE, 2)));
+        deviceRepository.flush();
+    }
+
+    @Test
+    void shouldCombineBrandAndStateFilters() {
+        List<Device> result = page("Acme", DeviceState.AVAILABLE, DeviceSortOrder.ID_ASC, null, 10);
+
+        assertThat(result).extracting(Device::getName).containsExactly("Alpha", "Delta");
+    }
+
+    @Test
+    void shouldPageByIdAfterCursor() {
+        List<Device> first = page(null, null, DeviceSortOrder.ID_ASC, null, 2);
+        List<Device> second = page(null, null, DeviceSortOrder.ID_ASC, first.getLast(), 2);
+
+        assertThat(first).extracting(Device::getName).containsExactly("Alpha", "Beta");
+        assertThat(second).extracting(Device::getName).containsExactly("Gamma", "Delta");
+    }
+
+    @Test
+    void shouldPageByCreationTimeDescendingWithIdTieBreak() {
+        List<Device> first = page(null, null, DeviceSortOrder.CREATION_TIME_DESC, null, 2);
+        List<Device> second = page(null, null, DeviceSortOrder.CREATION_TIME_DESC, first.getLast(), 2);
+
+        assertThat(first).extracting(Device::getName).containsExactly("Alpha", "Delta");
+        assertThat(second).extracting(Device::getName).containsExactly("Gamma", "Beta");
+    }
+
+    @Test
+    void shouldKeepPagingByCreationTimeAfterCursorDeviceIsDeleted() {
+        List<Device> first = page(null, null, DeviceSortOrder.CREATION_TIME_ASC, null, 2);
+        deviceRepository.delete(first.getLast());
+        deviceRepository.flush();
+
+        List<Device> second = page(null, null, DeviceSortOrder.CREATION_TIME_ASC, first.getLast(), 2);
+
+        assertThat(first).extracting(Device::getName).containsExactly("Beta", "Gamma");
+        assertThat(second).extracting(Device::getName).containsExactly("Delta", "Alpha");
+    }
+
+    @Test
+    void shouldProjectPagesIntoResponsesWithSameFiltersAndOrder() {
+        Device alpha = devices.getFirst();
+        DeviceCursor afterAlpha = new DeviceCursor(alpha.getId(), alpha.getCreationTime());
+        List<DeviceResponse> result = deviceRepository.findResponses(
+                DeviceSpecifications.matching("Acme", null, afterAlpha, DeviceSortOrder.CREATION_TIME_DESC),
+                DeviceSortOrder.CREATION_TIME_DESC.toSort(), 10);
+
+        assertThat(result).extracting(DeviceResponse::name).containsExactly("Delta", "Beta");
+        assertThat(result.getFirst().id()).isEqualTo(devices.get(3).getId());
+        assertThat(result.getFirst().version()).isZero();
+    }
+
+    @Test
+    void shouldProjectSingleDeviceIntoResponse() {
+        Device gamma = devices.get(2);
+
+        // timestamps come back at database precision, so compare the rest
+        assertThat(deviceRepository.findResponseById(gamma.getId())).get()
+                .extracting(DeviceResponse::id, DeviceResponse::name, DeviceResponse::brand, DeviceResponse::state,
+                        DeviceResponse::creationTime)
+                .containsExactly(gamma.getId(), "Gamma", "Globex", DeviceState.AVAILABLE, gamma.getCreationTime());
+        assertThat(deviceRepository.findResponseById(-1L)).isEmpty();
+    }
+
+    private List<Device> page(String brand, DeviceState state, DeviceSortOrder order, Device after, int limit) {
+        DeviceCursor cursor = after != null ? new DeviceCursor(after.getId(), after.getCreationTime()) : null;
+        return deviceRepository.findBy(
+                DeviceSpecifications.matching(brand, state, cursor, order),
+                query -> query.sortBy(order.toSort()).limit(limit).all());
+    }
+
+    private static Device device(String name, String brand, DeviceState state, int minutesAfterBase) {
+        Device device = new Device();
+        device.setName(name);
+        device.setBrand(brand);
+        device.setState(state);
+        device.setCreationTime(BASE_TIME.plusSeconds(60L * minutesAfterBase));
+        return device;
+    }
+}
@@ -0,0 +1,79 @@
+package com.ricardo.takehome.devices.repository;
+
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.model.Device;
+import com.ricardo.takehome.devices.model.DeviceState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(DeviceSearchRepository.class)
+class DeviceSearchRepositoryTest {
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private DeviceSearchRepository deviceSearchRepository;
+
+    @BeforeEach
+    void setUp() {
+        deviceRepository.saveAll(List.of(
+                device("Galaxy S24", "Samsung"),
+                device("Pixel 9", "Google"),
+                device("Galaxy Tab", "Samsung"),
+                device("Nexus", "Galaxy Labs"),
+                device("Mini Galaxy", "Acme"),
+                device("100% Phone", "Acme")));
+        deviceRepository.flush();
+    }
+
+    @Test
+    void shouldRankNamePrefixThenBrandPrefixThenSubstring() {
+        List<DeviceResponse> result = deviceSearchRepository.search(" GALAXY ", 0, 10);
+
+        assertThat(result).extracting(DeviceResponse::name)
+                .containsExactly("Galaxy S24", "Galaxy Tab", "Nexus", "Mini Galaxy");
+    }
+
+    @Test
+    void shouldOnlyMatchPrefixesForShortQueries() {
+        assertThat(deviceSearchRepository.search("ax", 0, 10)).isEmpty();
+        assertThat(deviceSearchRepository.search("sa", 0, 10)).extracting(DeviceResponse::name)
+                .containsExactly("Galaxy S24", "Galaxy Tab");
+    }
+
+    @Test
+    void shouldPageThroughRankedResults() {
+        List<DeviceResponse> first = deviceSearchRepository.search("galaxy", 0, 2);
+        List<DeviceResponse> second = deviceSearchRepository.search("galaxy", 2, 2);
+
+        assertThat(first).extracting(DeviceResponse::name).containsExactly("Galaxy S24", "Galaxy Tab");
+        assertThat(second).extracting(DeviceResponse::name).containsExactly("Nexus", "Mini Galaxy");
+    }
+
+    @Test
+    void shouldTreatLikeWildcardsLiterally() {
+        assertThat(deviceSearchRepository.search("100%", 0, 10)).extracting(DeviceResponse::name)
+                .containsExactly("100% Phone");
+        assertThat(deviceSearchRepository.search("_", 0, 10)).isEmpty();
+    }
+
+    private static Device device(String name, String brand) {
+        Device device = new Device();
+        device.setName(name);
+        device.setBrand(brand);
+        device.setState(DeviceState.AVAILABLE);
+        device.setCreationTime(Instant.now());
+        device.setLastModifiedTime(device.getCreationTime());
+        return device;
+    }
+}
@@ -0,0 +1,136 @@
+package com.ricardo.takehome.devices.service;
+
+import com.ricardo.takehome.devices.dto.BatchItemResult;
+import com.ricardo.takehome.devices.dto.BatchUpdateDeviceRequest;
+import com.ricardo.takehome.devices.dto.CreateDeviceRequest;
+import com.ricardo.takehome.devices.model.Device;
+import com.ricardo.takehome.devices.model.DeviceState;
+import com.ricardo.takehome.devices.repository.DeviceArchiveRepository;
+import com.ricardo.takehome.devices.repository.DeviceRepository;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceBatchServiceTest {
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Mock
+    private DeviceRepository deviceRepository;
+
+    @Mock
+    private DeviceArchiveRepository deviceArchiveRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private DeviceBatchService deviceBatchService;
+
+    @BeforeEach
+    void setUp() {
+        deviceBatchService = new DeviceBatchService(deviceRepository, deviceArchiveRepository, VALIDATOR, eventPublisher);
+    }
+
+    @Test
+    void shouldCreateValidItemsAndReportInvalidOnes() {
+        when(deviceRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Device> devices = new ArrayList<>(invocation.getArgument(0));
+            for (int i = 0; i < devices.size(); i++) {
+                devices.get(i).setId(10L + i);
+            }
+            return devices;
+        });
+
+        List<BatchItemResult> results = deviceBatchService.createAll(List.of(
+                new CreateDeviceRequest("Device A", "Brand", DeviceState.AVAILABLE),
+                new CreateDeviceRequest("", "Brand", DeviceState.AVAILABLE),
+                new CreateDeviceRequest("Device C", "Brand", DeviceState.INACTIVE)));
+
+        assertThat(results).extracting(BatchItemResult::status).containsExactly(201, 400, 201);
+        assertThat(results.get(0).device().id()).isEqualTo(10L);
+        assertThat(results.get(1).error().message()).contains("name");
+        assertThat(results.get(2).device().id()).isEqualTo(11L);
+        verify(eventPublisher, times(2)).publishEvent(any(DeviceChangedEvent.class));
+    }
+
+    @Test
+    void shouldEnforceInUseRuleForEachUpdatedItem() {
+        Device available = device(1L, DeviceState.AVAILABLE);
+        Device inUse = device(2L, DeviceState.IN_USE);
+        when(deviceRepository.findAllById(List.of(1L, 2L, 3L))).thenReturn(List.of(available, inUse));
+
+        List<BatchItemResult> results = deviceBatchService.updateAll(List.of(
+                new BatchUpdateDeviceRequest(1L, "Renamed", null, null),
+                new BatchUpdateDeviceRequest(2L, "Renamed", null, null),
+                new BatchUpdateDeviceRequest(3L, null, null, DeviceState.INACTIVE)));
+
+        assertThat(results).extracting(BatchItemResult::status).containsExactly(200, 409, 404);
+        assertThat(available.getName()).isEqualTo("Renamed");
+        assertThat(inUse.getName()).isEqualTo("Device 2");
+        verify(deviceRepository).saveAll(List.of(available));
+    }
+
+    @Test
+    void shouldSkipDevicesModifiedSinceTheGivenInstants() {
+        Instant received = Instant.now();
+        Device unchanged = device(1L, DeviceState.AVAILABLE);
+        unchanged.setLastModifiedTime(received.minusSeconds(1));
+        Device patched = device(2L, DeviceState.AVAILABLE);
+        patched.setLastModifiedTime(received.plusSeconds(1));
+        when(deviceRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(unchanged, patched));
+
+        List<BatchItemResult> results = deviceBatchService.updateAll(List.of(
+                new BatchUpdateDeviceRequest(1L, null, null, DeviceState.IN_USE),
+                new BatchUpdateDeviceRequest(2L, null, null, DeviceState.IN_USE)), List.of(received, received));
+
+        assertThat(results).extracting(BatchItemResult::status).containsExactly(200, 412);
+        assertThat(patched.getState()).isEqualTo(DeviceState.AVAILABLE);
+        verify(deviceRepository).saveAll(List.of(unchanged));
+    }
+
+    @Test
+    void shouldDeleteOnlyDevicesThatCanBeDeleted() {
+        when(deviceRepository.findAllById(List.of(1L, 2L, 3L)))
+                .thenReturn(List.of(device(1L, DeviceState.AVAILABLE), device(2L, DeviceState.IN_USE)));
+
+        List<BatchItemResult> results = deviceBatchService.deleteAll(List.of(1L, 2L, 3L));
+
+        assertThat(results).extracting(BatchItemResult::status).containsExactly(204, 409, 404);
+        verify(deviceRepository).deleteAllByIdInBatch(Set.of(1L));
+        verify(eventPublisher, times(1)).publishEvent(any(DeviceChangedEvent.class));
+    }
+
+    @Test
+    void shouldNotDeleteWhenNoItemQualifies() {
+        when(deviceRepository.findAllById(List.of(2L))).thenReturn(List.of(device(2L, DeviceState.IN_USE)));
+
+        deviceBatchService.deleteAll(List.of(2L));
+
+        verify(deviceRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    private static Device device(Long id, DeviceState state) {
+        Device device = new Device();
+        device.setId(id);
+        device.setName("Device " + id);
+        device.setBrand("Brand");
+        device.setState(state);
+        device.setCreationTime(Instant.now());
+        return device;
+    }
+}
@@ -1,24 +1,37 @@
 package com.ricardo.takehome.devices.service;
 
+import com.ricardo.takehome.devices.cache.DeviceCache;
 import com.ricardo.takehome.devices.dto.CreateDeviceRequest;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
 import com.ricardo.takehome.devices.dto.UpdateDeviceRequest;
+import com.ricardo.takehome.devices.events.DeviceEventLog;
 import com.ricardo.takehome.devices.model.Device;
 import com.ricardo.takehome.devices.model.DeviceState;
+import com.ricardo.takehome.devices.repository.DeviceArchiveRepository;
+import com.ricardo.takehome.devices.repository.DeviceClaimRepository;
+import com.ricardo.takehome.devices.repository.DeviceListVersion;
 import com.ricardo.takehome.devices.repository.DeviceRepository;
+import com.ricardo.takehome.devices.repository.DeviceStateChange;
+import com.ricardo.takehome.devices.repository.DeviceStreamRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,6 +39,24 @@ class DeviceServiceTest {
     @Mock
     private DeviceRepository deviceRepository;
 
+    @Mock
+    private DeviceStreamRepository deviceStreamRepository;
+
+    @Mock
+    private DeviceClaimRepository deviceClaimRepository;
+
+    @Mock
+    private DeviceArchiveRepository deviceArchiveRepository;
+
+    @Mock
+    private DeviceEventLog deviceEventLog;
+
+    @Mock
+    private DeviceCache deviceCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private DeviceService deviceService;
 
@@ -39,6 +70,7 @@ class DeviceServiceTest {
         sampleDevice.setBrand("Test Brand");
         sampleDevice.setState(DeviceState.AVAILABLE);
         sampleDevice.setCreationTime(Instant.now());
+        sampleDevice.setVersion(3L);
     }
 
     @Test
@@ -72,6 +104,30 @@ class DeviceServiceTest {
                 .hasMessageContaining("not Found");
     }
 
+    @Test
+    void shouldFallBackToArchiveWhenNotFound() {
+        sampleDevice.setState(DeviceState.INACTIVE);
+        when(deviceRepository.findById(1L)).thenReturn(Optional.empty());
+        when(deviceArchiveRepository.findById(1L)).thenReturn(Optional.of(DeviceResponse.from(sampleDevice)));
+
+        Device result = deviceService.getById(1L);
+
+        assertThat(DeviceResponse.from(result)).isEqualTo(DeviceResponse.from(sampleDevice));
+        verify(deviceArchiveRepository, never()).restore(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldLoadResponseThroughCache() {
+        when(deviceRepository.findResponseById(1L)).thenReturn(Optional.of(DeviceResponse.from(sampleDevice)));
+        when(deviceCache.get(eq(1L), any())).thenAnswer(invocation ->
+                invocation.getArgument(1, Function.class).apply(1L));
+
+        DeviceResponse result = deviceService.getResponseById(1L);
+
+        assertThat(result).isEqualTo(DeviceResponse.from(sampleDevice));
+    }
+
     @Test
     void shouldReturnAllDevices() {
         when(deviceRepository.findAll()).thenReturn(List.of(sampleDevice));
@@ -101,11 +157,24 @@ class DeviceServiceTest {
         assertThat(result.get(0).getState()).isEqualTo(DeviceState.AVAILABLE);
     }
 
+    @Test
+    void shouldVersionListsAtTheEventLogPositionReadFirst() {
+        when(deviceEventLog.lastPosition()).thenReturn(42L);
+        when(deviceStreamRepository.listVersion("Test Brand", null)).thenReturn(new DeviceListVersion(3, null));
+
+        DeviceListVersion version = deviceService.getListVersion("Test Brand", null);
+
+        assertThat(version).isEqualTo(new DeviceListVersion(3, null, 42));
+        InOrder order = inOrder(deviceEventLog, deviceStreamRepository);
+        order.verify(deviceEventLog).lastPosition();
+        order.verify(deviceStreamRepository).listVersion("Test Brand", null);
+    }
+
     @Test
     void shouldUpdateWhenNotInUse() {
         sampleDevice.setState(DeviceState.AVAILABLE);
         when(deviceRepository.findById(1L)).thenReturn(Optional.of(sampleDevice));
-        when(deviceRepository.save(any(Device.class))).thenReturn(sampleDevice);
+        when(deviceRepository.saveAndFlush(any(Device.class))).thenReturn(sampleDevice);
 
         UpdateDeviceRequest request = new UpdateDeviceRequest("New Name", "New Brand", DeviceState.INACTIVE);
         Device result = deviceService.update(1L, request);
@@ -113,18 +182,67 @@ class DeviceServiceTest {
         assertThat(result.getName()).isEqualTo("New Name");
         assertThat(result.getBrand()).isEqualTo("New Brand");
         assertThat(result.getState()).isEqualTo(DeviceState.INACTIVE);
+
+        ArgumentCaptor<DeviceChangedEvent> event = ArgumentCaptor.forClass(DeviceChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().type()).isEqualTo(DeviceChangedEvent.ChangeType.UPDATED);
+        assertThat(event.getValue().before().name()).isEqualTo("Test Device");
+        assertThat(event.getValue().after().name()).isEqualTo("New Name");
     }
 
     @Test
     void shouldAllowStateUpdateWhenInUse() {
         sampleDevice.setState(DeviceState.IN_USE);
-        when(deviceRepository.findById(1L)).thenReturn(Optional.of(sampleDevice));
-        when(deviceRepository.save(any(Device.class))).thenReturn(sampleDevice);
+        readThroughCache();
+        when(deviceRepository.findResponseById(1L)).thenReturn(Optional.of(DeviceResponse.from(sampleDevice)));
+        when(deviceRepository.updateStateIfVersion(eq(1L), eq(DeviceState.AVAILABLE), eq(3L), any(Instant.class))).thenReturn(1);
 
         UpdateDeviceRequest request = new UpdateDeviceRequest(null, null, DeviceState.AVAILABLE);
         Device result = deviceService.update(1L, request);
 
         assertThat(result.getState()).isEqualTo(DeviceState.AVAILABLE);
+        assertThat(result.getVersion()).isEqualTo(4L);
+        verify(deviceRepository, never()).saveAndFlush(any(Device.class));
+    }
+
+    @Test
+    void shouldUpdateStateWithSingleConditionalUpdateWhenCached() {
+        when(deviceCache.get(eq(1L), any())).thenReturn(DeviceResponse.from(sampleDevice));
+        when(deviceRepository.updateStateIfVersion(eq(1L), eq(DeviceState.IN_USE), eq(3L), any(Instant.class))).thenReturn(1);
+
+        Device result = deviceService.update(1L, new UpdateDeviceRequest(null, null, DeviceState.IN_USE), 3L);
+
+        assertThat(result.getState()).isEqualTo(DeviceState.IN_USE);
+        assertThat(result.getName()).isEqualTo("Test Device");
+        verify(deviceRepository, never()).findById(any());
+        ArgumentCaptor<DeviceChangedEvent> event = ArgumentCaptor.forClass(DeviceChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().before().state()).isEqualTo(DeviceState.AVAILABLE);
+        assertThat(event.getValue().after().version()).isEqualTo(4L);
+    }
+
+    @Test
+    void shouldFallBackToReadModifyWriteWhenCachedVersionIsStale() {
+        DeviceResponse stale = new DeviceResponse(1L, "Test Device", "Test Brand", DeviceState.AVAILABLE, null, 2L, null);
+        when(deviceCache.get(eq(1L), any())).thenReturn(stale);
+        when(deviceRepository.updateStateIfVersion(eq(1L), eq(DeviceState.INACTIVE), eq(2L), any(Instant.class))).thenReturn(0);
+        when(deviceRepository.findById(1L)).thenReturn(Optional.of(sampleDevice));
+        when(deviceRepository.saveAndFlush(any(Device.class))).thenReturn(sampleDevice);
+
+        Device result = deviceService.update(1L, new UpdateDeviceRequest(null, null, DeviceState.INACTIVE));
+
+        assertThat(result.getState()).isEqualTo(DeviceState.INACTIVE);
+        verify(deviceRepository).saveAndFlush(sampleDevice);
+    }
+
+    @Test
+    void shouldRejectUpdateWhenIfMatchVersionIsStale() {
+        when(deviceRepository.findById(1L)).thenReturn(Optional.of(sampleDevice));
+
+        assertThatThrownBy(() -> deviceService.update(1L, new UpdateDeviceRequest("New Name", null, null), 2L))
+                .isInstanceOf(DeviceVersionMismatchException.class);
+        verify(deviceRepository, never()).saveAndFlush(any(Device.class));
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -137,6 +255,7 @@ class DeviceServiceTest {
         assertThatThrownBy(() -> deviceService.update(1L, request))
                 .isInstanceOf(IllegalStateException.class)
                 .hasMessageContaining("in use");
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -159,6 +278,7 @@ class DeviceServiceTest {
         deviceService.delete(1L);
 
         verify(deviceRepository).deleteById(sampleDevice.getId());
+        verify(eventPublisher).publishEvent(DeviceChangedEvent.deleted(DeviceResponse.from(sampleDevice)));
     }
 
     @Test
@@ -170,6 +290,38 @@ class DeviceServiceTest {
                 .isInstanceOf(IllegalStateException.class)
                 .hasMessageContaining("in use");
 
-        verify(deviceRepository, never()).delete(any());
+        verify(deviceRepository, never()).delete(any(Device.class));
+    }
+
+    @Test
+    void shouldRestoreArchivedDeviceBeforeDeleting() {
+        sampleDevice.setState(DeviceState.INACTIVE);
+        when(deviceRepository.findById(1L)).thenReturn(Optional.empty(), Optional.of(sampleDevice));
+        when(deviceArchiveRepository.restore(List.of(1L))).thenReturn(1);
+
+        deviceService.delete(1L);
+
+        verify(deviceRepository).deleteById(1L);
+        verify(eventPublisher).publishEvent(DeviceChangedEvent.deleted(DeviceResponse.from(sampleDevice)));
+    }
+
+    @Test
+    void shouldPublishUpdateForEveryClaimedDevice() {
+        Instant created = Instant.parse("2025-01-01T00:00:00Z");
+        DeviceResponse before = new DeviceResponse(1L, "Test Device", "Test Brand", DeviceState.AVAILABLE, created, 3L, created);
+        DeviceResponse after = new DeviceResponse(1L, "Test Device", "Test Brand", DeviceState.IN_USE, created, 4L, Instant.now());
+        when(deviceClaimRepository.claim(eq(5), eq("Test Brand"), any(Instant.class)))
+                .thenReturn(List.of(new DeviceStateChange(before, after)));
+
+        List<DeviceResponse> claimed = deviceService.claim(5, "Test Brand");
+
+        assertThat(claimed).isEqualTo(List.of(after));
+        verify(eventPublisher).publishEvent(DeviceChangedEvent.updated(before, after));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readThroughCache() {
+        when(deviceCache.get(any(), any())).thenAnswer(invocation ->
+                invocation.getArgument(1, Function.class).apply(invocation.getArgument(0)));
     }
-}
\ No newline at end of file
+}
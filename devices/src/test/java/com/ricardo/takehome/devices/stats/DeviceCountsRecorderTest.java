@@ -0,0 +1,69 @@
+package com.ricardo.takehome.devices.stats;
+
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.model.DeviceState;
+import com.ricardo.takehome.devices.service.DeviceChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class DeviceCountsRecorderTest {
+
+    private final DeviceCounts deviceCounts = mock(DeviceCounts.class);
+    private final DeviceCountsRecorder recorder = new DeviceCountsRecorder(deviceCounts);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldMoveCountBetweenStatesOnTransition() {
+        recorder.onDeviceChanged(DeviceChangedEvent.updated(
+                device(1L, "Acme", DeviceState.AVAILABLE), device(1L, "Acme", DeviceState.IN_USE)));
+
+        verify(deviceCounts).add(Map.of(
+                new BrandState("Acme", DeviceState.AVAILABLE), -1L,
+                new BrandState("Acme", DeviceState.IN_USE), 1L));
+    }
+
+    @Test
+    void shouldIgnoreUpdatesThatKeepBrandAndState() {
+        recorder.onDeviceChanged(DeviceChangedEvent.updated(
+                device(1L, "Acme", DeviceState.AVAILABLE), device(1L, "Acme", DeviceState.AVAILABLE)));
+
+        verifyNoInteractions(deviceCounts);
+    }
+
+    @Test
+    void shouldApplySummedDeltasOnceBeforeCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        recorder.onDeviceChanged(DeviceChangedEvent.created(device(1L, "Acme", DeviceState.AVAILABLE)));
+        recorder.onDeviceChanged(DeviceChangedEvent.created(device(2L, "Acme", DeviceState.AVAILABLE)));
+        recorder.onDeviceChanged(DeviceChangedEvent.deleted(device(3L, "Globex", DeviceState.INACTIVE)));
+        verifyNoInteractions(deviceCounts);
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.beforeCommit(false);
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        verify(deviceCounts).add(Map.of(
+                new BrandState("Acme", DeviceState.AVAILABLE), 2L,
+                new BrandState("Globex", DeviceState.INACTIVE), -1L));
+    }
+
+    private static DeviceResponse device(Long id, String brand, DeviceState state) {
+        return new DeviceResponse(id, "Device " + id, brand, state, null, 0L, null);
+    }
+}
@@ -0,0 +1,157 @@
+package com.ricardo.takehome.devices.transfer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.ricardo.takehome.devices.dto.DeviceImportError;
+import com.ricardo.takehome.devices.dto.DeviceImportProgress;
+import com.ricardo.takehome.devices.model.Device;
+import com.ricardo.takehome.devices.model.DeviceState;
+import com.ricardo.takehome.devices.repository.DeviceRepository;
+import com.ricardo.takehome.devices.repository.DeviceStreamRepository;
+import com.ricardo.takehome.devices.service.DeviceChangedEvent;
+import com.ricardo.takehome.devices.service.DeviceChangedEvent.ChangeType;
+import com.ricardo.takehome.devices.stats.BrandState;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(DeviceStreamRepository.class)
+class DeviceTransferServiceTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DeviceStreamRepository deviceStreamRepository;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<DeviceImportError> errors = new ArrayList<>();
+    private final List<DeviceImportProgress> progress = new ArrayList<>();
+    private final DeviceImportListener listener = new DeviceImportListener() {
+        @Override
+        public void rejected(DeviceImportError error) {
+            errors.add(error);
+        }
+
+        @Override
+        public void progress(DeviceImportProgress update) {
+            progress.add(update);
+        }
+    };
+
+    private final List<DeviceChangedEvent> events = new ArrayList<>();
+    private DeviceTransferService service;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+        ApplicationEventPublisher eventPublisher = event -> events.add((DeviceChangedEvent) event);
+        service = new DeviceTransferService(
+                new DeviceBulkCopy(jdbcTemplate, deviceStreamRepository, false),
+                deviceStreamRepository,
+                eventPublisher,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                objectMapper,
+                new TransactionTemplate(transactionManager),
+                2);
+    }
+
+    @Test
+    void shouldImportValidCsvRowsInChunksAndReportRejectedOnes() throws IOException {
+        String csv = """
+                state,name,brand
+                AVAILABLE,"Phone, 5G",Acme
+                IN_USE,Tablet,
+
+                BROKEN,Laptop,Acme
+                IN_USE,"Watch ""S\""",Globex
+                AVAILABLE,Router,Acme
+                """;
+
+        DeviceImportProgress result = service.importDevices(service.openCsv(stream(csv)), listener);
+
+        assertThat(result).isEqualTo(new DeviceImportProgress(5, 3, 2, true));
+        assertThat(progress).containsExactly(new DeviceImportProgress(4, 2, 2, false), result);
+        assertThat(errors).containsExactly(
+                new DeviceImportError(3, "brand: must not be blank"),
+                new DeviceImportError(5, "state: must be one of [AVAILABLE, IN_USE, INACTIVE]"));
+        assertThat(deviceRepository.findAll()).extracting(Device::getName)
+                .containsExactlyInAnyOrder("Phone, 5G", "Watch \"S\"", "Router");
+        assertThat(events).allSatisfy(event -> assertThat(event.type()).isEqualTo(ChangeType.CREATED))
+                .extracting(event -> new BrandState(event.after().brand(), event.after().state()))
+                .containsExactlyInAnyOrder(new BrandState("Acme", DeviceState.AVAILABLE),
+                        new BrandState("Globex", DeviceState.IN_USE), new BrandState("Acme", DeviceState.AVAILABLE));
+        assertThat(events).extracting(DeviceChangedEvent::id)
+                .containsExactlyInAnyOrderElementsOf(deviceRepository.findAll().stream().map(Device::getId).toList());
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM device_import_rows", Long.class)).isZero();
+    }
+
+    @Test
+    void shouldRejectCsvWithoutRequiredColumnsBeforeImporting() {
+        assertThatThrownBy(() -> service.openCsv(stream("name,brand\nPhone,Acme\n")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldImportNdjsonIgnoringUnknownFieldsAndMalformedLines() throws IOException {
+        String ndjson = """
+                {"id":7,"name":"Phone","brand":"Acme","state":"IN_USE","version":3}
+                {"name":"Tablet",
+                {"name":"Laptop","brand":"Acme"}
+                """;
+
+        DeviceImportProgress result = service.importDevices(service.openNdjson(stream(ndjson)), listener);
+
+        assertThat(result).isEqualTo(new DeviceImportProgress(3, 1, 2, true));
+        assertThat(errors).extracting(DeviceImportError::line).containsExactly(2L, 3L);
+        assertThat(errors.get(1).error()).isEqualTo("state: must not be null");
+        assertThat(deviceRepository.findAll()).singleElement()
+                .satisfies(device -> assertThat(device.getState()).isEqualTo(DeviceState.IN_USE))
+                .satisfies(device -> assertThat(device.getVersion()).isZero());
+    }
+
+    @Test
+    void shouldExportCsvThatImportsBack() throws IOException {
+        service.importDevices(service.openCsv(stream("name,brand,state\nPhone,Acme,AVAILABLE\n")), listener);
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+
+        service.exportCsv(exported);
+
+        String csv = exported.toString(StandardCharsets.UTF_8);
+        List<String> lines = csv.lines().toList();
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).isEqualTo(DeviceBulkCopy.CSV_HEADER);
+        assertThat(lines.get(1)).contains(",Phone,Acme,AVAILABLE,");
+
+        DeviceImportProgress result = service.importDevices(service.openCsv(stream(csv)), listener);
+        assertThat(result.imported()).isEqualTo(1);
+        assertThat(deviceRepository.count()).isEqualTo(2);
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
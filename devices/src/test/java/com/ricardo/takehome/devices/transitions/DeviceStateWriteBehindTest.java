@@ -0,0 +1,189 @@
+package com.ricardo.takehome.devices.transitions;
+
+import com.ricardo.takehome.devices.config.AdmissionRejectedException;
+import com.ricardo.takehome.devices.dto.BatchItemResult;
+import com.ricardo.takehome.devices.dto.BatchUpdateDeviceRequest;
+import com.ricardo.takehome.devices.dto.DeviceResponse;
+import com.ricardo.takehome.devices.model.DeviceState;
+import com.ricardo.takehome.devices.service.DeviceBatchService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceStateWriteBehindTest {
+
+    @Mock
+    private DeviceBatchService deviceBatchService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DeviceStateWriteBehind writeBehind;
+
+    @AfterEach
+    void tearDown() {
+        if (writeBehind.isRunning()) {
+            writeBehind.stop();
+        }
+    }
+
+    @Test
+    void shouldCoalesceTransitionsPerDeviceIntoOneBatch() {
+        start(10, true);
+        when(deviceBatchService.updateAll(anyList(), anyList())).thenAnswer(invocation -> succeeded(invocation.getArgument(0)));
+
+        writeBehind.submit(1L, DeviceState.IN_USE);
+        writeBehind.submit(2L, DeviceState.INACTIVE);
+        writeBehind.submit(1L, DeviceState.AVAILABLE);
+        writeBehind.flush();
+
+        ArgumentCaptor<List<BatchUpdateDeviceRequest>> batch = ArgumentCaptor.captor();
+        verify(deviceBatchService).updateAll(batch.capture(), anyList());
+        assertThat(batch.getValue()).containsExactlyInAnyOrder(
+                new BatchUpdateDeviceRequest(1L, null, null, DeviceState.AVAILABLE),
+                new BatchUpdateDeviceRequest(2L, null, null, DeviceState.INACTIVE));
+        assertThat(writeBehind.pendingCount()).isZero();
+        assertThat(meterRegistry.counter("devices.write-behind.transitions", "outcome", "coalesced").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("devices.write-behind.transitions", "outcome", "applied").count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRefuseNewDevicesWhenFullButStillCoalesce() {
+        start(2, true);
+
+        writeBehind.submit(1L, DeviceState.IN_USE);
+        writeBehind.submit(2L, DeviceState.IN_USE);
+
+        assertThatThrownBy(() -> writeBehind.submit(3L, DeviceState.IN_USE))
+                .isInstanceOf(AdmissionRejectedException.class);
+        writeBehind.submit(1L, DeviceState.AVAILABLE);
+        assertThat(writeBehind.pendingCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldPutFailedBatchBackForNextFlush() {
+        start(10, true);
+        when(deviceBatchService.updateAll(anyList(), anyList()))
+                .thenThrow(new OptimisticLockingFailureException("concurrent update"))
+                .thenAnswer(invocation -> succeeded(invocation.getArgument(0)));
+
+        writeBehind.submit(1L, DeviceState.IN_USE);
+        writeBehind.flush();
+        assertThat(writeBehind.pendingCount()).isEqualTo(1);
+
+        writeBehind.flush();
+        assertThat(writeBehind.pendingCount()).isZero();
+    }
+
+    @Test
+    void shouldPutBackOnlyTheTransitionThatLostItsLock() {
+        start(10, true);
+        when(deviceBatchService.updateAll(anyList(), anyList())).thenAnswer(invocation -> {
+            List<BatchUpdateDeviceRequest> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(request -> request.id() == 2L)) {
+                throw new OptimisticLockingFailureException("concurrent update");
+            }
+            return succeeded(batch);
+        });
+        for (long id = 1; id <= 4; id++) {
+            writeBehind.submit(id, DeviceState.IN_USE);
+        }
+
+        writeBehind.flush();
+
+        assertThat(writeBehind.pendingCount()).isEqualTo(1);
+        assertThat(meterRegistry.counter("devices.write-behind.transitions", "outcome", "applied").count()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldOnlyApplyTransitionsToDevicesUnmodifiedSinceTheyWereReceived() {
+        start(10, true);
+        Instant before = Instant.now();
+        when(deviceBatchService.updateAll(anyList(), anyList())).thenReturn(List.of(
+                BatchItemResult.failure(0, 412, "PRECONDITION_FAILED", "Device was modified")));
+        writeBehind.submit(1L, DeviceState.IN_USE);
+
+        writeBehind.flush();
+
+        ArgumentCaptor<List<Instant>> receivedAt = ArgumentCaptor.captor();
+        verify(deviceBatchService).updateAll(anyList(), receivedAt.capture());
+        assertThat(receivedAt.getValue()).singleElement().satisfies(time -> assertThat(time).isAfterOrEqualTo(before));
+        assertThat(writeBehind.pendingCount()).isZero();
+        assertThat(meterRegistry.counter("devices.write-behind.transitions", "outcome", "stale").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotTreatTransitionReceivedDuringItsDevicesWriteAsStale() {
+        start(10, true);
+        Instant written = Instant.now().plusSeconds(60);
+        when(deviceBatchService.updateAll(anyList(), anyList())).thenAnswer(invocation -> {
+            // received while the previous transition of the same device is being written
+            writeBehind.submit(1L, DeviceState.AVAILABLE);
+            return List.of(BatchItemResult.success(0, 200,
+                    new DeviceResponse(1L, "Device 1", "Test Brand", DeviceState.IN_USE, null, 1L, written)));
+        });
+        writeBehind.submit(1L, DeviceState.IN_USE);
+
+        writeBehind.flush();
+
+        ArgumentCaptor<List<Instant>> receivedAt = ArgumentCaptor.captor();
+        when(deviceBatchService.updateAll(anyList(), receivedAt.capture())).thenAnswer(invocation -> succeeded(invocation.getArgument(0)));
+        writeBehind.flush();
+        assertThat(receivedAt.getValue()).containsExactly(written);
+    }
+
+    @Test
+    void shouldFlushPendingTransitionsOnStopOnlyWhenConfigured() {
+        start(10, false);
+        writeBehind.submit(1L, DeviceState.IN_USE);
+
+        writeBehind.stop();
+
+        verifyNoInteractions(deviceBatchService);
+        assertThatThrownBy(() -> writeBehind.submit(2L, DeviceState.IN_USE))
+                .isInstanceOf(AdmissionRejectedException.class);
+    }
+
+    @Test
+    void shouldWritePendingTransitionsOnStop() {
+        start(10, true);
+        when(deviceBatchService.updateAll(anyList(), anyList())).thenAnswer(invocation -> succeeded(invocation.getArgument(0)));
+        writeBehind.submit(1L, DeviceState.IN_USE);
+
+        writeBehind.stop();
+
+        verify(deviceBatchService).updateAll(eq(List.of(new BatchUpdateDeviceRequest(1L, null, null, DeviceState.IN_USE))), anyList());
+        assertThat(writeBehind.pendingCount()).isZero();
+    }
+
+    private void start(int capacity, boolean flushOnShutdown) {
+        // the scheduled flush never fires during a test; flushes are explicit
+        DeviceWriteBehindProperties properties = new DeviceWriteBehindProperties(
+                Duration.ofHours(1), capacity, 100, flushOnShutdown, Duration.ofSeconds(1));
+        writeBehind = new DeviceStateWriteBehind(deviceBatchService, properties, meterRegistry);
+        writeBehind.start();
+    }
+
+    private static List<BatchItemResult> succeeded(List<BatchUpdateDeviceRequest> batch) {
+        return IntStream.range(0, batch.size())
+                .mapToObj(i -> BatchItemResult.success(i, 200, null))
+                .toList();
+    }
+}